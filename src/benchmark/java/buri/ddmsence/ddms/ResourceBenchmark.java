@@ -0,0 +1,103 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms;
+
+import java.util.concurrent.TimeUnit;
+
+import nu.xom.Element;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buri.ddmsence.util.BenchmarkData;
+import buri.ddmsence.util.DDMSVersion;
+
+/**
+ * Benchmarks for building and rendering the test Resource of each supported DDMS version.
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceBenchmark {
+
+	@Param({ "2.0", "3.0", "3.1", "4.1", "5.0" })
+	public String version;
+
+	private Element _element;
+	private Resource _resource;
+	private Resource.Builder _builder;
+
+	/**
+	 * Parses the test Resource once, outside of the measured methods.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		_element = BenchmarkData.getTestResourceElement(version);
+		_resource = new Resource(_element);
+		_builder = new Resource.Builder(_resource);
+	}
+
+	@Benchmark
+	public Resource buildFromElement() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion(version);
+		return (new Resource(_element));
+	}
+
+	@Benchmark
+	public Resource commitBuilder() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion(version);
+		return (_builder.commit());
+	}
+
+	@Benchmark
+	public String toXML() {
+		return (_resource.toXML());
+	}
+
+	@Benchmark
+	public String toJSON() {
+		return (_resource.toJSON());
+	}
+
+	@Benchmark
+	public String toHTML() {
+		return (_resource.toHTML());
+	}
+
+	@Benchmark
+	public String toText() {
+		return (_resource.toText());
+	}
+}
@@ -0,0 +1,76 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.security.ism;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buri.ddmsence.util.DDMSVersion;
+
+/**
+ * Benchmarks for controlled vocabulary lookups. The token lookup is the common case, while the unknown value also
+ * falls through to the pattern checks.
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ISMVocabularyBenchmark {
+
+	@Param({ "2.0", "3.0", "3.1", "4.1", "5.0" })
+	public String version;
+
+	private DDMSVersion _version;
+
+	/**
+	 * Loads the controlled vocabularies once, outside of the measured methods.
+	 */
+	@Setup
+	public void setUp() {
+		_version = DDMSVersion.getVersionFor(version);
+		ISMVocabulary.enumContains(_version, ISMVocabulary.CVE_OWNER_PRODUCERS, "USA");
+	}
+
+	@Benchmark
+	public boolean enumContainsToken() {
+		return (ISMVocabulary.enumContains(_version, ISMVocabulary.CVE_OWNER_PRODUCERS, "USA"));
+	}
+
+	@Benchmark
+	public boolean enumContainsUnknown() {
+		return (ISMVocabulary.enumContains(_version, ISMVocabulary.CVE_DISSEMINATION_CONTROLS, "unknown"));
+	}
+}
@@ -0,0 +1,309 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two sets of JMH results and reports the change in speed and allocation for every benchmark.
+ *
+ * <p>
+ * Both files must be written by JMH with <code>-rf json</code>. Allocation is only reported when the results were
+ * gathered with <code>-prof gc</code>. The speed change is the change in throughput. For the time-per-operation modes
+ * (<code>avgt</code>, <code>sample</code> and <code>ss</code>) it is computed from the inverse of the primary score, so
+ * a negative change always means slower. Results gathered in different modes are not compared. A benchmark regresses
+ * when its speed drops, or its allocation per operation grows, by more than the threshold percentage. The exit status
+ * is 1 if any benchmark regressed.
+ * </p>
+ *
+ * <pre>
+ * java buri.ddmsence.util.BenchmarkComparison baseline.json current.json [thresholdPercent]
+ * </pre>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class BenchmarkComparison {
+
+	private static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+	private static final String THROUGHPUT_MODE = "thrpt";
+	private static final double DEFAULT_THRESHOLD_PERCENT = 10.0;
+	private static final String ROW_FORMAT = "%-70s %10s %14s %14s %9s %12s %12s %9s%n";
+
+	private Map<String, Score> _baseline;
+	private Map<String, Score> _current;
+	private double _thresholdPercent;
+
+	/**
+	 * Constructor
+	 *
+	 * @param baseline the baseline results
+	 * @param current the current results
+	 * @param thresholdPercent the percentage change which counts as a regression
+	 * @throws IOException if either file could not be read
+	 */
+	public BenchmarkComparison(File baseline, File current, double thresholdPercent) throws IOException {
+		_baseline = readScores(baseline);
+		_current = readScores(current);
+		_thresholdPercent = thresholdPercent;
+	}
+
+	/**
+	 * Entry point
+	 *
+	 * @param args the baseline file, the current file, and an optional threshold percentage
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison baseline.json current.json [thresholdPercent]");
+			System.exit(2);
+		}
+		double threshold = (args.length > 2 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD_PERCENT);
+		BenchmarkComparison comparison = new BenchmarkComparison(new File(args[0]), new File(args[1]), threshold);
+		int regressions = comparison.report(System.out);
+		System.exit(regressions == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Prints one row per benchmark in either set of results, followed by a summary line.
+	 *
+	 * @param out the stream to print to
+	 * @return the number of regressed benchmarks
+	 */
+	public int report(PrintStream out) {
+		Map<String, Score> keys = new TreeMap<String, Score>(_baseline);
+		keys.putAll(_current);
+		int regressions = 0;
+		out.printf(ROW_FORMAT, "Benchmark", "Unit", "Base score", "Curr score", "Speed", "Base B/op", "Curr B/op",
+			"Change");
+		for (String key : keys.keySet()) {
+			Score base = _baseline.get(key);
+			Score current = _current.get(key);
+			Double speedChange = getSpeedChange(base, current);
+			Double allocationChange = getChange(base == null ? null : base.getAllocation(), current == null ? null
+				: current.getAllocation());
+			boolean regressed = (speedChange != null && speedChange < -getThresholdPercent())
+				|| (allocationChange != null && allocationChange > getThresholdPercent());
+			if (regressed)
+				regressions++;
+			String unit = (current != null ? current.getUnit() : base.getUnit());
+			out.printf(ROW_FORMAT, (regressed ? "! " : "  ") + key, unit, format(base == null ? null : base.getScore()),
+				format(current == null ? null : current.getScore()), formatChange(speedChange),
+				format(base == null ? null : base.getAllocation()), format(current == null ? null
+					: current.getAllocation()), formatChange(allocationChange));
+		}
+		out.printf("%d of %d benchmarks regressed by more than %.1f%%.%n", regressions, keys.size(),
+			getThresholdPercent());
+		return (regressions);
+	}
+
+	/**
+	 * Reads the scores from a JMH JSON result file, keyed by benchmark name and parameters.
+	 *
+	 * @param file the file
+	 * @return the scores, in file order
+	 * @throws IOException if the file could not be read
+	 */
+	private static Map<String, Score> readScores(File file) throws IOException {
+		Map<String, Score> scores = new LinkedHashMap<String, Score>();
+		Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8);
+		try {
+			JsonArray results = new JsonParser().parse(reader).getAsJsonArray();
+			for (JsonElement element : results) {
+				JsonObject result = element.getAsJsonObject();
+				Double allocation = null;
+				if (result.has("secondaryMetrics")) {
+					for (Entry<String, JsonElement> metric : result.getAsJsonObject("secondaryMetrics").entrySet()) {
+						// Older versions of JMH prefix secondary metric names with a middle dot.
+						if (metric.getKey().endsWith(ALLOCATION_METRIC))
+							allocation = getScore(metric.getValue());
+					}
+				}
+				JsonElement primary = result.get("primaryMetric");
+				scores.put(getKey(result), new Score(result.get("mode").getAsString(), getScore(primary),
+					primary.getAsJsonObject().get("scoreUnit").getAsString(), allocation));
+			}
+		}
+		finally {
+			reader.close();
+		}
+		return (scores);
+	}
+
+	/**
+	 * Builds the key for a result from its short benchmark name and its parameters.
+	 *
+	 * @param result the JMH result
+	 * @return the key, such as <code>ResourceBenchmark.toXML(version=5.0)</code>
+	 */
+	private static String getKey(JsonObject result) {
+		String name = result.get("benchmark").getAsString();
+		int classStart = name.lastIndexOf('.', name.lastIndexOf('.') - 1);
+		StringBuilder key = new StringBuilder(name.substring(classStart + 1));
+		if (result.has("params")) {
+			key.append("(");
+			boolean first = true;
+			for (Entry<String, JsonElement> param : result.getAsJsonObject("params").entrySet()) {
+				if (!first)
+					key.append(",");
+				key.append(param.getKey()).append("=").append(param.getValue().getAsString());
+				first = false;
+			}
+			key.append(")");
+		}
+		return (key.toString());
+	}
+
+	/**
+	 * Returns the score of a metric.
+	 *
+	 * @param metric the JMH metric
+	 * @return the score
+	 */
+	private static double getScore(JsonElement metric) {
+		return (metric.getAsJsonObject().get("score").getAsDouble());
+	}
+
+	/**
+	 * Returns the percentage change in speed between two results, where a negative change is always slower.
+	 *
+	 * @param base the baseline result, or null
+	 * @param current the current result, or null
+	 * @return the change, or null if either result is missing or the two were gathered in different modes
+	 */
+	private static Double getSpeedChange(Score base, Score current) {
+		if (base == null || current == null || !base.getMode().equals(current.getMode())
+			|| !base.getUnit().equals(current.getUnit()))
+			return (null);
+		// A time per operation is the inverse of a throughput, so swapping the scores gives the change in throughput.
+		if (base.isThroughput())
+			return (getChange(base.getScore(), current.getScore()));
+		return (getChange(current.getScore(), base.getScore()));
+	}
+
+	/**
+	 * Returns the percentage change between two scores.
+	 *
+	 * @param base the baseline score, or null
+	 * @param current the current score, or null
+	 * @return the change, or null if either score is missing
+	 */
+	private static Double getChange(Double base, Double current) {
+		if (base == null || current == null || base.doubleValue() == 0)
+			return (null);
+		return ((current - base) * 100.0 / base);
+	}
+
+	/**
+	 * Formats a score for the report.
+	 */
+	private static String format(Double score) {
+		return (score == null ? "-" : String.format("%.1f", score));
+	}
+
+	/**
+	 * Formats a percentage change for the report.
+	 */
+	private static String formatChange(Double change) {
+		return (change == null ? "-" : String.format("%+.1f%%", change));
+	}
+
+	/**
+	 * Accessor for the percentage change which counts as a regression
+	 */
+	public double getThresholdPercent() {
+		return _thresholdPercent;
+	}
+
+	/**
+	 * The primary score and allocation of a single benchmark.
+	 */
+	private static class Score {
+		private final String _mode;
+		private final Double _score;
+		private final String _unit;
+		private final Double _allocation;
+
+		/**
+		 * Constructor
+		 *
+		 * @param mode the JMH benchmark mode, such as <code>thrpt</code> or <code>avgt</code>
+		 * @param score the primary score, in operations per unit of time or time per operation, depending on the mode
+		 * @param unit the unit of the primary score, such as <code>ops/s</code> or <code>us/op</code>
+		 * @param allocation the bytes allocated per operation, or null if not measured
+		 */
+		public Score(String mode, Double score, String unit, Double allocation) {
+			_mode = mode;
+			_score = score;
+			_unit = unit;
+			_allocation = allocation;
+		}
+
+		/**
+		 * Returns true if a higher score is better, which is only the case for throughput.
+		 */
+		public boolean isThroughput() {
+			return (THROUGHPUT_MODE.equals(getMode()));
+		}
+
+		/**
+		 * Accessor for the mode
+		 */
+		public String getMode() {
+			return _mode;
+		}
+
+		/**
+		 * Accessor for the primary score
+		 */
+		public Double getScore() {
+			return _score;
+		}
+
+		/**
+		 * Accessor for the unit of the primary score
+		 */
+		public String getUnit() {
+			return _unit;
+		}
+
+		/**
+		 * Accessor for the allocation
+		 */
+		public Double getAllocation() {
+			return _allocation;
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import nu.xom.Element;
+
+import org.xml.sax.SAXException;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+
+/**
+ * Shared access to the documents in the <code>data</code> directory, for use by benchmarks.
+ *
+ * <p>
+ * Benchmarks run in forked JVMs, so the data directory is resolved against the working directory unless the
+ * <code>ddmsence.benchmark.data</code> system property points somewhere else.
+ * </p>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class BenchmarkData {
+
+	/** The system property which overrides the location of the data directory */
+	public static final String DATA_DIRECTORY_PROPERTY = "ddmsence.benchmark.data";
+
+	/**
+	 * Private to prevent instantiation
+	 */
+	private BenchmarkData() {}
+
+	/**
+	 * Returns a file relative to the data directory.
+	 *
+	 * @param path the relative path, such as <code>test/5.0/resource.xml</code>
+	 * @return the file
+	 */
+	public static File getFile(String path) {
+		return (new File(System.getProperty(DATA_DIRECTORY_PROPERTY, "data"), path));
+	}
+
+	/**
+	 * Reads a file relative to the data directory into a String.
+	 *
+	 * @param path the relative path
+	 * @return the contents of the file
+	 * @throws IOException if the file could not be read
+	 */
+	public static String readFile(String path) throws IOException {
+		return (new String(Files.readAllBytes(getFile(path).toPath()), StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Parses and schema-validates the test Resource for a DDMS version, and sets that version as the current one.
+	 *
+	 * @param version the DDMS version
+	 * @return the root element of <code>test/[version]/resource.xml</code>
+	 * @throws IOException if the file could not be read
+	 * @throws InvalidDDMSException if the file is invalid
+	 */
+	public static Element getTestResourceElement(String version) throws IOException, InvalidDDMSException {
+		try {
+			DDMSVersion.setCurrentVersion(version);
+			return (new DDMSReader(DDMSVersion.getCurrentVersion()).getElement(getFile("test/" + version
+				+ "/resource.xml")));
+		}
+		catch (SAXException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buri.ddmsence.ddms.Resource;
+
+/**
+ * Benchmarks for parsing, schema-validating and building the sample Resources, one file per supported DDMS version.
+ * The version is taken from the beginning of each file name.
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DDMSReaderBenchmark {
+
+	@Param({ "2.0-earlierVersionExample.xml", "3.0-extensibleLayerExample.xml", "3.1-boundingGeometryExample.xml",
+		"4.1-ddmsenceExample.xml", "5.0-ddmsenceExample.xml" })
+	public String sample;
+
+	private String _xml;
+	private DDMSReader _reader;
+
+	/**
+	 * Loads the sample into memory and creates a reader for its version, outside of the measured methods.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		_xml = BenchmarkData.readFile("sample/" + sample);
+		_reader = new DDMSReader(DDMSVersion.getVersionFor(sample.substring(0, sample.indexOf('-'))));
+	}
+
+	@Benchmark
+	public Resource getDDMSResource() throws Exception {
+		return (_reader.getDDMSResource(_xml));
+	}
+}
@@ -0,0 +1,124 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buri.ddmsence.ddms.Resource;
+
+/**
+ * Benchmarks for reading Resources from many Threads at once, comparing readers borrowed from one shared
+ * {@link DDMSReaderPool} with a new DDMSReader for every document. Each pair of methods runs with the same number of
+ * Threads, so throughput can be compared as the number of Threads grows.
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DDMSReaderPoolBenchmark {
+
+	private String _xml;
+	private DDMSVersion _version;
+	private DDMSReaderPool _pool;
+
+	/**
+	 * Loads the sample into memory and creates the shared pool, outside of the measured methods.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		_xml = BenchmarkData.readFile("sample/5.0-ddmsenceExample.xml");
+		_version = DDMSVersion.getVersionFor("5.0");
+		_pool = new DDMSReaderPool(Runtime.getRuntime().availableProcessors(),
+			DDMSReaderPool.DEFAULT_IDLE_TIMEOUT_MILLIS);
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Resource pooled1() throws Exception {
+		return (readPooled());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Resource pooled4() throws Exception {
+		return (readPooled());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Resource pooledMax() throws Exception {
+		return (readPooled());
+	}
+
+	@Benchmark
+	@Threads(1)
+	public Resource unpooled1() throws Exception {
+		return (readUnpooled());
+	}
+
+	@Benchmark
+	@Threads(4)
+	public Resource unpooled4() throws Exception {
+		return (readUnpooled());
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public Resource unpooledMax() throws Exception {
+		return (readUnpooled());
+	}
+
+	/**
+	 * Reads the sample with a reader borrowed from the shared pool.
+	 */
+	private Resource readPooled() throws Exception {
+		DDMSReader reader = _pool.borrowReader(_version);
+		try {
+			return (reader.getDDMSResource(_xml));
+		}
+		finally {
+			_pool.returnReader(reader);
+		}
+	}
+
+	/**
+	 * Reads the sample with a reader created for this document alone.
+	 */
+	private Resource readUnpooled() throws Exception {
+		return (new DDMSReader(_version).getDDMSResource(_xml));
+	}
+}
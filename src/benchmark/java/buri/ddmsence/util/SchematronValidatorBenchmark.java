@@ -0,0 +1,75 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * Benchmarks for Schematron validation of the test Resource of each supported DDMS version, using the XSLT1 test
+ * Schematron file for that version.
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchematronValidatorBenchmark {
+
+	@Param({ "2.0", "3.0", "3.1", "4.1", "5.0" })
+	public String version;
+
+	private Resource _resource;
+	private SchematronValidator _validator;
+
+	/**
+	 * Builds the Resource and compiles the Schematron file once, outside of the measured methods.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		_resource = new Resource(BenchmarkData.getTestResourceElement(version));
+		_validator = SchematronValidator.getInstance(BenchmarkData.getFile("test/" + version
+			+ "/testSchematronXslt1.sch"));
+	}
+
+	@Benchmark
+	public List<ValidationMessage> validateWithSchematron() throws Exception {
+		return (_resource.validateWithSchematron(_validator));
+	}
+}
@@ -0,0 +1,123 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import nu.xom.Element;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.BoundingBox;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+
+/**
+ * Benchmarks for queries against a SpatialResourceIndex holding randomly placed bounding boxes. Each Resource has
+ * 100 bounding boxes, so the index can be filled quickly; use <code>-p envelopes=...</code> to try larger indexes.
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpatialResourceIndexBenchmark {
+
+	private static final int BOXES_PER_RESOURCE = 100;
+	private static final int QUERY_COUNT = 1024;
+
+	@Param({ "10000", "100000" })
+	public int envelopes;
+
+	private SpatialResourceIndex _index;
+	private double[][] _queries;
+	private int _next = 0;
+
+	/**
+	 * Builds the Resources and bulk loads them into the index, outside of the measured methods.
+	 */
+	@Setup
+	public void setUp() throws Exception {
+		Element template = BenchmarkData.getTestResourceElement("4.1");
+		String namespace = template.getNamespaceURI();
+		String coverageName = GeospatialCoverage.getName(DDMSVersion.getCurrentVersion());
+		Random random = new Random(42);
+		List<Resource> resources = new ArrayList<Resource>();
+		for (int i = 0; i < envelopes / BOXES_PER_RESOURCE; i++) {
+			Element element = new Element(template);
+			Element existing = element.getFirstChildElement(coverageName, namespace);
+			int index = element.indexOf(existing);
+			element.removeChild(existing);
+			for (int j = 0; j < BOXES_PER_RESOURCE; j++) {
+				double west = random.nextDouble() * 359 - 180;
+				double south = random.nextDouble() * 179 - 90;
+				BoundingBox box = new BoundingBox(west, west + random.nextDouble(), south, south + random.nextDouble());
+				GeospatialCoverage coverage = new GeospatialCoverage(null, box, null, null, null, null, null, null);
+				element.insertChild(coverage.getXOMElementCopy(), index++);
+			}
+			resources.add(new Resource(element));
+		}
+		_index = new SpatialResourceIndex();
+		_index.addAll(resources);
+		_queries = new double[QUERY_COUNT][];
+		for (int i = 0; i < QUERY_COUNT; i++) {
+			double west = random.nextDouble() * 350 - 180;
+			double south = random.nextDouble() * 170 - 90;
+			_queries[i] = new double[] { west, south, west + 2, south + 2 };
+		}
+	}
+
+	/**
+	 * Returns the next query area, cycling through a fixed set.
+	 */
+	private double[] nextQuery() {
+		_next = (_next + 1) % QUERY_COUNT;
+		return (_queries[_next]);
+	}
+
+	@Benchmark
+	public List<Resource> findIntersecting() {
+		double[] query = nextQuery();
+		return (_index.findIntersecting(query[0], query[1], query[2], query[3]));
+	}
+
+	@Benchmark
+	public List<Resource> findNearest() {
+		double[] query = nextQuery();
+		return (_index.findNearest(query[0], query[1], 10));
+	}
+}
@@ -0,0 +1,348 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util.jfr;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import buri.ddmsence.util.DDMSMetrics;
+import buri.ddmsence.util.IMetricsListener;
+
+/**
+ * IMetricsListener which emits Java Flight Recorder events for the expensive phases of DDMS processing.
+ *
+ * <p>DDMSence itself targets Java 7, so this class is compiled separately (with the "jfr" Ant target) into its own
+ * JAR, which requires Java 11 or later. It is installed like any other listener:</p>
+ *
+ * <pre>
+ * DDMSMetrics.setListener(new JfrMetricsListener());
+ * </pre>
+ *
+ * <p>Only the parse, grammarLoad, schemaValidate, build, cveLoad, schematronCompile and schematronApply phases
+ * produce events. The per-component validate phase and the render phase are too frequent to record individually, but
+ * are still passed on to the delegate listener, if there is one. Each event type can be enabled or disabled in the
+ * JFR settings like any built-in event. No event object is allocated for a phase whose event type is disabled, or
+ * when no recording is running.</p>
+ *
+ * <p>An event begins when its phase starts and ends when the phase completes, so the duration recorded by JFR is the
+ * real elapsed time of the phase, and duration thresholds in the JFR settings work as usual. Events which are still
+ * open are kept per Thread until their phases complete.</p>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class JfrMetricsListener implements IMetricsListener {
+
+	private static final EventType PARSE_TYPE = EventType.getEventType(DDMSParseEvent.class);
+	private static final EventType GRAMMAR_LOAD_TYPE = EventType.getEventType(GrammarLoadEvent.class);
+	private static final EventType SCHEMA_VALIDATE_TYPE = EventType.getEventType(DDMSSchemaValidateEvent.class);
+	private static final EventType BUILD_TYPE = EventType.getEventType(DDMSBuildEvent.class);
+	private static final EventType CVE_LOAD_TYPE = EventType.getEventType(CVELoadEvent.class);
+	private static final EventType SCHEMATRON_COMPILE_TYPE = EventType.getEventType(DDMSSchematronCompileEvent.class);
+	private static final EventType SCHEMATRON_VALIDATE_TYPE = EventType.getEventType(
+		DDMSSchematronValidateEvent.class);
+
+	private final IMetricsListener _delegate;
+	private final ThreadLocal<Deque<AbstractDDMSEvent>> _openEvents = new ThreadLocal<Deque<AbstractDDMSEvent>>() {
+		protected Deque<AbstractDDMSEvent> initialValue() {
+			return (new ArrayDeque<AbstractDDMSEvent>());
+		}
+	};
+
+	/**
+	 * Constructor for a listener which only emits JFR events.
+	 */
+	public JfrMetricsListener() {
+		this(null);
+	}
+
+	/**
+	 * Constructor for a listener which emits JFR events and also passes every measurement on to another listener, so
+	 * JFR can be used alongside an existing metrics listener.
+	 *
+	 * @param delegate the other listener, or null
+	 */
+	public JfrMetricsListener(IMetricsListener delegate) {
+		_delegate = delegate;
+	}
+
+	/**
+	 * @see IMetricsListener#phaseStarted(String)
+	 */
+	public void phaseStarted(String phase) {
+		AbstractDDMSEvent event = createEvent(phase);
+		if (event != null) {
+			event.phase = phase;
+			event.begin();
+			_openEvents.get().push(event);
+		}
+		if (getDelegate() != null)
+			getDelegate().phaseStarted(phase);
+	}
+
+	/**
+	 * @see IMetricsListener#phaseCompleted(String, String, long, long, int)
+	 */
+	public void phaseCompleted(String phase, String detail, long durationNanos, long size, int errorCount) {
+		AbstractDDMSEvent event = removeEvent(phase);
+		if (event != null) {
+			event.end();
+			if (event.shouldCommit()) {
+				event.setDetail(detail, size);
+				event.errorCount = errorCount;
+				event.success = (errorCount == 0);
+				event.commit();
+			}
+		}
+		if (getDelegate() != null)
+			getDelegate().phaseCompleted(phase, detail, durationNanos, size, errorCount);
+	}
+
+	/**
+	 * Creates the event for a starting phase, but only if its event type is enabled in a running recording.
+	 *
+	 * @param phase the phase
+	 * @return the event, or null if the phase does not produce events or its event type is disabled
+	 */
+	private static AbstractDDMSEvent createEvent(String phase) {
+		switch (phase) {
+			case DDMSMetrics.PHASE_PARSE:
+				return (PARSE_TYPE.isEnabled() ? new DDMSParseEvent() : null);
+			case DDMSMetrics.PHASE_GRAMMAR_LOAD:
+				return (GRAMMAR_LOAD_TYPE.isEnabled() ? new GrammarLoadEvent() : null);
+			case DDMSMetrics.PHASE_SCHEMA_VALIDATE:
+				return (SCHEMA_VALIDATE_TYPE.isEnabled() ? new DDMSSchemaValidateEvent() : null);
+			case DDMSMetrics.PHASE_BUILD:
+				return (BUILD_TYPE.isEnabled() ? new DDMSBuildEvent() : null);
+			case DDMSMetrics.PHASE_CVE_LOAD:
+				return (CVE_LOAD_TYPE.isEnabled() ? new CVELoadEvent() : null);
+			case DDMSMetrics.PHASE_SCHEMATRON_COMPILE:
+				return (SCHEMATRON_COMPILE_TYPE.isEnabled() ? new DDMSSchematronCompileEvent() : null);
+			case DDMSMetrics.PHASE_SCHEMATRON_APPLY:
+				return (SCHEMATRON_VALIDATE_TYPE.isEnabled() ? new DDMSSchematronValidateEvent() : null);
+			default:
+				return (null);
+		}
+	}
+
+	/**
+	 * Removes the most recently started open event for a phase on this Thread. Any events which were started after it
+	 * belong to phases which never reported their completion, so they are discarded as well.
+	 *
+	 * @param phase the completed phase
+	 * @return the event, or null if no event was started for the phase
+	 */
+	private AbstractDDMSEvent removeEvent(String phase) {
+		Deque<AbstractDDMSEvent> events = _openEvents.get();
+		for (AbstractDDMSEvent event : events) {
+			if (event.phase.equals(phase)) {
+				while (events.pop() != event) {
+					// Discard abandoned events
+				}
+				return (event);
+			}
+		}
+		return (null);
+	}
+
+	/**
+	 * Accessor for the delegate listener
+	 */
+	public IMetricsListener getDelegate() {
+		return _delegate;
+	}
+
+	/**
+	 * Fields shared by every DDMSence event.
+	 */
+	@Category("DDMSence")
+	@StackTrace(false)
+	public abstract static class AbstractDDMSEvent extends Event {
+
+		/** The phase which the event measures, which is only used to match the event to its completion */
+		transient String phase;
+
+		@Label("Error Count")
+		public int errorCount;
+
+		@Label("Success")
+		public boolean success;
+
+		/**
+		 * Fills in the phase-specific fields.
+		 *
+		 * @param detail what the phase worked on
+		 * @param size the size reported for the phase, in the unit defined for the phase
+		 */
+		abstract void setDetail(String detail, long size);
+	}
+
+	/**
+	 * Parsing and schema validation of an XML document by a DDMSReader.
+	 */
+	@Name("buri.ddmsence.DDMSParse")
+	@Label("DDMS Parse")
+	public static class DDMSParseEvent extends AbstractDDMSEvent {
+
+		@Label("DDMS Version")
+		public String ddmsVersion;
+
+		@Label("Document Size")
+		@Description("Number of characters parsed")
+		public long documentSize;
+
+		/**
+		 * @see AbstractDDMSEvent#setDetail(String, long)
+		 */
+		void setDetail(String detail, long size) {
+			ddmsVersion = detail;
+			documentSize = size;
+		}
+	}
+
+	/**
+	 * Loading and compiling the DDMS schemas into a shared grammar pool, before the first parse which uses it.
+	 */
+	@Name("buri.ddmsence.GrammarLoad")
+	@Label("DDMS Grammar Load")
+	public static class GrammarLoadEvent extends AbstractDDMSEvent {
+
+		@Label("DDMS Version")
+		public String ddmsVersion;
+
+		@Label("Grammar Count")
+		public long grammarCount;
+
+		/**
+		 * @see AbstractDDMSEvent#setDetail(String, long)
+		 */
+		void setDetail(String detail, long size) {
+			ddmsVersion = detail;
+			grammarCount = size;
+		}
+	}
+
+	/**
+	 * Schema validation of a Resource built from its components.
+	 */
+	@Name("buri.ddmsence.DDMSSchemaValidate")
+	@Label("DDMS Schema Validate")
+	public static class DDMSSchemaValidateEvent extends AbstractDDMSEvent {
+
+		@Label("DDMS Version")
+		public String ddmsVersion;
+
+		/**
+		 * @see AbstractDDMSEvent#setDetail(String, long)
+		 */
+		void setDetail(String detail, long size) {
+			ddmsVersion = detail;
+		}
+	}
+
+	/**
+	 * Construction of a complete Resource.
+	 */
+	@Name("buri.ddmsence.DDMSBuild")
+	@Label("DDMS Resource Build")
+	public static class DDMSBuildEvent extends AbstractDDMSEvent {
+
+		@Label("DDMS Version")
+		public String ddmsVersion;
+
+		@Label("Component Count")
+		@Description("Number of top-level components, or -1 if construction failed")
+		public long componentCount;
+
+		/**
+		 * @see AbstractDDMSEvent#setDetail(String, long)
+		 */
+		void setDetail(String detail, long size) {
+			ddmsVersion = detail;
+			componentCount = size;
+		}
+	}
+
+	/**
+	 * Loading of the ISM controlled vocabulary files.
+	 */
+	@Name("buri.ddmsence.CVELoad")
+	@Label("DDMS CVE Load")
+	public static class CVELoadEvent extends AbstractDDMSEvent {
+
+		@Label("Location")
+		public String location;
+
+		/**
+		 * @see AbstractDDMSEvent#setDetail(String, long)
+		 */
+		void setDetail(String detail, long size) {
+			location = detail;
+		}
+	}
+
+	/**
+	 * Compilation of a Schematron file.
+	 */
+	@Name("buri.ddmsence.DDMSSchematronCompile")
+	@Label("DDMS Schematron Compile")
+	public static class DDMSSchematronCompileEvent extends AbstractDDMSEvent {
+
+		@Label("Schematron File")
+		public String schematronFile;
+
+		@Label("File Size")
+		public long fileSize;
+
+		/**
+		 * @see AbstractDDMSEvent#setDetail(String, long)
+		 */
+		void setDetail(String detail, long size) {
+			schematronFile = detail;
+			fileSize = size;
+		}
+	}
+
+	/**
+	 * Application of compiled Schematron rules to a single element.
+	 */
+	@Name("buri.ddmsence.DDMSSchematronValidate")
+	@Label("DDMS Schematron Validate")
+	public static class DDMSSchematronValidateEvent extends AbstractDDMSEvent {
+
+		@Label("Schematron File")
+		public String schematronFile;
+
+		/**
+		 * @see AbstractDDMSEvent#setDetail(String, long)
+		 */
+		void setDetail(String detail, long size) {
+			schematronFile = detail;
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util.jfr;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.After;
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.util.DDMSMetrics;
+import buri.ddmsence.util.DDMSReader;
+import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.IMetricsListener;
+import buri.ddmsence.util.PropertyReader;
+
+/**
+ * A collection of JfrMetricsListener tests.
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class JfrMetricsListenerTest extends AbstractBaseTestCase {
+
+	private static final String PARSE_EVENT = "buri.ddmsence.DDMSParse";
+	private static final String BUILD_EVENT = "buri.ddmsence.DDMSBuild";
+
+	public JfrMetricsListenerTest() {
+		super(null);
+	}
+
+	/**
+	 * Removes any listener registered by a test.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		DDMSMetrics.setListener(null);
+	}
+
+	/**
+	 * Listener which keeps the phases it is told about.
+	 */
+	private static class ListListener implements IMetricsListener {
+		private List<String> _started = new ArrayList<String>();
+		private List<String> _completed = new ArrayList<String>();
+
+		public void phaseStarted(String phase) {
+			_started.add(phase);
+		}
+
+		public void phaseCompleted(String phase, String detail, long durationNanos, long size, int errorCount) {
+			_completed.add(phase);
+		}
+	}
+
+	/**
+	 * Starts a recording with only the named events enabled.
+	 */
+	private static Recording startRecording(String... eventNames) {
+		Recording recording = new Recording();
+		for (String name : eventNames)
+			recording.enable(name).withThreshold(Duration.ZERO);
+		recording.start();
+		return (recording);
+	}
+
+	/**
+	 * Stops a recording and returns the events in it.
+	 */
+	private static List<RecordedEvent> stopRecording(Recording recording) throws Exception {
+		recording.stop();
+		Path file = Files.createTempFile("ddmsence", ".jfr");
+		try {
+			recording.dump(file);
+			return (RecordingFile.readAllEvents(file));
+		}
+		finally {
+			recording.close();
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Returns the recorded events of one type.
+	 */
+	private static List<RecordedEvent> getEvents(List<RecordedEvent> events, String eventName) {
+		List<RecordedEvent> matches = new ArrayList<RecordedEvent>();
+		for (RecordedEvent event : events) {
+			if (event.getEventType().getName().equals(eventName))
+				matches.add(event);
+		}
+		return (matches);
+	}
+
+	@Test
+	public void testEventDuration() throws Exception {
+		JfrMetricsListener listener = new JfrMetricsListener();
+		Recording recording = startRecording(PARSE_EVENT);
+		listener.phaseStarted(DDMSMetrics.PHASE_PARSE);
+		Thread.sleep(20);
+		listener.phaseCompleted(DDMSMetrics.PHASE_PARSE, "5.0", 0, 100, 0);
+		List<RecordedEvent> events = getEvents(stopRecording(recording), PARSE_EVENT);
+		assertEquals(1, events.size());
+		RecordedEvent event = events.get(0);
+		assertTrue(event.getDuration().toMillis() >= 20);
+		assertEquals("5.0", event.getString("ddmsVersion"));
+		assertEquals(100, event.getLong("documentSize"));
+		assertEquals(0, event.getInt("errorCount"));
+		assertTrue(event.getBoolean("success"));
+		assertFalse(event.hasField("phase"));
+	}
+
+	@Test
+	public void testDisabledEvent() throws Exception {
+		JfrMetricsListener listener = new JfrMetricsListener();
+		Recording recording = new Recording();
+		recording.disable(BUILD_EVENT);
+		recording.start();
+		listener.phaseStarted(DDMSMetrics.PHASE_BUILD);
+		listener.phaseCompleted(DDMSMetrics.PHASE_BUILD, "5.0", 0, 5, 0);
+		assertTrue(getEvents(stopRecording(recording), BUILD_EVENT).isEmpty());
+	}
+
+	@Test
+	public void testNestedAndAbandonedPhases() throws Exception {
+		JfrMetricsListener listener = new JfrMetricsListener();
+		Recording recording = startRecording(PARSE_EVENT, BUILD_EVENT);
+		listener.phaseStarted(DDMSMetrics.PHASE_BUILD);
+		listener.phaseStarted(DDMSMetrics.PHASE_PARSE);
+		listener.phaseStarted(DDMSMetrics.PHASE_PARSE);
+		listener.phaseCompleted(DDMSMetrics.PHASE_PARSE, "inner", 0, 10, 1);
+		// The outer parse never completes.
+		listener.phaseCompleted(DDMSMetrics.PHASE_BUILD, "5.0", 0, 5, 0);
+		// A completion without a start is ignored.
+		listener.phaseCompleted(DDMSMetrics.PHASE_PARSE, "orphan", 0, 10, 0);
+		List<RecordedEvent> events = stopRecording(recording);
+
+		List<RecordedEvent> parses = getEvents(events, PARSE_EVENT);
+		assertEquals(1, parses.size());
+		assertEquals("inner", parses.get(0).getString("ddmsVersion"));
+		assertEquals(1, parses.get(0).getInt("errorCount"));
+		assertFalse(parses.get(0).getBoolean("success"));
+		List<RecordedEvent> builds = getEvents(events, BUILD_EVENT);
+		assertEquals(1, builds.size());
+		assertEquals(5, builds.get(0).getLong("componentCount"));
+		assertFalse(builds.get(0).getStartTime().isAfter(parses.get(0).getStartTime()));
+		assertFalse(builds.get(0).getEndTime().isBefore(parses.get(0).getEndTime()));
+	}
+
+	@Test
+	public void testDelegate() {
+		ListListener delegate = new ListListener();
+		JfrMetricsListener listener = new JfrMetricsListener(delegate);
+		assertSame(delegate, listener.getDelegate());
+		listener.phaseStarted(DDMSMetrics.PHASE_VALIDATE);
+		listener.phaseCompleted(DDMSMetrics.PHASE_VALIDATE, "title", 0, -1, 0);
+		listener.phaseStarted(DDMSMetrics.PHASE_PARSE);
+		listener.phaseCompleted(DDMSMetrics.PHASE_PARSE, "5.0", 0, 100, 0);
+		assertEquals(2, delegate._started.size());
+		assertEquals(delegate._started, delegate._completed);
+	}
+
+	@Test
+	public void testReader() throws Exception {
+		File file = new File(new File(PropertyReader.getProperty("test.unit.data"), "5.0"), "resource.xml");
+		DDMSReader reader = new DDMSReader(DDMSVersion.getVersionFor("5.0"));
+		DDMSMetrics.setListener(new JfrMetricsListener());
+		Recording recording = startRecording(PARSE_EVENT, BUILD_EVENT);
+		reader.getDDMSResource(file);
+		List<RecordedEvent> events = stopRecording(recording);
+		List<RecordedEvent> parses = getEvents(events, PARSE_EVENT);
+		assertEquals(1, parses.size());
+		assertEquals(file.length(), parses.get(0).getLong("documentSize"));
+		assertTrue(parses.get(0).getDuration().toNanos() > 0);
+		assertEquals(1, getEvents(events, BUILD_EVENT).size());
+	}
+}
@@ -86,7 +86,7 @@ public abstract class AbstractAccessEntity extends AbstractBaseComponent {
 		Element systemElement = element.getFirstChildElement(SystemName.getName(getDDMSVersion()), getNamespace());
 		if (systemElement != null)
 			_systemName = new SystemName(systemElement);
-		_securityAttributes = new SecurityAttributes(element);
+		_securityAttributes = SecurityAttributes.getInstance(element);
 	}
 
 	/**
@@ -102,7 +102,7 @@ public abstract class AbstractAccessEntity extends AbstractBaseComponent {
 		Element element = Util.buildElement(PropertyReader.getPrefix("ntk"), name, version.getNtkNamespace(), null);
 		setXOMElement(element, false);
 		if (systemName != null)
-			element.appendChild(systemName.getXOMElementCopy());
+			appendChildElement(element, systemName);
 		_systemName = systemName;
 		_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
 		_securityAttributes.addTo(element);
@@ -134,14 +134,21 @@ public abstract class AbstractAccessEntity extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getOutputName(), suffix) + ".";
-		StringBuffer text = new StringBuffer();
 		if (getSystemName() != null)
-			text.append(getSystemName().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix, getOutputValues()));
+			getSystemName().appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix, getOutputValues());
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 	
 	/**
@@ -19,13 +19,23 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 
+import nu.xom.Attribute;
 import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.Text;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
 import buri.ddmsence.ddms.OutputFormat;
@@ -34,12 +44,15 @@ import buri.ddmsence.ddms.UnsupportedVersionException;
 import buri.ddmsence.ddms.ValidationMessage;
 import buri.ddmsence.ddms.extensible.ExtensibleElement;
 import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+import buri.ddmsence.util.DDMSMetrics;
 import buri.ddmsence.util.DDMSVersion;
 import buri.ddmsence.util.PropertyReader;
 import buri.ddmsence.util.Util;
 
+import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 
 /**
  * Top-level base class for all DDMS elements and attributes modeled as Java objects.
@@ -73,6 +86,9 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 
 	private List<ValidationMessage> _warnings = null;
 	private Element _element = null;
+	private boolean _adoptable = false;
+	private int _hashCode = 0;
+	private volatile String _fingerprint = null;
 
 	public static final Map<OutputFormat, String> OUTPUT_TEMPLATES;
 	static {
@@ -81,6 +97,32 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		PRIVATE_TEMPLATES.put(OutputFormat.TEXT, "%s: %s\n");
 		OUTPUT_TEMPLATES = Collections.unmodifiableMap(PRIVATE_TEMPLATES);
 	}
+
+	private static final String FINGERPRINT_ALGORITHM = "MD5";
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+	/**
+	 * Orders attributes by namespace URI and then local name, so the fingerprint does not depend on attribute order.
+	 */
+	private static final Comparator<Attribute> ATTRIBUTE_ORDER = new Comparator<Attribute>() {
+		public int compare(Attribute a1, Attribute a2) {
+			int result = a1.getNamespaceURI().compareTo(a2.getNamespaceURI());
+			return (result != 0 ? result : a1.getLocalName().compareTo(a2.getLocalName()));
+		}
+	};
+
+	private static final Gson GSON = new GsonBuilder().create();
+	private static final Gson PRETTY_GSON = new GsonBuilder().setPrettyPrinting().create();
+
+	/**
+	 * The output templates, split around their placeholders, so output can be appended without parsing a format string.
+	 */
+	private static final Map<OutputFormat, String[]> OUTPUT_TEMPLATE_PARTS = new HashMap<OutputFormat, String[]>();
+	static {
+		for (Map.Entry<OutputFormat, String> entry : OUTPUT_TEMPLATES.entrySet())
+			OUTPUT_TEMPLATE_PARTS.put(entry.getKey(), entry.getValue().split("%s", -1));
+	}
 	
 	/**
 	 * Empty constructor
@@ -201,25 +243,118 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 * @see IDDMSComponent#toHTML()
 	 */
 	public String toHTML() {
-		return (getHTMLTextOutput(OutputFormat.HTML, "", ""));
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_RENDER);
+		return (recordRender(OutputFormat.HTML.name(), start, getHTMLTextOutput(OutputFormat.HTML, "", "")));
+	}
+
+	/**
+	 * @see IDDMSComponent#writeHTML(Appendable)
+	 */
+	public void writeHTML(Appendable output) throws IOException {
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_RENDER);
+		int errorCount = 1;
+		try {
+			writeHTMLTextOutput(output, OutputFormat.HTML);
+			errorCount = 0;
+		}
+		finally {
+			DDMSMetrics.record(DDMSMetrics.PHASE_RENDER, OutputFormat.HTML.name(), start, -1, errorCount);
+		}
 	}
 
 	/**
 	 * @see IDDMSComponent#toJSON()
 	 */
 	public String toJSON() {
-		GsonBuilder builder = new GsonBuilder();
-		if (Boolean.valueOf(PropertyReader.getProperty("output.json.prettyPrint"))) {
-			builder.setPrettyPrinting();
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_RENDER);
+		return (recordRender(OutputFormat.JSON.name(), start, getGson().toJson(getJSONObject())));
+	}
+
+	/**
+	 * @see IDDMSComponent#writeJSON(Appendable)
+	 */
+	public void writeJSON(Appendable output) throws IOException {
+		Util.requireValue("output", output);
+		writeJSON(JsonFields.newJsonWriter(output));
+	}
+
+	/**
+	 * @see IDDMSComponent#writeJSON(JsonWriter)
+	 */
+	public void writeJSON(JsonWriter writer) throws IOException {
+		Util.requireValue("writer", writer);
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_RENDER);
+		boolean htmlSafe = writer.isHtmlSafe();
+		writer.setHtmlSafe(true);
+		int errorCount = 1;
+		try {
+			writeJSONObject(writer);
+			errorCount = 0;
+		}
+		finally {
+			writer.setHtmlSafe(htmlSafe);
+			DDMSMetrics.record(DDMSMetrics.PHASE_RENDER, OutputFormat.JSON.name(), start, -1, errorCount);
 		}
-		return (builder.create().toJson(getJSONObject()));
+	}
+
+	/**
+	 * Returns the shared Gson instance for the current value of the <code>output.json.prettyPrint</code> property. Gson
+	 * instances are thread-safe, so one of each kind is built once and reused.
+	 * 
+	 * @return a Gson instance
+	 */
+	private static Gson getGson() {
+		return (Boolean.valueOf(PropertyReader.getProperty("output.json.prettyPrint")) ? PRETTY_GSON : GSON);
 	}
 	
 	/**
 	 * @see IDDMSComponent#toText()
 	 */
 	public String toText() {
-		return (getHTMLTextOutput(OutputFormat.TEXT, "", ""));
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_RENDER);
+		return (recordRender(OutputFormat.TEXT.name(), start, getHTMLTextOutput(OutputFormat.TEXT, "", "")));
+	}
+
+	/**
+	 * @see IDDMSComponent#writeText(Appendable)
+	 */
+	public void writeText(Appendable output) throws IOException {
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_RENDER);
+		int errorCount = 1;
+		try {
+			writeHTMLTextOutput(output, OutputFormat.TEXT);
+			errorCount = 0;
+		}
+		finally {
+			DDMSMetrics.record(DDMSMetrics.PHASE_RENDER, OutputFormat.TEXT.name(), start, -1, errorCount);
+		}
+	}
+
+	/**
+	 * Renders this component as HTML or Text into a single buffer, and then copies the buffer to the output.
+	 * 
+	 * @param output the destination of the output
+	 * @param format the desired format of this output
+	 * @throws IOException if the output cannot be written to
+	 */
+	private void writeHTMLTextOutput(Appendable output, OutputFormat format) throws IOException {
+		Util.requireValue("output", output);
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, "", "");
+		output.append(text);
+	}
+
+	/**
+	 * Reports a completed rendering to DDMSMetrics.
+	 * 
+	 * @param format the name of the output format
+	 * @param start the start time of the rendering
+	 * @param output the rendered output
+	 * @return the rendered output
+	 */
+	private static String recordRender(String format, long start, String output) {
+		DDMSMetrics.record(DDMSMetrics.PHASE_RENDER, format, start, output.length(), 0);
+		return (output);
 	}
 
 	/**
@@ -228,6 +363,46 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 * is not part of the IDDMSComponent interface. Use the toJSON() method as the public way to get JSON output.
 	 */
 	public abstract JsonObject getJSONObject();
+
+	/**
+	 * Describes the fields of this component's JSON object. Components with nested children override this method, and
+	 * implement getJSONObject() with buildJSONObject(), so that the same description can also be streamed by
+	 * writeJSON() without building a JsonObject for every child. By default, the fields of getJSONObject() are copied.
+	 * 
+	 * @param fields the destination of the fields
+	 * @throws IOException if the fields cannot be written
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.addAll(getJSONObject());
+	}
+
+	/**
+	 * Builds a JSON object from the fields described by addJSONFields().
+	 * 
+	 * @return the JSON object
+	 */
+	protected JsonObject buildJSONObject() {
+		JsonFields.ObjectFields fields = new JsonFields.ObjectFields();
+		try {
+			addJSONFields(fields);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("A JsonObject cannot fail to be written: " + e.getMessage());
+		}
+		return (fields.getObject());
+	}
+
+	/**
+	 * Writes this component as the next JSON object of a JsonWriter, field by field.
+	 * 
+	 * @param writer the writer
+	 * @throws IOException if the writer cannot be written to
+	 */
+	protected void writeJSONObject(JsonWriter writer) throws IOException {
+		writer.beginObject();
+		addJSONFields(new JsonFields.WriterFields(writer));
+		writer.endObject();
+	}
 	
 	/**
 	 * Adds a value to a JSON object, but only if it is not empty and not null. This method delegates to Util, so the
@@ -290,6 +465,23 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 */
 	public abstract String getHTMLTextOutput(OutputFormat format, String prefix, String suffix);
 
+	/**
+	 * Renders this component as HTML or Text, with an optional prefix to nest it, by appending to an existing buffer.
+	 * Components with many children can override this method so that their children append directly to the same
+	 * buffer, rather than each returning a separate string.
+	 * 
+	 * <p>Like getHTMLTextOutput(), this is an internal method. Use writeHTML() and writeText() as the formal, public
+	 * methods to generate output.</p>
+	 * 
+	 * @param output the buffer to append to
+	 * @param format the desired format of this output
+	 * @param prefix an optional prefix to put on each name.
+	 * @param suffix an optional suffix to append to each name, such as an index.
+	 */
+	public void appendHTMLTextOutput(StringBuilder output, OutputFormat format, String prefix, String suffix) {
+		output.append(getHTMLTextOutput(format, prefix, suffix));
+	}
+
 	/**
 	 * Accessor for a collection of nested components. A list such as this is useful for bulk actions, such as checking
 	 * emptiness, equality, generating hash codes, or applying mass validation.
@@ -308,15 +500,36 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 * @throws UnsupportedOperationException if the format is not HTML or Text.
 	 */
 	public static String buildHTMLTextOutput(OutputFormat format, String name, String content) {
+		StringBuilder output = new StringBuilder();
+		buildHTMLTextOutput(output, format, name, content);
+		return (output.toString());
+	}
+
+	/**
+	 * Convenience method to append a meta tag for HTML output or a text line for Text output to an existing buffer.
+	 * 
+	 * @param output the buffer to append to
+	 * @param format the desired format of this output
+	 * @param name the name of the name-value pairing (will be escaped in HTML)
+	 * @param content the value of the name-value pairing (will be escaped in HTML)
+	 * @throws UnsupportedOperationException if the format is not HTML or Text.
+	 */
+	public static void buildHTMLTextOutput(StringBuilder output, OutputFormat format, String name, String content) {
 		Util.requireHTMLText(format);
 		if (Util.isEmpty(content))
-			return ("");
-		boolean isHTML = (format == OutputFormat.HTML);
-		if (isHTML) {
-			name = Util.xmlEscape(name);
-			content = Util.xmlEscape(content);
-		}
-		return (String.format(Resource.OUTPUT_TEMPLATES.get(format), name, content));
+			return;
+		String[] parts = OUTPUT_TEMPLATE_PARTS.get(format);
+		output.append(parts[0]);
+		if (format == OutputFormat.HTML)
+			Util.xmlEscape(name, output);
+		else
+			output.append(name);
+		output.append(parts[1]);
+		if (format == OutputFormat.HTML)
+			Util.xmlEscape(content, output);
+		else
+			output.append(content);
+		output.append(parts[2]);
 	}
 
 	/**
@@ -330,20 +543,34 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 * @throws UnsupportedOperationException if the format is not HTML or Text.
 	 */
 	protected String buildHTMLTextOutput(OutputFormat format, String prefix, List<?> contents) {
+		StringBuilder values = new StringBuilder();
+		buildHTMLTextOutput(values, format, prefix, contents);
+		return (values.toString());
+	}
+
+	/**
+	 * Convenience method to append meta tags for HTML output or text lines for Text output for a list of multiple DDMS
+	 * components to an existing buffer.
+	 * 
+	 * @param output the buffer to append to
+	 * @param format the desired format of this output
+	 * @param prefix the first part of the name in the name-value pairing (will be escaped in HTML)
+	 * @param contents a list of the values (will be escaped in HTML)
+	 * @throws UnsupportedOperationException if the format is not HTML or Text.
+	 */
+	protected void buildHTMLTextOutput(StringBuilder output, OutputFormat format, String prefix, List<?> contents) {
 		Util.requireHTMLText(format);
-		StringBuffer values = new StringBuffer();
 		for (int i = 0; i < contents.size(); i++) {
 			Object object = contents.get(i);
 			if (object instanceof AbstractBaseComponent) {
 				AbstractBaseComponent component = (AbstractBaseComponent) object;
-				values.append(component.getHTMLTextOutput(format, prefix, buildIndex(i, contents.size())));
+				component.appendHTMLTextOutput(output, format, prefix, buildIndex(i, contents.size()));
 			}
 			else if (object instanceof String)
-				values.append(buildHTMLTextOutput(format, prefix + buildIndex(i, contents.size()), (String) object));
+				buildHTMLTextOutput(output, format, prefix + buildIndex(i, contents.size()), (String) object);
 			else
-				values.append(buildHTMLTextOutput(format, prefix + buildIndex(i, contents.size()), String.valueOf(object)));
+				buildHTMLTextOutput(output, format, prefix + buildIndex(i, contents.size()), String.valueOf(object));
 		}
-		return (values.toString());
 	}
 
 	/**
@@ -388,7 +615,8 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	 * @see IDDMSComponent#toXML()
 	 */
 	public String toXML() {
-		return (getXOMElement() == null ? "" : getXOMElement().toXML());
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_RENDER);
+		return (recordRender("XML", start, getXOMElement() == null ? "" : getXOMElement().toXML()));
 	}
 
 	/**
@@ -493,6 +721,8 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		if (!(obj instanceof AbstractBaseComponent) || !(getClass().equals(obj.getClass())))
 			return (false);
 		AbstractBaseComponent test = (AbstractBaseComponent) obj;
+		if (hashCode() != test.hashCode())
+			return (false);
 		return (getName().equals(test.getName()) && getNamespace().equals(test.getNamespace())
 			&& Util.listEquals(getNestedComponents(), test.getNestedComponents()) && Util.nullEquals(
 			getSecurityAttributes(), test.getSecurityAttributes()));
@@ -501,11 +731,32 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	/**
 	 * Returns a hashcode for the component.
 	 * 
-	 * <p>This automatically includes any nested components or security attributes.</p>
+	 * <p>Components are immutable, so the hashcode is calculated with <code>computeHashCode</code> the first time it
+	 * is requested, and cached afterwards. Like <code>String</code>, the cache needs no synchronization, because every
+	 * thread calculates the same value. Because the cached value is cheap to compare, <code>equals</code> also uses it
+	 * to reject unequal components without walking the rest of the tree.</p>
 	 * 
 	 * @see Object#hashCode()
 	 */
 	public int hashCode() {
+		int result = _hashCode;
+		if (result == 0) {
+			result = computeHashCode();
+			_hashCode = result;
+		}
+		return (result);
+	}
+
+	/**
+	 * Calculates the hashcode for the component. Extending classes which add their own rules for equality should
+	 * override this method, rather than <code>hashCode</code>, and combine their values with the result of the
+	 * superclass.
+	 * 
+	 * <p>This automatically includes any nested components or security attributes.</p>
+	 * 
+	 * @return the hashcode
+	 */
+	protected int computeHashCode() {
 		int result = getName().hashCode();
 		result = 7 * result + getNamespace().hashCode();
 		for (IDDMSComponent nested : getNestedComponents()) {
@@ -518,6 +769,145 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		return (result);
 	}
 
+	/**
+	 * Accessor for a 128-bit fingerprint of the content of this component, as a 32-character hexadecimal string. The
+	 * fingerprint is calculated once, from the namespaces, names, attributes and text of the underlying XOM element,
+	 * and does not depend on namespace prefixes, attribute order, comments or whitespace between elements.
+	 * 
+	 * <p>Barring an MD5 collision, components whose XML content differs have different fingerprints, so the
+	 * fingerprint can be stored and compared in place of the entire component. Because the fingerprint describes the
+	 * XML rather than the logical values, two components which are equal may still have different fingerprints, such
+	 * as when one was built with a Builder that filled in a default element the other omits.</p>
+	 * 
+	 * <p>The digest of an element includes the digests of its child elements rather than their content, so the
+	 * cached fingerprint of a nested component which shares its element with this component is reused instead of
+	 * digesting the same subtree again.</p>
+	 * 
+	 * @return the fingerprint
+	 */
+	public String getFingerprint() {
+		String fingerprint = _fingerprint;
+		if (fingerprint == null) {
+			Map<Element, AbstractBaseComponent> nestedElements = new IdentityHashMap<Element, AbstractBaseComponent>();
+			for (IDDMSComponent nested : getNestedComponents()) {
+				if (nested instanceof AbstractBaseComponent) {
+					AbstractBaseComponent component = (AbstractBaseComponent) nested;
+					nestedElements.put(component.getXOMElement(), component);
+				}
+			}
+			fingerprint = computeFingerprint(getXOMElement(), nestedElements);
+			_fingerprint = fingerprint;
+		}
+		return (fingerprint);
+	}
+
+	/**
+	 * Calculates an MD5 digest of the canonical content of an element, in hexadecimal form.
+	 * 
+	 * <p>The canonical content is made up of the namespace URI and local name of the element, its attributes sorted by
+	 * namespace URI and local name, and its non-whitespace text and the digests of its child elements, in document
+	 * order. Namespace prefixes, namespace declarations, comments, and whitespace between elements have no effect on
+	 * the result. Every value is prefixed with its length, so different content can never be joined into the same
+	 * input.</p>
+	 * 
+	 * @param element the element to digest
+	 * @return a 32-character hexadecimal string
+	 */
+	protected static String computeFingerprint(Element element) {
+		return (computeFingerprint(element, Collections.<Element, AbstractBaseComponent> emptyMap()));
+	}
+
+	/**
+	 * Calculates the digest of an element, reusing the fingerprints of the components which own some of its
+	 * descendants.
+	 * 
+	 * @param element the element to digest
+	 * @param nestedElements the elements of nested components, mapped to the components which own them
+	 * @return a 32-character hexadecimal string
+	 */
+	private static String computeFingerprint(Element element, Map<Element, AbstractBaseComponent> nestedElements) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(FINGERPRINT_ALGORITHM);
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException("Every Java platform is required to support " + FINGERPRINT_ALGORITHM + ".");
+		}
+		digest.update((byte) 'E');
+		digestValue(digest, element.getNamespaceURI());
+		digestValue(digest, element.getLocalName());
+		List<Attribute> attributes = new ArrayList<Attribute>(element.getAttributeCount());
+		for (int i = 0; i < element.getAttributeCount(); i++)
+			attributes.add(element.getAttribute(i));
+		Collections.sort(attributes, ATTRIBUTE_ORDER);
+		for (Attribute attribute : attributes) {
+			digest.update((byte) 'A');
+			digestValue(digest, attribute.getNamespaceURI());
+			digestValue(digest, attribute.getLocalName());
+			digestValue(digest, attribute.getValue());
+		}
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < element.getChildCount(); i++) {
+			Node child = element.getChild(i);
+			if (child instanceof Text)
+				text.append(child.getValue());
+			else if (child instanceof Element) {
+				digestText(digest, text);
+				AbstractBaseComponent component = nestedElements.get(child);
+				digest.update((byte) 'C');
+				digestValue(digest, component != null ? component.getFingerprint() : computeFingerprint((Element) child,
+					nestedElements));
+			}
+		}
+		digestText(digest, text);
+		digest.update((byte) 'e');
+		return (toHex(digest.digest()));
+	}
+
+	/**
+	 * Adds a run of adjacent text to a digest, unless it is only whitespace, and empties the buffer.
+	 * 
+	 * @param digest the digest
+	 * @param text the buffered text
+	 */
+	private static void digestText(MessageDigest digest, StringBuilder text) {
+		if (text.length() == 0)
+			return;
+		String value = text.toString();
+		text.setLength(0);
+		if (value.trim().length() == 0)
+			return;
+		digest.update((byte) 'T');
+		digestValue(digest, value);
+	}
+
+	/**
+	 * Converts bytes into a lowercase hexadecimal string.
+	 * 
+	 * @param bytes the bytes
+	 * @return the hexadecimal string
+	 */
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte b : bytes) {
+			builder.append(HEX_DIGITS[(b >> 4) & 0xF]);
+			builder.append(HEX_DIGITS[b & 0xF]);
+		}
+		return (builder.toString());
+	}
+
+	/**
+	 * Adds a length-prefixed string to a digest.
+	 * 
+	 * @param digest the digest
+	 * @param value the string
+	 */
+	private static void digestValue(MessageDigest digest, String value) {
+		byte[] bytes = value.getBytes(UTF_8);
+		digest.update(ByteBuffer.allocate(4).putInt(bytes.length).array());
+		digest.update(bytes);
+	}
+
 	/**
 	 * Returns the XML representation of the component
 	 * 
@@ -596,6 +986,50 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 		return (new Element(_element));
 	}
 
+	/**
+	 * Marks a child component which a parent Builder has just committed, so that the parent's constructor may adopt
+	 * the child's XOM element instead of copying it.
+	 * 
+	 * <p>Only a Builder may mark a child, and only while committing it on behalf of its own parent. Such a child is
+	 * owned by the library until the parent is constructed, so no caller can observe its element moving into the
+	 * parent's tree. A component created by a caller, or returned to the caller by a top-level commit(), is never
+	 * marked and is always copied.</p>
+	 * 
+	 * @param child the freshly committed child, which may be null
+	 * @return the same child
+	 */
+	protected static <T extends IDDMSComponent> T adoptable(T child) {
+		if (child instanceof AbstractBaseComponent)
+			((AbstractBaseComponent) child)._adoptable = true;
+		return (child);
+	}
+
+	/**
+	 * Appends the XOM element of a child component to an element being built for a parent component.
+	 *
+	 * <p>A child marked by {@link #adoptable(IDDMSComponent)} is adopted by the parent rather than copied. Without
+	 * this, building a deep component from the bottom up through Builders would copy every subtree once for each of its
+	 * ancestors. Any other child, including every component created directly by a caller, is copied, so the caller's
+	 * component keeps its standalone element and <code>toXML()</code> output.</p>
+	 *
+	 * @param parent the element being built
+	 * @param child the child component
+	 */
+	protected static void appendChildElement(Element parent, IDDMSComponent child) {
+		if (child instanceof AbstractBaseComponent) {
+			AbstractBaseComponent component = (AbstractBaseComponent) child;
+			Element element = component.getXOMElement();
+			synchronized (element) {
+				if (component._adoptable && element.getParent() == null) {
+					component._adoptable = false;
+					parent.appendChild(element);
+					return;
+				}
+			}
+		}
+		parent.appendChild(child.getXOMElementCopy());
+	}
+
 	/**
 	 * Accessor for the XOM element representing this component. When the element is set, the component is validated
 	 * again with <code>validate</code>.
@@ -606,7 +1040,18 @@ public abstract class AbstractBaseComponent implements IDDMSComponent {
 	protected void setXOMElement(Element element, boolean validateNow) throws InvalidDDMSException {
 		Util.requireDDMSValue("XOM Element", element);
 		_element = element;
-		if (validateNow)
-			validate();
+		_hashCode = 0;
+		_fingerprint = null;
+		if (validateNow) {
+			long start = DDMSMetrics.start(DDMSMetrics.PHASE_VALIDATE);
+			int errorCount = 1;
+			try {
+				validate();
+				errorCount = 0;
+			}
+			finally {
+				DDMSMetrics.record(DDMSMetrics.PHASE_VALIDATE, element.getLocalName(), start, -1, errorCount);
+			}
+		}
 	}
 }
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -105,7 +106,7 @@ public abstract class AbstractProducerRole extends AbstractBaseComponent {
 			}
 			String pocTypes = element.getAttributeValue(POC_TYPE_NAME, getDDMSVersion().getIsmNamespace());
 			_pocTypes = Util.getXsListAsList(pocTypes);
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -130,7 +131,7 @@ public abstract class AbstractProducerRole extends AbstractBaseComponent {
 			Util.requireDDMSValue("producer type", producerType);
 			Util.requireDDMSValue("entity", entity);
 			Element element = Util.buildDDMSElement(producerType, null);
-			element.appendChild(entity.getXOMElementCopy());
+			appendChildElement(element, entity);
 			_entity = entity;
 			if (!pocTypes.isEmpty())
 				Util.addAttribute(element, PropertyReader.getPrefix("ism"), POC_TYPE_NAME,
@@ -174,10 +175,10 @@ public abstract class AbstractProducerRole extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getPocTypes().hashCode();
 		return (result);
 	}
@@ -186,24 +187,36 @@ public abstract class AbstractProducerRole extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, (AbstractBaseComponent) getEntity());
-		addJson(object, POC_TYPE_NAME, getPocTypes());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add((AbstractBaseComponent) getEntity());
+		fields.add(POC_TYPE_NAME, getPocTypes());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(((AbstractBaseComponent) getEntity()).getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix + POC_TYPE_NAME, Util.getXsList(getPocTypes())));
+		((AbstractBaseComponent) getEntity()).appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix + POC_TYPE_NAME, Util.getXsList(getPocTypes()));
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -289,15 +302,15 @@ public abstract class AbstractProducerRole extends AbstractBaseComponent {
 		protected IRoleEntity commitSelectedEntity() throws InvalidDDMSException {
 			DDMSVersion version = DDMSVersion.getCurrentVersion();
 			if (Organization.getName(version).equalsIgnoreCase(getEntityType())) {
-				return (getOrganization().commit());
+				return (adoptable(getOrganization().commit()));
 			}
 			if (Person.getName(version).equalsIgnoreCase(getEntityType())) {
-				return (getPerson().commit());
+				return (adoptable(getPerson().commit()));
 			}
 			if (Service.getName(version).equalsIgnoreCase(getEntityType())) {
-				return (getService().commit());
+				return (adoptable(getService().commit()));
 			}
-			return (getUnknown().commit());
+			return (adoptable(getUnknown().commit()));
 		}
 
 		/**
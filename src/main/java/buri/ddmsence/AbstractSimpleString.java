@@ -72,7 +72,7 @@ public abstract class AbstractSimpleString extends AbstractBaseComponent {
 	 */
 	protected AbstractSimpleString(Element element, boolean validateNow) throws InvalidDDMSException {
 		try {
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			setXOMElement(element, validateNow);
 		}
 		catch (InvalidDDMSException e) {
@@ -138,10 +138,10 @@ public abstract class AbstractSimpleString extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getValue().hashCode();
 		return (result);
 	}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -92,7 +93,7 @@ public abstract class AbstractTaskingRole extends AbstractBaseComponent {
 				if (Person.getName(getDDMSVersion()).equals(entityType))
 					_entity = new Person(entityElement);
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -113,7 +114,7 @@ public abstract class AbstractTaskingRole extends AbstractBaseComponent {
 		try {
 			Util.requireDDMSValue("entity", entity);
 			Element element = Util.buildDDMSElement(roleType, null);
-			element.appendChild(entity.getXOMElementCopy());
+			appendChildElement(element, entity);
 			_entity = entity;
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
 			_securityAttributes.addTo(element);
@@ -153,22 +154,34 @@ public abstract class AbstractTaskingRole extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, (AbstractBaseComponent) getEntity());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add((AbstractBaseComponent) getEntity());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(((AbstractBaseComponent) getEntity()).getHTMLTextOutput(format, localPrefix, ""));
+		((AbstractBaseComponent) getEntity()).appendHTMLTextOutput(text, format, localPrefix, "");
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -237,8 +250,8 @@ public abstract class AbstractTaskingRole extends AbstractBaseComponent {
 		protected IRoleEntity commitSelectedEntity() throws InvalidDDMSException {
 			DDMSVersion version = DDMSVersion.getCurrentVersion();
 			if (Organization.getName(version).equals(getEntityType()))
-				return (getOrganization().commit());
-			return (getPerson().commit());
+				return (adoptable(getOrganization().commit()));
+			return (adoptable(getPerson().commit()));
 		}
 
 		/**
@@ -139,10 +139,10 @@ public abstract class AbstractTspiAddress extends AbstractBaseComponent implemen
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getAction().hashCode();
 		result = 7 * result + toXML().hashCode();
 		return (result);
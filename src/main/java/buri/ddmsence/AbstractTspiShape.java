@@ -134,10 +134,10 @@ public abstract class AbstractTspiShape extends AbstractBaseComponent implements
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + toXML().hashCode();
 		// ID and SRSAttributes are implicit in the XML.
 		return (result);
@@ -0,0 +1,297 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.util.List;
+import java.util.Map.Entry;
+
+import buri.ddmsence.util.PropertyReader;
+import buri.ddmsence.util.Util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Destination for the fields of a component's JSON object.
+ * 
+ * <p>Components with nested children describe their JSON fields once, in
+ * {@link AbstractBaseComponent#addJSONFields(JsonFields)}. The same description either fills in a JsonObject, for
+ * toJSON() and getJSONObject(), or is written straight to a JsonWriter, for writeJSON(), so that a large Resource can
+ * be streamed without first building its whole tree of JSON objects. Both destinations apply the same rules: names
+ * are decapitalized, and empty values are skipped.</p>
+ * 
+ * <p>I consider this to be an internal class, that unfortunately must be marked as public to allow cross-package
+ * access by components.</p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public abstract class JsonFields {
+
+	/** The Gson instance used to write small, already-built JSON values to a JsonWriter */
+	private static final Gson GSON = new GsonBuilder().create();
+
+	/**
+	 * Package-private to prevent other implementations
+	 */
+	JsonFields() {}
+
+	/**
+	 * Adds a value, but only if it is not empty and not null.
+	 * 
+	 * @param name the name of the field
+	 * @param value the value, which may be a String, Boolean, Double, Integer, JsonElement or attribute group
+	 * @throws IOException if the value cannot be written
+	 */
+	public abstract void add(String name, Object value) throws IOException;
+
+	/**
+	 * Adds a list of values as an array, but only if the list is not empty.
+	 * 
+	 * @param name the name of the array
+	 * @param values the values, which may be Strings, Doubles or components
+	 * @throws IOException if the values cannot be written
+	 */
+	public abstract void add(String name, List<?> values) throws IOException;
+
+	/**
+	 * Adds an attribute group, named after the group, but only if it is not empty.
+	 * 
+	 * @param group the attribute group
+	 * @throws IOException if the group cannot be written
+	 */
+	public void add(AbstractAttributeGroup group) throws IOException {
+		add(group.getName(), group);
+	}
+
+	/**
+	 * Adds a nested component, named after the component, but only if it is not null.
+	 * 
+	 * @param component the component
+	 * @throws IOException if the component cannot be written
+	 */
+	public abstract void add(AbstractBaseComponent component) throws IOException;
+
+	/**
+	 * Adds every field of an existing JSON object.
+	 * 
+	 * @param object the object whose fields are copied
+	 * @throws IOException if the fields cannot be written
+	 */
+	public abstract void addAll(JsonObject object) throws IOException;
+
+	/**
+	 * Fields which are added to a JsonObject.
+	 */
+	static final class ObjectFields extends JsonFields {
+		private final JsonObject _object = new JsonObject();
+
+		/**
+		 * @see JsonFields#add(String, Object)
+		 */
+		public void add(String name, Object value) {
+			AbstractBaseComponent.addJson(_object, name, value);
+		}
+
+		/**
+		 * @see JsonFields#add(String, List)
+		 */
+		public void add(String name, List<?> values) {
+			AbstractBaseComponent.addJson(_object, name, values);
+		}
+
+		/**
+		 * @see JsonFields#add(AbstractBaseComponent)
+		 */
+		public void add(AbstractBaseComponent component) {
+			AbstractBaseComponent.addJson(_object, component);
+		}
+
+		/**
+		 * @see JsonFields#addAll(JsonObject)
+		 */
+		public void addAll(JsonObject object) {
+			for (Entry<String, JsonElement> entry : object.entrySet())
+				_object.add(entry.getKey(), entry.getValue());
+		}
+
+		/**
+		 * Accessor for the completed object
+		 */
+		public JsonObject getObject() {
+			return (_object);
+		}
+	}
+
+	/**
+	 * Fields which are written directly to an open JSON object in a JsonWriter. Nested components write their own
+	 * fields in turn, so no JsonObject is built for any component which describes its fields.
+	 */
+	static final class WriterFields extends JsonFields {
+		private final JsonWriter _writer;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param writer the writer, positioned inside an object
+		 */
+		public WriterFields(JsonWriter writer) {
+			_writer = writer;
+		}
+
+		/**
+		 * @see JsonFields#add(String, Object)
+		 */
+		public void add(String name, Object value) throws IOException {
+			if (value == null)
+				return;
+			name = Util.decapitalize(name);
+			if (value instanceof AbstractAttributeGroup) {
+				AbstractAttributeGroup group = (AbstractAttributeGroup) value;
+				if (group.isEmpty())
+					return;
+				if (Boolean.valueOf(PropertyReader.getProperty("output.json.inlineAttributes")))
+					addAll(group.getJSONObject());
+				else
+					write(name, group.getJSONObject());
+			}
+			else if (value instanceof Boolean)
+				_writer.name(name).value((Boolean) value);
+			else if (value instanceof Double || value instanceof Integer)
+				_writer.name(name).value((Number) value);
+			else if (value instanceof JsonArray) {
+				if (((JsonArray) value).size() != 0)
+					write(name, (JsonArray) value);
+			}
+			else if (value instanceof JsonObject)
+				write(name, (JsonObject) value);
+			else if (value instanceof String) {
+				if (!Util.isEmpty((String) value))
+					_writer.name(name).value((String) value);
+			}
+			else
+				throw new IllegalArgumentException("Unexpected class for JSON property: " + value);
+		}
+
+		/**
+		 * @see JsonFields#add(String, List)
+		 */
+		public void add(String name, List<?> values) throws IOException {
+			if (values.isEmpty())
+				return;
+			_writer.name(Util.decapitalize(name));
+			_writer.beginArray();
+			for (Object value : values) {
+				if (value instanceof Double)
+					_writer.value((Double) value);
+				else if (value instanceof String)
+					_writer.value((String) value);
+				else if (value instanceof AbstractBaseComponent)
+					((AbstractBaseComponent) value).writeJSONObject(_writer);
+				else
+					throw new IllegalArgumentException("Unexpected class for JSON property: " + value);
+			}
+			_writer.endArray();
+		}
+
+		/**
+		 * @see JsonFields#add(AbstractBaseComponent)
+		 */
+		public void add(AbstractBaseComponent component) throws IOException {
+			if (component == null)
+				return;
+			_writer.name(Util.decapitalize(component.getName()));
+			component.writeJSONObject(_writer);
+		}
+
+		/**
+		 * @see JsonFields#addAll(JsonObject)
+		 */
+		public void addAll(JsonObject object) throws IOException {
+			for (Entry<String, JsonElement> entry : object.entrySet())
+				write(entry.getKey(), entry.getValue());
+		}
+
+		/**
+		 * Writes a name and an already-built JSON value.
+		 * 
+		 * @param name the name
+		 * @param value the value
+		 * @throws IOException if the value cannot be written
+		 */
+		private void write(String name, JsonElement value) throws IOException {
+			_writer.name(name);
+			write(_writer, value);
+		}
+	}
+
+	/**
+	 * Opens a JsonWriter on an Appendable, such as a Writer or a StringBuilder, with the same layout that toJSON() uses
+	 * for the current value of the <code>output.json.prettyPrint</code> property.
+	 * 
+	 * @param output the destination
+	 * @return a JsonWriter which writes to the destination
+	 */
+	static JsonWriter newJsonWriter(final Appendable output) {
+		Writer writer = (output instanceof Writer ? (Writer) output : new Writer() {
+			public void write(char[] buffer, int offset, int length) throws IOException {
+				output.append(CharBuffer.wrap(buffer, offset, length));
+			}
+
+			public void write(String string, int offset, int length) throws IOException {
+				output.append(string, offset, offset + length);
+			}
+
+			public void flush() {}
+
+			public void close() {}
+		});
+		JsonWriter jsonWriter = new JsonWriter(writer);
+		if (Boolean.valueOf(PropertyReader.getProperty("output.json.prettyPrint")))
+			jsonWriter.setIndent("  ");
+		return (jsonWriter);
+	}
+
+	/**
+	 * Writes an already-built JSON value with the same escaping that toJSON() uses.
+	 * 
+	 * @param writer the writer
+	 * @param value the value
+	 * @throws IOException if the value cannot be written
+	 */
+	static void write(JsonWriter writer, JsonElement value) throws IOException {
+		try {
+			GSON.toJson(value, writer);
+		}
+		catch (JsonIOException e) {
+			if (e.getCause() instanceof IOException)
+				throw (IOException) e.getCause();
+			throw (e);
+		}
+	}
+}
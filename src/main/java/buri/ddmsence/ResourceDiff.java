@@ -0,0 +1,246 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import nu.xom.Attribute;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.Text;
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.util.Util;
+
+/**
+ * Finds the parts of a DDMS Resource which changed between two versions of the same record.
+ * 
+ * <p>
+ * The comparison walks the top-level components of both Resources and the components nested inside them, comparing
+ * the fingerprint of each pair. Components are immutable and cache their fingerprints, so an unchanged subtree is
+ * skipped with a single string comparison, and two identical Resources are compared without walking either tree at
+ * all. Neither Resource is serialized.
+ * </p>
+ * 
+ * <p>
+ * Each change is reported as a path in the same XPath format as the locator of a {@link ValidationMessage}, such as
+ * <code>/ddms:resource/ddms:subjectCoverage/ddms:keyword[2]</code>. Paths include any wrapper element between
+ * a component and its nested components, such as the ddms:Subject element in DDMS 3.0. Nested components with the same
+ * name are paired up in document order, and numbered when either version has more than one of them. A component
+ * which only appears in one version is reported at its own path. A component is also reported at its own path when
+ * its attributes or text changed, when one of its child elements which is not a component itself changed, or when
+ * its nested components were only reordered.
+ * </p>
+ * 
+ * <p>
+ * Because fingerprints describe the XML content of a component, a Resource built with a Builder may differ from
+ * the parsed Resource it was loaded from, if the Builder filled in default values which were missing from the XML.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public final class ResourceDiff {
+
+	/**
+	 * Private to prevent instantiation
+	 */
+	private ResourceDiff() {}
+
+	/**
+	 * Compares two versions of a Resource.
+	 * 
+	 * @param original the original Resource
+	 * @param updated the updated Resource
+	 * @return an unmodifiable list of the paths which changed, which will be empty if the Resources have the same
+	 *         content
+	 * @throws IllegalArgumentException if either Resource is null
+	 */
+	public static List<String> compare(Resource original, Resource updated) {
+		return (compare((IDDMSComponent) original, (IDDMSComponent) updated));
+	}
+
+	/**
+	 * Compares two versions of any DDMS component.
+	 * 
+	 * @param original the original component
+	 * @param updated the updated component
+	 * @return an unmodifiable list of the paths which changed, which will be empty if the components have the same
+	 *         content
+	 * @throws IllegalArgumentException if either component is null
+	 */
+	public static List<String> compare(IDDMSComponent original, IDDMSComponent updated) {
+		Util.requireValue("original component", original);
+		Util.requireValue("updated component", updated);
+		List<String> changes = new ArrayList<String>();
+		String path = ValidationMessage.ELEMENT_PREFIX + original.getQualifiedName();
+		if (isSameType(original, updated))
+			compareComponents(original, updated, path, changes);
+		else
+			changes.add(path);
+		return (Collections.unmodifiableList(changes));
+	}
+
+	/**
+	 * Adds the changed paths within two components of the same type to a list.
+	 * 
+	 * @param original the original component
+	 * @param updated the updated component
+	 * @param path the path of the components
+	 * @param changes the list of changes being built
+	 */
+	private static void compareComponents(IDDMSComponent original, IDDMSComponent updated, String path,
+		List<String> changes) {
+		if (original == updated)
+			return;
+		if (!(original instanceof AbstractBaseComponent) || !(updated instanceof AbstractBaseComponent)) {
+			if (!original.equals(updated))
+				changes.add(path);
+			return;
+		}
+		AbstractBaseComponent originalBase = (AbstractBaseComponent) original;
+		AbstractBaseComponent updatedBase = (AbstractBaseComponent) updated;
+		if (originalBase.getFingerprint().equals(updatedBase.getFingerprint()))
+			return;
+		Map<String, List<IDDMSComponent>> originalNested = groupByName(originalBase.getNestedComponents());
+		Map<String, List<IDDMSComponent>> updatedNested = groupByName(updatedBase.getNestedComponents());
+		Set<String> nestedNames = new HashSet<String>(originalNested.keySet());
+		nestedNames.addAll(updatedNested.keySet());
+
+		int firstChange = changes.size();
+		if (!getOwnContent(originalBase.getXOMElement(), nestedNames).equals(
+			getOwnContent(updatedBase.getXOMElement(), nestedNames)))
+			changes.add(path);
+		Set<String> orderedNames = new LinkedHashSet<String>(originalNested.keySet());
+		orderedNames.addAll(updatedNested.keySet());
+		for (String name : orderedNames) {
+			List<IDDMSComponent> originals = getGroup(originalNested, name);
+			List<IDDMSComponent> updates = getGroup(updatedNested, name);
+			int count = Math.max(originals.size(), updates.size());
+			for (int i = 0; i < count; i++) {
+				String childPath = path + originalBase.getLocatorSuffix() + ValidationMessage.ELEMENT_PREFIX + name
+					+ (count > 1 ? "[" + (i + 1) + "]" : "");
+				if (i < originals.size() && i < updates.size() && isSameType(originals.get(i), updates.get(i)))
+					compareComponents(originals.get(i), updates.get(i), childPath, changes);
+				else
+					changes.add(childPath);
+			}
+		}
+		// The fingerprints differ, so anything not explained by a nested component belongs to this one.
+		if (changes.size() == firstChange)
+			changes.add(path);
+	}
+
+	/**
+	 * Returns true if two components are the same class of component with the same qualified name.
+	 * 
+	 * @param original the original component
+	 * @param updated the updated component
+	 */
+	private static boolean isSameType(IDDMSComponent original, IDDMSComponent updated) {
+		return (original.getClass().equals(updated.getClass())
+			&& original.getQualifiedName().equals(updated.getQualifiedName()));
+	}
+
+	/**
+	 * Groups nested components by qualified name, in the order in which each name first appears.
+	 * 
+	 * @param components the nested components, which may include nulls
+	 * @return a map of qualified names to components
+	 */
+	private static Map<String, List<IDDMSComponent>> groupByName(List<IDDMSComponent> components) {
+		Map<String, List<IDDMSComponent>> groups = new LinkedHashMap<String, List<IDDMSComponent>>();
+		for (IDDMSComponent component : components) {
+			if (component == null)
+				continue;
+			List<IDDMSComponent> group = groups.get(component.getQualifiedName());
+			if (group == null) {
+				group = new ArrayList<IDDMSComponent>();
+				groups.put(component.getQualifiedName(), group);
+			}
+			group.add(component);
+		}
+		return (groups);
+	}
+
+	/**
+	 * Returns the components with a qualified name, or an empty list if there are none.
+	 * 
+	 * @param groups the grouped components
+	 * @param name the qualified name
+	 */
+	private static List<IDDMSComponent> getGroup(Map<String, List<IDDMSComponent>> groups, String name) {
+		List<IDDMSComponent> group = groups.get(name);
+		return (group == null ? Collections.<IDDMSComponent> emptyList() : group);
+	}
+
+	/**
+	 * Collects the content which belongs to a component itself, rather than to its nested components: its attributes,
+	 * its non-whitespace text, and the same content of any child elements which are not nested components. Child
+	 * elements such as the ddms:Subject wrapper inside a ddms:subjectCoverage are walked, so that the nested components
+	 * inside them are still skipped.
+	 * 
+	 * @param element the element of the component
+	 * @param nestedNames the qualified names of the nested components of either version
+	 * @return a list which can be compared with the list for the other version
+	 */
+	private static List<String> getOwnContent(Element element, Set<String> nestedNames) {
+		List<String> content = new ArrayList<String>();
+		addOwnContent(element, nestedNames, content);
+		return (content);
+	}
+
+	/**
+	 * Adds the content of an element which does not belong to a nested component to a list.
+	 * 
+	 * @param element the element
+	 * @param nestedNames the qualified names of the nested components of either version
+	 * @param content the list being built
+	 */
+	private static void addOwnContent(Element element, Set<String> nestedNames, List<String> content) {
+		Set<String> attributes = new TreeSet<String>();
+		for (int i = 0; i < element.getAttributeCount(); i++) {
+			Attribute attribute = element.getAttribute(i);
+			attributes.add("{" + attribute.getNamespaceURI() + "}" + attribute.getLocalName() + "="
+				+ attribute.getValue());
+		}
+		content.addAll(attributes);
+		for (int i = 0; i < element.getChildCount(); i++) {
+			Node child = element.getChild(i);
+			if (child instanceof Text && child.getValue().trim().length() > 0)
+				content.add(child.getValue());
+			else if (child instanceof Element && !nestedNames.contains(((Element) child).getQualifiedName())) {
+				Element childElement = (Element) child;
+				content.add("<{" + childElement.getNamespaceURI() + "}" + childElement.getLocalName());
+				addOwnContent(childElement, nestedNames, content);
+				content.add(">");
+			}
+		}
+	}
+}
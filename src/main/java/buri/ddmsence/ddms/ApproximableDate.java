@@ -251,10 +251,10 @@ public final class ApproximableDate extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getDescription().hashCode();
 		result = 7 * result + getApproximableDateString().hashCode();
 		result = 7 * result + getApproximation().hashCode();
@@ -19,11 +19,14 @@
  */
 package buri.ddmsence.ddms;
 
+import java.io.IOException;
 import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.ddms.security.ism.SecurityAttributes;
 
+import com.google.gson.stream.JsonWriter;
+
 /**
  * Interface for a single DDMS element.
  * 
@@ -106,6 +109,14 @@ public interface IDDMSComponent {
 	 */
 	public String toHTML();
 
+	/**
+	 * Renders this component as HTML, appending it to an existing output, such as a Writer or a StringBuilder.
+	 * 
+	 * @param output the destination of the HTML representation of this component
+	 * @throws IOException if the output cannot be written to
+	 */
+	public void writeHTML(Appendable output) throws IOException;
+
 	/**
 	 * Renders this component as JSON. Use the <code>output.json.prettyPrint</code> property to control pretty printing of the
 	 * output.
@@ -113,6 +124,25 @@ public interface IDDMSComponent {
 	 * @return the JSON representation of this component
 	 */
 	public String toJSON();
+
+	/**
+	 * Renders this component as JSON, appending it to an existing output, such as a Writer or a StringBuilder. Use the
+	 * <code>output.json.prettyPrint</code> property to control pretty printing of the output.
+	 * 
+	 * @param output the destination of the JSON representation of this component
+	 * @throws IOException if the output cannot be written to
+	 */
+	public void writeJSON(Appendable output) throws IOException;
+
+	/**
+	 * Renders this component as the next JSON value of an open JsonWriter, so that many components can be written
+	 * into a single JSON document, such as an array of search results. Pretty printing is controlled by the indent
+	 * setting of the writer, rather than the <code>output.json.prettyPrint</code> property.
+	 * 
+	 * @param writer the JsonWriter to write to
+	 * @throws IOException if the writer cannot be written to
+	 */
+	public void writeJSON(JsonWriter writer) throws IOException;
 	
 	/**
 	 * Renders this component as Text. Use the <code>output.indexLevel</code> property to add indices to the output.
@@ -121,6 +151,15 @@ public interface IDDMSComponent {
 	 */
 	public String toText();
 
+	/**
+	 * Renders this component as Text, appending it to an existing output, such as a Writer or a StringBuilder. Use the
+	 * <code>output.indexLevel</code> property to add indices to the output.
+	 * 
+	 * @param output the destination of the text-based representation of this component
+	 * @throws IOException if the output cannot be written to
+	 */
+	public void writeText(Appendable output) throws IOException;
+
 	/**
 	 * Renders this component as XML. Use the <code>output.indexLevel</code> property to add indices to the output.
 	 * 
@@ -23,23 +23,26 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.xml.datatype.DatatypeConstants;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
 
-import nu.xom.Document;
 import nu.xom.Element;
 import nu.xom.Elements;
-import nu.xom.Nodes;
-import nu.xom.XPathContext;
 import nu.xom.xslt.XSLException;
-import nu.xom.xslt.XSLTransform;
+
+import org.xml.sax.SAXException;
+
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.extensible.ExtensibleAttributes;
 import buri.ddmsence.ddms.extensible.ExtensibleElement;
 import buri.ddmsence.ddms.format.Format;
@@ -68,10 +71,12 @@ import buri.ddmsence.ddms.summary.RelatedResource;
 import buri.ddmsence.ddms.summary.SubjectCoverage;
 import buri.ddmsence.ddms.summary.TemporalCoverage;
 import buri.ddmsence.ddms.summary.VirtualCoverage;
+import buri.ddmsence.util.DDMSMetrics;
 import buri.ddmsence.util.DDMSReader;
 import buri.ddmsence.util.DDMSVersion;
 import buri.ddmsence.util.LazyList;
 import buri.ddmsence.util.PropertyReader;
+import buri.ddmsence.util.SchematronValidator;
 import buri.ddmsence.util.Util;
 
 import com.google.gson.JsonObject;
@@ -92,6 +97,16 @@ import com.google.gson.JsonObject;
  * &lt;meta name="ddms.version" content="3.0" /&gt;<br />
  * </code></ul></p>
  * 
+ * <p>Resources built from raw data are serialized and checked against the DDMS schemas at the end of construction,
+ * because the data-driven constructors cannot otherwise guarantee that the assembled document is schema-valid. When
+ * many Resources are built in a row, this round-trip can be postponed by setting the configurable property,
+ * <code>resource.schemaValidation</code>, to <code>deferred</code>. Deferred Resources are still validated against
+ * the DDMS rules enforced by each component, and can be checked against the schemas later, either one at a time
+ * with {@link #validateWithSchema()} or in bulk with {@link #validateWithSchema(Collection)}. Resources loaded by a
+ * DDMSReader are already schema-valid, since the reader validates while parsing. Resources built from a XOM Element
+ * that came from any other source are treated like deferred ones: the DDMS rules are enforced during construction,
+ * but the schemas are not checked until one of the <code>validateWithSchema</code> methods is called.</p>
+ * 
  * {@table.header History}
  * 		<p>Starting in DDMS 3.0, resources have additional ISM attributes which did not exist in 2.0. However, the 2.0 schema
  * 		still allows "any" attributes on the Resource, so the 3.0 attribute values will be loaded if present.</p>
@@ -199,6 +214,10 @@ public final class Resource extends AbstractBaseComponent {
 	private NoticeAttributes _noticeAttributes = null;
 	private SecurityAttributes _securityAttributes = null;
 	private ExtensibleAttributes _extensibleAttributes = null;
+	private volatile boolean _schemaValidated = false;
+
+	/** The value of <code>resource.schemaValidation</code> which postpones schema validation of data-driven Resources */
+	public static final String DEFERRED_SCHEMA_VALIDATION = "deferred";
 
 	/** The attribute name for resource element flag */
 	protected static final String RESOURCE_ELEMENT_NAME = "resourceElement";
@@ -232,6 +251,23 @@ public final class Resource extends AbstractBaseComponent {
 	 * @throws InvalidDDMSException if any required information is missing or malformed
 	 */
 	public Resource(Element element) throws InvalidDDMSException {
+		this(element, false);
+	}
+
+	/**
+	 * Constructor for creating a component from a XOM Element whose schema validity is already known
+	 * 
+	 * <p>Readers which validate against the DDMS schemas while parsing, such as the DDMSReader, use this constructor to
+	 * pass that result on, so the Resource does not need to be checked against the schemas again. Elements which were
+	 * built by hand, or which came from any other source, should use the single-argument constructor instead.</p>
+	 * 
+	 * @param element the XOM element representing this
+	 * @param schemaValidated true if the element has already passed validation against the DDMS schemas
+	 * @throws InvalidDDMSException if any required information is missing or malformed
+	 */
+	public Resource(Element element, boolean schemaValidated) throws InvalidDDMSException {
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_BUILD);
+		int errorCount = 1;
 		try {
 			setXOMElement(element, false);
 			String namespace = element.getNamespaceURI();
@@ -252,8 +288,8 @@ public final class Resource extends AbstractBaseComponent {
 					_ntkDESVersion = Integer.valueOf(ntkDESVersion);
 				}
 			}
-			_noticeAttributes = new NoticeAttributes(element);
-			_securityAttributes = new SecurityAttributes(element);
+			_noticeAttributes = NoticeAttributes.getInstance(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			_extensibleAttributes = new ExtensibleAttributes(element);
 
 			DDMSVersion version = getDDMSVersion();
@@ -324,7 +360,7 @@ public final class Resource extends AbstractBaseComponent {
 				geospatialCoverages.add(new GeospatialCoverage(components.get(i)));
 			components = element.getChildElements(RelatedResource.getName(version), namespace);
 			for (int i = 0; i < components.size(); i++)
-				loadRelatedResource(components.get(i));
+				_relatedResources.addAll(buildRelatedResources(components.get(i)));
 
 			// Resource Set again
 			component = getChild(ResourceManagement.getName(version));
@@ -351,11 +387,16 @@ public final class Resource extends AbstractBaseComponent {
 			}
 			populatedOrderedList();
 			validate();
+			_schemaValidated = schemaValidated;
+			errorCount = 0;
 		}
 		catch (InvalidDDMSException e) {
 			e.setLocator(getQualifiedName());
 			throw (e);
 		}
+		finally {
+			recordBuild(start, errorCount);
+		}
 	}
 
 	/**
@@ -365,20 +406,23 @@ public final class Resource extends AbstractBaseComponent {
 	 * must be mediated into a separate RelatedResource instance.
 	 * 
 	 * @param resource the top-level element
+	 * @return the components built from the element
 	 */
-	private void loadRelatedResource(Element resource) throws InvalidDDMSException {
-		Elements children = resource.getChildElements(RelatedResource.OLD_INNER_NAME, getNamespace());
+	static List<RelatedResource> buildRelatedResources(Element resource) throws InvalidDDMSException {
+		List<RelatedResource> relatedResources = new ArrayList<RelatedResource>();
+		Elements children = resource.getChildElements(RelatedResource.OLD_INNER_NAME, resource.getNamespaceURI());
 		if (children.size() <= 1) {
-			_relatedResources.add(new RelatedResource(resource));
+			relatedResources.add(new RelatedResource(resource));
 		}
 		else {
 			for (int i = 0; i < children.size(); i++) {
 				Element copy = new Element(resource);
 				copy.removeChildren();
 				copy.appendChild(new Element(children.get(i)));
-				_relatedResources.add(new RelatedResource(copy));
+				relatedResources.add(new RelatedResource(copy));
 			}
 		}
+		return (relatedResources);
 	}
 
 	/**
@@ -473,6 +517,8 @@ public final class Resource extends AbstractBaseComponent {
 		List<String> compliesWiths, Integer ismDESVersion, Integer ntkDESVersion,
 		SecurityAttributes securityAttributes, NoticeAttributes noticeAttributes,
 		ExtensibleAttributes extensibleAttributes) throws InvalidDDMSException {
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_BUILD);
+		int errorCount = 1;
 		try {
 			if (topLevelComponents == null)
 				topLevelComponents = Collections.emptyList();
@@ -592,15 +638,35 @@ public final class Resource extends AbstractBaseComponent {
 			}
 			populatedOrderedList();
 			for (IDDMSComponent component : getTopLevelComponents()) {
-				element.appendChild(component.getXOMElementCopy());
+				appendChildElement(element, component);
 			}
 			setXOMElement(element, true);
-			DDMSReader.validateWithSchema(version, toXML());
+			if (!DEFERRED_SCHEMA_VALIDATION.equals(PropertyReader.getProperty("resource.schemaValidation")))
+				validateWithSchema();
+			errorCount = 0;
 		}
 		catch (InvalidDDMSException e) {
 			e.setLocator(getQualifiedName());
 			throw (e);
 		}
+		finally {
+			recordBuild(start, errorCount);
+		}
+	}
+
+	/**
+	 * Reports a completed constructor to DDMSMetrics, along with the DDMS version and the number of top-level
+	 * components of a successfully built Resource.
+	 * 
+	 * @param start the start time of the constructor
+	 * @param errorCount 0 if the Resource was built, or 1 if construction failed
+	 */
+	private void recordBuild(long start, int errorCount) {
+		if (start == 0)
+			return;
+		boolean built = (errorCount == 0);
+		DDMSMetrics.record(DDMSMetrics.PHASE_BUILD, built ? getDDMSVersion().getVersion() : null, start,
+			built ? getTopLevelComponents().size() : -1, errorCount);
 	}
 
 	/**
@@ -639,6 +705,112 @@ public final class Resource extends AbstractBaseComponent {
 		_orderedList.addAll(getExtensibleElements());
 	}
 
+	/**
+	 * Confirms that this Resource is valid according to the DDMS schemas. The check is only performed once: after it
+	 * succeeds, subsequent calls return immediately.
+	 * 
+	 * <p>This is normally done by the data-driven constructors, but is skipped there when the configurable property,
+	 * <code>resource.schemaValidation</code>, is set to <code>deferred</code>.</p>
+	 * 
+	 * @throws InvalidDDMSException if the Resource is not valid according to the schemas
+	 */
+	public void validateWithSchema() throws InvalidDDMSException {
+		if (isSchemaValidated())
+			return;
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_SCHEMA_VALIDATE);
+		int errorCount = 1;
+		try {
+			DDMSReader.validateWithSchema(getDDMSVersion(), toXML());
+			_schemaValidated = true;
+			errorCount = 0;
+		}
+		catch (InvalidDDMSException e) {
+			e.setLocator(getQualifiedName());
+			throw (e);
+		}
+		finally {
+			if (start != 0)
+				DDMSMetrics.record(DDMSMetrics.PHASE_SCHEMA_VALIDATE, getDDMSVersion().getVersion(), start, -1,
+					errorCount);
+		}
+	}
+
+	/**
+	 * Confirms that a collection of Resources are valid according to the DDMS schemas. Resources which have already
+	 * been checked are skipped, and a single DDMSReader is shared by all Resources of the same DDMS version.
+	 * 
+	 * <p>Unlike the single-Resource method, an invalid Resource does not stop the remaining Resources from being
+	 * checked. Instead, an error is returned for each invalid Resource. The locator on each ValidationMessage is
+	 * the qualified name of the Resource, followed by its 1-based position in the collection, such as
+	 * "ddms:Resource[3]".</p>
+	 * 
+	 * @param resources the Resources to check
+	 * @return a list of errors, which will be empty if every Resource is valid
+	 */
+	public static List<ValidationMessage> validateWithSchema(Collection<Resource> resources) {
+		Util.requireValue("resources", resources);
+		List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
+		Map<DDMSVersion, DDMSReader> readers = new HashMap<DDMSVersion, DDMSReader>();
+		int position = 0;
+		for (Resource resource : resources) {
+			position++;
+			if (resource == null || resource.isSchemaValidated())
+				continue;
+			try {
+				DDMSVersion version = resource.getDDMSVersion();
+				if (!readers.containsKey(version))
+					readers.put(version, new DDMSReader(version));
+				resource.validateWithSchema(readers.get(version));
+			}
+			catch (SAXException e) {
+				throw new IllegalStateException("Could not create a DDMSReader: " + e.getMessage());
+			}
+			catch (InvalidDDMSException e) {
+				String locator = resource.getQualifiedName() + "[" + position + "]";
+				messages.add(ValidationMessage.newError(e.getMessage(), locator));
+			}
+		}
+		return (messages);
+	}
+
+	/**
+	 * Shared helper method to confirm that this Resource is valid according to the DDMS schemas, using an existing
+	 * reader for the Resource's version of DDMS.
+	 * 
+	 * @param reader the reader to parse the XML of this Resource with
+	 * @throws InvalidDDMSException if the Resource is not valid according to the schemas
+	 */
+	private void validateWithSchema(DDMSReader reader) throws InvalidDDMSException {
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_SCHEMA_VALIDATE);
+		int errorCount = 1;
+		try {
+			reader.getElement(toXML());
+			_schemaValidated = true;
+			errorCount = 0;
+		}
+		catch (IOException e) {
+			throw new InvalidDDMSException(e);
+		}
+		finally {
+			if (start != 0)
+				DDMSMetrics.record(DDMSMetrics.PHASE_SCHEMA_VALIDATE, getDDMSVersion().getVersion(), start, -1,
+					errorCount);
+		}
+	}
+
+	/**
+	 * Returns true if this Resource is known to be valid according to the DDMS schemas. Resources loaded by a
+	 * DDMSReader are schema-validated while parsing. Resources built from any other XOM Element are not checked until
+	 * <code>validateWithSchema()</code> is called. Resources
+	 * built from raw data are schema-validated at the end of construction, unless the configurable property,
+	 * <code>resource.schemaValidation</code>, is set to <code>deferred</code>.
+	 * 
+	 * @return true if the schema check has succeeded, false if it has not been performed yet
+	 */
+	public boolean isSchemaValidated() {
+		return (_schemaValidated);
+	}
+
 	/**
 	 * Performs a Schematron validation of the DDMS Resource, via the ISO Schematron skeleton stylesheets for XSLT1
 	 * or XSLT2 processors. This action can only be performed on a DDMS Resource which is already valid according
@@ -649,6 +821,9 @@ public final class Resource extends AbstractBaseComponent {
 	 * underlying object model. The locator on the ValidationMessage will be the location attribute from the
 	 * successful-report or failed-assert element.</p>
 	 * 
+	 * <p>The Schematron file is compiled once and cached, so repeated validations against the same file only pay the
+	 * cost of running the rules. See {@link SchematronValidator} for details.</p>
+	 * 
 	 * <p>Details about ISO Schematron can be found at: http://www.schematron.com/ </p>
 	 * 
 	 * @param schematronFile the file containing the ISO Schematron constraints. This file is transformed with the ISO
@@ -658,25 +833,46 @@ public final class Resource extends AbstractBaseComponent {
 	 * @throws IOException if there are problems reading or parsing the Schematron file
 	 */
 	public List<ValidationMessage> validateWithSchematron(File schematronFile) throws XSLException, IOException {
-		List<ValidationMessage> messages = new ArrayList<ValidationMessage>();
-		XSLTransform schematronTransform = Util.buildSchematronTransform(schematronFile);
-		Nodes nodes = schematronTransform.transform(new Document(getXOMElementCopy()));
-		Document doc = XSLTransform.toDocument(nodes);
-
-		XPathContext context = XPathContext.makeNamespaceContext(doc.getRootElement());
-		String svrlNamespace = context.lookup("svrl");
-		Nodes outputNodes = doc.query("//svrl:failed-assert | //svrl:successful-report", context);
-		for (int i = 0; i < outputNodes.size(); i++) {
-			if (outputNodes.get(i) instanceof Element) {
-				Element outputElement = (Element) outputNodes.get(i);
-				boolean isAssert = "failed-assert".equals(outputElement.getLocalName());
-				String text = outputElement.getFirstChildElement("text", svrlNamespace).getValue();
-				String locator = outputElement.getAttributeValue("location");
-				messages.add(isAssert ? ValidationMessage.newError(text, locator) : ValidationMessage.newWarning(text,
-					locator));
-			}
-		}
-		return (messages);
+		return (validateWithSchematron(SchematronValidator.getInstance(schematronFile)));
+	}
+
+	/**
+	 * Performs a Schematron validation of the DDMS Resource with a previously compiled Schematron rule set. The
+	 * messages returned are the same as those from {@link #validateWithSchematron(File)}.
+	 * 
+	 * @param validator the compiled Schematron rules, which may be shared between Threads
+	 * @return a list of ValidationMessages
+	 * @throws XSLException if there are XSL problems running the rules
+	 */
+	public List<ValidationMessage> validateWithSchematron(SchematronValidator validator) throws XSLException {
+		Util.requireValue("validator", validator);
+		return (validator.validate(getXOMElement()));
+	}
+
+	/**
+	 * Performs a Schematron validation of a collection of DDMS Resources with a previously compiled Schematron rule
+	 * set. A single Transformer is reused for the entire collection, but each Resource is still validated as its own
+	 * document, so the messages for each Resource are the same as those from
+	 * {@link #validateWithSchematron(SchematronValidator)}.
+	 *
+	 * <p>The results are returned in the same order as the collection. Resources are not guaranteed to have unique
+	 * identifiers, so the position of each list of messages is the only reliable way to match it to its Resource.</p>
+	 *
+	 * @param resources the Resources to validate
+	 * @param validator the compiled Schematron rules, which may be shared between Threads
+	 * @return a list containing the list of ValidationMessages for each Resource
+	 * @throws XSLException if there are XSL problems running the rules
+	 */
+	public static List<List<ValidationMessage>> validateWithSchematron(Collection<Resource> resources,
+		SchematronValidator validator) throws XSLException {
+		Util.requireValue("resources", resources);
+		Util.requireValue("validator", validator);
+		List<Element> elements = new ArrayList<Element>(resources.size());
+		for (Resource resource : resources) {
+			Util.requireValue("resource", resource);
+			elements.add(resource.getXOMElement());
+		}
+		return (validator.validate(elements));
 	}
 
 	/**
@@ -793,100 +989,115 @@ public final class Resource extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, RESOURCE_ELEMENT_NAME, isResourceElement());
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(RESOURCE_ELEMENT_NAME, isResourceElement());
 		if (getCreateDate() != null)
-			addJson(object, CREATE_DATE_NAME, getCreateDate().toXMLFormat());
-		addJson(object, COMPLIES_WITH_NAME, getCompliesWiths());
-		addJson(object, "ism." + DES_VERSION_NAME, getIsmDESVersion());
-		addJson(object, "ntk." + DES_VERSION_NAME, getNtkDESVersion());
-		addJson(object, getSecurityAttributes());
-		addJson(object, getNoticeAttributes());
-		addJson(object, getExtensibleAttributes());
-		addJson(object, getMetacardInfo());
-		addJson(object, "identifier", getIdentifiers());
-		addJson(object, "title", getTitles());
-		addJson(object, "subtitle", getSubtitles());
-		addJson(object, getDescription());
-		addJson(object, "language", getLanguages());
-		addJson(object, getDates());
-		addJson(object, getRights());
-		addJson(object, "source", getSources());
-		addJson(object, "type", getTypes());
-		addJson(object, "creator", getCreators());
-		addJson(object, "publisher", getPublishers());
-		addJson(object, "contributor", getContributors());
-		addJson(object, "pointOfContact", getPointOfContacts());
-		addJson(object, getFormat());
-		addJson(object, "subjectCoverage", getSubjectCoverages());
-		addJson(object, "virtualCoverage", getVirtualCoverages());
-		addJson(object, "temporalCoverage", getTemporalCoverages());
-		addJson(object, "geospatialCoverage", getGeospatialCoverages());
-		addJson(object, "relatedResource", getRelatedResources());
-		addJson(object, getResourceManagement());
-		addJson(object, getSecurity());
-		addJson(object, "extensible.layer", !getExtensibleElements().isEmpty());
-		addJson(object, "ddms.generator", "DDMSence " + PropertyReader.getProperty("version"));
-		addJson(object, "ddms.version", getDDMSVersion().getVersion());
-		return (object);
+			fields.add(CREATE_DATE_NAME, getCreateDate().toXMLFormat());
+		fields.add(COMPLIES_WITH_NAME, getCompliesWiths());
+		fields.add("ism." + DES_VERSION_NAME, getIsmDESVersion());
+		fields.add("ntk." + DES_VERSION_NAME, getNtkDESVersion());
+		fields.add(getSecurityAttributes());
+		fields.add(getNoticeAttributes());
+		fields.add(getExtensibleAttributes());
+		fields.add(getMetacardInfo());
+		fields.add("identifier", getIdentifiers());
+		fields.add("title", getTitles());
+		fields.add("subtitle", getSubtitles());
+		fields.add(getDescription());
+		fields.add("language", getLanguages());
+		fields.add(getDates());
+		fields.add(getRights());
+		fields.add("source", getSources());
+		fields.add("type", getTypes());
+		fields.add("creator", getCreators());
+		fields.add("publisher", getPublishers());
+		fields.add("contributor", getContributors());
+		fields.add("pointOfContact", getPointOfContacts());
+		fields.add(getFormat());
+		fields.add("subjectCoverage", getSubjectCoverages());
+		fields.add("virtualCoverage", getVirtualCoverages());
+		fields.add("temporalCoverage", getTemporalCoverages());
+		fields.add("geospatialCoverage", getGeospatialCoverages());
+		fields.add("relatedResource", getRelatedResources());
+		fields.add(getResourceManagement());
+		fields.add(getSecurity());
+		fields.add("extensible.layer", !getExtensibleElements().isEmpty());
+		fields.add("ddms.generator", "DDMSence " + PropertyReader.getProperty("version"));
+		fields.add("ddms.version", getDDMSVersion().getVersion());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * Appends each top-level component directly to the shared buffer, so a full Resource is rendered without building
+	 * a separate string for every child.
+	 * 
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder output, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (isResourceElement() != null)
-			text.append(buildHTMLTextOutput(format, localPrefix + RESOURCE_ELEMENT_NAME, String.valueOf(isResourceElement())));
+			buildHTMLTextOutput(output, format, localPrefix + RESOURCE_ELEMENT_NAME, String.valueOf(isResourceElement()));
 		if (getCreateDate() != null)
-			text.append(buildHTMLTextOutput(format, localPrefix + CREATE_DATE_NAME, getCreateDate().toXMLFormat()));
-		text.append(buildHTMLTextOutput(format, localPrefix + COMPLIES_WITH_NAME, Util.getXsList(getCompliesWiths())));
+			buildHTMLTextOutput(output, format, localPrefix + CREATE_DATE_NAME, getCreateDate().toXMLFormat());
+		buildHTMLTextOutput(output, format, localPrefix + COMPLIES_WITH_NAME, Util.getXsList(getCompliesWiths()));
 		if (getIsmDESVersion() != null)
-			text.append(buildHTMLTextOutput(format, localPrefix + "ism." + DES_VERSION_NAME, String.valueOf(getIsmDESVersion())));
+			buildHTMLTextOutput(output, format, localPrefix + "ism." + DES_VERSION_NAME, String.valueOf(getIsmDESVersion()));
 		if (getNtkDESVersion() != null)
-			text.append(buildHTMLTextOutput(format, localPrefix + "ntk." + DES_VERSION_NAME, String.valueOf(getNtkDESVersion())));
-		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		text.append(getNoticeAttributes().getHTMLTextOutput(format, localPrefix));
-		text.append(getExtensibleAttributes().getHTMLTextOutput(format, localPrefix));
+			buildHTMLTextOutput(output, format, localPrefix + "ntk." + DES_VERSION_NAME, String.valueOf(getNtkDESVersion()));
+		output.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
+		output.append(getNoticeAttributes().getHTMLTextOutput(format, localPrefix));
+		output.append(getExtensibleAttributes().getHTMLTextOutput(format, localPrefix));
 
 		// Traverse top-level components, suppressing the resource prefix
 		if (getMetacardInfo() != null)
-			text.append(getMetacardInfo().getHTMLTextOutput(format, "", ""));
-		text.append(buildHTMLTextOutput(format, "", getIdentifiers()));
-		text.append(buildHTMLTextOutput(format, "", getTitles()));
-		text.append(buildHTMLTextOutput(format, "", getSubtitles()));
+			getMetacardInfo().appendHTMLTextOutput(output, format, "", "");
+		buildHTMLTextOutput(output, format, "", getIdentifiers());
+		buildHTMLTextOutput(output, format, "", getTitles());
+		buildHTMLTextOutput(output, format, "", getSubtitles());
 		if (getDescription() != null)
-			text.append(getDescription().getHTMLTextOutput(format, "", ""));
-		text.append(buildHTMLTextOutput(format, "", getLanguages()));
+			getDescription().appendHTMLTextOutput(output, format, "", "");
+		buildHTMLTextOutput(output, format, "", getLanguages());
 		if (getDates() != null)
-			text.append(getDates().getHTMLTextOutput(format, "", ""));
+			getDates().appendHTMLTextOutput(output, format, "", "");
 		if (getRights() != null)
-			text.append(getRights().getHTMLTextOutput(format, "", ""));
-		text.append(buildHTMLTextOutput(format, "", getSources()));
-		text.append(buildHTMLTextOutput(format, "", getTypes()));
-		text.append(buildHTMLTextOutput(format, "", getCreators()));
-		text.append(buildHTMLTextOutput(format, "", getPublishers()));
-		text.append(buildHTMLTextOutput(format, "", getContributors()));
-		text.append(buildHTMLTextOutput(format, "", getPointOfContacts()));
+			getRights().appendHTMLTextOutput(output, format, "", "");
+		buildHTMLTextOutput(output, format, "", getSources());
+		buildHTMLTextOutput(output, format, "", getTypes());
+		buildHTMLTextOutput(output, format, "", getCreators());
+		buildHTMLTextOutput(output, format, "", getPublishers());
+		buildHTMLTextOutput(output, format, "", getContributors());
+		buildHTMLTextOutput(output, format, "", getPointOfContacts());
 		if (getFormat() != null)
-			text.append(getFormat().getHTMLTextOutput(format, "", ""));
-		text.append(buildHTMLTextOutput(format, "", getSubjectCoverages()));
-		text.append(buildHTMLTextOutput(format, "", getVirtualCoverages()));
-		text.append(buildHTMLTextOutput(format, "", getTemporalCoverages()));
-		text.append(buildHTMLTextOutput(format, "", getGeospatialCoverages()));
-		text.append(buildHTMLTextOutput(format, "", getRelatedResources()));
+			getFormat().appendHTMLTextOutput(output, format, "", "");
+		buildHTMLTextOutput(output, format, "", getSubjectCoverages());
+		buildHTMLTextOutput(output, format, "", getVirtualCoverages());
+		buildHTMLTextOutput(output, format, "", getTemporalCoverages());
+		buildHTMLTextOutput(output, format, "", getGeospatialCoverages());
+		buildHTMLTextOutput(output, format, "", getRelatedResources());
 		if (getResourceManagement() != null)
-			text.append(getResourceManagement().getHTMLTextOutput(format, "", ""));
+			getResourceManagement().appendHTMLTextOutput(output, format, "", "");
 		if (getSecurity() != null)
-			text.append(getSecurity().getHTMLTextOutput(format, "", ""));
-		text.append(buildHTMLTextOutput(format, "", getExtensibleElements()));
+			getSecurity().appendHTMLTextOutput(output, format, "", "");
+		buildHTMLTextOutput(output, format, "", getExtensibleElements());
 
-		text.append(buildHTMLTextOutput(format, "extensible.layer", String.valueOf(!getExtensibleElements().isEmpty())));
-		text.append(buildHTMLTextOutput(format, "ddms.generator", "DDMSence " + PropertyReader.getProperty("version")));
-		text.append(buildHTMLTextOutput(format, "ddms.version", getDDMSVersion().getVersion()));
-		return (text.toString());
+		buildHTMLTextOutput(output, format, "extensible.layer", String.valueOf(!getExtensibleElements().isEmpty()));
+		buildHTMLTextOutput(output, format, "ddms.generator", "DDMSence " + PropertyReader.getProperty("version"));
+		buildHTMLTextOutput(output, format, "ddms.version", getDDMSVersion().getVersion());
 	}
 
 	/**
@@ -906,10 +1117,10 @@ public final class Resource extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		if (isResourceElement() != null)
 			result = 7 * result + isResourceElement().hashCode();
 		if (getCreateDate() != null)
@@ -1307,7 +1518,7 @@ public final class Resource extends AbstractBaseComponent {
 				return (null);
 			List<IDDMSComponent> topLevelComponents = new ArrayList<IDDMSComponent>();
 			for (IBuilder builder : getChildBuilders()) {
-				IDDMSComponent component = builder.commit();
+				IDDMSComponent component = adoptable(builder.commit());
 				if (component != null)
 					topLevelComponents.add(component);
 			}
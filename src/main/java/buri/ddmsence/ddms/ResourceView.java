@@ -0,0 +1,544 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nu.xom.Element;
+import nu.xom.Elements;
+import buri.ddmsence.ddms.extensible.ExtensibleElement;
+import buri.ddmsence.ddms.format.Format;
+import buri.ddmsence.ddms.metacard.MetacardInfo;
+import buri.ddmsence.ddms.resource.Contributor;
+import buri.ddmsence.ddms.resource.Creator;
+import buri.ddmsence.ddms.resource.Dates;
+import buri.ddmsence.ddms.resource.Identifier;
+import buri.ddmsence.ddms.resource.Language;
+import buri.ddmsence.ddms.resource.PointOfContact;
+import buri.ddmsence.ddms.resource.Publisher;
+import buri.ddmsence.ddms.resource.ResourceManagement;
+import buri.ddmsence.ddms.resource.Rights;
+import buri.ddmsence.ddms.resource.Source;
+import buri.ddmsence.ddms.resource.Subtitle;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.ddms.resource.Type;
+import buri.ddmsence.ddms.security.Security;
+import buri.ddmsence.ddms.security.ism.NoticeAttributes;
+import buri.ddmsence.ddms.security.ism.SecurityAttributes;
+import buri.ddmsence.ddms.summary.Description;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+import buri.ddmsence.ddms.summary.RelatedResource;
+import buri.ddmsence.ddms.summary.SubjectCoverage;
+import buri.ddmsence.ddms.summary.TemporalCoverage;
+import buri.ddmsence.ddms.summary.VirtualCoverage;
+import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.Util;
+
+/**
+ * A read-only view of a DDMS Resource element, which builds each top-level component only when it is first accessed.
+ * 
+ * <p>
+ * Building a Resource from a XOM element builds and validates every nested component up front. Applications which
+ * only need a few fields from each record, such as an indexer which reads identifiers, titles, dates and the
+ * classification, can use a ResourceView instead. Each accessor builds and validates the components it returns the
+ * first time it is called, using the same constructors as Resource, and caches them for later calls. Components which
+ * are never accessed are never built.
+ * </p>
+ * 
+ * <p>
+ * Because sections are validated independently, an accessor throws an InvalidDDMSException if the components it
+ * returns are invalid, and the rules which involve the Resource as a whole, such as the requirement for at least one
+ * identifier, are not checked at all. A view loaded by DDMSReader has already been validated against the DDMS
+ * schemas. Use <code>getResource()</code> to build and fully validate the complete Resource.
+ * </p>
+ * 
+ * <p>
+ * A ResourceView does not copy or modify the underlying element, which must not be changed while the view is in use.
+ * Accessors are synchronized, so a view can be shared by more than one Thread.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class ResourceView {
+
+	private Element _element;
+	private DDMSVersion _version;
+	private boolean _schemaValidated;
+	private Resource _resource = null;
+
+	private final Map<String, List<? extends IDDMSComponent>> _components =
+		new HashMap<String, List<? extends IDDMSComponent>>();
+	private List<ExtensibleElement> _extensibleElements = null;
+	private SecurityAttributes _securityAttributes = null;
+	private NoticeAttributes _noticeAttributes = null;
+
+	/**
+	 * Constructor for creating a view of a XOM element
+	 * 
+	 * @param element the XOM element representing a Resource
+	 * @throws InvalidDDMSException if the element is not a DDMS Resource element
+	 * @throws UnsupportedVersionException if the element is not in a supported DDMS namespace
+	 */
+	public ResourceView(Element element) throws InvalidDDMSException {
+		this(element, false);
+	}
+
+	/**
+	 * Constructor for creating a view of a XOM element whose schema validity is already known. The flag is passed on
+	 * to the Resource returned by <code>getResource()</code>.
+	 * 
+	 * @param element the XOM element representing a Resource
+	 * @param schemaValidated true if the element has already passed validation against the DDMS schemas
+	 * @throws InvalidDDMSException if the element is not a DDMS Resource element
+	 * @throws UnsupportedVersionException if the element is not in a supported DDMS namespace
+	 */
+	public ResourceView(Element element, boolean schemaValidated) throws InvalidDDMSException {
+		Util.requireDDMSValue("XOM Element", element);
+		_element = element;
+		_schemaValidated = schemaValidated;
+		_version = DDMSVersion.getVersionForNamespace(element.getNamespaceURI());
+		try {
+			Util.requireDDMSQName(element, Resource.getName(getDDMSVersion()));
+		}
+		catch (InvalidDDMSException e) {
+			e.setLocator(element.getQualifiedName());
+			throw (e);
+		}
+	}
+
+	/**
+	 * Builds and validates the complete Resource. The Resource is built once and cached, but any components which
+	 * were already accessed through this view are built again as part of it.
+	 * 
+	 * @return the Resource
+	 * @throws InvalidDDMSException if the Resource is invalid
+	 */
+	public synchronized Resource getResource() throws InvalidDDMSException {
+		if (_resource == null)
+			_resource = new Resource(getXOMElement(), _schemaValidated);
+		return (_resource);
+	}
+
+	/**
+	 * Accessor for the metacardInfo, which is built and validated on first access.
+	 * 
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	public synchronized MetacardInfo getMetacardInfo() throws InvalidDDMSException {
+		return (getComponent(MetacardInfo.class, MetacardInfo.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the identifiers, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the identifiers are invalid
+	 */
+	public synchronized List<Identifier> getIdentifiers() throws InvalidDDMSException {
+		return (getComponents(Identifier.class, Identifier.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the titles, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the titles are invalid
+	 */
+	public synchronized List<Title> getTitles() throws InvalidDDMSException {
+		return (getComponents(Title.class, Title.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the subtitles, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the subtitles are invalid
+	 */
+	public synchronized List<Subtitle> getSubtitles() throws InvalidDDMSException {
+		return (getComponents(Subtitle.class, Subtitle.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the description, which is built and validated on first access.
+	 * 
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	public synchronized Description getDescription() throws InvalidDDMSException {
+		return (getComponent(Description.class, Description.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the languages, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the languages are invalid
+	 */
+	public synchronized List<Language> getLanguages() throws InvalidDDMSException {
+		return (getComponents(Language.class, Language.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the dates, which is built and validated on first access.
+	 * 
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	public synchronized Dates getDates() throws InvalidDDMSException {
+		return (getComponent(Dates.class, Dates.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the rights, which is built and validated on first access.
+	 * 
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	public synchronized Rights getRights() throws InvalidDDMSException {
+		return (getComponent(Rights.class, Rights.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the sources, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the sources are invalid
+	 */
+	public synchronized List<Source> getSources() throws InvalidDDMSException {
+		return (getComponents(Source.class, Source.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the types, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the types are invalid
+	 */
+	public synchronized List<Type> getTypes() throws InvalidDDMSException {
+		return (getComponents(Type.class, Type.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the creators, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the creators are invalid
+	 */
+	public synchronized List<Creator> getCreators() throws InvalidDDMSException {
+		return (getComponents(Creator.class, Creator.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the publishers, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the publishers are invalid
+	 */
+	public synchronized List<Publisher> getPublishers() throws InvalidDDMSException {
+		return (getComponents(Publisher.class, Publisher.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the contributors, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the contributors are invalid
+	 */
+	public synchronized List<Contributor> getContributors() throws InvalidDDMSException {
+		return (getComponents(Contributor.class, Contributor.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the pointOfContacts, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the pointOfContacts are invalid
+	 */
+	public synchronized List<PointOfContact> getPointOfContacts() throws InvalidDDMSException {
+		return (getComponents(PointOfContact.class, PointOfContact.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the format, which is built and validated on first access.
+	 * 
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	public synchronized Format getFormat() throws InvalidDDMSException {
+		return (getComponent(Format.class, Format.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the subjectCoverages, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the subjectCoverages are invalid
+	 */
+	public synchronized List<SubjectCoverage> getSubjectCoverages() throws InvalidDDMSException {
+		return (getComponents(SubjectCoverage.class, SubjectCoverage.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the virtualCoverages, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the virtualCoverages are invalid
+	 */
+	public synchronized List<VirtualCoverage> getVirtualCoverages() throws InvalidDDMSException {
+		return (getComponents(VirtualCoverage.class, VirtualCoverage.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the temporalCoverages, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the temporalCoverages are invalid
+	 */
+	public synchronized List<TemporalCoverage> getTemporalCoverages() throws InvalidDDMSException {
+		return (getComponents(TemporalCoverage.class, TemporalCoverage.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the geospatialCoverages, which are built and validated on first access.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the geospatialCoverages are invalid
+	 */
+	public synchronized List<GeospatialCoverage> getGeospatialCoverages() throws InvalidDDMSException {
+		return (getComponents(GeospatialCoverage.class, GeospatialCoverage.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the related resources, which are built and validated on first access. As in a Resource, a DDMS 2.0,
+	 * 3.0, or 3.1 element containing more than one ddms:relatedResource is split into separate components.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the related resources are invalid
+	 */
+	public synchronized List<RelatedResource> getRelatedResources() throws InvalidDDMSException {
+		return (getComponents(RelatedResource.class, RelatedResource.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the resourceManagement, which is built and validated on first access.
+	 * 
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	public synchronized ResourceManagement getResourceManagement() throws InvalidDDMSException {
+		return (getComponent(ResourceManagement.class, ResourceManagement.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the security, which is built and validated on first access.
+	 * 
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	public synchronized Security getSecurity() throws InvalidDDMSException {
+		return (getComponent(Security.class, Security.getName(getDDMSVersion())));
+	}
+
+	/**
+	 * Accessor for the extensible elements, which are built on first access. As in a Resource, these are the elements
+	 * which follow the ddms:security element.
+	 * 
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the extensible elements are invalid
+	 */
+	public synchronized List<ExtensibleElement> getExtensibleElements() throws InvalidDDMSException {
+		if (_extensibleElements == null) {
+			List<ExtensibleElement> list = new ArrayList<ExtensibleElement>();
+			Element security = getChildElement(Security.getName(getDDMSVersion()));
+			if (security != null) {
+				Elements allElements = getXOMElement().getChildElements();
+				int index = 0;
+				while (allElements.get(index) != security)
+					index++;
+				try {
+					for (int i = index + 1; i < allElements.size(); i++)
+						list.add(new ExtensibleElement(allElements.get(i)));
+				}
+				catch (InvalidDDMSException e) {
+					throw (claim(e));
+				}
+			}
+			_extensibleElements = Collections.unmodifiableList(list);
+		}
+		return (_extensibleElements);
+	}
+
+	/**
+	 * Accessor for the security attributes on the Resource element, which are built and validated on first access.
+	 * 
+	 * @return the attributes, which will be non-null even if none are set
+	 * @throws InvalidDDMSException if the attributes are invalid
+	 */
+	public synchronized SecurityAttributes getSecurityAttributes() throws InvalidDDMSException {
+		if (_securityAttributes == null) {
+			try {
+				_securityAttributes = SecurityAttributes.getInstance(getXOMElement());
+			}
+			catch (InvalidDDMSException e) {
+				e.setLocator(getXOMElement().getQualifiedName());
+				throw (e);
+			}
+		}
+		return (_securityAttributes);
+	}
+
+	/**
+	 * Accessor for the notice attributes on the Resource element, which are built and validated on first access.
+	 * 
+	 * @return the attributes, which will be non-null even if none are set
+	 * @throws InvalidDDMSException if the attributes are invalid
+	 */
+	public synchronized NoticeAttributes getNoticeAttributes() throws InvalidDDMSException {
+		if (_noticeAttributes == null) {
+			try {
+				_noticeAttributes = NoticeAttributes.getInstance(getXOMElement());
+			}
+			catch (InvalidDDMSException e) {
+				e.setLocator(getXOMElement().getQualifiedName());
+				throw (e);
+			}
+		}
+		return (_noticeAttributes);
+	}
+
+	/**
+	 * Returns the single top-level component with a DDMS name, building and caching it on first access.
+	 * 
+	 * @param componentClass the class of the component, which must have a constructor that takes a XOM element
+	 * @param name the local name of the component
+	 * @return the component, or null if the Resource does not have one
+	 * @throws InvalidDDMSException if the component is invalid
+	 */
+	private <T extends IDDMSComponent> T getComponent(Class<T> componentClass, String name)
+		throws InvalidDDMSException {
+		List<T> components = getComponents(componentClass, name);
+		return (components.isEmpty() ? null : components.get(0));
+	}
+
+	/**
+	 * Returns the top-level components with a DDMS name, building and caching them on first access. Related resources
+	 * are built with <code>Resource.buildRelatedResources</code>, so that an older element holding more than one
+	 * ddms:RelatedResource becomes the same separate components as in a Resource.
+	 * 
+	 * @param componentClass the class of the components, which must have a constructor that takes a XOM element
+	 * @param name the local name of the components
+	 * @return an unmodifiable list, which may be empty
+	 * @throws InvalidDDMSException if any of the components are invalid
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends IDDMSComponent> List<T> getComponents(Class<T> componentClass, String name)
+		throws InvalidDDMSException {
+		List<T> components = (List<T>) _components.get(name);
+		if (components == null) {
+			List<T> list = new ArrayList<T>();
+			Elements elements = getChildElements(name);
+			try {
+				Constructor<T> constructor = componentClass.getConstructor(Element.class);
+				for (int i = 0; i < elements.size(); i++) {
+					if (componentClass == RelatedResource.class)
+						list.addAll((List<T>) Resource.buildRelatedResources(elements.get(i)));
+					else
+						list.add(constructor.newInstance(elements.get(i)));
+				}
+			}
+			catch (InvalidDDMSException e) {
+				throw (claim(e));
+			}
+			catch (InvocationTargetException e) {
+				if (e.getCause() instanceof InvalidDDMSException)
+					throw (claim((InvalidDDMSException) e.getCause()));
+				if (e.getCause() instanceof RuntimeException)
+					throw ((RuntimeException) e.getCause());
+				throw new IllegalStateException(e.getCause());
+			}
+			catch (ReflectiveOperationException e) {
+				throw new IllegalArgumentException("No XOM element constructor: " + componentClass.getName(), e);
+			}
+			components = Collections.unmodifiableList(list);
+			_components.put(name, components);
+		}
+		return (components);
+	}
+
+	/**
+	 * Returns the first child of the Resource element with a DDMS name.
+	 * 
+	 * @param name the local name of the child
+	 * @return the child, or null if there is none
+	 */
+	private Element getChildElement(String name) {
+		return (getXOMElement().getFirstChildElement(name, getXOMElement().getNamespaceURI()));
+	}
+
+	/**
+	 * Returns all children of the Resource element with a DDMS name.
+	 * 
+	 * @param name the local name of the children
+	 * @return the children, which may be empty
+	 */
+	private Elements getChildElements(String name) {
+		return (getXOMElement().getChildElements(name, getXOMElement().getNamespaceURI()));
+	}
+
+	/**
+	 * Prefixes the locator of an exception from a child component with the name of the Resource element.
+	 * 
+	 * @param e the exception
+	 * @return the same exception
+	 */
+	private InvalidDDMSException claim(InvalidDDMSException e) {
+		e.setLocator(getXOMElement().getQualifiedName() + Util.getNonNullString(e.getLocator()));
+		return (e);
+	}
+
+	/**
+	 * Accessor for the DDMS version of the Resource element
+	 */
+	public DDMSVersion getDDMSVersion() {
+		return _version;
+	}
+
+	/**
+	 * Accessor for a copy of the underlying XOM element
+	 */
+	public Element getXOMElementCopy() {
+		return (new Element(_element));
+	}
+
+	/**
+	 * Accessor for the underlying XOM element
+	 */
+	private Element getXOMElement() {
+		return _element;
+	}
+}
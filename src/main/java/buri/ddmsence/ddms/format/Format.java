@@ -19,12 +19,14 @@
  */
 package buri.ddmsence.ddms.format;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -119,7 +121,7 @@ public final class Format extends AbstractBaseComponent {
 				: Util.buildDDMSElement(MEDIA_NAME, null);
 			Util.addDDMSChildElement(mediaElement, MIME_TYPE_NAME, mimeType);
 			if (extent != null)
-				mediaElement.appendChild(extent.getXOMElementCopy());
+				appendChildElement(mediaElement, extent);
 			Util.addDDMSChildElement(mediaElement, MEDIUM_NAME, medium);
 
 			if (!DDMSVersion.getCurrentVersion().isAtLeast("4.0.1"))
@@ -159,27 +161,39 @@ public final class Format extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, MIME_TYPE_NAME, getMimeType());
-		addJson(object, getExtent());
-		addJson(object, MEDIUM_NAME, getMedium());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(MIME_TYPE_NAME, getMimeType());
+		fields.add(getExtent());
+		fields.add(MEDIUM_NAME, getMedium());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += MEDIA_NAME + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + MIME_TYPE_NAME, getMimeType()));
+		buildHTMLTextOutput(text, format, localPrefix + MIME_TYPE_NAME, getMimeType());
 		if (getExtent() != null)
-			text.append(getExtent().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix + MEDIUM_NAME, getMedium()));
-		return (text.toString());
+			getExtent().appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix + MEDIUM_NAME, getMedium());
 	}
 
 	/**
@@ -204,10 +218,10 @@ public final class Format extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getMimeType().hashCode();
 		result = 7 * result + getMedium().hashCode();
 		return (result);
@@ -301,7 +315,7 @@ public final class Format extends AbstractBaseComponent {
 		 * @see IBuilder#commit()
 		 */
 		public Format commit() throws InvalidDDMSException {
-			return (isEmpty() ? null : new Format(getMimeType(), getExtent().commit(), getMedium()));
+			return (isEmpty() ? null : new Format(getMimeType(), adoptable(getExtent().commit()), getMedium()));
 		}
 
 		/**
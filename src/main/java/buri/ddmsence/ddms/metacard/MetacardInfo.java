@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.metacard;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -160,7 +162,7 @@ public final class MetacardInfo extends AbstractBaseComponent {
 				getDDMSVersion().getNtkNamespace());
 			if (component != null)
 				_access = new Access(component);
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			populatedOrderedList();
 			validate();
 		}
@@ -230,7 +232,7 @@ public final class MetacardInfo extends AbstractBaseComponent {
 			}
 			populatedOrderedList();
 			for (IDDMSComponent component : getNestedComponents()) {
-				element.appendChild(component.getXOMElementCopy());
+				appendChildElement(element, component);
 			}
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
 			_securityAttributes.addTo(element);
@@ -305,53 +307,65 @@ public final class MetacardInfo extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, "identifier", getIdentifiers());
-		addJson(object, getDates());		
-		addJson(object, "publisher", getPublishers());
-		addJson(object, "contributor", getContributors());
-		addJson(object, "creator", getCreators());
-		addJson(object, "pointOfContact", getPointOfContacts());
-		addJson(object, getDescription());
-		addJson(object, "processingInfo", getProcessingInfos());
-		addJson(object, getRevisionRecall());
-		addJson(object, getRecordsManagementInfo());
-		addJson(object, getNoticeList());
-		addJson(object, getAccess());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add("identifier", getIdentifiers());
+		fields.add(getDates());
+		fields.add("publisher", getPublishers());
+		fields.add("contributor", getContributors());
+		fields.add("creator", getCreators());
+		fields.add("pointOfContact", getPointOfContacts());
+		fields.add(getDescription());
+		fields.add("processingInfo", getProcessingInfos());
+		fields.add(getRevisionRecall());
+		fields.add(getRecordsManagementInfo());
+		fields.add(getNoticeList());
+		fields.add(getAccess());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 
 		// Traverse child components, suppressing the resource prefix
-		text.append(buildHTMLTextOutput(format, localPrefix, getIdentifiers()));
+		buildHTMLTextOutput(text, format, localPrefix, getIdentifiers());
 		if (getDates() != null)
-			text.append(getDates().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix, getPublishers()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getContributors()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getCreators()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getPointOfContacts()));
+			getDates().appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix, getPublishers());
+		buildHTMLTextOutput(text, format, localPrefix, getContributors());
+		buildHTMLTextOutput(text, format, localPrefix, getCreators());
+		buildHTMLTextOutput(text, format, localPrefix, getPointOfContacts());
 		if (getDescription() != null)
-			text.append(getDescription().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix, getProcessingInfos()));
+			getDescription().appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix, getProcessingInfos());
 		if (getRevisionRecall() != null)
-			text.append(getRevisionRecall().getHTMLTextOutput(format, localPrefix, ""));
+			getRevisionRecall().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getRecordsManagementInfo() != null)
-			text.append(getRecordsManagementInfo().getHTMLTextOutput(format, localPrefix, ""));
+			getRecordsManagementInfo().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getNoticeList() != null)
-			text.append(getNoticeList().getHTMLTextOutput(format, localPrefix, ""));
+			getNoticeList().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getAccess() != null)
-			text.append(getAccess().getHTMLTextOutput(format, localPrefix, ""));
+			getAccess().appendHTMLTextOutput(text, format, localPrefix, "");
 
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -549,7 +563,7 @@ public final class MetacardInfo extends AbstractBaseComponent {
 				return (null);
 			List<IDDMSComponent> childComponents = new ArrayList<IDDMSComponent>();
 			for (IBuilder builder : getChildBuilders()) {
-				IDDMSComponent component = builder.commit();
+				IDDMSComponent component = adoptable(builder.commit());
 				if (component != null) {
 					childComponents.add(component);
 				}
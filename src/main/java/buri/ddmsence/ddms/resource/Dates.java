@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -29,6 +30,7 @@ import javax.xml.datatype.XMLGregorianCalendar;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.ApproximableDate;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
@@ -148,7 +150,7 @@ public final class Dates extends AbstractBaseComponent {
 				acquiredOns = Collections.emptyList();
 			_acquiredOns = acquiredOns;
 			for (ApproximableDate acquiredOn : acquiredOns)
-				element.appendChild(acquiredOn.getXOMElementCopy());
+				appendChildElement(element, acquiredOn);
 
 			Util.addDDMSAttribute(element, CREATED_NAME, created);
 			Util.addDDMSAttribute(element, POSTED_NAME, posted);
@@ -214,32 +216,44 @@ public final class Dates extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, ACQUIRED_ON_NAME, getAcquiredOns());
-		addJson(object, CREATED_NAME, getCreatedString());
-		addJson(object, POSTED_NAME, getPostedString());
-		addJson(object, VALID_TIL_NAME, getValidTilString());
-		addJson(object, INFO_CUT_OFF_NAME, getInfoCutOffString());
-		addJson(object, APPROVED_ON_NAME, getApprovedOnString());
-		addJson(object, RECEIVED_ON_NAME, getReceivedOnString());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(ACQUIRED_ON_NAME, getAcquiredOns());
+		fields.add(CREATED_NAME, getCreatedString());
+		fields.add(POSTED_NAME, getPostedString());
+		fields.add(VALID_TIL_NAME, getValidTilString());
+		fields.add(INFO_CUT_OFF_NAME, getInfoCutOffString());
+		fields.add(APPROVED_ON_NAME, getApprovedOnString());
+		fields.add(RECEIVED_ON_NAME, getReceivedOnString());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix, getAcquiredOns()));
-		text.append(buildHTMLTextOutput(format, localPrefix + CREATED_NAME, getCreatedString()));
-		text.append(buildHTMLTextOutput(format, localPrefix + POSTED_NAME, getPostedString()));
-		text.append(buildHTMLTextOutput(format, localPrefix + VALID_TIL_NAME, getValidTilString()));
-		text.append(buildHTMLTextOutput(format, localPrefix + INFO_CUT_OFF_NAME, getInfoCutOffString()));
-		text.append(buildHTMLTextOutput(format, localPrefix + APPROVED_ON_NAME, getApprovedOnString()));
-		text.append(buildHTMLTextOutput(format, localPrefix + RECEIVED_ON_NAME, getReceivedOnString()));
-		return (text.toString());
+		buildHTMLTextOutput(text, format, localPrefix, getAcquiredOns());
+		buildHTMLTextOutput(text, format, localPrefix + CREATED_NAME, getCreatedString());
+		buildHTMLTextOutput(text, format, localPrefix + POSTED_NAME, getPostedString());
+		buildHTMLTextOutput(text, format, localPrefix + VALID_TIL_NAME, getValidTilString());
+		buildHTMLTextOutput(text, format, localPrefix + INFO_CUT_OFF_NAME, getInfoCutOffString());
+		buildHTMLTextOutput(text, format, localPrefix + APPROVED_ON_NAME, getApprovedOnString());
+		buildHTMLTextOutput(text, format, localPrefix + RECEIVED_ON_NAME, getReceivedOnString());
 	}
 
 	/**
@@ -267,10 +281,10 @@ public final class Dates extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getCreatedString().hashCode();
 		result = 7 * result + getPostedString().hashCode();
 		result = 7 * result + getValidTilString().hashCode();
@@ -450,7 +464,7 @@ public final class Dates extends AbstractBaseComponent {
 				return (null);
 			List<ApproximableDate> acquiredOns = new ArrayList<ApproximableDate>();
 			for (IBuilder builder : getAcquiredOns()) {
-				ApproximableDate component = (ApproximableDate) builder.commit();
+				ApproximableDate component = (ApproximableDate) adoptable(builder.commit());
 				if (component != null)
 					acquiredOns.add(component);
 			}
@@ -129,7 +129,7 @@ public final class Organization extends AbstractRoleEntity {
 				subOrganizations = Collections.emptyList();
 			Util.addDDMSAttribute(getXOMElement(), ACRONYM_NAME, acronym);
 			for (SubOrganization subOrganization : subOrganizations)
-				getXOMElement().appendChild(subOrganization.getXOMElementCopy());
+				appendChildElement(getXOMElement(), subOrganization);
 			_subOrganizations = subOrganizations;
 			validate();
 		}
@@ -165,12 +165,20 @@ public final class Organization extends AbstractRoleEntity {
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, "", suffix);
-		StringBuffer text = new StringBuffer(super.getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix, getSubOrganizations()));
-		text.append(buildHTMLTextOutput(format, localPrefix + ACRONYM_NAME, getAcronym()));
-		return (text.toString());
+		text.append(super.getHTMLTextOutput(format, localPrefix, ""));
+		buildHTMLTextOutput(text, format, localPrefix, getSubOrganizations());
+		buildHTMLTextOutput(text, format, localPrefix + ACRONYM_NAME, getAcronym());
 	}
 
 	/**
@@ -193,10 +201,10 @@ public final class Organization extends AbstractRoleEntity {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getAcronym().hashCode();
 		return (result);
 	}
@@ -263,7 +271,7 @@ public final class Organization extends AbstractRoleEntity {
 				return (null);
 			List<SubOrganization> subOrgs = new ArrayList<SubOrganization>();
 			for (IBuilder builder : getSubOrganizations()) {
-				SubOrganization component = (SubOrganization) builder.commit();
+				SubOrganization component = (SubOrganization) adoptable(builder.commit());
 				if (component != null)
 					subOrgs.add(component);
 			}
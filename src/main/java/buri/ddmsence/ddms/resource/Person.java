@@ -211,10 +211,10 @@ public final class Person extends AbstractRoleEntity {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSurname().hashCode();
 		result = 7 * result + getUserID().hashCode();
 		result = 7 * result + getAffiliations().hashCode();
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -26,6 +27,7 @@ import java.util.List;
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractProducerRole;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -102,7 +104,7 @@ public class RecordKeeper extends AbstractBaseComponent {
 			if (!Util.isEmpty(recordKeeperID))
 				element.appendChild(Util.buildDDMSElement(RECORD_KEEPER_ID_NAME, recordKeeperID));
 			if (organization != null)
-				element.appendChild(organization.getXOMElementCopy());
+				appendChildElement(element, organization);
 			_organization = organization;
 			setXOMElement(element, true);
 		}
@@ -134,10 +136,10 @@ public class RecordKeeper extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getRecordKeeperID().hashCode();
 		return (result);
 	}
@@ -146,22 +148,34 @@ public class RecordKeeper extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, RECORD_KEEPER_ID_NAME, getRecordKeeperID());
-		addJson(object, getOrganization());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(RECORD_KEEPER_ID_NAME, getRecordKeeperID());
+		fields.add(getOrganization());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + RECORD_KEEPER_ID_NAME, getRecordKeeperID()));
-		text.append(getOrganization().getHTMLTextOutput(format, localPrefix, ""));
-		return (text.toString());
+		buildHTMLTextOutput(text, format, localPrefix + RECORD_KEEPER_ID_NAME, getRecordKeeperID());
+		getOrganization().appendHTMLTextOutput(text, format, localPrefix, "");
 	}
 
 	/**
@@ -227,7 +241,7 @@ public class RecordKeeper extends AbstractBaseComponent {
 		 * @see IBuilder#commit()
 		 */
 		public RecordKeeper commit() throws InvalidDDMSException {
-			return (isEmpty() ? null : new RecordKeeper(getRecordKeeperID(), getOrganization().commit()));
+			return (isEmpty() ? null : new RecordKeeper(getRecordKeeperID(), adoptable(getOrganization().commit())));
 		}
 
 		/**
@@ -19,12 +19,14 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -105,9 +107,9 @@ public final class RecordsManagementInfo extends AbstractBaseComponent {
 				null);
 			setXOMElement(element, false);
 			if (recordKeeper != null)
-				element.appendChild(recordKeeper.getXOMElementCopy());
+				appendChildElement(element, recordKeeper);
 			if (applicationSoftware != null)
-				element.appendChild(applicationSoftware.getXOMElementCopy());
+				appendChildElement(element, applicationSoftware);
 			Util.addDDMSAttribute(element, VITAL_RECORD_INDICATOR_NAME, String.valueOf(vitalRecordIndicator));
 			_recordKeeper = recordKeeper;
 			_applicationSoftware = applicationSoftware;
@@ -132,27 +134,39 @@ public final class RecordsManagementInfo extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, getRecordKeeper());
-		addJson(object, getApplicationSoftware());
-		addJson(object, VITAL_RECORD_INDICATOR_NAME, getVitalRecordIndicator());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(getRecordKeeper());
+		fields.add(getApplicationSoftware());
+		fields.add(VITAL_RECORD_INDICATOR_NAME, getVitalRecordIndicator());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (getRecordKeeper() != null)
-			text.append(getRecordKeeper().getHTMLTextOutput(format, localPrefix, ""));
+			getRecordKeeper().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getApplicationSoftware() != null)
-			text.append(getApplicationSoftware().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix + VITAL_RECORD_INDICATOR_NAME,
-			String.valueOf(getVitalRecordIndicator())));
-		return (text.toString());
+			getApplicationSoftware().appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix + VITAL_RECORD_INDICATOR_NAME,
+			String.valueOf(getVitalRecordIndicator()));
 	}
 
 	/**
@@ -176,10 +190,10 @@ public final class RecordsManagementInfo extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getVitalRecordIndicator().hashCode();
 		return (result);
 	}
@@ -252,8 +266,8 @@ public final class RecordsManagementInfo extends AbstractBaseComponent {
 		 * @see IBuilder#commit()
 		 */
 		public RecordsManagementInfo commit() throws InvalidDDMSException {
-			return (isEmpty() ? null : new RecordsManagementInfo(getRecordKeeper().commit(),
-				getApplicationSoftware().commit(), getVitalRecordIndicator()));
+			return (isEmpty() ? null : new RecordsManagementInfo(adoptable(getRecordKeeper().commit()),
+				adoptable(getApplicationSoftware().commit()), getVitalRecordIndicator()));
 		}
 
 		/**
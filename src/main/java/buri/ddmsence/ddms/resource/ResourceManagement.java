@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -101,7 +103,7 @@ public final class ResourceManagement extends AbstractBaseComponent {
 			for (int i = 0; i < processingInfos.size(); i++) {
 				_processingInfos.add(new ProcessingInfo(processingInfos.get(i)));
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -132,13 +134,13 @@ public final class ResourceManagement extends AbstractBaseComponent {
 			Element element = Util.buildDDMSElement(ResourceManagement.getName(DDMSVersion.getCurrentVersion()), null);
 			setXOMElement(element, false);
 			if (recordsManagementInfo != null)
-				element.appendChild(recordsManagementInfo.getXOMElementCopy());
+				appendChildElement(element, recordsManagementInfo);
 			if (revisionRecall != null)
-				element.appendChild(revisionRecall.getXOMElementCopy());
+				appendChildElement(element, revisionRecall);
 			for (TaskingInfo info : taskingInfos)
-				element.appendChild(info.getXOMElementCopy());
+				appendChildElement(element, info);
 			for (ProcessingInfo info : processingInfos)
-				element.appendChild(info.getXOMElementCopy());
+				appendChildElement(element, info);
 
 			_recordsManagementInfo = recordsManagementInfo;
 			_revisionRecall = revisionRecall;
@@ -167,30 +169,42 @@ public final class ResourceManagement extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, getRecordsManagementInfo());
-		addJson(object, getRevisionRecall());
-		addJson(object, "taskingInfo", getTaskingInfos());
-		addJson(object, "processingInfo", getProcessingInfos());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(getRecordsManagementInfo());
+		fields.add(getRevisionRecall());
+		fields.add("taskingInfo", getTaskingInfos());
+		fields.add("processingInfo", getProcessingInfos());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (getRecordsManagementInfo() != null)
-			text.append(getRecordsManagementInfo().getHTMLTextOutput(format, localPrefix, ""));
+			getRecordsManagementInfo().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getRevisionRecall() != null)
-			text.append(getRevisionRecall().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix, getTaskingInfos()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getProcessingInfos()));
+			getRevisionRecall().appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix, getTaskingInfos());
+		buildHTMLTextOutput(text, format, localPrefix, getProcessingInfos());
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -304,18 +318,19 @@ public final class ResourceManagement extends AbstractBaseComponent {
 				return (null);
 			List<TaskingInfo> taskingInfos = new ArrayList<TaskingInfo>();
 			for (TaskingInfo.Builder builder : getTaskingInfos()) {
-				TaskingInfo info = builder.commit();
+				TaskingInfo info = adoptable(builder.commit());
 				if (info != null)
 					taskingInfos.add(info);
 			}
 			List<ProcessingInfo> processingInfos = new ArrayList<ProcessingInfo>();
 			for (ProcessingInfo.Builder builder : getProcessingInfos()) {
-				ProcessingInfo point = builder.commit();
+				ProcessingInfo point = adoptable(builder.commit());
 				if (point != null)
 					processingInfos.add(point);
 			}
-			return (new ResourceManagement(getRecordsManagementInfo().commit(), getRevisionRecall().commit(),
-				taskingInfos, processingInfos, getSecurityAttributes().commit()));
+			return (new ResourceManagement(adoptable(getRecordsManagementInfo().commit()),
+				adoptable(getRevisionRecall().commit()), taskingInfos, processingInfos,
+				getSecurityAttributes().commit()));
 		}
 
 		/**
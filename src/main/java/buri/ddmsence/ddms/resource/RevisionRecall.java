@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -31,6 +32,7 @@ import nu.xom.Elements;
 import nu.xom.Node;
 import nu.xom.Text;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -146,7 +148,7 @@ public final class RevisionRecall extends AbstractBaseComponent {
 				_revisionID = Integer.valueOf(revisionID);
 			}
 			_xlinkAttributes = new XLinkAttributes(element);
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -216,9 +218,9 @@ public final class RevisionRecall extends AbstractBaseComponent {
 
 			Element element = Util.buildDDMSElement(RevisionRecall.getName(DDMSVersion.getCurrentVersion()), value);
 			for (Link link : links)
-				element.appendChild(link.getXOMElementCopy());
+				appendChildElement(element, link);
 			for (Details detail : details)
-				element.appendChild(detail.getXOMElementCopy());
+				appendChildElement(element, detail);
 			if (revisionID != null) {
 				_revisionID = revisionID;
 				Util.addDDMSAttribute(element, REVISION_ID_NAME, revisionID.toString());
@@ -299,19 +301,24 @@ public final class RevisionRecall extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
 		boolean hasNestedElements = (!getLinks().isEmpty() || !getDetails().isEmpty());
-		JsonObject object = new JsonObject();
 		if (!hasNestedElements)
-			addJson(object, getName(), getValue());
-		addJson(object, REVISION_ID_NAME, getRevisionID());
-		addJson(object, REVISION_TYPE_NAME, getRevisionType());
-		addJson(object, NETWORK_NAME, getNetwork());
-		addJson(object, OTHER_NETWORK_NAME, getOtherNetwork());
-		addJson(object, "link", getLinks());
-		addJson(object, "detail", getDetails());
-		addJson(object, getXLinkAttributes());
-		addJson(object, getSecurityAttributes());
-		return (object);
+			fields.add(getName(), getValue());
+		fields.add(REVISION_ID_NAME, getRevisionID());
+		fields.add(REVISION_TYPE_NAME, getRevisionType());
+		fields.add(NETWORK_NAME, getNetwork());
+		fields.add(OTHER_NETWORK_NAME, getOtherNetwork());
+		fields.add("link", getLinks());
+		fields.add("detail", getDetails());
+		fields.add(getXLinkAttributes());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
@@ -361,10 +368,10 @@ public final class RevisionRecall extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getValue().hashCode();
 		result = 7 * result + getRevisionID().hashCode();
 		result = 7 * result + getRevisionType().hashCode();
@@ -499,13 +506,13 @@ public final class RevisionRecall extends AbstractBaseComponent {
 				return (null);
 			List<Link> links = new ArrayList<Link>();
 			for (IBuilder builder : getLinks()) {
-				Link component = (Link) builder.commit();
+				Link component = (Link) adoptable(builder.commit());
 				if (component != null)
 					links.add(component);
 			}
 			List<Details> details = new ArrayList<Details>();
 			for (IBuilder builder : getDetails()) {
-				Details component = (Details) builder.commit();
+				Details component = (Details) adoptable(builder.commit());
 				if (component != null)
 					details.add(component);
 			}
@@ -135,10 +135,10 @@ public final class Rights extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + Util.booleanHashCode(getPrivacyAct());
 		result = 7 * result + Util.booleanHashCode(getIntellectualProperty());
 		result = 7 * result + Util.booleanHashCode(getCopyright());
@@ -79,7 +79,7 @@ public final class Source extends AbstractQualifierValue {
 	public Source(Element element) throws InvalidDDMSException {
 		// Defaults to qualifier-value over codespace-code.
 		try {
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			setXOMElement(element, true);
 		}
 		catch (InvalidDDMSException e) {
@@ -180,10 +180,10 @@ public final class Source extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSchemaQualifier().hashCode();
 		result = 7 * result + getSchemaHref().hashCode();
 		return (result);
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.resource;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -106,7 +108,7 @@ public final class TaskingInfo extends AbstractBaseComponent {
 			Element taskID = element.getFirstChildElement(TaskID.getName(getDDMSVersion()), getNamespace());
 			if (taskID != null)
 				_taskID = new TaskID(taskID);
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -136,13 +138,13 @@ public final class TaskingInfo extends AbstractBaseComponent {
 			Element element = Util.buildDDMSElement(TaskingInfo.getName(DDMSVersion.getCurrentVersion()), null);
 			setXOMElement(element, false);
 			for (RequesterInfo info : requesterInfos)
-				element.appendChild(info.getXOMElementCopy());
+				appendChildElement(element, info);
 			for (Addressee addressee : addressees)
-				element.appendChild(addressee.getXOMElementCopy());
+				appendChildElement(element, addressee);
 			if (description != null)
-				element.appendChild(description.getXOMElementCopy());
+				appendChildElement(element, description);
 			if (taskID != null)
-				element.appendChild(taskID.getXOMElementCopy());
+				appendChildElement(element, taskID);
 
 			_requesterInfos = requesterInfos;
 			_addressees = addressees;
@@ -173,27 +175,39 @@ public final class TaskingInfo extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, "requesterInfo", getRequesterInfos());
-		addJson(object, "addressee", getAddressees());
-		addJson(object, getDescription());
-		addJson(object, getTaskID());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add("requesterInfo", getRequesterInfos());
+		fields.add("addressee", getAddressees());
+		fields.add(getDescription());
+		fields.add(getTaskID());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix, getRequesterInfos()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getAddressees()));
+		buildHTMLTextOutput(text, format, localPrefix, getRequesterInfos());
+		buildHTMLTextOutput(text, format, localPrefix, getAddressees());
 		if (getDescription() != null)
-			text.append(getDescription().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(getTaskID().getHTMLTextOutput(format, localPrefix, ""));
-		return (text.toString());
+			getDescription().appendHTMLTextOutput(text, format, localPrefix, "");
+		getTaskID().appendHTMLTextOutput(text, format, localPrefix, "");
 	}
 
 	/**
@@ -305,18 +319,18 @@ public final class TaskingInfo extends AbstractBaseComponent {
 				return (null);
 			List<RequesterInfo> requesterInfos = new ArrayList<RequesterInfo>();
 			for (IBuilder builder : getRequesterInfos()) {
-				RequesterInfo component = (RequesterInfo) builder.commit();
+				RequesterInfo component = (RequesterInfo) adoptable(builder.commit());
 				if (component != null)
 					requesterInfos.add(component);
 			}
 			List<Addressee> addressees = new ArrayList<Addressee>();
 			for (IBuilder builder : getAddressees()) {
-				Addressee component = (Addressee) builder.commit();
+				Addressee component = (Addressee) adoptable(builder.commit());
 				if (component != null)
 					addressees.add(component);
 			}
-			return (new TaskingInfo(requesterInfos, addressees, getDescription().commit(), getTaskID().commit(),
-				getSecurityAttributes().commit()));
+			return (new TaskingInfo(requesterInfos, addressees, adoptable(getDescription().commit()),
+				adoptable(getTaskID().commit()), getSecurityAttributes().commit()));
 		}
 
 		/**
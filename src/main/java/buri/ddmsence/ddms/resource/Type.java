@@ -75,7 +75,7 @@ public final class Type extends AbstractQualifierValue {
 	public Type(Element element) throws InvalidDDMSException {
 		// Defaults to qualifier-value over codespace-code.
 		try {
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			setXOMElement(element, true);
 		}
 		catch (InvalidDDMSException e) {
@@ -177,10 +177,10 @@ public final class Type extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getDescription().hashCode();
 		return (result);
 	}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -91,7 +93,7 @@ public final class NoticeList extends AbstractBaseComponent {
 			for (int i = 0; i < notices.size(); i++) {
 				_notices.add(new Notice(notices.get(i)));
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -115,7 +117,7 @@ public final class NoticeList extends AbstractBaseComponent {
 			DDMSVersion version = DDMSVersion.getCurrentVersion();
 			Element element = Util.buildDDMSElement(NoticeList.getName(version), null);
 			for (Notice noticeText : notices)
-				element.appendChild(noticeText.getXOMElementCopy());
+				appendChildElement(element, noticeText);
 
 			_notices = notices;
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
@@ -145,22 +147,34 @@ public final class NoticeList extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, "notice", getNotices());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add("notice", getNotices());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix, getNotices()));
+		buildHTMLTextOutput(text, format, localPrefix, getNotices());
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -240,7 +254,7 @@ public final class NoticeList extends AbstractBaseComponent {
 				return (null);
 			List<Notice> notices = new ArrayList<Notice>();
 			for (IBuilder builder : getNotices()) {
-				Notice component = (Notice) builder.commit();
+				Notice component = (Notice) adoptable(builder.commit());
 				if (component != null)
 					notices.add(component);
 			}
@@ -19,12 +19,14 @@
  */
 package buri.ddmsence.ddms.security;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -98,7 +100,7 @@ public final class Security extends AbstractBaseComponent {
 				getDDMSVersion().getNtkNamespace());
 			if (accessElement != null)
 				_access = new Access(accessElement);
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -122,9 +124,9 @@ public final class Security extends AbstractBaseComponent {
 
 			Element element = Util.buildDDMSElement(Security.getName(version), null);
 			if (noticeList != null)
-				element.appendChild(noticeList.getXOMElementCopy());
+				appendChildElement(element, noticeList);
 			if (access != null)
-				element.appendChild(access.getXOMElementCopy());
+				appendChildElement(element, access);
 			if (DDMSVersion.getCurrentVersion().isAtLeast("3.0"))
 				Util.addAttribute(element, PropertyReader.getPrefix("ism"), EXCLUDE_FROM_ROLLUP_NAME,
 					DDMSVersion.getCurrentVersion().getIsmNamespace(), FIXED_ROLLUP);
@@ -162,30 +164,42 @@ public final class Security extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, EXCLUDE_FROM_ROLLUP_NAME, getExcludeFromRollup());
-		addJson(object, getNoticeList());
-		addJson(object, getAccess());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(EXCLUDE_FROM_ROLLUP_NAME, getExcludeFromRollup());
+		fields.add(getNoticeList());
+		fields.add(getAccess());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (getExcludeFromRollup() != null)
-			text.append(buildHTMLTextOutput(format, localPrefix + EXCLUDE_FROM_ROLLUP_NAME,
-				String.valueOf(getExcludeFromRollup())));
+			buildHTMLTextOutput(text, format, localPrefix + EXCLUDE_FROM_ROLLUP_NAME,
+				String.valueOf(getExcludeFromRollup()));
 		if (getNoticeList() != null)
-			text.append(getNoticeList().getHTMLTextOutput(format, localPrefix, ""));
+			getNoticeList().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getAccess() != null)
-			text.append(getAccess().getHTMLTextOutput(format, localPrefix, ""));
+			getAccess().appendHTMLTextOutput(text, format, localPrefix, "");
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -285,8 +299,8 @@ public final class Security extends AbstractBaseComponent {
 		 * @see IBuilder#commit()
 		 */
 		public Security commit() throws InvalidDDMSException {
-			return (isEmpty() ? null : new Security(getNoticeList().commit(), getAccess().commit(),
-				getSecurityAttributes().commit()));
+			return (isEmpty() ? null : new Security(adoptable(getNoticeList().commit()),
+				adoptable(getAccess().commit()), getSecurityAttributes().commit()));
 		}
 
 		/**
@@ -0,0 +1,532 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.security.ism;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import buri.ddmsence.ddms.IDDMSComponent;
+import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.Util;
+
+/**
+ * Decides whether a user may see records, based on the ISM security attributes of each record and the user's clearance
+ * and authorizations.
+ * 
+ * <p>
+ * The access-related attributes of a record are encoded as bitsets, with one bit for each token in the controlled
+ * vocabulary of the DDMS version, and the classification is encoded as an ordinal level. The user's clearance and
+ * authorizations are compiled into masks in the same layout once, when the filter is created, so each decision is a
+ * few word-wide bit operations rather than a series of String comparisons.
+ * </p>
+ * 
+ * <ul>
+ * <li>Classification: The classification of the record must be no higher than the user's clearance. The levels are
+ * U, R, C, S and TS, and the NATO and historical classifications of older DDMS versions are ranked alongside their US
+ * equivalents. A record with no classification is treated as unclassified, and a record with an unrecognised
+ * classification is never accessible.</li>
+ * <li>Controls: Every token in the record's SCIcontrols, SARIdentifier, atomicEnergyMarkings, disseminationControls,
+ * nonICmarkings and nonUSControls must appear among the user's authorizations.</li>
+ * <li>Audience: If the record has any releasableTo or displayOnlyTo tokens, at least one of them must appear among the
+ * user's affiliations.</li>
+ * <li>Unknown tokens: Tokens which are not in the enumerated vocabulary of the DDMS version, such as values matching a
+ * CVE pattern, have no bit and can never be held by a user. A record which requires one is never accessible, and one
+ * which is only releasable to unknown audiences is never accessible either. Unknown authorizations and affiliations of
+ * the user are ignored.</li>
+ * <li>Other attributes, such as ownerProducer, FGIsourceOpen and the declassification attributes, describe the record
+ * rather than restrict its audience, and are ignored.</li>
+ * </ul>
+ * 
+ * <p>
+ * This is a simplified model of ISM access rules, intended for narrowing large result sets. It is not a substitute
+ * for an accredited access control decision.
+ * </p>
+ * 
+ * <p>
+ * Large result sets can be encoded once with {@link #encode(DDMSVersion, List)}, which stores the bitsets of every
+ * record in flat arrays. <code>getAccessible</code> then checks every record in a single pass over those arrays, and
+ * the same encoded records can be checked by any filter for the same DDMS version. Single decisions made by
+ * <code>canAccess</code> are cached by a fingerprint of the access-related attributes, so records which share the
+ * same markings are only evaluated once. The cache is cleared whenever it grows past a fixed size. A filter is
+ * immutable apart from its cache, and can be shared by many Threads.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public final class AccessFilter {
+
+	/** The number of decisions which are cached before the cache is cleared */
+	private static final int MAX_CACHED_DECISIONS = 4096;
+
+	/** The level of a record which is never accessible */
+	private static final int DENIED = Integer.MAX_VALUE;
+
+	/** Levels of the classifications in every DDMS version */
+	private static final Map<String, Integer> CLASSIFICATION_LEVELS = new HashMap<String, Integer>();
+	static {
+		addLevel(0, "U", "NU");
+		addLevel(1, "R", "NR");
+		addLevel(2, "C", "NC", "NCA");
+		addLevel(3, "S", "NS", "NSAT", "NS-S", "NS-A");
+		addLevel(4, "TS", "CTS", "CTS-B", "CTS-BALK", "CTSA");
+	}
+
+	/** The attributes which require every token, in the order their bits are laid out */
+	private static final String[] CONTROL_VOCABULARIES = { ISMVocabulary.CVE_SCI_CONTROLS,
+		ISMVocabulary.CVE_SAR_IDENTIFIER, ISMVocabulary.CVE_ATOMIC_ENERGY_MARKINGS,
+		ISMVocabulary.CVE_DISSEMINATION_CONTROLS, ISMVocabulary.CVE_NON_IC_MARKINGS,
+		ISMVocabulary.CVE_NON_US_CONTROLS };
+
+	/** The bit layouts of each DDMS version, which never change once built */
+	private static final ConcurrentMap<DDMSVersion, Layout> LAYOUTS = new ConcurrentHashMap<DDMSVersion, Layout>();
+
+	private final Layout _layout;
+	private final int _clearance;
+	private final long[] _authorizationMask;
+	private final long[] _affiliationMask;
+	private final ConcurrentMap<Fingerprint, Boolean> _decisions = new ConcurrentHashMap<Fingerprint, Boolean>();
+
+	/**
+	 * Constructor
+	 * 
+	 * @param version the DDMS version whose controlled vocabularies are used
+	 * @param clearance the user's clearance, which must be a classification from the vocabulary of the version
+	 * @param authorizations the control tokens the user is authorized for, such as SCI controls, SAR identifiers and
+	 *        dissemination controls, which may be empty
+	 * @param affiliations the countries and organizations the user belongs to, as releasableTo tokens, which may be
+	 *        empty
+	 * @throws IllegalArgumentException if the clearance is not a classification of the DDMS version
+	 */
+	public AccessFilter(DDMSVersion version, String clearance, Collection<String> authorizations,
+		Collection<String> affiliations) {
+		Util.requireValue("version", version);
+		Util.requireValue("clearance", clearance);
+		Util.requireValue("authorizations", authorizations);
+		Util.requireValue("affiliations", affiliations);
+		Integer level = CLASSIFICATION_LEVELS.get(clearance);
+		if (level == null
+			|| !ISMVocabulary.getEnumerationTokens(version, ISMVocabulary.CVE_ALL_CLASSIFICATIONS).contains(clearance))
+			throw new IllegalArgumentException(ISMVocabulary.getInvalidMessage(ISMVocabulary.CVE_ALL_CLASSIFICATIONS,
+				clearance));
+		_layout = getLayout(version);
+		_clearance = level.intValue();
+		_authorizationMask = new long[_layout._controlWords];
+		for (Dictionary control : _layout._controls)
+			control.encode(authorizations, _authorizationMask, 0);
+		_affiliationMask = new long[_layout._audienceWords];
+		_layout._audience.encode(affiliations, _affiliationMask, 0);
+	}
+
+	/**
+	 * Registers the level of some classifications.
+	 * 
+	 * @param level the level
+	 * @param classifications the classifications
+	 */
+	private static void addLevel(int level, String... classifications) {
+		for (String classification : classifications)
+			CLASSIFICATION_LEVELS.put(classification, Integer.valueOf(level));
+	}
+
+	/**
+	 * Returns the bit layout of a DDMS version, building it the first time it is needed.
+	 * 
+	 * @param version the DDMS version
+	 * @return the layout
+	 */
+	private static Layout getLayout(DDMSVersion version) {
+		Layout layout = LAYOUTS.get(version);
+		if (layout == null) {
+			LAYOUTS.putIfAbsent(version, new Layout(version));
+			layout = LAYOUTS.get(version);
+		}
+		return (layout);
+	}
+
+	/**
+	 * Returns the tokens of a controlled vocabulary, or an empty set if the DDMS version does not have it.
+	 * 
+	 * @param version the DDMS version
+	 * @param enumerationKey the key of the vocabulary
+	 * @return the tokens
+	 */
+	private static Set<String> getTokens(DDMSVersion version, String enumerationKey) {
+		try {
+			return (ISMVocabulary.getEnumerationTokens(version, enumerationKey));
+		}
+		catch (IllegalArgumentException e) {
+			return (Collections.emptySet());
+		}
+	}
+
+	/**
+	 * Encodes the access-related attributes of many records, so they can be checked by <code>getAccessible</code>.
+	 * The encoding only depends on the DDMS version, so it can be reused by every filter for that version.
+	 * 
+	 * @param version the DDMS version whose controlled vocabularies are used
+	 * @param records the security attributes of each record. Null is treated as an unclassified record with no
+	 *        controls.
+	 * @return the encoded records
+	 */
+	public static EncodedRecords encode(DDMSVersion version, List<SecurityAttributes> records) {
+		Util.requireValue("version", version);
+		Util.requireValue("records", records);
+		return (encode(getLayout(version), records));
+	}
+
+	/**
+	 * Encodes the access-related attributes of many records in a bit layout.
+	 * 
+	 * @param layout the bit layout
+	 * @param records the security attributes of each record
+	 * @return the encoded records
+	 */
+	private static EncodedRecords encode(Layout layout, List<SecurityAttributes> records) {
+		EncodedRecords encoded = new EncodedRecords(layout, records.size());
+		int index = 0;
+		for (SecurityAttributes attributes : records)
+			encoded.set(index++, new Fingerprint(attributes));
+		return (encoded);
+	}
+
+	/**
+	 * Checks whether the user may see a record with some security attributes.
+	 * 
+	 * @param attributes the security attributes of the record. Null is treated as an unclassified record with no
+	 *        controls.
+	 * @return true if the user may see the record
+	 */
+	public boolean canAccess(SecurityAttributes attributes) {
+		Fingerprint fingerprint = new Fingerprint(attributes);
+		Boolean decision = _decisions.get(fingerprint);
+		if (decision == null) {
+			EncodedRecords encoded = new EncodedRecords(_layout, 1);
+			encoded.set(0, fingerprint);
+			decision = Boolean.valueOf(isAccessible(encoded, 0));
+			if (_decisions.size() >= MAX_CACHED_DECISIONS)
+				_decisions.clear();
+			_decisions.put(fingerprint, decision);
+		}
+		return (decision.booleanValue());
+	}
+
+	/**
+	 * Checks whether the user may see a component, such as a Resource, based on its own security attributes.
+	 * 
+	 * @param component the component
+	 * @return true if the user may see the component
+	 */
+	public boolean canAccess(IDDMSComponent component) {
+		Util.requireValue("component", component);
+		return (canAccess(component.getSecurityAttributes()));
+	}
+
+	/**
+	 * Finds the records in a list which the user may see. The records are encoded first, so if the same records will
+	 * be checked more than once, encode them once with {@link #encode(DDMSVersion, List)} instead.
+	 * 
+	 * @param records the security attributes of each record
+	 * @return a bitset with a bit set at the index of each record the user may see
+	 */
+	public BitSet getAccessible(List<SecurityAttributes> records) {
+		Util.requireValue("records", records);
+		return (getAccessible(encode(_layout, records)));
+	}
+
+	/**
+	 * Finds the encoded records which the user may see, in a single pass over their bitsets.
+	 * 
+	 * @param records the records, which must have been encoded for the DDMS version of this filter
+	 * @return a bitset with a bit set at the index of each record the user may see
+	 * @throws IllegalArgumentException if the records were encoded for a different DDMS version
+	 */
+	public BitSet getAccessible(EncodedRecords records) {
+		Util.requireValue("records", records);
+		if (records._layout != _layout)
+			throw new IllegalArgumentException("The records were encoded for a different DDMS version.");
+		BitSet accessible = new BitSet(records._size);
+		for (int i = 0; i < records._size; i++) {
+			if (isAccessible(records, i))
+				accessible.set(i);
+		}
+		return (accessible);
+	}
+
+	/**
+	 * Filters a collection of components, such as Resources, down to the ones the user may see.
+	 * 
+	 * @param components the components
+	 * @return the components the user may see, in their original order
+	 */
+	public <T extends IDDMSComponent> List<T> filter(Collection<T> components) {
+		Util.requireValue("components", components);
+		List<T> accessible = new ArrayList<T>();
+		for (T component : components) {
+			if (component != null && canAccess(component.getSecurityAttributes()))
+				accessible.add(component);
+		}
+		return (accessible);
+	}
+
+	/**
+	 * Returns the number of decisions in the cache.
+	 */
+	public int getCachedDecisionCount() {
+		return (_decisions.size());
+	}
+
+	/**
+	 * Compares the bitsets of one encoded record to the user's masks.
+	 * 
+	 * @param records the encoded records
+	 * @param index the index of the record
+	 * @return true if the user may see the record
+	 */
+	private boolean isAccessible(EncodedRecords records, int index) {
+		if (records._levels[index] > _clearance)
+			return (false);
+		long[] controls = records._controls;
+		int offset = index * _authorizationMask.length;
+		for (int word = 0; word < _authorizationMask.length; word++) {
+			if ((controls[offset + word] & ~_authorizationMask[word]) != 0)
+				return (false);
+		}
+		long[] audiences = records._audiences;
+		offset = index * _affiliationMask.length;
+		long restricted = 0L;
+		long shared = 0L;
+		for (int word = 0; word < _affiliationMask.length; word++) {
+			restricted |= audiences[offset + word];
+			shared |= audiences[offset + word] & _affiliationMask[word];
+		}
+		return (restricted == 0L || shared != 0L);
+	}
+
+	/**
+	 * The access-related attributes of many records, encoded as flat arrays of bitsets in the layout of one DDMS
+	 * version. Create these with {@link AccessFilter#encode(DDMSVersion, List)}.
+	 */
+	public static final class EncodedRecords {
+		private final Layout _layout;
+		private final int _size;
+		private final int[] _levels;
+		private final long[] _controls;
+		private final long[] _audiences;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param layout the bit layout of the DDMS version
+		 * @param size the number of records
+		 */
+		private EncodedRecords(Layout layout, int size) {
+			_layout = layout;
+			_size = size;
+			_levels = new int[size];
+			_controls = new long[size * layout._controlWords];
+			_audiences = new long[size * layout._audienceWords];
+		}
+
+		/**
+		 * Encodes the attributes of one record.
+		 * 
+		 * @param index the index of the record
+		 * @param fingerprint the attributes of the record
+		 */
+		private void set(int index, Fingerprint fingerprint) {
+			Integer level = (Util.isEmpty(fingerprint._classification) ? Integer.valueOf(0)
+				: CLASSIFICATION_LEVELS.get(fingerprint._classification));
+			boolean known = (level != null);
+			for (int i = 0; i < _layout._controls.length; i++) {
+				known = _layout._controls[i].encode(fingerprint._controls.get(i), _controls,
+					index * _layout._controlWords) && known;
+			}
+			if (!fingerprint._audience.isEmpty()) {
+				int offset = index * _layout._audienceWords;
+				_layout._audience.encode(fingerprint._audience, _audiences, offset);
+				boolean restricted = false;
+				for (int word = 0; word < _layout._audienceWords; word++)
+					restricted = restricted || _audiences[offset + word] != 0L;
+				known = restricted && known;
+			}
+			_levels[index] = (known ? level.intValue() : DENIED);
+		}
+
+		/**
+		 * Returns the number of records.
+		 */
+		public int size() {
+			return (_size);
+		}
+	}
+
+	/**
+	 * The bits assigned to the controlled vocabularies of one DDMS version. The control vocabularies share one run of
+	 * bits, one after another, and the audience vocabulary has its own.
+	 */
+	private static final class Layout {
+		private final Dictionary[] _controls;
+		private final Dictionary _audience;
+		private final int _controlWords;
+		private final int _audienceWords;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param version the DDMS version
+		 */
+		public Layout(DDMSVersion version) {
+			_controls = new Dictionary[CONTROL_VOCABULARIES.length];
+			int bits = 0;
+			for (int i = 0; i < CONTROL_VOCABULARIES.length; i++) {
+				_controls[i] = new Dictionary(getTokens(version, CONTROL_VOCABULARIES[i]), bits);
+				bits += _controls[i]._size;
+			}
+			_controlWords = (bits + 63) / 64;
+			_audience = new Dictionary(getTokens(version, ISMVocabulary.CVE_RELEASABLE_TO), 0);
+			_audienceWords = (_audience._size + 63) / 64;
+		}
+	}
+
+	/**
+	 * Assigns a bit to each token of one controlled vocabulary. The bits are fixed when the dictionary is built, and
+	 * tokens outside the vocabulary have no bit.
+	 */
+	private static final class Dictionary {
+		private final Map<String, Integer> _bits = new HashMap<String, Integer>();
+		private final int _size;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param tokens the tokens of the vocabulary
+		 * @param firstBit the bit of the first token, in alphabetical order
+		 */
+		public Dictionary(Set<String> tokens, int firstBit) {
+			int bit = firstBit;
+			for (String token : new TreeSet<String>(tokens))
+				_bits.put(token, Integer.valueOf(bit++));
+			_size = bit - firstBit;
+		}
+
+		/**
+		 * Sets the bits of some tokens in a bitset.
+		 * 
+		 * @param tokens the tokens
+		 * @param words the words of the bitset
+		 * @param offset the index of the first word of the bitset
+		 * @return true if every token has a bit, or false if any token is outside the vocabulary
+		 */
+		public boolean encode(Collection<String> tokens, long[] words, int offset) {
+			boolean known = true;
+			for (String token : tokens) {
+				int bit = getBit(token);
+				if (bit < 0)
+					known = false;
+				else
+					words[offset + bit / 64] |= 1L << (bit % 64);
+			}
+			return (known);
+		}
+
+		/**
+		 * Returns the bit of a token. Unknown tokens are not added to the dictionary.
+		 * 
+		 * @param token the token
+		 * @return the bit, or -1 if the token is outside the vocabulary
+		 */
+		private int getBit(String token) {
+			Integer bit = _bits.get(token);
+			return (bit == null ? -1 : bit.intValue());
+		}
+	}
+
+	/**
+	 * The access-related attributes of a record, used as the key for cached decisions. Two records with the same
+	 * classification, controls and audience always get the same decision, whatever their other attributes are.
+	 */
+	private static final class Fingerprint {
+		private final String _classification;
+		private final List<List<String>> _controls;
+		private final List<String> _audience;
+		private final int _hashCode;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param attributes the security attributes of a record, or null for none
+		 */
+		public Fingerprint(SecurityAttributes attributes) {
+			List<List<String>> controls = new ArrayList<List<String>>(CONTROL_VOCABULARIES.length);
+			if (attributes == null) {
+				List<String> empty = Collections.emptyList();
+				_classification = "";
+				for (int i = 0; i < CONTROL_VOCABULARIES.length; i++)
+					controls.add(empty);
+				_audience = empty;
+			}
+			else {
+				_classification = attributes.getClassification();
+				controls.add(attributes.getSCIcontrols());
+				controls.add(attributes.getSARIdentifier());
+				controls.add(attributes.getAtomicEnergyMarkings());
+				controls.add(attributes.getDisseminationControls());
+				controls.add(attributes.getNonICmarkings());
+				controls.add(attributes.getNonUSControls());
+				List<String> audience = new ArrayList<String>(attributes.getReleasableTo());
+				audience.addAll(attributes.getDisplayOnlyTo());
+				_audience = audience;
+			}
+			_controls = controls;
+			int result = _classification.hashCode();
+			for (List<String> control : _controls)
+				result = 7 * result + control.hashCode();
+			_hashCode = 7 * result + _audience.hashCode();
+		}
+
+		/**
+		 * @see Object#equals(Object)
+		 */
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Fingerprint))
+				return (false);
+			Fingerprint test = (Fingerprint) obj;
+			return (_hashCode == test._hashCode && _classification.equals(test._classification)
+				&& _controls.equals(test._controls) && _audience.equals(test._audience));
+		}
+
+		/**
+		 * @see Object#hashCode()
+		 */
+		public int hashCode() {
+			return (_hashCode);
+		}
+	}
+}
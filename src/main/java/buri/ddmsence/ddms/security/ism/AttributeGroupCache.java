@@ -0,0 +1,152 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.security.ism;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import nu.xom.Element;
+import buri.ddmsence.AbstractAttributeGroup;
+import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.PropertyReader;
+import buri.ddmsence.util.Util;
+
+/**
+ * A process-wide cache of canonical attribute groups, keyed on their content.
+ * 
+ * <p>Attribute groups are immutable, and most records repeat the same handful of markings on every component, so
+ * each distinct marking only needs to be validated and stored once. The key includes the DDMS version and the CVE
+ * location, because both affect validation, along with the raw value of every attribute in the group. Only valid
+ * groups are cached, and the cache is cleared when it fills up, so a stream of unique markings cannot grow it without
+ * limit.</p>
+ * 
+ * <p>The xs:list attributes are shared in the same way: each distinct list is split once into an unmodifiable list
+ * of interned tokens, which every group with that value refers to.</p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+final class AttributeGroupCache<T extends AbstractAttributeGroup> {
+
+	/** The number of groups or token lists which are cached before the cache is cleared */
+	static final int MAX_CACHED_ENTRIES = 4096;
+
+	private static final char SEPARATOR = '\u0000';
+
+	private static final ConcurrentMap<String, List<String>> TOKEN_LISTS
+		= new ConcurrentHashMap<String, List<String>>();
+
+	private final List<String> _names;
+	private final ConcurrentMap<String, T> _groups = new ConcurrentHashMap<String, T>();
+
+	/**
+	 * Constructor
+	 * 
+	 * @param names the local names of the attributes in the group
+	 */
+	AttributeGroupCache(Collection<String> names) {
+		Util.requireValue("names", names);
+		_names = Collections.unmodifiableList(new ArrayList<String>(names));
+	}
+
+	/**
+	 * Builds the key for the attributes on an element, or for an empty group if the element is null.
+	 * 
+	 * @param version the DDMS version of the attributes
+	 * @param element the element decorated with the attributes, or null
+	 * @return the key
+	 */
+	String getKey(DDMSVersion version, Element element) {
+		StringBuilder key = new StringBuilder(version.getVersion());
+		key.append(SEPARATOR).append(PropertyReader.getProperty(version.getVersion() + ".ism.cveLocation"));
+		String namespace = version.getIsmNamespace();
+		for (String name : _names) {
+			String value = (element == null ? null : element.getAttributeValue(name, namespace));
+			key.append(SEPARATOR);
+			if (value != null)
+				key.append(value);
+		}
+		return (key.toString());
+	}
+
+	/**
+	 * Returns the canonical group for a key.
+	 * 
+	 * @param key the key
+	 * @return the group, or null if none has been cached
+	 */
+	T get(String key) {
+		return (_groups.get(key));
+	}
+
+	/**
+	 * Caches a group, unless an equivalent group was cached first by another Thread.
+	 * 
+	 * @param key the key
+	 * @param group the valid group
+	 * @return the canonical group for the key
+	 */
+	T put(String key, T group) {
+		if (_groups.size() >= MAX_CACHED_ENTRIES)
+			_groups.clear();
+		T existing = _groups.putIfAbsent(key, group);
+		return (existing == null ? group : existing);
+	}
+
+	/**
+	 * Returns the number of groups in the cache.
+	 */
+	int size() {
+		return (_groups.size());
+	}
+
+	/**
+	 * Splits an xs:list into an unmodifiable list of interned tokens, sharing the list with every other caller who
+	 * passes the same value. Empty tokens are ignored, as in {@link Util#getXsListAsList(String)}.
+	 * 
+	 * @param value the space-delimited list
+	 * @return an unmodifiable list of tokens, which is empty if the value is empty
+	 */
+	static List<String> getTokens(String value) {
+		if (Util.isEmpty(value))
+			return (Collections.<String> emptyList());
+		List<String> tokens = TOKEN_LISTS.get(value);
+		if (tokens == null) {
+			List<String> split = Util.getXsListAsList(value);
+			for (int i = 0; i < split.size(); i++)
+				split.set(i, split.get(i).intern());
+			if (split.isEmpty())
+				tokens = Collections.<String> emptyList();
+			else if (split.size() == 1)
+				tokens = Collections.singletonList(split.get(0));
+			else
+				tokens = Collections.unmodifiableList(Arrays.asList(split.toArray(new String[split.size()])));
+			if (TOKEN_LISTS.size() >= MAX_CACHED_ENTRIES)
+				TOKEN_LISTS.clear();
+			TOKEN_LISTS.putIfAbsent(value, tokens);
+		}
+		return (tokens);
+	}
+}
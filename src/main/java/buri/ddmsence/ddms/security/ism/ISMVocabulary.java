@@ -29,7 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
-import java.util.regex.Matcher;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import nu.xom.Builder;
@@ -43,6 +44,7 @@ import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.util.DDMSMetrics;
 import buri.ddmsence.util.DDMSVersion;
 import buri.ddmsence.util.PropertyReader;
 import buri.ddmsence.util.Util;
@@ -182,32 +184,11 @@ public class ISMVocabulary {
 	private static final String REG_EXP_NAME = "regularExpression";
 
 	/**
-	 * A thread-local instance of the last location where enumeration files were cached from. This is used to cache the
-	 * most recently used set of enumeration files for performance.
+	 * A process-wide cache of controlled vocabularies, keyed on the CVE location and XML namespace they were loaded
+	 * from. Each set of vocabularies is loaded once, the first time any Thread needs it, and is never modified
+	 * afterwards, so it can be shared by every Thread regardless of which DDMS version each Thread is using.
 	 */
-	private static final ThreadLocal<String> LAST_ENUM_HOLDER = new ThreadLocal<String>();
-	
-	/**
-	 * A thread-local cache of any enumeration tokens mapped to the <code>LAST_ENUM_HOLDER</code> location. This cache
-	 * is cleared whenever the <code>LAST_ENUM_HOLDER</code> changes.
-	 */
-	private static final ThreadLocal<Map<String, Set<String>>> ENUM_TOKEN_HOLDER = new ThreadLocal<Map<String, Set<String>>>() {
-		@Override
-		protected Map<String, Set<String>> initialValue() {
-			return new HashMap<String, Set<String>>();
-		}
-	};
-	
-	/**
-	 * A thread-local cache of any enumeration patterns mapped to the <code>LAST_ENUM_HOLDER</code> location. This cache
-	 * is cleared whenever the <code>LAST_ENUM_HOLDER</code> changes.
-	 */
-	private static final ThreadLocal<Map<String, Set<String>>> ENUM_PATTERN_HOLDER = new ThreadLocal<Map<String, Set<String>>>() {
-		@Override
-		protected Map<String, Set<String>> initialValue() {
-			return new HashMap<String, Set<String>>();
-		}
-	};
+	private static final ConcurrentMap<String, Vocabularies> VOCABULARIES = new ConcurrentHashMap<String, Vocabularies>();
 
 	/**
 	 * Private to prevent instantiation
@@ -246,13 +227,12 @@ public class ISMVocabulary {
 	 * @throws IllegalArgumentException if the key does not match a controlled vocabulary
 	 */
 	public static Set<String> getEnumerationTokens(DDMSVersion version, String enumerationKey) {
-		updateEnumLocation(version);
-		Set<String> vocabulary = ENUM_TOKEN_HOLDER.get().get(enumerationKey);
+		Set<String> vocabulary = getVocabularies(version).getTokens().get(enumerationKey);
 		if (vocabulary == null) {
 			throw new IllegalArgumentException("No controlled vocabulary could be found for this key: "
 				+ enumerationKey);
 		}
-		return (Collections.unmodifiableSet(vocabulary));
+		return (vocabulary);
 	}
 
 
@@ -271,10 +251,8 @@ public class ISMVocabulary {
 		Util.requireValue("key", enumerationKey);
 		boolean isValidToken = getEnumerationTokens(version, enumerationKey).contains(value);
 		if (!isValidToken) {
-			for (String patternString : getEnumerationPatterns(version, enumerationKey)) {
-				Pattern pattern = Pattern.compile(patternString);
-				Matcher matcher = pattern.matcher(value);
-				if (matcher.matches()) {
+			for (Pattern pattern : getVocabularies(version).getPatterns().get(enumerationKey)) {
+				if (pattern.matcher(value).matches()) {
 					isValidToken = true;
 					break;
 				}
@@ -291,71 +269,101 @@ public class ISMVocabulary {
 	 * @return an unmodifiable set of Strings
 	 */
 	protected static Set<String> getEnumerationPatterns(DDMSVersion version, String enumerationKey) {
-		updateEnumLocation(version);
-		Set<String> vocabulary = ENUM_PATTERN_HOLDER.get().get(enumerationKey);
-		return (Collections.unmodifiableSet(vocabulary));
+		Set<String> patterns = new HashSet<String>();
+		for (Pattern pattern : getVocabularies(version).getPatterns().get(enumerationKey))
+			patterns.add(pattern.pattern());
+		return (Collections.unmodifiableSet(patterns));
 	}
 
 	/**
-	 * Maintains a DDMSVersion which will be used to look up the CVE files. If the version has changed from its previous
-	 * value, the new set of CVEs will be loaded and cached.
+	 * Returns the controlled vocabularies for a DDMSVersion, loading and caching them if no Thread has used this set of
+	 * CVE files before. If two Threads load the same vocabularies at once, both copies are identical and only the first
+	 * one published is kept.
 	 * 
 	 * @param version the DDMS version
+	 * @return the vocabularies (never null)
 	 */
-	private static void updateEnumLocation(DDMSVersion version) {
+	private static Vocabularies getVocabularies(DDMSVersion version) {
 		String enumLocation = PropertyReader.getProperty(version.getVersion() + ".ism.cveLocation");
-		if (LAST_ENUM_HOLDER.get() == null || !LAST_ENUM_HOLDER.get().equals(enumLocation)) {
-			LAST_ENUM_HOLDER.set(enumLocation);
-			try {
-				ENUM_TOKEN_HOLDER.get().clear();
-				ENUM_PATTERN_HOLDER.get().clear();
-				XMLReader reader = XMLReaderFactory.createXMLReader(PropertyReader.getProperty("xml.reader.class"));
-				Builder builder = new Builder(reader, false);
-				for (String cve : ALL_ENUMS) {
-					try {
-						String cveNamespace = PropertyReader.getProperty(version.getVersion() + ".ism.cve.xmlNamespace");
-						loadEnumeration(enumLocation, cveNamespace, builder, cve);
-					}
-					catch (Exception e) {
-						continue;
-					}
+		String cveNamespace = PropertyReader.getProperty(version.getVersion() + ".ism.cve.xmlNamespace");
+		String key = enumLocation + " " + cveNamespace;
+		Vocabularies vocabularies = VOCABULARIES.get(key);
+		if (vocabularies == null) {
+			Vocabularies newVocabularies = loadVocabularies(enumLocation, cveNamespace);
+			vocabularies = VOCABULARIES.putIfAbsent(key, newVocabularies);
+			if (vocabularies == null)
+				vocabularies = newVocabularies;
+		}
+		return (vocabularies);
+	}
+
+	/**
+	 * Reads every CVE file from a location. A file which is missing for this version of ISM is skipped.
+	 * 
+	 * @param enumLocation the classpath resource location for the enumeration files
+	 * @param cveNamespace the XML namespace of entries in the enumerations
+	 * @return the vocabularies
+	 */
+	private static Vocabularies loadVocabularies(String enumLocation, String cveNamespace) {
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_CVE_LOAD);
+		int errorCount = 1;
+		try {
+			Map<String, Set<String>> tokens = new HashMap<String, Set<String>>();
+			Map<String, List<Pattern>> patterns = new HashMap<String, List<Pattern>>();
+			XMLReader reader = XMLReaderFactory.createXMLReader(PropertyReader.getProperty("xml.reader.class"));
+			Builder builder = new Builder(reader, false);
+			for (String cve : ALL_ENUMS) {
+				try {
+					loadEnumeration(enumLocation, cveNamespace, builder, cve, tokens, patterns);
+				}
+				catch (Exception e) {
+					continue;
 				}
 			}
-			catch (SAXException e) {
-				throw new RuntimeException("Could not load controlled vocabularies: " + e.getMessage());
-			}
+			errorCount = 0;
+			return (new Vocabularies(tokens, patterns));
+		}
+		catch (SAXException e) {
+			throw new RuntimeException("Could not load controlled vocabularies: " + e.getMessage());
+		}
+		finally {
+			DDMSMetrics.record(DDMSMetrics.PHASE_CVE_LOAD, enumLocation, start, -1, errorCount);
 		}
 	}
 
 	/**
 	 * Opens the enumeration file and extracts a Set of String token values based on the Term elements in the file.
-	 * Stores them in the ENUM_TOKENS map with the key. If a pattern is discovered, it is stored in a separate mapping.
+	 * Stores them in the tokens map with the key. If a pattern is discovered, it is compiled and stored in a separate
+	 * mapping.
 	 * 
 	 * @param enumLocation the classpath resource location for the enumeration files
 	 * @param cveNamespace the XML namespace of entries in this enumeration
 	 * @param builder the XOM Builder to read the file with
 	 * @param enumerationKey the key for the enumeration, which doubles as the filename.
+	 * @param tokens the map of tokens to add to
+	 * @param patterns the map of patterns to add to
 	 */
-	private static void loadEnumeration(String enumLocation, String cveNamespace, Builder builder, String enumerationKey)
+	private static void loadEnumeration(String enumLocation, String cveNamespace, Builder builder,
+		String enumerationKey, Map<String, Set<String>> tokens, Map<String, List<Pattern>> patterns)
 		throws ParsingException, IOException {
 		InputStream stream = new ISMVocabulary().getClass().getResourceAsStream(enumLocation + enumerationKey);
 		Document doc = builder.build(stream);
-		Set<String> tokens = new TreeSet<String>();
-		Set<String> patterns = new HashSet<String>();
+		Set<String> enumTokens = new TreeSet<String>();
+		List<Pattern> enumPatterns = new ArrayList<Pattern>();
 		Element enumerationElement = doc.getRootElement().getFirstChildElement(ENUMERATION_NAME, cveNamespace);
 		Elements terms = enumerationElement.getChildElements(TERM_NAME, cveNamespace);
 		for (int i = 0; i < terms.size(); i++) {
 			Element value = terms.get(i).getFirstChildElement(VALUE_NAME, cveNamespace);
-			boolean isPattern = Boolean.valueOf(value.getAttributeValue(REG_EXP_NAME)).booleanValue();
 			if (value != null) {
+				boolean isPattern = Boolean.valueOf(value.getAttributeValue(REG_EXP_NAME)).booleanValue();
 				if (isPattern)
-					patterns.add(value.getValue());
+					enumPatterns.add(Pattern.compile(value.getValue()));
 				else
-					tokens.add(value.getValue());
+					enumTokens.add(value.getValue());
 			}
 		}
-		ENUM_TOKEN_HOLDER.get().put(enumerationKey, tokens);
-		ENUM_PATTERN_HOLDER.get().put(enumerationKey, patterns);
+		tokens.put(enumerationKey, Collections.unmodifiableSet(enumTokens));
+		patterns.put(enumerationKey, Collections.unmodifiableList(enumPatterns));
 	}
 	
 	/**
@@ -391,4 +399,37 @@ public class ISMVocabulary {
 		if (!COMMON_NETWORK_TYPES.contains(network))
 			throw new InvalidDDMSException("The network attribute must be one of " + COMMON_NETWORK_TYPES);
 	}
+
+	/**
+	 * An immutable set of controlled vocabularies loaded from one CVE location.
+	 */
+	private static class Vocabularies {
+		private final Map<String, Set<String>> _tokens;
+		private final Map<String, List<Pattern>> _patterns;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param tokens unmodifiable token sets, keyed on enumeration key
+		 * @param patterns unmodifiable lists of compiled patterns, keyed on enumeration key
+		 */
+		public Vocabularies(Map<String, Set<String>> tokens, Map<String, List<Pattern>> patterns) {
+			_tokens = Collections.unmodifiableMap(tokens);
+			_patterns = Collections.unmodifiableMap(patterns);
+		}
+
+		/**
+		 * Accessor for the tokens
+		 */
+		public Map<String, Set<String>> getTokens() {
+			return _tokens;
+		}
+
+		/**
+		 * Accessor for the compiled patterns
+		 */
+		public Map<String, List<Pattern>> getPatterns() {
+			return _patterns;
+		}
+	}
 }
\ No newline at end of file
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ism;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -88,8 +90,8 @@ public final class Notice extends AbstractBaseComponent {
 			for (int i = 0; i < noticeTexts.size(); i++) {
 				_noticeTexts.add(new NoticeText(noticeTexts.get(i)));
 			}
-			_noticeAttributes = new NoticeAttributes(element);
-			_securityAttributes = new SecurityAttributes(element);
+			_noticeAttributes = NoticeAttributes.getInstance(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -115,7 +117,7 @@ public final class Notice extends AbstractBaseComponent {
 			Element element = Util.buildElement(PropertyReader.getPrefix("ism"), Notice.getName(version),
 				version.getIsmNamespace(), null);
 			for (NoticeText noticeText : noticeTexts)
-				element.appendChild(noticeText.getXOMElementCopy());
+				appendChildElement(element, noticeText);
 			_noticeTexts = noticeTexts;
 			_noticeAttributes = NoticeAttributes.getNonNullInstance(noticeAttributes);
 			_noticeAttributes.addTo(element);
@@ -157,24 +159,36 @@ public final class Notice extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, "noticeText", getNoticeTexts());
-		addJson(object, getSecurityAttributes());
-		addJson(object, getNoticeAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add("noticeText", getNoticeTexts());
+		fields.add(getSecurityAttributes());
+		fields.add(getNoticeAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, "notice", suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix, getNoticeTexts()));
+		buildHTMLTextOutput(text, format, localPrefix, getNoticeTexts());
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
 		text.append(getNoticeAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -197,10 +211,10 @@ public final class Notice extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getNoticeAttributes().hashCode();
 		return (result);
 	}
@@ -273,7 +287,7 @@ public final class Notice extends AbstractBaseComponent {
 				return (null);
 			List<NoticeText> noticeTexts = new ArrayList<NoticeText>();
 			for (IBuilder builder : getNoticeTexts()) {
-				NoticeText component = (NoticeText) builder.commit();
+				NoticeText component = (NoticeText) adoptable(builder.commit());
 				if (component != null)
 					noticeTexts.add(component);
 			}
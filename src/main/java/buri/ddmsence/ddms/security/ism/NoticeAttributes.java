@@ -112,6 +112,9 @@ public final class NoticeAttributes extends AbstractAttributeGroup {
 	/** A set of all SecurityAttribute names which should not be converted into ExtensibleAttributes */
 	public static final Set<String> NON_EXTENSIBLE_NAMES = Collections.unmodifiableSet(ALL_NAMES);
 
+	private static final AttributeGroupCache<NoticeAttributes> CACHE = new AttributeGroupCache<NoticeAttributes>(
+		ALL_NAMES);
+
 	/**
 	 * Returns a non-null instance of notice attributes. If the instance passed in is not null, it will be returned.
 	 * 
@@ -120,7 +123,25 @@ public final class NoticeAttributes extends AbstractAttributeGroup {
 	 * @throws InvalidDDMSException if there are problems creating the empty attributes instance
 	 */
 	public static NoticeAttributes getNonNullInstance(NoticeAttributes noticeAttributes) throws InvalidDDMSException {
-		return (noticeAttributes == null ? new NoticeAttributes(null, null, null, null) : noticeAttributes);
+		if (noticeAttributes != null)
+			return (noticeAttributes);
+		String key = CACHE.getKey(DDMSVersion.getCurrentVersion(), null);
+		NoticeAttributes empty = CACHE.get(key);
+		return (empty == null ? CACHE.put(key, new NoticeAttributes(null, null, null, null, null)) : empty);
+	}
+
+	/**
+	 * Returns the notice attributes on an element. Because attribute groups are immutable, an element whose attributes
+	 * match those of an element seen earlier receives the same, already validated instance.
+	 * 
+	 * @param element the XOM element which is decorated with these attributes.
+	 * @return the attributes
+	 * @throws InvalidDDMSException if any required information is missing or malformed
+	 */
+	public static NoticeAttributes getInstance(Element element) throws InvalidDDMSException {
+		String key = CACHE.getKey(DDMSVersion.getVersionForNamespace(element.getNamespaceURI()), element);
+		NoticeAttributes attributes = CACHE.get(key);
+		return (attributes == null ? CACHE.put(key, new NoticeAttributes(element)) : attributes);
 	}
 
 	/**
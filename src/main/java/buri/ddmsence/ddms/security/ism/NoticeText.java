@@ -175,10 +175,10 @@ public final class NoticeText extends AbstractSimpleString {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getPocTypes().hashCode();
 		return (result);
 	}
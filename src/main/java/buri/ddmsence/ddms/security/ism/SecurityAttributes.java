@@ -245,6 +245,9 @@ public final class SecurityAttributes extends AbstractAttributeGroup {
 	/** A set of all SecurityAttribute names which should not be converted into ExtensibleAttributes */
 	public static final Set<String> NON_EXTENSIBLE_NAMES = Collections.unmodifiableSet(ALL_NAMES);
 
+	private static final AttributeGroupCache<SecurityAttributes> CACHE = new AttributeGroupCache<SecurityAttributes>(
+		ALL_NAMES);
+
 	/**
 	 * Returns a non-null instance of security attributes. If the instance passed in is not null, it will be returned.
 	 * 
@@ -254,7 +257,25 @@ public final class SecurityAttributes extends AbstractAttributeGroup {
 	 */
 	public static SecurityAttributes getNonNullInstance(SecurityAttributes securityAttributes)
 		throws InvalidDDMSException {
-		return (securityAttributes == null ? new SecurityAttributes(null, null, null) : securityAttributes);
+		if (securityAttributes != null)
+			return (securityAttributes);
+		String key = CACHE.getKey(DDMSVersion.getCurrentVersion(), null);
+		SecurityAttributes empty = CACHE.get(key);
+		return (empty == null ? CACHE.put(key, new SecurityAttributes(null, null, null)) : empty);
+	}
+
+	/**
+	 * Returns the security attributes on an element. Because attribute groups are immutable, an element whose markings
+	 * match those of an element seen earlier receives the same, already validated instance.
+	 * 
+	 * @param element the XOM element which is decorated with these attributes.
+	 * @return the attributes
+	 * @throws InvalidDDMSException if any required information is missing or malformed
+	 */
+	public static SecurityAttributes getInstance(Element element) throws InvalidDDMSException {
+		String key = CACHE.getKey(DDMSVersion.getVersionForNamespace(element.getNamespaceURI()), element);
+		SecurityAttributes attributes = CACHE.get(key);
+		return (attributes == null ? CACHE.put(key, new SecurityAttributes(element)) : attributes);
 	}
 
 	/**
@@ -265,7 +286,7 @@ public final class SecurityAttributes extends AbstractAttributeGroup {
 	public SecurityAttributes(Element element) throws InvalidDDMSException {
 		DDMSVersion version = DDMSVersion.getVersionForNamespace(element.getNamespaceURI());
 		setNamespace(version.getIsmNamespace());
-		_atomicEnergyMarkings = Util.getXsListAsList(element.getAttributeValue(ATOMIC_ENERGY_MARKINGS_NAME,
+		_atomicEnergyMarkings = AttributeGroupCache.getTokens(element.getAttributeValue(ATOMIC_ENERGY_MARKINGS_NAME,
 			getNamespace()));
 		_classification = element.getAttributeValue(CLASSIFICATION_NAME, getNamespace());
 		_classificationReason = element.getAttributeValue(CLASSIFICATION_REASON_NAME, getNamespace());
@@ -284,17 +305,18 @@ public final class SecurityAttributes extends AbstractAttributeGroup {
 			_declassManualReview = Boolean.valueOf(manualReview);
 		_derivativelyClassifiedBy = element.getAttributeValue(DERIVATIVELY_CLASSIFIED_BY_NAME, getNamespace());
 		_derivedFrom = element.getAttributeValue(DERIVED_FROM_NAME, getNamespace());
-		_displayOnlyTo = Util.getXsListAsList(element.getAttributeValue(DISPLAY_ONLY_TO_NAME, getNamespace()));
-		_disseminationControls = Util.getXsListAsList(element.getAttributeValue(DISSEMINATION_CONTROLS_NAME,
+		_displayOnlyTo = AttributeGroupCache.getTokens(element.getAttributeValue(DISPLAY_ONLY_TO_NAME, getNamespace()));
+		_disseminationControls = AttributeGroupCache.getTokens(element.getAttributeValue(DISSEMINATION_CONTROLS_NAME,
+			getNamespace()));
+		_FGIsourceOpen = AttributeGroupCache.getTokens(element.getAttributeValue(FGI_SOURCE_OPEN_NAME, getNamespace()));
+		_FGIsourceProtected = AttributeGroupCache.getTokens(element.getAttributeValue(FGI_SOURCE_PROTECTED_NAME,
 			getNamespace()));
-		_FGIsourceOpen = Util.getXsListAsList(element.getAttributeValue(FGI_SOURCE_OPEN_NAME, getNamespace()));
-		_FGIsourceProtected = Util.getXsListAsList(element.getAttributeValue(FGI_SOURCE_PROTECTED_NAME, getNamespace()));
-		_nonICmarkings = Util.getXsListAsList(element.getAttributeValue(NON_IC_MARKINGS_NAME, getNamespace()));
-		_nonUSControls = Util.getXsListAsList(element.getAttributeValue(NON_US_CONTROLS_NAME, getNamespace()));
-		_ownerProducers = Util.getXsListAsList(element.getAttributeValue(OWNER_PRODUCER_NAME, getNamespace()));
-		_releasableTo = Util.getXsListAsList(element.getAttributeValue(RELEASABLE_TO_NAME, getNamespace()));
-		_SARIdentifier = Util.getXsListAsList(element.getAttributeValue(SAR_IDENTIFIER_NAME, getNamespace()));
-		_SCIcontrols = Util.getXsListAsList(element.getAttributeValue(SCI_CONTROLS_NAME, getNamespace()));
+		_nonICmarkings = AttributeGroupCache.getTokens(element.getAttributeValue(NON_IC_MARKINGS_NAME, getNamespace()));
+		_nonUSControls = AttributeGroupCache.getTokens(element.getAttributeValue(NON_US_CONTROLS_NAME, getNamespace()));
+		_ownerProducers = AttributeGroupCache.getTokens(element.getAttributeValue(OWNER_PRODUCER_NAME, getNamespace()));
+		_releasableTo = AttributeGroupCache.getTokens(element.getAttributeValue(RELEASABLE_TO_NAME, getNamespace()));
+		_SARIdentifier = AttributeGroupCache.getTokens(element.getAttributeValue(SAR_IDENTIFIER_NAME, getNamespace()));
+		_SCIcontrols = AttributeGroupCache.getTokens(element.getAttributeValue(SCI_CONTROLS_NAME, getNamespace()));
 		_typeOfExemptedSource = element.getAttributeValue(TYPE_OF_EXEMPTED_SOURCE_NAME, getNamespace());
 		validate(version);
 	}
@@ -325,7 +347,7 @@ public final class SecurityAttributes extends AbstractAttributeGroup {
 		if (otherAttributes == null)
 			otherAttributes = Collections.emptyMap();
 
-		_atomicEnergyMarkings = Util.getXsListAsList(otherAttributes.get(ATOMIC_ENERGY_MARKINGS_NAME));
+		_atomicEnergyMarkings = AttributeGroupCache.getTokens(otherAttributes.get(ATOMIC_ENERGY_MARKINGS_NAME));
 		_classification = classification;
 		_classificationReason = otherAttributes.get(CLASSIFICATION_REASON_NAME);
 		_classifiedBy = otherAttributes.get(CLASSIFIED_BY_NAME);
@@ -355,16 +377,16 @@ public final class SecurityAttributes extends AbstractAttributeGroup {
 			_declassManualReview = Boolean.valueOf(manualReview);
 		_derivativelyClassifiedBy = otherAttributes.get(DERIVATIVELY_CLASSIFIED_BY_NAME);
 		_derivedFrom = otherAttributes.get(DERIVED_FROM_NAME);
-		_displayOnlyTo = Util.getXsListAsList(otherAttributes.get(DISPLAY_ONLY_TO_NAME));
-		_disseminationControls = Util.getXsListAsList(otherAttributes.get(DISSEMINATION_CONTROLS_NAME));
-		_FGIsourceOpen = Util.getXsListAsList(otherAttributes.get(FGI_SOURCE_OPEN_NAME));
-		_FGIsourceProtected = Util.getXsListAsList(otherAttributes.get(FGI_SOURCE_PROTECTED_NAME));
-		_nonICmarkings = Util.getXsListAsList(otherAttributes.get(NON_IC_MARKINGS_NAME));
-		_nonUSControls = Util.getXsListAsList(otherAttributes.get(NON_US_CONTROLS_NAME));
+		_displayOnlyTo = AttributeGroupCache.getTokens(otherAttributes.get(DISPLAY_ONLY_TO_NAME));
+		_disseminationControls = AttributeGroupCache.getTokens(otherAttributes.get(DISSEMINATION_CONTROLS_NAME));
+		_FGIsourceOpen = AttributeGroupCache.getTokens(otherAttributes.get(FGI_SOURCE_OPEN_NAME));
+		_FGIsourceProtected = AttributeGroupCache.getTokens(otherAttributes.get(FGI_SOURCE_PROTECTED_NAME));
+		_nonICmarkings = AttributeGroupCache.getTokens(otherAttributes.get(NON_IC_MARKINGS_NAME));
+		_nonUSControls = AttributeGroupCache.getTokens(otherAttributes.get(NON_US_CONTROLS_NAME));
 		_ownerProducers = ownerProducers;
-		_releasableTo = Util.getXsListAsList(otherAttributes.get(RELEASABLE_TO_NAME));
-		_SARIdentifier = Util.getXsListAsList(otherAttributes.get(SAR_IDENTIFIER_NAME));
-		_SCIcontrols = Util.getXsListAsList(otherAttributes.get(SCI_CONTROLS_NAME));
+		_releasableTo = AttributeGroupCache.getTokens(otherAttributes.get(RELEASABLE_TO_NAME));
+		_SARIdentifier = AttributeGroupCache.getTokens(otherAttributes.get(SAR_IDENTIFIER_NAME));
+		_SCIcontrols = AttributeGroupCache.getTokens(otherAttributes.get(SCI_CONTROLS_NAME));
 		_typeOfExemptedSource = otherAttributes.get(TYPE_OF_EXEMPTED_SOURCE_NAME);
 		validate(version);
 	}
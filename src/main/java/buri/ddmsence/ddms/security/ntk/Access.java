@@ -112,7 +112,7 @@ public final class Access extends AbstractBaseComponent {
 			Element profileList = element.getFirstChildElement(ProfileList.getName(getDDMSVersion()), getNamespace());
 			if (profileList != null)
 				_profileList = new ProfileList(profileList);
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -164,7 +164,7 @@ public final class Access extends AbstractBaseComponent {
 				Element individualList = Util.buildElement(ntkPrefix, INDIVIDUAL_LIST_NAME, ntkNamespace, null);
 				element.appendChild(individualList);
 				for (Individual individual : individuals) {
-					individualList.appendChild(individual.getXOMElementCopy());
+					appendChildElement(individualList, individual);
 				}
 			}
 			if (groups == null)
@@ -173,11 +173,11 @@ public final class Access extends AbstractBaseComponent {
 				Element groupList = Util.buildElement(ntkPrefix, GROUP_LIST_NAME, ntkNamespace, null);
 				element.appendChild(groupList);
 				for (Group group : groups) {
-					groupList.appendChild(group.getXOMElementCopy());
+					appendChildElement(groupList, group);
 				}
 			}
 			if (profileList != null)
-				element.appendChild(profileList.getXOMElementCopy());
+				appendChildElement(element, profileList);
 			if (externalReference != null) {
 				Util.addAttribute(element, ntkPrefix, EXTERNAL_REFERENCE_NAME, ntkNamespace,
 					String.valueOf(externalReference));
@@ -248,18 +248,25 @@ public final class Access extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, "access", suffix) + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + "individualList.", getIndividuals()));
-		text.append(buildHTMLTextOutput(format, localPrefix + "groupList.", getGroups()));
+		buildHTMLTextOutput(text, format, localPrefix + "individualList.", getIndividuals());
+		buildHTMLTextOutput(text, format, localPrefix + "groupList.", getGroups());
 		if (getProfileList() != null)
-			text.append(getProfileList().getHTMLTextOutput(format, localPrefix, ""));
+			getProfileList().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (isExternalReference() != null)
-			text.append(buildHTMLTextOutput(format, localPrefix + EXTERNAL_REFERENCE_NAME,
-				String.valueOf(isExternalReference())));
+			buildHTMLTextOutput(text, format, localPrefix + EXTERNAL_REFERENCE_NAME,
+				String.valueOf(isExternalReference()));
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -376,18 +383,18 @@ public final class Access extends AbstractBaseComponent {
 				return (null);
 			List<Individual> individuals = new ArrayList<Individual>();
 			for (IBuilder builder : getIndividuals()) {
-				Individual component = (Individual) builder.commit();
+				Individual component = (Individual) adoptable(builder.commit());
 				if (component != null)
 					individuals.add(component);
 			}
 			List<Group> groups = new ArrayList<Group>();
 			for (IBuilder builder : getGroups()) {
-				Group component = (Group) builder.commit();
+				Group component = (Group) adoptable(builder.commit());
 				if (component != null)
 					groups.add(component);
 			}
 
-			return (new Access(individuals, groups, getProfileList().commit(), getExternalReference(),
+			return (new Access(individuals, groups, adoptable(getProfileList().commit()), getExternalReference(),
 				getSecurityAttributes().commit()));
 		}
 
@@ -108,7 +108,7 @@ public final class Group extends AbstractAccessEntity {
 			if (groupValues == null)
 				groupValues = Collections.emptyList();
 			for (GroupValue value : groupValues) {
-				getXOMElement().appendChild(value.getXOMElementCopy());
+				appendChildElement(getXOMElement(), value);
 			}
 			_groupValues = groupValues;
 			validate();
@@ -214,11 +214,11 @@ public final class Group extends AbstractAccessEntity {
 				return (null);
 			List<GroupValue> values = new ArrayList<GroupValue>();
 			for (IBuilder builder : getGroupValues()) {
-				GroupValue component = (GroupValue) builder.commit();
+				GroupValue component = (GroupValue) adoptable(builder.commit());
 				if (component != null)
 					values.add(component);
 			}
-			return (new Group(getSystemName().commit(), values, getSecurityAttributes().commit()));
+			return (new Group(adoptable(getSystemName().commit()), values, getSecurityAttributes().commit()));
 		}
 
 		/**
@@ -108,7 +108,7 @@ public final class Individual extends AbstractAccessEntity {
 			if (individualValues == null)
 				individualValues = Collections.emptyList();
 			for (IndividualValue value : individualValues) {
-				getXOMElement().appendChild(value.getXOMElementCopy());
+				appendChildElement(getXOMElement(), value);
 			}
 			_individualValues = individualValues;
 			validate();
@@ -214,11 +214,11 @@ public final class Individual extends AbstractAccessEntity {
 				return (null);
 			List<IndividualValue> values = new ArrayList<IndividualValue>();
 			for (IBuilder builder : getIndividualValues()) {
-				IndividualValue component = (IndividualValue) builder.commit();
+				IndividualValue component = (IndividualValue) adoptable(builder.commit());
 				if (component != null)
 					values.add(component);
 			}
-			return (new Individual(getSystemName().commit(), values, getSecurityAttributes().commit()));
+			return (new Individual(adoptable(getSystemName().commit()), values, getSecurityAttributes().commit()));
 		}
 
 		/**
@@ -107,7 +107,7 @@ public final class Profile extends AbstractAccessEntity {
 			if (profileValues == null)
 				profileValues = Collections.emptyList();
 			for (ProfileValue value : profileValues) {
-				getXOMElement().appendChild(value.getXOMElementCopy());
+				appendChildElement(getXOMElement(), value);
 			}
 			_profileValues = profileValues;
 			validate();
@@ -213,11 +213,11 @@ public final class Profile extends AbstractAccessEntity {
 				return (null);
 			List<ProfileValue> values = new ArrayList<ProfileValue>();
 			for (IBuilder builder : getProfileValues()) {
-				ProfileValue component = (ProfileValue) builder.commit();
+				ProfileValue component = (ProfileValue) adoptable(builder.commit());
 				if (component != null)
 					values.add(component);
 			}
-			return (new Profile(getSystemName().commit(), values, getSecurityAttributes().commit()));
+			return (new Profile(adoptable(getSystemName().commit()), values, getSecurityAttributes().commit()));
 		}
 
 		/**
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.security.ntk;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -89,7 +91,7 @@ public final class ProfileList extends AbstractBaseComponent {
 			for (int i = 0; i < values.size(); i++) {
 				_profiles.add(new Profile(values.get(i)));
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -114,7 +116,7 @@ public final class ProfileList extends AbstractBaseComponent {
 			if (profiles == null)
 				profiles = Collections.emptyList();
 			for (Profile profile : profiles) {
-				getXOMElement().appendChild(profile.getXOMElementCopy());
+				appendChildElement(getXOMElement(), profile);
 			}
 			_profiles = profiles;
 			_securityAttributes = SecurityAttributes.getNonNullInstance(securityAttributes);
@@ -143,22 +145,34 @@ public final class ProfileList extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, "profile", getProfiles());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add("profile", getProfiles());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, "profileList", suffix) + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix, getProfiles()));
+		buildHTMLTextOutput(text, format, localPrefix, getProfiles());
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -238,7 +252,7 @@ public final class ProfileList extends AbstractBaseComponent {
 				return (null);
 			List<Profile> values = new ArrayList<Profile>();
 			for (IBuilder builder : getProfiles()) {
-				Profile component = (Profile) builder.commit();
+				Profile component = (Profile) adoptable(builder.commit());
 				if (component != null)
 					values.add(component);
 			}
@@ -176,10 +176,10 @@ public final class ProfileValue extends AbstractNtkString {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getVocabulary().hashCode();
 		return (result);
 	}
@@ -178,10 +178,10 @@ public final class BoundingBox extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getWestBL().hashCode();
 		result = 7 * result + getEastBL().hashCode();
 		result = 7 * result + getSouthBL().hashCode();
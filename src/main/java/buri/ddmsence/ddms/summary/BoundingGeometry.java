@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.ITspiShape;
@@ -153,9 +155,9 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 				points = Collections.emptyList();
 			Element element = Util.buildDDMSElement(BoundingGeometry.getName(DDMSVersion.getCurrentVersion()), null);
 			for (Polygon polygon : polygons)
-				element.appendChild(polygon.getXOMElementCopy());
+				appendChildElement(element, polygon);
 			for (Point point : points)
-				element.appendChild(point.getXOMElementCopy());
+				appendChildElement(element, point);
 			_polygons = polygons;
 			_points = points;
 			setXOMElement(element, true);
@@ -178,7 +180,7 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 			if (shapes == null)
 				shapes = Collections.emptyList();
 			for (ITspiShape shape : shapes)
-				element.appendChild(shape.getXOMElementCopy());
+				appendChildElement(element, shape);
 			_tspiShapes = shapes;
 			setXOMElement(element, true);
 		}
@@ -212,34 +214,46 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
 		if (!getDDMSVersion().isAtLeast("5.0")) {
-			addJson(object, "polygon", getGmlPolygons());
-			addJson(object, "point", getGmlPoints());
+			fields.add("polygon", getGmlPolygons());
+			fields.add("point", getGmlPoints());
 		}
 		else {
 			for (ITspiShape shape : getTspiShapes())
-				addJson(object, (AbstractBaseComponent) shape);
+				fields.add((AbstractBaseComponent) shape);
 		}
-		return (object);
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (!getDDMSVersion().isAtLeast("5.0")) {
-			text.append(buildHTMLTextOutput(format, localPrefix, getGmlPolygons()));
-			text.append(buildHTMLTextOutput(format, localPrefix, getGmlPoints()));
+			buildHTMLTextOutput(text, format, localPrefix, getGmlPolygons());
+			buildHTMLTextOutput(text, format, localPrefix, getGmlPoints());
 		}
 		else {
 			for (ITspiShape shape : getTspiShapes())
 				text.append(shape.getHTMLTextOutput(format, localPrefix, ""));
 		}
-		return (text.toString());
 	}
 
 	/**
@@ -361,13 +375,13 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 			if (!DDMSVersion.getCurrentVersion().isAtLeast("5.0")) {
 				List<Polygon> polygons = new ArrayList<Polygon>();
 				for (Polygon.Builder builder : getGmlPolygons()) {
-					Polygon polygon = builder.commit();
+					Polygon polygon = adoptable(builder.commit());
 					if (polygon != null)
 						polygons.add(polygon);
 				}
 				List<Point> points = new ArrayList<Point>();
 				for (Point.Builder builder : getGmlPoints()) {
-					Point point = builder.commit();
+					Point point = adoptable(builder.commit());
 					if (point != null)
 						points.add(point);
 				}
@@ -376,27 +390,27 @@ public final class BoundingGeometry extends AbstractBaseComponent {
 			else {
 				List<ITspiShape> shapes = new ArrayList<ITspiShape>();
 				for (Circle.Builder builder : getCircles()) {
-					Circle circle = builder.commit();
+					Circle circle = adoptable(builder.commit());
 					if (circle != null)
 						shapes.add(circle);
 				}
 				for (Ellipse.Builder builder : getEllipses()) {
-					Ellipse ellipse = builder.commit();
+					Ellipse ellipse = adoptable(builder.commit());
 					if (ellipse != null)
 						shapes.add(ellipse);
 				}
 				for (Envelope.Builder builder : getEnvelopes()) {
-					Envelope envelope = builder.commit();
+					Envelope envelope = adoptable(builder.commit());
 					if (envelope != null)
 						shapes.add(envelope);
 				}
 				for (buri.ddmsence.ddms.summary.tspi.Point.Builder builder : getPoints()) {
-					buri.ddmsence.ddms.summary.tspi.Point point = builder.commit();
+					buri.ddmsence.ddms.summary.tspi.Point point = adoptable(builder.commit());
 					if (point != null)
 						shapes.add(point);
 				}
 				for (buri.ddmsence.ddms.summary.tspi.Polygon.Builder builder : getPolygons()) {
-					buri.ddmsence.ddms.summary.tspi.Polygon polygon = builder.commit();
+					buri.ddmsence.ddms.summary.tspi.Polygon polygon = adoptable(builder.commit());
 					if (polygon != null)
 						shapes.add(polygon);
 				}
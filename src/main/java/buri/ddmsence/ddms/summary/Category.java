@@ -80,7 +80,7 @@ public final class Category extends AbstractBaseComponent {
 	 */
 	public Category(Element element) throws InvalidDDMSException {
 		try {
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			_extensibleAttributes = new ExtensibleAttributes(element);
 			setXOMElement(element, true);
 		}
@@ -197,10 +197,10 @@ public final class Category extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getQualifier().hashCode();
 		result = 7 * result + getCode().hashCode();
 		result = 7 * result + getLabel().hashCode();
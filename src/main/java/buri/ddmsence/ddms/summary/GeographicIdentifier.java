@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -26,6 +27,7 @@ import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -136,9 +138,9 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 			for (String region : regions)
 				element.appendChild(Util.buildDDMSElement(REGION_NAME, region));
 			if (countryCode != null)
-				element.appendChild(countryCode.getXOMElementCopy());
+				appendChildElement(element, countryCode);
 			if (subDivisionCode != null)
-				element.appendChild(subDivisionCode.getXOMElementCopy());
+				appendChildElement(element, subDivisionCode);
 			_names = names;
 			_regions = regions;
 			_countryCode = countryCode;
@@ -160,7 +162,7 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 	public GeographicIdentifier(FacilityIdentifier facilityIdentifier) throws InvalidDDMSException {
 		Element element = Util.buildDDMSElement(GeographicIdentifier.getName(DDMSVersion.getCurrentVersion()), null);
 		if (facilityIdentifier != null)
-			element.appendChild(facilityIdentifier.getXOMElementCopy());
+			appendChildElement(element, facilityIdentifier);
 		_names = Collections.emptyList();
 		_regions = Collections.emptyList();
 		_facilityIdentifier = facilityIdentifier;
@@ -245,31 +247,43 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, NAME_NAME, getNames());
-		addJson(object, REGION_NAME, getRegions());
-		addJson(object, getCountryCode());
-		addJson(object, getSubDivisionCode());
-		addJson(object, getFacilityIdentifier());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(NAME_NAME, getNames());
+		fields.add(REGION_NAME, getRegions());
+		fields.add(getCountryCode());
+		fields.add(getSubDivisionCode());
+		fields.add(getFacilityIdentifier());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + NAME_NAME, getNames()));
-		text.append(buildHTMLTextOutput(format, localPrefix + REGION_NAME, getRegions()));
+		buildHTMLTextOutput(text, format, localPrefix + NAME_NAME, getNames());
+		buildHTMLTextOutput(text, format, localPrefix + REGION_NAME, getRegions());
 		if (getCountryCode() != null)
-			text.append(getCountryCode().getHTMLTextOutput(format, localPrefix, ""));
+			getCountryCode().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getSubDivisionCode() != null)
-			text.append(getSubDivisionCode().getHTMLTextOutput(format, localPrefix, ""));
+			getSubDivisionCode().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (hasFacilityIdentifier())
-			text.append(getFacilityIdentifier().getHTMLTextOutput(format, localPrefix, ""));
-		return (text.toString());
+			getFacilityIdentifier().appendHTMLTextOutput(text, format, localPrefix, "");
 	}
 
 	/**
@@ -295,10 +309,10 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getNames().hashCode();
 		result = 7 * result + getRegions().hashCode();
 		return (result);
@@ -399,11 +413,11 @@ public final class GeographicIdentifier extends AbstractBaseComponent {
 		public GeographicIdentifier commit() throws InvalidDDMSException {
 			if (isEmpty())
 				return (null);
-			FacilityIdentifier identifier = getFacilityIdentifier().commit();
+			FacilityIdentifier identifier = adoptable(getFacilityIdentifier().commit());
 			if (identifier != null)
 				return (new GeographicIdentifier(identifier));
-			return (new GeographicIdentifier(getNames(), getRegions(), getCountryCode().commit(),
-				getSubDivisionCode().commit()));
+			return (new GeographicIdentifier(getNames(), getRegions(), adoptable(getCountryCode().commit()),
+				adoptable(getSubDivisionCode().commit())));
 		}
 
 		/**
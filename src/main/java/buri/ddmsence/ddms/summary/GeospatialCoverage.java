@@ -19,12 +19,14 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -130,7 +132,7 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 				if (verticalExtentElement != null)
 					_verticalExtent = new VerticalExtent(verticalExtentElement);
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -162,15 +164,15 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 			Element element = DDMSVersion.getCurrentVersion().isAtLeast("4.0.1") ? coverageElement
 				: Util.buildDDMSElement(GEOSPATIAL_EXTENT_NAME, null);
 			if (geographicIdentifier != null)
-				element.appendChild(geographicIdentifier.getXOMElementCopy());
+				appendChildElement(element, geographicIdentifier);
 			if (boundingBox != null)
-				element.appendChild(boundingBox.getXOMElementCopy());
+				appendChildElement(element, boundingBox);
 			if (boundingGeometry != null)
-				element.appendChild(boundingGeometry.getXOMElementCopy());
+				appendChildElement(element, boundingGeometry);
 			if (postalAddress != null)
-				element.appendChild(postalAddress.getXOMElementCopy());
+				appendChildElement(element, postalAddress);
 			if (verticalExtent != null)
-				element.appendChild(verticalExtent.getXOMElementCopy());
+				appendChildElement(element, verticalExtent);
 			Util.addDDMSAttribute(coverageElement, PRECEDENCE_NAME, precedence);
 			if (order != null)
 				Util.addDDMSAttribute(coverageElement, ORDER_NAME, order.toString());
@@ -262,42 +264,54 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, getGeographicIdentifier());
-		addJson(object, getBoundingBox());
-		addJson(object, getBoundingGeometry());
-		addJson(object, getPostalAddress());
-		addJson(object, getVerticalExtent());
-		addJson(object, PRECEDENCE_NAME, getPrecedence());
-		addJson(object, ORDER_NAME, getOrder());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(getGeographicIdentifier());
+		fields.add(getBoundingBox());
+		fields.add(getBoundingGeometry());
+		fields.add(getPostalAddress());
+		fields.add(getVerticalExtent());
+		fields.add(PRECEDENCE_NAME, getPrecedence());
+		fields.add(ORDER_NAME, getOrder());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += GEOSPATIAL_EXTENT_NAME + ".";
-		StringBuffer text = new StringBuffer();
 		if (getGeographicIdentifier() != null)
-			text.append(getGeographicIdentifier().getHTMLTextOutput(format, localPrefix, ""));
+			getGeographicIdentifier().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getBoundingBox() != null)
-			text.append(getBoundingBox().getHTMLTextOutput(format, localPrefix, ""));
+			getBoundingBox().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getBoundingGeometry() != null)
-			text.append(getBoundingGeometry().getHTMLTextOutput(format, localPrefix, ""));
+			getBoundingGeometry().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getPostalAddress() != null)
-			text.append(getPostalAddress().getHTMLTextOutput(format, localPrefix, ""));
+			getPostalAddress().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getVerticalExtent() != null)
-			text.append(getVerticalExtent().getHTMLTextOutput(format, localPrefix, ""));
-		text.append(buildHTMLTextOutput(format, localPrefix + PRECEDENCE_NAME, getPrecedence()));
+			getVerticalExtent().appendHTMLTextOutput(text, format, localPrefix, "");
+		buildHTMLTextOutput(text, format, localPrefix + PRECEDENCE_NAME, getPrecedence());
 		if (getOrder() != null)
-			text.append(buildHTMLTextOutput(format, localPrefix + ORDER_NAME, String.valueOf(getOrder())));
+			buildHTMLTextOutput(text, format, localPrefix + ORDER_NAME, String.valueOf(getOrder()));
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -325,10 +339,10 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getPrecedence().hashCode();
 		if (getOrder() != null)
 			result = 7 * result + getOrder().hashCode();
@@ -464,9 +478,10 @@ public final class GeospatialCoverage extends AbstractBaseComponent {
 		 * @see IBuilder#commit()
 		 */
 		public GeospatialCoverage commit() throws InvalidDDMSException {
-			return (isEmpty() ? null : new GeospatialCoverage(getGeographicIdentifier().commit(),
-				getBoundingBox().commit(), getBoundingGeometry().commit(), getPostalAddress().commit(),
-				getVerticalExtent().commit(), getPrecedence(), getOrder(), getSecurityAttributes().commit()));
+			return (isEmpty() ? null : new GeospatialCoverage(adoptable(getGeographicIdentifier().commit()),
+				adoptable(getBoundingBox().commit()), adoptable(getBoundingGeometry().commit()),
+				adoptable(getPostalAddress().commit()), adoptable(getVerticalExtent().commit()), getPrecedence(),
+				getOrder(), getSecurityAttributes().commit()));
 		}
 
 		/**
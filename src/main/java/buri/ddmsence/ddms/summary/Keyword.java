@@ -76,7 +76,7 @@ public final class Keyword extends AbstractBaseComponent {
 	 */
 	public Keyword(Element element) throws InvalidDDMSException {
 		try {
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			_extensibleAttributes = new ExtensibleAttributes(element);
 			setXOMElement(element, true);
 		}
@@ -175,10 +175,10 @@ public final class Keyword extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getValue().hashCode();
 		result = 7 * result + getExtensibleAttributes().hashCode();
 		return (result);
@@ -82,7 +82,7 @@ public final class Link extends AbstractBaseComponent {
 	public Link(Element element) throws InvalidDDMSException {
 		try {
 			_xlinkAttributes = new XLinkAttributes(element);
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			setXOMElement(element, true);
 		}
 		catch (InvalidDDMSException e) {
@@ -181,10 +181,10 @@ public final class Link extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getXLinkAttributes().hashCode();
 		return (result);
 	}
@@ -174,15 +174,16 @@ public final class NonStateActor extends AbstractSimpleString {
 		if (!super.equals(obj) || !(obj instanceof NonStateActor))
 			return (false);
 		NonStateActor test = (NonStateActor) obj;
-		return (getOrder().equals(test.getOrder()) && getQualifier().equals(test.getQualifier()));
+		return (Util.nullEquals(getOrder(), test.getOrder()) && getQualifier().equals(test.getQualifier()));
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
-		result = 7 * result + getOrder().hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
+		if (getOrder() != null)
+			result = 7 * result + getOrder().hashCode();
 		result = 7 * result + getQualifier().hashCode();
 		return (result);
 	}
@@ -208,7 +208,7 @@ public final class PostalAddress extends AbstractBaseComponent {
 				Util.addDDMSChildElement(element, PROVINCE_NAME, stateOrProvince);
 			Util.addDDMSChildElement(element, POSTAL_CODE_NAME, postalCode);
 			if (countryCode != null)
-				element.appendChild(countryCode.getXOMElementCopy());
+				appendChildElement(element, countryCode);
 			_streets = streets;
 			_city = city;
 			_state = hasState ? stateOrProvince : "";
@@ -233,7 +233,7 @@ public final class PostalAddress extends AbstractBaseComponent {
 		try {
 			Element element = Util.buildDDMSElement(PostalAddress.getName(DDMSVersion.getCurrentVersion()), null);
 			if (address != null) {
-				element.appendChild(address.getXOMElementCopy());
+				appendChildElement(element, address);
 				if (address instanceof GeneralAddressClass)
 					_tspiAddress = (GeneralAddressClass) address;
 				if (address instanceof IntersectionAddress)
@@ -318,22 +318,29 @@ public final class PostalAddress extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
 		if (!getDDMSVersion().isAtLeast("5.0")) {
-			text.append(buildHTMLTextOutput(format, localPrefix + STREET_NAME, getStreets()));
-			text.append(buildHTMLTextOutput(format, localPrefix + CITY_NAME, getCity()));
-			text.append(buildHTMLTextOutput(format, localPrefix + STATE_NAME, getState()));
-			text.append(buildHTMLTextOutput(format, localPrefix + PROVINCE_NAME, getProvince()));
-			text.append(buildHTMLTextOutput(format, localPrefix + POSTAL_CODE_NAME, getPostalCode()));
+			buildHTMLTextOutput(text, format, localPrefix + STREET_NAME, getStreets());
+			buildHTMLTextOutput(text, format, localPrefix + CITY_NAME, getCity());
+			buildHTMLTextOutput(text, format, localPrefix + STATE_NAME, getState());
+			buildHTMLTextOutput(text, format, localPrefix + PROVINCE_NAME, getProvince());
+			buildHTMLTextOutput(text, format, localPrefix + POSTAL_CODE_NAME, getPostalCode());
 			if (getCountryCode() != null)
-				text.append(getCountryCode().getHTMLTextOutput(format, localPrefix, ""));
+				getCountryCode().appendHTMLTextOutput(text, format, localPrefix, "");
 		}
 		else {
 			text.append(getTspiAddress().getHTMLTextOutput(format, localPrefix, ""));
 		}
-		return (text.toString());
 	}
 
 	/**
@@ -361,10 +368,10 @@ public final class PostalAddress extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getStreets().hashCode();
 		result = 7 * result + getCity().hashCode();
 		result = 7 * result + getState().hashCode();
@@ -522,7 +529,7 @@ public final class PostalAddress extends AbstractBaseComponent {
 				boolean hasState = !Util.isEmpty(getState());
 				String stateOrProvince = hasState ? getState() : getProvince();
 				return (new PostalAddress(getStreets(), getCity(), stateOrProvince, getPostalCode(),
-					getCountryCode().commit(), hasState));
+					adoptable(getCountryCode().commit()), hasState));
 			}
 			else {		
 				return (new PostalAddress(commitSelectedAddress()));
@@ -537,23 +544,23 @@ public final class PostalAddress extends AbstractBaseComponent {
 		protected ITspiAddress commitSelectedAddress() throws InvalidDDMSException {
 			DDMSVersion version = DDMSVersion.getCurrentVersion();
 			if (GeneralAddressClass.getName(version).equals(getAddressType()))
-				return (getGeneralAddressClass().commit());
+				return (adoptable(getGeneralAddressClass().commit()));
 			if (IntersectionAddress.getName(version).equals(getAddressType()))
-				return (getIntersectionAddress().commit());
+				return (adoptable(getIntersectionAddress().commit()));
 			if (LandmarkAddress.getName(version).equals(getAddressType()))
-				return (getLandmarkAddress().commit());
+				return (adoptable(getLandmarkAddress().commit()));
 			if (NumberedThoroughfareAddress.getName(version).equals(getAddressType()))
-				return (getNumberedThoroughfareAddress().commit());
+				return (adoptable(getNumberedThoroughfareAddress().commit()));
 			if (TwoNumberAddressRange.getName(version).equals(getAddressType()))
-				return (getTwoNumberAddressRange().commit());
+				return (adoptable(getTwoNumberAddressRange().commit()));
 			if (UnnumberedThoroughfareAddress.getName(version).equals(getAddressType()))
-				return (getUnnumberedThoroughfareAddress().commit());
+				return (adoptable(getUnnumberedThoroughfareAddress().commit()));
 			if (USPSGeneralDeliveryOffice.getName(version).equals(getAddressType()))
-				return (getUSPSGeneralDeliveryOffice().commit());
+				return (adoptable(getUSPSGeneralDeliveryOffice().commit()));
 			if (USPSPostalDeliveryBox.getName(version).equals(getAddressType()))
-				return (getUSPSPostalDeliveryBox().commit());
+				return (adoptable(getUSPSPostalDeliveryBox().commit()));
 			if (USPSPostalDeliveryRoute.getName(version).equals(getAddressType()))
-				return (getUSPSPostalDeliveryRoute().commit());
+				return (adoptable(getUSPSPostalDeliveryRoute().commit()));
 			throw new InvalidDDMSException("Unknown address type: " + getAddressType());
 		}
 
@@ -75,7 +75,7 @@ public final class ProductionMetric extends AbstractBaseComponent {
 	 */
 	public ProductionMetric(Element element) throws InvalidDDMSException {
 		try {
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			setXOMElement(element, true);
 		}
 		catch (InvalidDDMSException e) {
@@ -154,10 +154,10 @@ public final class ProductionMetric extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSubject().hashCode();
 		result = 7 * result + getCoverage().hashCode();
 		return (result);
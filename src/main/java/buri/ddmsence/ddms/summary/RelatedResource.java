@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
@@ -29,6 +30,7 @@ import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
 import buri.ddmsence.AbstractQualifierValue;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -133,7 +135,7 @@ public final class RelatedResource extends AbstractQualifierValue {
 				for (int i = 0; i < links.size(); i++)
 					_links.add(new Link(links.get(i)));
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -167,7 +169,7 @@ public final class RelatedResource extends AbstractQualifierValue {
 			Util.addDDMSAttribute(innerElement, getQualifierName(), qualifier);
 			Util.addDDMSAttribute(innerElement, getValueName(), value);
 			for (Link link : links) {
-				innerElement.appendChild(link.getXOMElementCopy());
+				appendChildElement(innerElement, link);
 			}
 
 			if (!version.isAtLeast("4.0.1"))
@@ -234,32 +236,44 @@ public final class RelatedResource extends AbstractQualifierValue {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, RELATIONSHIP_NAME, getRelationship());
-		addJson(object, DIRECTION_NAME, getDirection());
-		addJson(object, getQualifierName(), getQualifier());
-		addJson(object, getValueName(), getValue());
-		addJson(object, Link.getName(getDDMSVersion()), getLinks());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(RELATIONSHIP_NAME, getRelationship());
+		fields.add(DIRECTION_NAME, getDirection());
+		fields.add(getQualifierName(), getQualifier());
+		fields.add(getValueName(), getValue());
+		fields.add(Link.getName(getDDMSVersion()), getLinks());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!DDMSVersion.getCurrentVersion().isAtLeast("4.0.1"))
 			localPrefix += "RelatedResource.";
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + RELATIONSHIP_NAME, getRelationship()));
-		text.append(buildHTMLTextOutput(format, localPrefix + DIRECTION_NAME, getDirection()));
-		text.append(buildHTMLTextOutput(format, localPrefix + getQualifierName(), getQualifier()));
-		text.append(buildHTMLTextOutput(format, localPrefix + getValueName(), getValue()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getLinks()));
+		buildHTMLTextOutput(text, format, localPrefix + RELATIONSHIP_NAME, getRelationship());
+		buildHTMLTextOutput(text, format, localPrefix + DIRECTION_NAME, getDirection());
+		buildHTMLTextOutput(text, format, localPrefix + getQualifierName(), getQualifier());
+		buildHTMLTextOutput(text, format, localPrefix + getValueName(), getValue());
+		buildHTMLTextOutput(text, format, localPrefix, getLinks());
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -283,10 +297,10 @@ public final class RelatedResource extends AbstractQualifierValue {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getRelationship().hashCode();
 		result = 7 * result + getDirection().hashCode();
 		return (result);
@@ -402,7 +416,7 @@ public final class RelatedResource extends AbstractQualifierValue {
 				return (null);
 			List<Link> links = new ArrayList<Link>();
 			for (Link.Builder builder : getLinks()) {
-				Link link = builder.commit();
+				Link link = adoptable(builder.commit());
 				if (link != null)
 					links.add(link);
 			}
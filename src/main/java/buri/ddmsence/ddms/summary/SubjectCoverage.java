@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -29,6 +30,7 @@ import java.util.Set;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -120,7 +122,7 @@ public final class SubjectCoverage extends AbstractBaseComponent {
 					_nonStateActors.add(new NonStateActor(actors.get(i)));
 				}
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -155,13 +157,13 @@ public final class SubjectCoverage extends AbstractBaseComponent {
 			Element subjectElement = DDMSVersion.getCurrentVersion().isAtLeast("4.0.1") ? element
 				: Util.buildDDMSElement(SUBJECT_NAME, null);
 			for (Keyword keyword : keywords)
-				subjectElement.appendChild(keyword.getXOMElementCopy());
+				appendChildElement(subjectElement, keyword);
 			for (Category category : categories)
-				subjectElement.appendChild(category.getXOMElementCopy());
+				appendChildElement(subjectElement, category);
 			for (ProductionMetric metric : productionMetrics)
-				subjectElement.appendChild(metric.getXOMElementCopy());
+				appendChildElement(subjectElement, metric);
 			for (NonStateActor actor : nonStateActors)
-				subjectElement.appendChild(actor.getXOMElementCopy());
+				appendChildElement(subjectElement, actor);
 
 			if (!DDMSVersion.getCurrentVersion().isAtLeast("4.0.1"))
 				element.appendChild(subjectElement);
@@ -227,30 +229,42 @@ public final class SubjectCoverage extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, Keyword.getName(getDDMSVersion()), getKeywords());
-		addJson(object, Category.getName(getDDMSVersion()), getCategories());
-		addJson(object, ProductionMetric.getName(getDDMSVersion()), getProductionMetrics());
-		addJson(object, NonStateActor.getName(getDDMSVersion()), getNonStateActors());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(Keyword.getName(getDDMSVersion()), getKeywords());
+		fields.add(Category.getName(getDDMSVersion()), getCategories());
+		fields.add(ProductionMetric.getName(getDDMSVersion()), getProductionMetrics());
+		fields.add(NonStateActor.getName(getDDMSVersion()), getNonStateActors());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += SUBJECT_NAME + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix, getKeywords()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getCategories()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getProductionMetrics()));
-		text.append(buildHTMLTextOutput(format, localPrefix, getNonStateActors()));
+		buildHTMLTextOutput(text, format, localPrefix, getKeywords());
+		buildHTMLTextOutput(text, format, localPrefix, getCategories());
+		buildHTMLTextOutput(text, format, localPrefix, getProductionMetrics());
+		buildHTMLTextOutput(text, format, localPrefix, getNonStateActors());
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -379,25 +393,25 @@ public final class SubjectCoverage extends AbstractBaseComponent {
 				return (null);
 			List<Category> categories = new ArrayList<Category>();
 			for (Category.Builder builder : getCategories()) {
-				Category category = builder.commit();
+				Category category = adoptable(builder.commit());
 				if (category != null)
 					categories.add(category);
 			}
 			List<Keyword> keywords = new ArrayList<Keyword>();
 			for (Keyword.Builder builder : getKeywords()) {
-				Keyword keyword = builder.commit();
+				Keyword keyword = adoptable(builder.commit());
 				if (keyword != null)
 					keywords.add(keyword);
 			}
 			List<ProductionMetric> metrics = new ArrayList<ProductionMetric>();
 			for (ProductionMetric.Builder builder : getProductionMetrics()) {
-				ProductionMetric metric = builder.commit();
+				ProductionMetric metric = adoptable(builder.commit());
 				if (metric != null)
 					metrics.add(metric);
 			}
 			List<NonStateActor> actors = new ArrayList<NonStateActor>();
 			for (NonStateActor.Builder builder : getNonStateActors()) {
-				NonStateActor actor = builder.commit();
+				NonStateActor actor = adoptable(builder.commit());
 				if (actor != null)
 					actors.add(actor);
 			}
@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -30,6 +31,7 @@ import javax.xml.datatype.XMLGregorianCalendar;
 
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.ApproximableDate;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
@@ -136,7 +138,7 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 				if (approximableEnd != null)
 					_approximableEnd = new ApproximableDate(approximableEnd);
 			}
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			validate();
 		}
 		catch (InvalidDDMSException e) {
@@ -229,7 +231,7 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 			Util.addDDMSChildElement(periodElement, TIME_PERIOD_NAME_NAME, timePeriodName);
 
 			if (approximableStart != null) {
-				element.appendChild(approximableStart.getXOMElementCopy());
+				appendChildElement(element, approximableStart);
 				_approximableStart = approximableStart;
 			}
 			else {
@@ -238,7 +240,7 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 			}
 
 			if (approximableEnd != null) {
-				element.appendChild(approximableEnd.getXOMElementCopy());
+				appendChildElement(element, approximableEnd);
 				_approximableEnd = approximableEnd;
 			}
 			else {
@@ -308,34 +310,46 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, TIME_PERIOD_NAME_NAME, getTimePeriodName());
-		addJson(object, START_NAME, getStartString());
-		addJson(object, END_NAME, getEndString());
-		addJson(object, getApproximableStart());
-		addJson(object, getApproximableEnd());
-		addJson(object, getSecurityAttributes());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(TIME_PERIOD_NAME_NAME, getTimePeriodName());
+		fields.add(START_NAME, getStartString());
+		fields.add(END_NAME, getEndString());
+		fields.add(getApproximableStart());
+		fields.add(getApproximableEnd());
+		fields.add(getSecurityAttributes());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
 		if (!getDDMSVersion().isAtLeast("4.0.1"))
 			localPrefix += TIME_PERIOD_NAME + ".";
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + TIME_PERIOD_NAME_NAME, getTimePeriodName()));
-		text.append(buildHTMLTextOutput(format, localPrefix + START_NAME, getStartString()));
-		text.append(buildHTMLTextOutput(format, localPrefix + END_NAME, getEndString()));
+		buildHTMLTextOutput(text, format, localPrefix + TIME_PERIOD_NAME_NAME, getTimePeriodName());
+		buildHTMLTextOutput(text, format, localPrefix + START_NAME, getStartString());
+		buildHTMLTextOutput(text, format, localPrefix + END_NAME, getEndString());
 		if (getApproximableStart() != null)
-			text.append(getApproximableStart().getHTMLTextOutput(format, localPrefix, ""));
+			getApproximableStart().appendHTMLTextOutput(text, format, localPrefix, "");
 		if (getApproximableEnd() != null)
-			text.append(getApproximableEnd().getHTMLTextOutput(format, localPrefix, ""));
+			getApproximableEnd().appendHTMLTextOutput(text, format, localPrefix, "");
 		text.append(getSecurityAttributes().getHTMLTextOutput(format, localPrefix));
-		return (text.toString());
 	}
 
 	/**
@@ -361,10 +375,10 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getTimePeriodName().hashCode();
 		result = 7 * result + getStartString().hashCode();
 		result = 7 * result + getEndString().hashCode();
@@ -514,16 +528,17 @@ public final class TemporalCoverage extends AbstractBaseComponent {
 			if (!getApproximableEnd().isEmpty() && !Util.isEmpty(getEndString()))
 				throw new InvalidDDMSException("Only 1 of end or approximableEnd must be used.");
 			if (!getApproximableStart().isEmpty() && !getApproximableEnd().isEmpty())
-				return (new TemporalCoverage(getTimePeriodName(), getApproximableStart().commit(),
-					getApproximableEnd().commit(), getSecurityAttributes().commit()));
+				return (new TemporalCoverage(getTimePeriodName(), adoptable(getApproximableStart().commit()),
+					adoptable(getApproximableEnd().commit()), getSecurityAttributes().commit()));
 			if (!getApproximableStart().isEmpty() && getApproximableEnd().isEmpty())
-				return (new TemporalCoverage(getTimePeriodName(), getApproximableStart().commit(),
+				return (new TemporalCoverage(getTimePeriodName(), adoptable(getApproximableStart().commit()),
 					getEndString(), getSecurityAttributes().commit()));
 			if (getApproximableStart().isEmpty() && !getApproximableEnd().isEmpty())
 				return (new TemporalCoverage(getTimePeriodName(), getStartString(),
-					getApproximableEnd().commit(), getSecurityAttributes().commit()));
-			return (new TemporalCoverage(getTimePeriodName(), getStartString(), getApproximableStart().commit(),
-				getEndString(), getApproximableEnd().commit(), getSecurityAttributes().commit()));
+					adoptable(getApproximableEnd().commit()), getSecurityAttributes().commit()));
+			return (new TemporalCoverage(getTimePeriodName(), getStartString(),
+				adoptable(getApproximableStart().commit()), getEndString(), adoptable(getApproximableEnd().commit()),
+				getSecurityAttributes().commit()));
 		}
 
 		/**
@@ -250,10 +250,10 @@ public final class VerticalExtent extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getUnitOfMeasure().hashCode();
 		result = 7 * result + getDatum().hashCode();
 		result = 7 * result + getMinVerticalExtent().hashCode();
@@ -84,7 +84,7 @@ public final class VirtualCoverage extends AbstractBaseComponent {
 	 */
 	public VirtualCoverage(Element element) throws InvalidDDMSException {
 		try {
-			_securityAttributes = new SecurityAttributes(element);
+			_securityAttributes = SecurityAttributes.getInstance(element);
 			setXOMElement(element, true);
 		}
 		catch (InvalidDDMSException e) {
@@ -217,10 +217,10 @@ public final class VirtualCoverage extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getAddress().hashCode();
 		result = 7 * result + getProtocol().hashCode();
 		result = 7 * result + getAccess().hashCode();
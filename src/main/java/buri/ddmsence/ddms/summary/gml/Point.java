@@ -19,12 +19,14 @@
  */
 package buri.ddmsence.ddms.summary.gml;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 import nu.xom.Element;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -105,7 +107,7 @@ public final class Point extends AbstractBaseComponent {
 			Element element = Util.buildElement(PropertyReader.getPrefix("gml"), Point.getName(version),
 				version.getGmlNamespace(), null);
 			if (position != null) {
-				element.appendChild(position.getXOMElementCopy());
+				appendChildElement(element, position);
 			}
 			Util.addAttribute(element, PropertyReader.getPrefix("gml"), ID_NAME,
 				DDMSVersion.getCurrentVersion().getGmlNamespace(), id);
@@ -149,24 +151,36 @@ public final class Point extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, ID_NAME, getId());
-		addJson(object, getSRSAttributes());
-		addJson(object, getPosition());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(ID_NAME, getId());
+		fields.add(getSRSAttributes());
+		fields.add(getPosition());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + ID_NAME, getId()));
+		buildHTMLTextOutput(text, format, localPrefix + ID_NAME, getId());
 		text.append(getSRSAttributes().getHTMLTextOutput(format, localPrefix));
-		text.append(getPosition().getHTMLTextOutput(format, localPrefix, ""));
-		return (text.toString());
+		getPosition().appendHTMLTextOutput(text, format, localPrefix, "");
 	}
 
 	/**
@@ -190,10 +204,10 @@ public final class Point extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSRSAttributes().hashCode();
 		result = 7 * result + getId().hashCode();
 		return (result);
@@ -262,7 +276,8 @@ public final class Point extends AbstractBaseComponent {
 		 * @see IBuilder#commit()
 		 */
 		public Point commit() throws InvalidDDMSException {
-			return (isEmpty() ? null : new Point(getPosition().commit(), getSrsAttributes().commit(), getId()));
+			return (isEmpty() ? null : new Point(adoptable(getPosition().commit()), getSrsAttributes().commit(),
+				getId()));
 		}
 
 		/**
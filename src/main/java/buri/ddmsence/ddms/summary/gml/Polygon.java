@@ -19,6 +19,7 @@
  */
 package buri.ddmsence.ddms.summary.gml;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -27,6 +28,7 @@ import java.util.List;
 import nu.xom.Element;
 import nu.xom.Elements;
 import buri.ddmsence.AbstractBaseComponent;
+import buri.ddmsence.JsonFields;
 import buri.ddmsence.ddms.IBuilder;
 import buri.ddmsence.ddms.IDDMSComponent;
 import buri.ddmsence.ddms.InvalidDDMSException;
@@ -130,7 +132,7 @@ public final class Polygon extends AbstractBaseComponent {
 			String gmlNamespace = version.getGmlNamespace();
 			Element ringElement = Util.buildElement(gmlPrefix, LINEAR_RING_NAME, gmlNamespace, null);
 			for (Position pos : positions) {
-				ringElement.appendChild(pos.getXOMElementCopy());
+				appendChildElement(ringElement, pos);
 			}
 			Element extElement = Util.buildElement(gmlPrefix, EXTERIOR_NAME, gmlNamespace, null);
 			extElement.appendChild(ringElement);
@@ -202,24 +204,36 @@ public final class Polygon extends AbstractBaseComponent {
 	 * @see AbstractBaseComponent#getJSONObject()
 	 */
 	public JsonObject getJSONObject() {
-		JsonObject object = new JsonObject();
-		addJson(object, ID_NAME, getId());
-		addJson(object, getSRSAttributes());
-		addJson(object, Position.getName(getDDMSVersion()), getPositions());
-		return (object);
+		return (buildJSONObject());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#addJSONFields(JsonFields)
+	 */
+	protected void addJSONFields(JsonFields fields) throws IOException {
+		fields.add(ID_NAME, getId());
+		fields.add(getSRSAttributes());
+		fields.add(Position.getName(getDDMSVersion()), getPositions());
 	}
 	
 	/**
 	 * @see AbstractBaseComponent#getHTMLTextOutput(OutputFormat, String, String)
 	 */
 	public String getHTMLTextOutput(OutputFormat format, String prefix, String suffix) {
+		StringBuilder text = new StringBuilder();
+		appendHTMLTextOutput(text, format, prefix, suffix);
+		return (text.toString());
+	}
+
+	/**
+	 * @see AbstractBaseComponent#appendHTMLTextOutput(StringBuilder, OutputFormat, String, String)
+	 */
+	public void appendHTMLTextOutput(StringBuilder text, OutputFormat format, String prefix, String suffix) {
 		Util.requireHTMLText(format);
 		String localPrefix = buildPrefix(prefix, getName(), suffix + ".");
-		StringBuffer text = new StringBuffer();
-		text.append(buildHTMLTextOutput(format, localPrefix + ID_NAME, getId()));
+		buildHTMLTextOutput(text, format, localPrefix + ID_NAME, getId());
 		text.append(getSRSAttributes().getHTMLTextOutput(format, localPrefix));
-		text.append(buildHTMLTextOutput(format, localPrefix, getPositions()));
-		return (text.toString());
+		buildHTMLTextOutput(text, format, localPrefix, getPositions());
 	}
 
 	/**
@@ -243,10 +257,10 @@ public final class Polygon extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSRSAttributes().hashCode();
 		result = 7 * result + getId().hashCode();
 		return (result);
@@ -321,7 +335,7 @@ public final class Polygon extends AbstractBaseComponent {
 				return (null);
 			List<Position> positions = new ArrayList<Position>();
 			for (Position.Builder builder : getPositions()) {
-				Position position = builder.commit();
+				Position position = adoptable(builder.commit());
 				if (position != null)
 					positions.add(position);
 			}
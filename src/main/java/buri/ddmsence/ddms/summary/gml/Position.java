@@ -178,12 +178,12 @@ public final class Position extends AbstractBaseComponent {
 	}
 
 	/**
-	 * @see Object#hashCode()
+	 * @see AbstractBaseComponent#computeHashCode()
 	 */
-	public int hashCode() {
-		int result = super.hashCode();
+	protected int computeHashCode() {
+		int result = super.computeHashCode();
 		result = 7 * result + getSRSAttributes().hashCode();
-		result = 7 * result + getCoordinatesAsXsList().hashCode();
+		result = 7 * result + getCoordinates().hashCode();
 		return (result);
 	}
 
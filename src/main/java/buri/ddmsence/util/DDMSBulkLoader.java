@@ -0,0 +1,444 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * Loads many DDMS Resource files in parallel, delivering each one to an IResourceHandler as it completes.
+ *
+ * <p>
+ * Each file is parsed, validated against the schemas, and optionally validated against a Schematron file by a task on
+ * the provided ExecutorService. Readers are borrowed from a DDMSReaderPool, so the number of XML parsers in use never
+ * exceeds the capacity of the pool. The loader does not shut down the ExecutorService, which remains owned by the
+ * caller.
+ * </p>
+ *
+ * <ul>
+ * <li>Back-pressure: No more than <code>maxPending</code> files are submitted to the executor at once. The Thread
+ * calling <code>load</code> waits for a result to be delivered before submitting the next file, so a large directory
+ * never produces a large backlog of parsed Resources.</li>
+ * <li>Ordering: In ordered mode, results are delivered in the same order as the files. In unordered mode, results are
+ * delivered as soon as they are ready, and the ordinal identifies the file.</li>
+ * <li>Error Capture: A file which cannot be read, parsed, or validated is delivered to
+ * <code>handleInvalidResource</code>, and the remaining files are still processed. If a Schematron validator is set,
+ * a Resource with any Schematron errors is also delivered there, along with all of its Schematron messages.</li>
+ * <li>Thread Safety: The handler is only ever called by the Thread which called <code>load</code>, so it does not
+ * need to be synchronized. Each task sets the current DDMSVersion of its worker Thread while it runs, and restores the
+ * previous value afterwards.</li>
+ * </ul>
+ *
+ * <p>
+ * The line number passed to the handler is always -1, since each file holds a single Resource.
+ * </p>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class DDMSBulkLoader {
+
+	private DDMSVersion _version;
+	private ExecutorService _executor;
+	private DDMSReaderPool _readerPool;
+	private SchematronValidator _schematronValidator;
+	private int _maxPending;
+	private boolean _ordered;
+	private final AtomicLong _validCount = new AtomicLong();
+	private final AtomicLong _invalidCount = new AtomicLong();
+	private final AtomicLong _startTime = new AtomicLong();
+	private final AtomicLong _endTime = new AtomicLong();
+
+	/** The default maximum number of files submitted to the executor at once */
+	public static final int DEFAULT_MAX_PENDING = 2 * Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * Constructor for an ordered loader with its own reader pool, the default limit on pending files, and no
+	 * Schematron validation.
+	 *
+	 * @param version the DDMS version of the files
+	 * @param executor the executor which runs the parsing tasks
+	 */
+	public DDMSBulkLoader(DDMSVersion version, ExecutorService executor) {
+		this(version, executor, new DDMSReaderPool(), null, DEFAULT_MAX_PENDING, true);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param version the DDMS version of the files
+	 * @param executor the executor which runs the parsing tasks
+	 * @param readerPool the pool which lends readers to the tasks
+	 * @param schematronValidator an optional validator applied to each valid Resource
+	 * @param maxPending the maximum number of files submitted to the executor at once
+	 * @param ordered true to deliver results in the same order as the files
+	 * @throws IllegalArgumentException if a required parameter is missing, or maxPending is less than 1
+	 */
+	public DDMSBulkLoader(DDMSVersion version, ExecutorService executor, DDMSReaderPool readerPool,
+		SchematronValidator schematronValidator, int maxPending, boolean ordered) {
+		Util.requireValue("version", version);
+		Util.requireValue("executor", executor);
+		Util.requireValue("readerPool", readerPool);
+		if (maxPending < 1)
+			throw new IllegalArgumentException("The maximum number of pending files must be at least 1.");
+		_version = version;
+		_executor = executor;
+		_readerPool = readerPool;
+		_schematronValidator = schematronValidator;
+		_maxPending = maxPending;
+		_ordered = ordered;
+	}
+
+	/**
+	 * Returns the files in a directory whose names match a glob pattern, such as <code>*.xml</code>, sorted by name.
+	 * Subdirectories are not searched. The ordinals passed to the handler by
+	 * <code>load(File, String, IResourceHandler)</code> are positions in this list.
+	 *
+	 * @param directory the directory to search
+	 * @param glob the glob pattern for file names, or null to match every file
+	 * @return the matching files
+	 * @throws IOException if the directory could not be read
+	 */
+	public static List<File> listFiles(File directory, String glob) throws IOException {
+		Util.requireValue("directory", directory);
+		File[] files = directory.listFiles();
+		if (files == null)
+			throw new IOException("Could not list the files in " + directory.getPath());
+		Arrays.sort(files);
+		PathMatcher matcher = (glob == null ? null : FileSystems.getDefault().getPathMatcher("glob:" + glob));
+		List<File> matches = new ArrayList<File>();
+		for (File file : files) {
+			if (file.isFile() && (matcher == null || matcher.matches(file.toPath().getFileName())))
+				matches.add(file);
+		}
+		return (matches);
+	}
+
+	/**
+	 * Loads the files in a directory whose names match a glob pattern.
+	 *
+	 * @see #listFiles(File, String)
+	 * @param directory the directory to search
+	 * @param glob the glob pattern for file names, or null to match every file
+	 * @param handler the handler which receives each result
+	 * @throws IOException if the directory could not be read
+	 * @throws InterruptedException if the Thread is interrupted while waiting for a result
+	 */
+	public void load(File directory, String glob, IResourceHandler handler) throws IOException, InterruptedException {
+		load(listFiles(directory, glob), handler);
+	}
+
+	/**
+	 * Loads a sequence of files. The files are read from the Iterable one at a time as capacity becomes available, so
+	 * a lazily computed sequence is never fully materialized. The ordinal passed to the handler is the 1-based
+	 * position of the file in the sequence. Only one load can run at a time.
+	 *
+	 * @param files the files to load
+	 * @param handler the handler which receives each result
+	 * @throws InterruptedException if the Thread is interrupted while waiting for a result. Any files which were
+	 *         already submitted are cancelled.
+	 */
+	public synchronized void load(Iterable<File> files, IResourceHandler handler) throws InterruptedException {
+		Util.requireValue("files", files);
+		Util.requireValue("handler", handler);
+		_validCount.set(0);
+		_invalidCount.set(0);
+		_startTime.set(System.currentTimeMillis());
+		_endTime.set(0);
+		CompletionService<Result> completions = new ExecutorCompletionService<Result>(getExecutor());
+		LinkedList<Future<Result>> pending = new LinkedList<Future<Result>>();
+		try {
+			int ordinal = 0;
+			for (File file : files) {
+				if (pending.size() >= getMaxPending())
+					deliver(takeNext(completions, pending), handler);
+				LoadTask task = new LoadTask(++ordinal, file);
+				// Ordered tasks are collected directly, so they must not pile up in the completion queue.
+				pending.add(isOrdered() ? getExecutor().submit(task) : completions.submit(task));
+			}
+			while (!pending.isEmpty())
+				deliver(takeNext(completions, pending), handler);
+		}
+		finally {
+			for (Future<Result> future : pending)
+				future.cancel(true);
+			_endTime.set(System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Waits for the next result to deliver: the oldest submitted file in ordered mode, or whichever file finishes
+	 * first in unordered mode.
+	 *
+	 * @param completions the completion service which runs the tasks
+	 * @param pending the tasks which have not been delivered yet, oldest first
+	 * @return the result
+	 */
+	private Result takeNext(CompletionService<Result> completions, LinkedList<Future<Result>> pending)
+		throws InterruptedException {
+		Future<Result> next = (isOrdered() ? pending.getFirst() : completions.take());
+		try {
+			return (next.get());
+		}
+		catch (ExecutionException e) {
+			// LoadTask captures every Exception, so only an Error can end up here.
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+		finally {
+			pending.remove(next);
+		}
+	}
+
+	/**
+	 * Passes a result to the handler and updates the counters.
+	 *
+	 * @param result the result
+	 * @param handler the handler
+	 */
+	private void deliver(Result result, IResourceHandler handler) {
+		if (result.getErrors().isEmpty()) {
+			_validCount.incrementAndGet();
+			handler.handleResource(result.getOrdinal(), -1, result.getResource());
+		}
+		else {
+			_invalidCount.incrementAndGet();
+			handler.handleInvalidResource(result.getOrdinal(), -1, result.getErrors());
+		}
+	}
+
+	/**
+	 * Converts an exception thrown while loading a file into a validation message.
+	 *
+	 * @param e the exception
+	 * @return an error message
+	 */
+	private static ValidationMessage buildError(InvalidDDMSException e) {
+		String locator = e.getLocator();
+		return (ValidationMessage.newError(e.getMessage(), Util.isEmpty(locator) ? null : locator.substring(1)));
+	}
+
+	/**
+	 * Accessor for the number of Resources delivered to <code>handleResource</code> by the current or most recent
+	 * load
+	 */
+	public long getValidCount() {
+		return (_validCount.get());
+	}
+
+	/**
+	 * Accessor for the number of files delivered to <code>handleInvalidResource</code> by the current or most recent
+	 * load
+	 */
+	public long getInvalidCount() {
+		return (_invalidCount.get());
+	}
+
+	/**
+	 * Accessor for the time spent in the current or most recent load, in milliseconds
+	 */
+	public long getElapsedMillis() {
+		long start = _startTime.get();
+		if (start == 0)
+			return (0);
+		long end = _endTime.get();
+		return ((end == 0 ? System.currentTimeMillis() : end) - start);
+	}
+
+	/**
+	 * Returns the number of files delivered per second in the current or most recent load.
+	 *
+	 * @return the throughput, or 0 if no time has elapsed
+	 */
+	public double getFilesPerSecond() {
+		long elapsed = getElapsedMillis();
+		return (elapsed == 0 ? 0 : (getValidCount() + getInvalidCount()) * 1000.0 / elapsed);
+	}
+
+	/**
+	 * Accessor for the DDMS version of the files
+	 */
+	public DDMSVersion getVersion() {
+		return _version;
+	}
+
+	/**
+	 * Accessor for the executor which runs the parsing tasks
+	 */
+	private ExecutorService getExecutor() {
+		return _executor;
+	}
+
+	/**
+	 * Accessor for the pool which lends readers to the tasks
+	 */
+	public DDMSReaderPool getReaderPool() {
+		return _readerPool;
+	}
+
+	/**
+	 * Accessor for the optional Schematron validator
+	 */
+	public SchematronValidator getSchematronValidator() {
+		return _schematronValidator;
+	}
+
+	/**
+	 * Accessor for the maximum number of files submitted to the executor at once
+	 */
+	public int getMaxPending() {
+		return _maxPending;
+	}
+
+	/**
+	 * Accessor for whether results are delivered in the same order as the files
+	 */
+	public boolean isOrdered() {
+		return _ordered;
+	}
+
+	/**
+	 * Task which loads a single file on a worker Thread.
+	 */
+	private class LoadTask implements Callable<Result> {
+		private final int _ordinal;
+		private final File _file;
+
+		/**
+		 * Constructor
+		 *
+		 * @param ordinal the 1-based position of the file
+		 * @param file the file
+		 */
+		public LoadTask(int ordinal, File file) {
+			_ordinal = ordinal;
+			_file = file;
+		}
+
+		/**
+		 * @see Callable#call()
+		 */
+		public Result call() throws InterruptedException {
+			DDMSVersion previousVersion = DDMSVersion.getCurrentVersion();
+			try {
+				DDMSVersion.setCurrentVersion(getVersion().getVersion());
+				Resource resource = readResource();
+				if (getSchematronValidator() != null) {
+					List<ValidationMessage> messages = resource.validateWithSchematron(getSchematronValidator());
+					for (ValidationMessage message : messages) {
+						if (ValidationMessage.ERROR_TYPE.equals(message.getType()))
+							return (new Result(_ordinal, null, messages));
+					}
+				}
+				return (new Result(_ordinal, resource, Collections.<ValidationMessage> emptyList()));
+			}
+			catch (InvalidDDMSException e) {
+				return (new Result(_ordinal, null, Collections.singletonList(buildError(e))));
+			}
+			catch (InterruptedException e) {
+				throw (e);
+			}
+			catch (Exception e) {
+				String text = "Could not load " + _file.getName() + ": " + e.getMessage();
+				return (new Result(_ordinal, null, Collections.singletonList(ValidationMessage.newError(text, null))));
+			}
+			finally {
+				DDMSVersion.setCurrentVersion(previousVersion.getVersion());
+			}
+		}
+
+		/**
+		 * Parses the file with a borrowed reader.
+		 *
+		 * @return the Resource
+		 */
+		private Resource readResource() throws Exception {
+			DDMSReader reader = getReaderPool().borrowReader(getVersion());
+			try {
+				return (reader.getDDMSResource(_file));
+			}
+			finally {
+				getReaderPool().returnReader(reader);
+			}
+		}
+	}
+
+	/**
+	 * The outcome of loading a single file.
+	 */
+	private static class Result {
+		private final int _ordinal;
+		private final Resource _resource;
+		private final List<ValidationMessage> _errors;
+
+		/**
+		 * Constructor
+		 *
+		 * @param ordinal the 1-based position of the file
+		 * @param resource the Resource, or null if the file was invalid
+		 * @param errors the errors for an invalid file
+		 */
+		public Result(int ordinal, Resource resource, List<ValidationMessage> errors) {
+			_ordinal = ordinal;
+			_resource = resource;
+			_errors = errors;
+		}
+
+		/**
+		 * Accessor for the 1-based position of the file
+		 */
+		public int getOrdinal() {
+			return _ordinal;
+		}
+
+		/**
+		 * Accessor for the Resource
+		 */
+		public Resource getResource() {
+			return _resource;
+		}
+
+		/**
+		 * Accessor for the errors
+		 */
+		public List<ValidationMessage> getErrors() {
+			return _errors;
+		}
+	}
+}
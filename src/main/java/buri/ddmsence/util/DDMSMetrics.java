@@ -0,0 +1,148 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+/**
+ * Registration point for the optional IMetricsListener which times the expensive phases of DDMS processing.
+ *
+ * <p>No listener is registered by default. In that case, each instrumented phase only costs a single volatile read,
+ * and no timestamps are taken. The listener is shared by all Threads.</p>
+ *
+ * <p>Instrumented code follows a simple pattern:</p>
+ *
+ * <pre>
+ * long start = DDMSMetrics.start(DDMSMetrics.PHASE_PARSE);
+ * int errorCount = 1;
+ * try {
+ *    // Do the work
+ *    errorCount = 0;
+ * }
+ * finally {
+ *    DDMSMetrics.record(DDMSMetrics.PHASE_PARSE, detail, start, size, errorCount);
+ * }
+ * </pre>
+ *
+ * @see IMetricsListener
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public final class DDMSMetrics {
+
+	/**
+	 * Parsing and schema validation of an XML document by a DDMSReader. The size is the number of characters read.
+	 */
+	public static final String PHASE_PARSE = "parse";
+
+	/**
+	 * Loading and compiling the DDMS schemas into a shared grammar pool, which happens once per pool, before the first
+	 * parse which uses it. The size is the number of schema grammars in the pool afterwards.
+	 */
+	public static final String PHASE_GRAMMAR_LOAD = "grammarLoad";
+
+	/** Schema validation of a Resource which was built from its components. No size is reported. */
+	public static final String PHASE_SCHEMA_VALIDATE = "schemaValidate";
+
+	/**
+	 * Construction of a complete Resource, from a XOM element or from its components. The size is the number of
+	 * top-level components in the Resource.
+	 */
+	public static final String PHASE_BUILD = "build";
+
+	/** The validate() rules of a single component. No size is reported. */
+	public static final String PHASE_VALIDATE = "validate";
+
+	/** Loading the ISM controlled vocabulary files for a DDMS version. No size is reported. */
+	public static final String PHASE_CVE_LOAD = "cveLoad";
+
+	/** Compiling a Schematron file into a validation stylesheet. The size is the length of the file, in bytes. */
+	public static final String PHASE_SCHEMATRON_COMPILE = "schematronCompile";
+
+	/** Applying compiled Schematron rules to a single element. No size is reported. */
+	public static final String PHASE_SCHEMATRON_APPLY = "schematronApply";
+
+	/**
+	 * Rendering a component as XML, HTML, Text or JSON. The size is the number of characters rendered, when the output
+	 * is returned as a String, and is not reported when the output is written to an Appendable.
+	 */
+	public static final String PHASE_RENDER = "render";
+
+	private static volatile IMetricsListener _listener = null;
+
+	/**
+	 * Private to prevent instantiation
+	 */
+	private DDMSMetrics() {}
+
+	/**
+	 * Tells the listener that a phase is starting, and returns its start time. Every call which returns a non-zero
+	 * value must be followed by a call to record() for the same phase on the same Thread.
+	 *
+	 * @param phase the phase
+	 * @return the current value of System.nanoTime(), or 0 if no listener is registered
+	 */
+	public static long start(String phase) {
+		IMetricsListener listener = _listener;
+		if (listener == null)
+			return (0);
+		listener.phaseStarted(phase);
+		return (System.nanoTime());
+	}
+
+	/**
+	 * Reports a completed phase to the listener. Nothing is reported if the phase started before a listener was
+	 * registered, or if the listener has been removed since.
+	 *
+	 * @param phase the phase
+	 * @param detail what the phase worked on, or null
+	 * @param start the value returned by start() when the phase began
+	 * @param size the size of the work done, in the unit defined for the phase, or -1 if not applicable
+	 * @param errorCount the number of errors encountered
+	 */
+	public static void record(String phase, String detail, long start, long size, int errorCount) {
+		IMetricsListener listener = _listener;
+		if (listener != null && start != 0)
+			listener.phaseCompleted(phase, detail, System.nanoTime() - start, size, errorCount);
+	}
+
+	/**
+	 * Returns true if a listener is registered.
+	 */
+	public static boolean isEnabled() {
+		return (_listener != null);
+	}
+
+	/**
+	 * Accessor for the registered listener
+	 *
+	 * @return the listener, or null if none is registered
+	 */
+	public static IMetricsListener getListener() {
+		return _listener;
+	}
+
+	/**
+	 * Registers the listener which receives phase measurements, replacing any previous listener.
+	 *
+	 * @param listener the listener, or null to turn measurement off
+	 */
+	public static void setListener(IMetricsListener listener) {
+		_listener = listener;
+	}
+}
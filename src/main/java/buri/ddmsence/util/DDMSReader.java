@@ -20,6 +20,7 @@
 package buri.ddmsence.util;
 
 import java.io.File;
+import java.io.FilterReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
@@ -32,18 +33,28 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import nu.xom.Builder;
 import nu.xom.Document;
 import nu.xom.Element;
 import nu.xom.ParsingException;
 
+import org.apache.xerces.parsers.XMLGrammarPreparser;
+import org.apache.xerces.util.XMLGrammarPoolImpl;
+import org.apache.xerces.xni.XNIException;
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
+import org.apache.xerces.xni.parser.XMLInputSource;
 import org.xml.sax.SAXException;
 import org.xml.sax.XMLReader;
 import org.xml.sax.helpers.XMLReaderFactory;
 
 import buri.ddmsence.ddms.InvalidDDMSException;
 import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ResourceView;
 
 /**
  * Reader class which loads an XML file containing DDMS information and converts it into XOM elements.
@@ -52,16 +63,36 @@ import buri.ddmsence.ddms.Resource;
  * This parsing performs schema validation against a local set of DDMS/ISM schemas.
  * </p>
  * 
+ * <p>
+ * Loading the schemas is the most expensive part of creating a reader, so the compiled grammars are cached in a
+ * process-wide pool for each unique set of external schema locations (one per DDMSVersion, plus any locations added
+ * with <code>addExternalSchemaLocation</code>). The first reader for a set of locations pays the cost of loading the
+ * schemas, and every later reader in any Thread reuses the same grammars. An individual DDMSReader is still not
+ * thread-safe, but it is now cheap to create one per Thread or per request.
+ * </p>
+ * 
  * @author Brian Uri!
  * @since 0.9.b
  */
 public class DDMSReader {
 
 	private XMLReader _reader;
+	private DDMSVersion _version;
+	private String _defaultSchemaLocations;
+	private XMLGrammarPool _grammarPool = null;
 
 	private static final String PROP_XERCES_VALIDATION = "http://xml.org/sax/features/validation";
 	private static final String PROP_XERCES_SCHEMA_VALIDATION = "http://apache.org/xml/features/validation/schema";
 	private static final String PROP_XERCES_EXTERNAL_LOCATION = "http://apache.org/xml/properties/schema/external-schemaLocation";
+	private static final String PROP_XERCES_GRAMMAR_POOL = "http://apache.org/xml/properties/internal/grammar-pool";
+	private static final String PROP_XERCES_ID_CHECKING = "http://apache.org/xml/features/validation/id-idref-checking";
+	private static final String PROP_XERCES_NAMESPACES = "http://xml.org/sax/features/namespaces";
+
+	/**
+	 * A process-wide cache of compiled schema grammars, keyed on the external schema locations which were used to load
+	 * them. The Xerces pool implementation is synchronized, so a single pool can be shared by readers in many Threads.
+	 */
+	private static final ConcurrentMap<String, XMLGrammarPool> GRAMMAR_POOLS = new ConcurrentHashMap<String, XMLGrammarPool>();
 
 	/**
 	 * Constructor
@@ -72,6 +103,7 @@ public class DDMSReader {
 	 */
 	public DDMSReader(DDMSVersion version) throws SAXException {
 		_reader = XMLReaderFactory.createXMLReader(PropertyReader.getProperty("xml.reader.class"));
+		_version = version;
 		StringBuffer schemas = new StringBuffer();
 		List<String> versions = new ArrayList<String>(DDMSVersion.getSupportedVersions());
 		Collections.reverse(versions);
@@ -82,7 +114,69 @@ public class DDMSReader {
 		loadSchema(version.getTspiNamespace(), version.getTspiSchema(), schemas, processedNamespaces);
 		getReader().setFeature(PROP_XERCES_VALIDATION, true);
 		getReader().setFeature(PROP_XERCES_SCHEMA_VALIDATION, true);
-		getReader().setProperty(PROP_XERCES_EXTERNAL_LOCATION, schemas.toString().trim());
+		_defaultSchemaLocations = schemas.toString().trim();
+		getReader().setProperty(PROP_XERCES_EXTERNAL_LOCATION, _defaultSchemaLocations);
+		useGrammarPool(_defaultSchemaLocations);
+	}
+
+	/**
+	 * Returns this reader to the state it was in after construction, by discarding any schema locations added with
+	 * <code>addExternalSchemaLocation</code>. This allows a pooled reader to be lent out again without leaking
+	 * configuration from one borrower to the next.
+	 */
+	protected void reset() {
+		try {
+			getReader().setProperty(PROP_XERCES_EXTERNAL_LOCATION, _defaultSchemaLocations);
+		}
+		catch (SAXException e) {
+			throw new IllegalStateException(PROP_XERCES_EXTERNAL_LOCATION
+				+ " is not supported or recognized for this XMLReader.");
+		}
+		useGrammarPool(_defaultSchemaLocations);
+	}
+
+	/**
+	 * Points the underlying XML reader at the shared grammar pool for a set of schema locations. If the configured
+	 * reader class does not support Xerces grammar pools, the reader will load the schemas on every parse, as it did
+	 * before pooling was introduced.
+	 * 
+	 * @param schemaLocations the space-delimited set of XMLNamespace/SchemaLocation pairs used by this reader
+	 */
+	private void useGrammarPool(String schemaLocations) {
+		try {
+			XMLGrammarPool pool = getGrammarPool(schemaLocations);
+			getReader().setProperty(PROP_XERCES_GRAMMAR_POOL, pool);
+			_grammarPool = pool;
+		}
+		catch (SAXException e) {
+			// Fall-through
+		}
+	}
+
+	/**
+	 * Returns the shared grammar pool for a set of schema locations, creating it if necessary.
+	 * 
+	 * @param schemaLocations the space-delimited set of XMLNamespace/SchemaLocation pairs
+	 * @return the grammar pool (never null)
+	 */
+	protected static XMLGrammarPool getGrammarPool(String schemaLocations) {
+		XMLGrammarPool pool = GRAMMAR_POOLS.get(schemaLocations);
+		if (pool == null) {
+			XMLGrammarPool newPool = new SharedGrammarPool();
+			pool = GRAMMAR_POOLS.putIfAbsent(schemaLocations, newPool);
+			if (pool == null)
+				pool = newPool;
+		}
+		return (pool);
+	}
+
+	/**
+	 * Discards all cached schema grammars. Readers created after this call will reload their schemas on first use.
+	 * This is only needed if the schema files referenced by an external schema location change while the application
+	 * is running.
+	 */
+	public static void clearGrammarPools() {
+		GRAMMAR_POOLS.clear();
 	}
 
 	/**
@@ -189,14 +283,23 @@ public class DDMSReader {
 	 */
 	public Element getElement(Reader reader) throws IOException, InvalidDDMSException {
 		Util.requireValue("reader", reader);
+		loadGrammars();
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_PARSE);
+		CountingReader countingReader = (start == 0 ? null : new CountingReader(reader));
+		int errorCount = 1;
 		try {
 			Builder builder = new Builder(getReader(), true);
-			Document doc = builder.build(reader);
+			Document doc = builder.build(countingReader == null ? reader : countingReader);
+			errorCount = 0;
 			return (doc.getRootElement());
 		}
 		catch (ParsingException e) {
 			throw new InvalidDDMSException(e);
 		}
+		finally {
+			DDMSMetrics.record(DDMSMetrics.PHASE_PARSE, getVersion().getVersion(), start,
+				countingReader == null ? -1 : countingReader.getCount(), errorCount);
+		}
 	}
 
 	/**
@@ -247,6 +350,137 @@ public class DDMSReader {
 		return (buildResource(getElement(reader)));
 	}
 
+	/**
+	 * Creates a lazily built view of a DDMS resource based on the contents of a file, and also sets the DDMSVersion
+	 * based on the namespace URIs in the file. The file is validated against the DDMS schemas, but components are only
+	 * built when they are accessed.
+	 * 
+	 * @param file the file containing the DDMS Resource.
+	 * @return a view of the DDMS Resource
+	 * @throws InvalidDDMSException if the document is not valid according to the schemas
+	 */
+	public ResourceView getDDMSResourceView(File file) throws IOException, InvalidDDMSException {
+		return (buildResourceView(getElement(file)));
+	}
+
+	/**
+	 * Creates a lazily built view of a DDMS resource based on the contents of a string representation of an XML
+	 * document, and also sets the DDMSVersion based on the namespace URIs in the document.
+	 * 
+	 * @param xml the string representation of the XML DDMS Resource
+	 * @return a view of the DDMS Resource
+	 * @throws InvalidDDMSException if the document is not valid according to the schemas
+	 */
+	public ResourceView getDDMSResourceView(String xml) throws IOException, InvalidDDMSException {
+		return (buildResourceView(getElement(xml)));
+	}
+
+	/**
+	 * Creates a lazily built view of a DDMS resource based on the contents of an input stream, and also sets the
+	 * DDMSVersion based on the namespace URIs in the document.
+	 * 
+	 * @param inputStream the input stream wrapped around an XML DDMS Resource
+	 * @return a view of the DDMS Resource
+	 * @throws InvalidDDMSException if the document is not valid according to the schemas
+	 */
+	public ResourceView getDDMSResourceView(InputStream inputStream) throws IOException, InvalidDDMSException {
+		return (buildResourceView(getElement(inputStream)));
+	}
+
+	/**
+	 * Creates a lazily built view of a DDMS resource based on the contents of a reader, and also sets the DDMSVersion
+	 * based on the namespace URIs in the document.
+	 * 
+	 * @param reader the reader wrapped around an XML DDMS Resource
+	 * @return a view of the DDMS Resource
+	 * @throws InvalidDDMSException if the document is not valid according to the schemas
+	 */
+	public ResourceView getDDMSResourceView(Reader reader) throws IOException, InvalidDDMSException {
+		return (buildResourceView(getElement(reader)));
+	}
+
+	/**
+	 * Streams every Resource record in a file to a handler.
+	 * 
+	 * <p>The implementation of this method delegates to the Reader-based overloaded method.</p>
+	 * 
+	 * @param file the file containing the DDMS Resources
+	 * @param handler the handler which receives each record
+	 * @return the number of records encountered
+	 * @throws InvalidDDMSException if the file is not well-formed XML
+	 */
+	public int readDDMSResources(File file, IResourceHandler handler) throws IOException, InvalidDDMSException {
+		Util.requireValue("file", file);
+		return (readDDMSResources(new FileReader(file), handler));
+	}
+
+	/**
+	 * Streams every Resource record in an input stream to a handler.
+	 * 
+	 * <p>The implementation of this method delegates to the Reader-based overloaded method.</p>
+	 * 
+	 * @param inputStream the input stream wrapped around the DDMS Resources
+	 * @param handler the handler which receives each record
+	 * @return the number of records encountered
+	 * @throws InvalidDDMSException if the stream is not well-formed XML
+	 */
+	public int readDDMSResources(InputStream inputStream, IResourceHandler handler) throws IOException,
+		InvalidDDMSException {
+		Util.requireValue("input stream", inputStream);
+		return (readDDMSResources(new InputStreamReader(inputStream), handler));
+	}
+
+	/**
+	 * Streams every Resource record in a reader to a handler, one record at a time. This is intended for bulk
+	 * documents, such as catalog exports, where many Resources of this reader's DDMS version are wrapped in a single
+	 * root element. The root element does not need to be a DDMS element, and a document whose root is a single Resource
+	 * is also accepted.
+	 * 
+	 * <p>Each record is schema-validated and built as it is parsed, passed to the handler, and then discarded, so memory
+	 * use does not grow with the size of the document. A record which fails schema validation or DDMSence validation is
+	 * reported to the handler with its errors, and does not stop the remaining records from being processed. Only a
+	 * well-formedness error, which prevents any further parsing, ends the stream early.</p>
+	 * 
+	 * <p>XML Schema scopes ID uniqueness to an entire document, which would cause unrelated records that reuse the same
+	 * ID values to fail. ID and IDREF checking is therefore disabled while streaming.</p>
+	 * 
+	 * @param reader the reader wrapped around the DDMS Resources
+	 * @param handler the handler which receives each record
+	 * @return the number of records encountered
+	 * @throws InvalidDDMSException if the document is not well-formed XML
+	 */
+	public int readDDMSResources(Reader reader, IResourceHandler handler) throws IOException, InvalidDDMSException {
+		Util.requireValue("reader", reader);
+		Util.requireValue("handler", handler);
+		ResourceStreamFilter filter = new ResourceStreamFilter(getReader(), getVersion(), handler);
+		setIdChecking(false);
+		try {
+			Builder builder = new Builder(filter, true, filter.getFactory());
+			builder.build(reader);
+			return (filter.getRecordCount());
+		}
+		catch (ParsingException e) {
+			throw new InvalidDDMSException(e);
+		}
+		finally {
+			setIdChecking(true);
+		}
+	}
+
+	/**
+	 * Toggles ID and IDREF checking on the underlying XML reader, if the reader supports it.
+	 * 
+	 * @param enabled whether IDs should be checked
+	 */
+	private void setIdChecking(boolean enabled) {
+		try {
+			getReader().setFeature(PROP_XERCES_ID_CHECKING, enabled);
+		}
+		catch (SAXException e) {
+			// Fall-through
+		}
+	}
+
 	/**
 	 * Shared helper method to build a DDMS Resource from a XOM Element
 	 * 
@@ -256,7 +490,19 @@ public class DDMSReader {
 	 */
 	protected Resource buildResource(Element xomElement) throws InvalidDDMSException {
 		DDMSVersion.setCurrentVersion(DDMSVersion.getVersionForNamespace(xomElement.getNamespaceURI()).getVersion());
-		return (new Resource(xomElement));
+		return (new Resource(xomElement, true));
+	}
+
+	/**
+	 * Shared method to build a ResourceView from a XOM element and set the current DDMS version.
+	 * 
+	 * @param xomElement the element to view
+	 * @return a view of the DDMS Resource
+	 * @throws InvalidDDMSException if the element is not a DDMS Resource element
+	 */
+	protected ResourceView buildResourceView(Element xomElement) throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion(DDMSVersion.getVersionForNamespace(xomElement.getNamespaceURI()).getVersion());
+		return (new ResourceView(xomElement, true));
 	}
 
 	/**
@@ -300,12 +546,119 @@ public class DDMSReader {
 			throw new IllegalStateException(PROP_XERCES_EXTERNAL_LOCATION
 				+ " is not supported or recognized for this XMLReader.");
 		}
+		useGrammarPool(getExternalSchemaLocations());
 	}
 	
+	/**
+	 * Accessor for the DDMS version whose schemas are used by this reader
+	 */
+	public DDMSVersion getVersion() {
+		return _version;
+	}
+
+	/**
+	 * Loads the schemas for this reader into its shared grammar pool, if no other reader has started to load them yet.
+	 * Only the first reader to use a pool does the work, which is timed as its own phase. Other readers do not wait for
+	 * it: any grammar which is not in the pool yet is loaded during their parse, as it would be without a pool. If the
+	 * schemas cannot be loaded here, the same fallback applies, and the parse reports the problem.
+	 */
+	private void loadGrammars() {
+		if (!(_grammarPool instanceof SharedGrammarPool) || !((SharedGrammarPool) _grammarPool).startLoading())
+			return;
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_GRAMMAR_LOAD);
+		int errorCount = 1;
+		int grammarCount = -1;
+		try {
+			XMLGrammarPreparser preparser = new XMLGrammarPreparser();
+			preparser.registerPreparser(XMLGrammarDescription.XML_SCHEMA, null);
+			preparser.setProperty(PROP_XERCES_GRAMMAR_POOL, _grammarPool);
+			preparser.setFeature(PROP_XERCES_NAMESPACES, true);
+			preparser.setFeature(PROP_XERCES_VALIDATION, true);
+			preparser.setFeature(PROP_XERCES_SCHEMA_VALIDATION, true);
+			String[] pairs = getExternalSchemaLocations().split("\\s+");
+			for (int i = 1; i < pairs.length; i += 2)
+				preparser.preparseGrammar(XMLGrammarDescription.XML_SCHEMA, new XMLInputSource(null, pairs[i], null));
+			errorCount = 0;
+			if (start != 0)
+				grammarCount = _grammarPool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length;
+		}
+		catch (IOException e) {
+			// Fall-through
+		}
+		catch (XNIException e) {
+			// Fall-through
+		}
+		finally {
+			DDMSMetrics.record(DDMSMetrics.PHASE_GRAMMAR_LOAD, getVersion().getVersion(), start, grammarCount,
+				errorCount);
+		}
+	}
+
+	/**
+	 * A grammar pool shared by every reader with the same schema locations, which remembers whether a reader has
+	 * started to load the schemas into it.
+	 */
+	private static final class SharedGrammarPool extends XMLGrammarPoolImpl {
+		private final AtomicBoolean _loading = new AtomicBoolean(false);
+
+		/**
+		 * Claims the job of loading the schemas into this pool.
+		 * 
+		 * @return true for exactly one caller, which must then load the schemas
+		 */
+		private boolean startLoading() {
+			return (_loading.compareAndSet(false, true));
+		}
+	}
+
 	/**
 	 * Accessor for the reader
 	 */
 	private XMLReader getReader() {
 		return _reader;
 	}
+
+	/**
+	 * Reader which counts the characters passing through it, so the size of each parsed document can be reported to
+	 * DDMSMetrics. It is only used while a metrics listener is registered.
+	 */
+	private static class CountingReader extends FilterReader {
+		private long _count = 0;
+
+		/**
+		 * Constructor
+		 *
+		 * @param reader the underlying reader
+		 */
+		public CountingReader(Reader reader) {
+			super(reader);
+		}
+
+		/**
+		 * @see FilterReader#read()
+		 */
+		public int read() throws IOException {
+			int c = super.read();
+			if (c != -1)
+				_count++;
+			return (c);
+		}
+
+		/**
+		 * @see FilterReader#read(char[], int, int)
+		 */
+		public int read(char[] buffer, int offset, int length) throws IOException {
+			int count = super.read(buffer, offset, length);
+			if (count > 0)
+				_count += count;
+			return (count);
+		}
+
+		/**
+		 * Accessor for the number of characters read
+		 */
+		public long getCount() {
+			return _count;
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,322 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.xml.sax.SAXException;
+
+/**
+ * A thread-safe pool of DDMSReaders, which lends readers for a specific DDMS version to worker Threads.
+ *
+ * <p>
+ * A DDMSReader cannot be shared by more than one Thread simultaneously, because it wraps a stateful XML parser. This
+ * pool allows a fixed number of readers per DDMS version to be reused by many Threads, one Thread at a time. A
+ * borrowed reader must always be returned, typically in a <code>finally</code> block:
+ * </p>
+ *
+ * <pre>
+ * DDMSReader reader = pool.borrowReader(version);
+ * try {
+ *    Resource resource = reader.getDDMSResource(inputStream);
+ * }
+ * finally {
+ *    pool.returnReader(reader);
+ * }
+ * </pre>
+ *
+ * <ul>
+ * <li>Capacity: No more than <code>capacity</code> readers for a single DDMS version are lent out at once. When every
+ * reader is in use, borrowers wait until another Thread returns one.</li>
+ * <li>Reset-on-Return: Any schema locations added to a reader with <code>addExternalSchemaLocation</code> are
+ * discarded when the reader is returned.</li>
+ * <li>Idle Eviction: Readers which have sat unused in the pool for longer than the idle timeout are discarded
+ * whenever a reader is borrowed or returned, so a burst of activity does not hold onto readers forever.</li>
+ * </ul>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class DDMSReaderPool {
+
+	private int _capacity;
+	private long _idleTimeoutMillis;
+	private final ConcurrentMap<DDMSVersion, VersionPool> _pools = new ConcurrentHashMap<DDMSVersion, VersionPool>();
+	private final Set<DDMSReader> _lentReaders = Collections.synchronizedSet(Collections.newSetFromMap(
+		new IdentityHashMap<DDMSReader, Boolean>()));
+
+	/** The default maximum number of readers lent out for a single DDMS version */
+	public static final int DEFAULT_CAPACITY = Runtime.getRuntime().availableProcessors();
+
+	/** The default length of time an unused reader stays in the pool, in milliseconds */
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 5 * 60 * 1000L;
+
+	/**
+	 * Constructor which uses the default capacity and idle timeout.
+	 */
+	public DDMSReaderPool() {
+		this(DEFAULT_CAPACITY, DEFAULT_IDLE_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * Constructor
+	 *
+	 * @param capacity the maximum number of readers lent out for a single DDMS version
+	 * @param idleTimeoutMillis the length of time an unused reader stays in the pool before it is discarded
+	 * @throws IllegalArgumentException if the capacity is less than 1 or the timeout is negative
+	 */
+	public DDMSReaderPool(int capacity, long idleTimeoutMillis) {
+		if (capacity < 1)
+			throw new IllegalArgumentException("The capacity must be at least 1.");
+		if (idleTimeoutMillis < 0)
+			throw new IllegalArgumentException("The idle timeout must not be negative.");
+		_capacity = capacity;
+		_idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	/**
+	 * Borrows a reader for a DDMS version, waiting for one to be returned if the pool is at capacity.
+	 *
+	 * @param version the DDMS version of the documents which will be read
+	 * @return a reader, which must be returned with <code>returnReader</code>
+	 * @throws InterruptedException if the Thread is interrupted while waiting
+	 * @throws SAXException if a new reader could not be created
+	 */
+	public DDMSReader borrowReader(DDMSVersion version) throws InterruptedException, SAXException {
+		Util.requireValue("version", version);
+		VersionPool pool = getPool(version);
+		pool.getPermits().acquire();
+		return (lendReader(pool, version));
+	}
+
+	/**
+	 * Borrows a reader for a DDMS version, waiting up to a timeout for one to be returned if the pool is at capacity.
+	 *
+	 * @param version the DDMS version of the documents which will be read
+	 * @param timeout the maximum time to wait
+	 * @param unit the unit of the timeout
+	 * @return a reader, which must be returned with <code>returnReader</code>, or null if the timeout elapsed first
+	 * @throws InterruptedException if the Thread is interrupted while waiting
+	 * @throws SAXException if a new reader could not be created
+	 */
+	public DDMSReader borrowReader(DDMSVersion version, long timeout, TimeUnit unit) throws InterruptedException,
+		SAXException {
+		Util.requireValue("version", version);
+		Util.requireValue("unit", unit);
+		VersionPool pool = getPool(version);
+		if (!pool.getPermits().tryAcquire(timeout, unit))
+			return (null);
+		return (lendReader(pool, version));
+	}
+
+	/**
+	 * Returns a borrowed reader to the pool. The reader is reset before it is made available to other Threads, and
+	 * must not be used again by the caller.
+	 *
+	 * @param reader the reader to return
+	 * @throws IllegalArgumentException if the reader is not currently lent out by this pool
+	 */
+	public void returnReader(DDMSReader reader) {
+		Util.requireValue("reader", reader);
+		if (!_lentReaders.remove(reader))
+			throw new IllegalArgumentException("This DDMSReader was not borrowed from this pool.");
+		VersionPool pool = getPool(reader.getVersion());
+		try {
+			reader.reset();
+			pool.getIdleReaders().offerFirst(new IdleReader(reader));
+		}
+		finally {
+			pool.getPermits().release();
+		}
+		evictIdleReaders(pool);
+	}
+
+	/**
+	 * Discards every reader which has been idle for longer than the idle timeout, for all DDMS versions.
+	 */
+	public void evictIdleReaders() {
+		for (VersionPool pool : _pools.values())
+			evictIdleReaders(pool);
+	}
+
+	/**
+	 * Returns the number of unused readers currently held in the pool for a DDMS version.
+	 *
+	 * @param version the DDMS version
+	 * @return the number of idle readers
+	 */
+	public int getIdleCount(DDMSVersion version) {
+		Util.requireValue("version", version);
+		return (getPool(version).getIdleReaders().size());
+	}
+
+	/**
+	 * Returns the number of readers currently lent out for a DDMS version.
+	 *
+	 * @param version the DDMS version
+	 * @return the number of borrowed readers
+	 */
+	public int getActiveCount(DDMSVersion version) {
+		Util.requireValue("version", version);
+		return (getCapacity() - getPool(version).getPermits().availablePermits());
+	}
+
+	/**
+	 * Hands out an idle reader, or creates a new one if none are idle. The caller must already hold a permit, which
+	 * is released again if the reader cannot be created.
+	 *
+	 * @param pool the pool for the version
+	 * @param version the DDMS version
+	 * @return a reader
+	 */
+	private DDMSReader lendReader(VersionPool pool, DDMSVersion version) throws SAXException {
+		try {
+			evictIdleReaders(pool);
+			IdleReader idle = pool.getIdleReaders().pollFirst();
+			DDMSReader reader = (idle == null ? new DDMSReader(version) : idle.getReader());
+			_lentReaders.add(reader);
+			return (reader);
+		}
+		catch (SAXException e) {
+			pool.getPermits().release();
+			throw (e);
+		}
+		catch (RuntimeException e) {
+			pool.getPermits().release();
+			throw (e);
+		}
+	}
+
+	/**
+	 * Discards idle readers for one DDMS version. The most recently returned readers are always at the front of the
+	 * deque, so eviction works backwards from the end until it finds a reader that is still fresh.
+	 *
+	 * @param pool the pool for the version
+	 */
+	private void evictIdleReaders(VersionPool pool) {
+		long cutoff = System.currentTimeMillis() - getIdleTimeoutMillis();
+		IdleReader oldest = pool.getIdleReaders().peekLast();
+		while (oldest != null && oldest.getIdleSince() < cutoff) {
+			pool.getIdleReaders().removeLastOccurrence(oldest);
+			oldest = pool.getIdleReaders().peekLast();
+		}
+	}
+
+	/**
+	 * Returns the pool for a DDMS version, creating it if necessary.
+	 *
+	 * @param version the DDMS version
+	 * @return the pool (never null)
+	 */
+	private VersionPool getPool(DDMSVersion version) {
+		VersionPool pool = _pools.get(version);
+		if (pool == null) {
+			VersionPool newPool = new VersionPool(getCapacity());
+			pool = _pools.putIfAbsent(version, newPool);
+			if (pool == null)
+				pool = newPool;
+		}
+		return (pool);
+	}
+
+	/**
+	 * Accessor for the maximum number of readers lent out for a single DDMS version
+	 */
+	public int getCapacity() {
+		return _capacity;
+	}
+
+	/**
+	 * Accessor for the length of time an unused reader stays in the pool, in milliseconds
+	 */
+	public long getIdleTimeoutMillis() {
+		return _idleTimeoutMillis;
+	}
+
+	/**
+	 * The readers and lending permits for a single DDMS version.
+	 */
+	private static class VersionPool {
+		private final Semaphore _permits;
+		private final LinkedBlockingDeque<IdleReader> _idleReaders = new LinkedBlockingDeque<IdleReader>();
+
+		/**
+		 * Constructor
+		 *
+		 * @param capacity the maximum number of readers lent out at once
+		 */
+		public VersionPool(int capacity) {
+			_permits = new Semaphore(capacity, true);
+		}
+
+		/**
+		 * Accessor for the lending permits
+		 */
+		public Semaphore getPermits() {
+			return _permits;
+		}
+
+		/**
+		 * Accessor for the idle readers, most recently returned first
+		 */
+		public LinkedBlockingDeque<IdleReader> getIdleReaders() {
+			return _idleReaders;
+		}
+	}
+
+	/**
+	 * A reader waiting in the pool, and the time it was returned.
+	 */
+	private static class IdleReader {
+		private final DDMSReader _reader;
+		private final long _idleSince;
+
+		/**
+		 * Constructor
+		 *
+		 * @param reader the returned reader
+		 */
+		public IdleReader(DDMSReader reader) {
+			_reader = reader;
+			_idleSince = System.currentTimeMillis();
+		}
+
+		/**
+		 * Accessor for the reader
+		 */
+		public DDMSReader getReader() {
+			return _reader;
+		}
+
+		/**
+		 * Accessor for the time the reader was returned
+		 */
+		public long getIdleSince() {
+			return _idleSince;
+		}
+	}
+}
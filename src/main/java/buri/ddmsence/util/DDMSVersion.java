@@ -19,11 +19,11 @@
  */
 package buri.ddmsence.util;
 
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
 import buri.ddmsence.ddms.UnsupportedVersionException;
 
@@ -73,11 +73,16 @@ import buri.ddmsence.ddms.UnsupportedVersionException;
  * will always return 4.1 (because it is newer). 4.0.1 is now an alias for 4.1, and warnings will appear when
  * using new 4.1 components.</p>
  * 
+ * <p>The supported versions and their namespaces are resolved once, when this class is loaded. Each version carries its
+ * position in the <code>ddms.supportedVersions</code> list as an ordinal, so version comparisons are simple integer
+ * comparisons.</p>
+ * 
  * @author Brian Uri!
  * @since 0.9.b
  */
 public class DDMSVersion {
 
+	private int _ordinal;
 	private String _version;
 	private String _namespace;
 	private String _schema;
@@ -99,22 +104,54 @@ public class DDMSVersion {
 	 */
 	private static final ThreadLocal<DDMSVersion> CURRENT_VERSION_HOLDER = new ThreadLocal<DDMSVersion>();
 
-	private static final Map<String, DDMSVersion> VERSIONS_TO_DETAILS = new TreeMap<String, DDMSVersion>();
+	private static final List<String> SUPPORTED_VERSIONS = PropertyReader.getListProperty("ddms.supportedVersions");
+
+	private static final Map<String, DDMSVersion> VERSIONS_TO_DETAILS = new LinkedHashMap<String, DDMSVersion>();
+
+	private static final Map<String, DDMSVersion> DDMS_NAMESPACES_TO_VERSIONS = new HashMap<String, DDMSVersion>();
+
+	private static final Map<String, DDMSVersion> NAMESPACES_TO_VERSIONS = new HashMap<String, DDMSVersion>();
 	static {
-		for (String version : PropertyReader.getListProperty("ddms.supportedVersions")) {
-			VERSIONS_TO_DETAILS.put(version, new DDMSVersion(version));
+		for (int i = 0; i < SUPPORTED_VERSIONS.size(); i++) {
+			DDMSVersion version = new DDMSVersion(SUPPORTED_VERSIONS.get(i), i);
+			VERSIONS_TO_DETAILS.put(version.getVersion(), version);
+			// Later versions replace earlier ones, so a shared namespace resolves to the most recent version.
+			DDMS_NAMESPACES_TO_VERSIONS.put(version.getNamespace(), version);
+			NAMESPACES_TO_VERSIONS.put(version.getXlinkNamespace(), version);
+			NAMESPACES_TO_VERSIONS.put(version.getVirtNamespace(), version);
+			NAMESPACES_TO_VERSIONS.put(version.getTspiNamespace(), version);
+			NAMESPACES_TO_VERSIONS.put(version.getGmlNamespace(), version);
+			NAMESPACES_TO_VERSIONS.put(version.getNtkNamespace(), version);
+			NAMESPACES_TO_VERSIONS.put(version.getIsmNamespace(), version);
+			NAMESPACES_TO_VERSIONS.put(version.getNamespace(), version);
 		}
 	}
 
+	/** DDMS 2.0 */
+	public static final DDMSVersion V2_0 = getVersionFor("2.0");
+
+	/** DDMS 3.0, which is also used for DDMS 3.0.1 */
+	public static final DDMSVersion V3_0 = getVersionFor("3.0");
+
+	/** DDMS 3.1 */
+	public static final DDMSVersion V3_1 = getVersionFor("3.1");
+
+	/** DDMS 4.1, which is also used for DDMS 4.0.1 */
+	public static final DDMSVersion V4_1 = getVersionFor("4.1");
+
+	/** DDMS 5.0 */
+	public static final DDMSVersion V5_0 = getVersionFor("5.0");
+
 	/**
 	 * Private to prevent instantiation
 	 * 
 	 * @param version the number as shown in ddms.supportedVersions.
+	 * @param ordinal the position of the number in ddms.supportedVersions.
 	 */
-	private DDMSVersion(String version) {
-		int index = getSupportedVersionsProperty().indexOf(version);
+	private DDMSVersion(String version, int ordinal) {
+		_ordinal = ordinal;
 		_version = version;
-		_namespace = getSupportedDDMSNamespacesProperty().get(index);
+		_namespace = PropertyReader.getProperty(version + ".ddms.xmlNamespace");
 		_schema = PropertyReader.getProperty(version + ".ddms.xsdLocation");
 		_gmlNamespace = PropertyReader.getProperty(version + ".gml.xmlNamespace");
 		_gmlSchema = PropertyReader.getProperty(version + ".gml.xsdLocation");
@@ -137,43 +174,27 @@ public class DDMSVersion {
 	 * @return true if the version is equal to or greater than the test version
 	 */
 	public boolean isAtLeast(String version) {
-		version = aliasVersion(version);
-		if (!getSupportedVersionsProperty().contains(version))
-			throw new UnsupportedVersionException(version);
-		int index = getSupportedVersionsProperty().indexOf(this.getVersion());
-		int testIndex = getSupportedVersionsProperty().indexOf(version);
-		return (index >= testIndex);
+		return (isAtLeast(getVersionFor(version)));
 	}
 
 	/**
-	 * Returns a list of supported DDMS versions
+	 * Convenience method to check if this DDMS version is equal to or higher than another version.
 	 * 
-	 * @return List of string version numbers
+	 * @param version the version to check
+	 * @return true if this version is equal to or greater than the test version
 	 */
-	public static List<String> getSupportedVersions() {
-		return Collections.unmodifiableList(getSupportedVersionsProperty());
+	public boolean isAtLeast(DDMSVersion version) {
+		Util.requireValue("version", version);
+		return (getOrdinal() >= version.getOrdinal());
 	}
 
 	/**
-	 * Private accessor for the property containing the supported versions list
-	 * 
-	 * @return List of String version numbers
-	 */
-	private static List<String> getSupportedVersionsProperty() {
-		return (PropertyReader.getListProperty("ddms.supportedVersions"));
-	}
-
-	/**
-	 * Private accessor for the property containing the supported DDMS XML namespace list
+	 * Returns a list of supported DDMS versions
 	 * 
-	 * @return List of String version numbers
+	 * @return List of string version numbers
 	 */
-	private static List<String> getSupportedDDMSNamespacesProperty() {
-		List<String> supportedNamespaces = new ArrayList<String>();
-		for (String version : getSupportedVersionsProperty()) {
-			supportedNamespaces.add(PropertyReader.getProperty(version + ".ddms.xmlNamespace"));
-		}
-		return (supportedNamespaces);
+	public static List<String> getSupportedVersions() {
+		return (SUPPORTED_VERSIONS);
 	}
 
 	/**
@@ -183,7 +204,7 @@ public class DDMSVersion {
 	 * @return true if the namespace is supported
 	 */
 	public static boolean isSupportedDDMSNamespace(String xmlNamespace) {
-		return (getSupportedDDMSNamespacesProperty().contains(xmlNamespace));
+		return (DDMS_NAMESPACES_TO_VERSIONS.containsKey(xmlNamespace));
 	}
 
 	/**
@@ -194,10 +215,10 @@ public class DDMSVersion {
 	 * @throws UnsupportedVersionException if the version number is not supported
 	 */
 	public static DDMSVersion getVersionFor(String version) {
-		version = aliasVersion(version);
-		if (!getSupportedVersionsProperty().contains(version))
-			throw new UnsupportedVersionException(version);
-		return (VERSIONS_TO_DETAILS.get(version));
+		DDMSVersion details = VERSIONS_TO_DETAILS.get(aliasVersion(version));
+		if (details == null)
+			throw new UnsupportedVersionException(aliasVersion(version));
+		return (details);
 	}
 
 	/**
@@ -210,17 +231,10 @@ public class DDMSVersion {
 	 * @throws UnsupportedVersionException if the version number is not supported
 	 */
 	public static DDMSVersion getVersionForNamespace(String namespace) {
-		List<DDMSVersion> versions = new ArrayList<DDMSVersion>(VERSIONS_TO_DETAILS.values());
-		Collections.reverse(versions);
-		for (DDMSVersion version : versions) {
-			if (version.getNamespace().equals(namespace) || version.getIsmNamespace().equals(namespace)
-				|| version.getNtkNamespace().equals(namespace) || version.getGmlNamespace().equals(namespace)
-				|| version.getTspiNamespace().equals(namespace) || version.getVirtNamespace().equals(namespace)
-				|| version.getXlinkNamespace().equals(namespace)) {
-				return (version);
-			}
-		}
-		throw new UnsupportedVersionException("for XML namespace " + namespace);
+		DDMSVersion version = NAMESPACES_TO_VERSIONS.get(namespace);
+		if (version == null)
+			throw new UnsupportedVersionException("for XML namespace " + namespace);
+		return (version);
 	}
 
 	/**
@@ -232,9 +246,6 @@ public class DDMSVersion {
 	 * @throws UnsupportedVersionException if the version is not supported
 	 */
 	public static DDMSVersion setCurrentVersion(String version) {
-		version = aliasVersion(version);
-		if (!getSupportedVersionsProperty().contains(version))
-			throw new UnsupportedVersionException(version);
 		CURRENT_VERSION_HOLDER.set(getVersionFor(version));
 		return (getCurrentVersion());
 	}
@@ -279,6 +290,14 @@ public class DDMSVersion {
 		return (getVersion());
 	}
 
+	/**
+	 * Accessor for the position of this version in the list of supported versions, where older versions have lower
+	 * ordinals
+	 */
+	public int getOrdinal() {
+		return _ordinal;
+	}
+
 	/**
 	 * Accessor for the version number
 	 */
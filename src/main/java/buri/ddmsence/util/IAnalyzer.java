@@ -0,0 +1,45 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.List;
+
+/**
+ * Interface for the analyzers which turn text into terms for a ResourceTextIndex.
+ *
+ * <p>The same analyzer is used for the text of Resources as they are indexed, and for the text of queries, so a
+ * query only finds terms which were produced in the same way. An analyzer is called by many Threads at once, so
+ * implementations must be thread-safe.</p>
+ *
+ * @see ResourceTextIndex
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public interface IAnalyzer {
+
+	/**
+	 * Splits text into terms.
+	 *
+	 * @param text the text, which is never null
+	 * @return the terms, in the order they appear in the text. Each term is one position, so phrases can only be
+	 *         found if the order is kept.
+	 */
+	public List<String> analyze(String text);
+}
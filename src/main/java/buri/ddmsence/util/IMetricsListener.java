@@ -0,0 +1,60 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+/**
+ * Callback interface for timing the expensive phases of DDMS processing, such as parsing, validation and rendering.
+ *
+ * <p>A listener is registered with {@link DDMSMetrics#setListener(IMetricsListener)}, and is then called when each
+ * instrumented phase starts and again when it completes, on the Thread which did the work. Implementations must therefore be
+ * thread-safe, and should return quickly, because they are called on the hot path. A listener which forwards to a
+ * monitoring system should aggregate or sample, rather than doing I/O on every call.</p>
+ *
+ * <p>Phases can be nested. For example, the "validate" phase of each child component completes inside the "build"
+ * phase of the Resource which contains it.</p>
+ *
+ * @see DDMSMetrics
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public interface IMetricsListener {
+
+	/**
+	 * Notes that a phase is starting. Phases on a single Thread complete in the reverse order that they start, but a
+	 * listener which is registered or removed while a phase is running may receive only one of the two calls.
+	 *
+	 * @param phase the phase, which is one of the PHASE constants in DDMSMetrics
+	 */
+	public void phaseStarted(String phase);
+
+	/**
+	 * Receives the measurements for a completed phase.
+	 *
+	 * @param phase the phase, which is one of the PHASE constants in DDMSMetrics
+	 * @param detail what the phase worked on, such as a component name, output format, or file path, or null
+	 * @param durationNanos the elapsed time of the phase, in nanoseconds
+	 * @param size the size of the work done by the phase, or -1 if not applicable. The unit depends on the phase,
+	 *        and is defined on each PHASE constant in DDMSMetrics: characters for "parse" and "render", bytes for
+	 *        "schematronCompile", schema grammars for "grammarLoad", and top-level components for "build". Sizes
+	 *        from different phases must not be added together.
+	 * @param errorCount the number of errors encountered, including 1 for a phase which threw an exception
+	 */
+	public void phaseCompleted(String phase, String detail, long durationNanos, long size, int errorCount);
+}
@@ -0,0 +1,58 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.List;
+
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * Callback interface for consumers of a stream of DDMS Resources.
+ *
+ * <p>DDMSReader calls one of these methods for each Resource record in a multi-record document, in document order,
+ * as soon as the record has been parsed. The record is not retained by the reader afterwards, so an implementation
+ * which needs the Resource later must keep its own reference to it.</p>
+ *
+ * @see DDMSReader#readDDMSResources(java.io.Reader, IResourceHandler)
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public interface IResourceHandler {
+
+	/**
+	 * Receives a valid Resource.
+	 *
+	 * @param ordinal the 1-based position of the record in the document
+	 * @param lineNumber the line number where the record begins, or -1 if unknown
+	 * @param resource the Resource
+	 */
+	public void handleResource(int ordinal, int lineNumber, Resource resource);
+
+	/**
+	 * Receives the errors for a record which could not be loaded as a Resource. The remaining records in the document
+	 * will still be processed.
+	 *
+	 * @param ordinal the 1-based position of the record in the document
+	 * @param lineNumber the line number where the record begins, or -1 if unknown
+	 * @param errors the schema validation or DDMSence validation errors for the record
+	 */
+	public void handleInvalidResource(int ordinal, int lineNumber, List<ValidationMessage> errors);
+}
@@ -0,0 +1,168 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe IMetricsListener which keeps running totals for each phase, suitable for periodic polling by a
+ * dashboard or for printing at the end of a batch job.
+ *
+ * <pre>
+ * MetricsRecorder recorder = new MetricsRecorder();
+ * DDMSMetrics.setListener(recorder);
+ * // ... process Resources ...
+ * MetricsRecorder.Statistics parse = recorder.getStatistics(DDMSMetrics.PHASE_PARSE);
+ * </pre>
+ *
+ * <p>Totals are kept per phase only. The detail of each measurement is ignored, so the number of statistics stays
+ * small no matter how many different components or files are processed.</p>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class MetricsRecorder implements IMetricsListener {
+
+	private final ConcurrentMap<String, Statistics> _statistics = new ConcurrentHashMap<String, Statistics>();
+
+	/**
+	 * @see IMetricsListener#phaseStarted(String)
+	 */
+	public void phaseStarted(String phase) {}
+
+	/**
+	 * @see IMetricsListener#phaseCompleted(String, String, long, long, int)
+	 */
+	public void phaseCompleted(String phase, String detail, long durationNanos, long size, int errorCount) {
+		Statistics statistics = _statistics.get(phase);
+		if (statistics == null) {
+			Statistics newStatistics = new Statistics();
+			statistics = _statistics.putIfAbsent(phase, newStatistics);
+			if (statistics == null)
+				statistics = newStatistics;
+		}
+		statistics.add(durationNanos, size, errorCount);
+	}
+
+	/**
+	 * Returns the running totals for a phase.
+	 *
+	 * @param phase the phase
+	 * @return the statistics, or null if the phase has not completed since the last reset
+	 */
+	public Statistics getStatistics(String phase) {
+		return (_statistics.get(phase));
+	}
+
+	/**
+	 * Returns the running totals for every phase which has completed since the last reset.
+	 *
+	 * @return an unmodifiable map of statistics, sorted by phase
+	 */
+	public Map<String, Statistics> getAllStatistics() {
+		return (Collections.unmodifiableMap(new TreeMap<String, Statistics>(_statistics)));
+	}
+
+	/**
+	 * Discards all running totals.
+	 */
+	public void reset() {
+		_statistics.clear();
+	}
+
+	/**
+	 * The running totals for a single phase.
+	 */
+	public static class Statistics {
+		private final AtomicLong _count = new AtomicLong();
+		private final AtomicLong _errorCount = new AtomicLong();
+		private final AtomicLong _totalNanos = new AtomicLong();
+		private final AtomicLong _maxNanos = new AtomicLong();
+		private final AtomicLong _totalSize = new AtomicLong();
+
+		/**
+		 * Adds a single measurement to the totals.
+		 *
+		 * @param durationNanos the elapsed time
+		 * @param size the size, in the unit defined for the phase, or -1 if not applicable
+		 * @param errorCount the number of errors
+		 */
+		private void add(long durationNanos, long size, int errorCount) {
+			_count.incrementAndGet();
+			_errorCount.addAndGet(errorCount);
+			_totalNanos.addAndGet(durationNanos);
+			if (size > 0)
+				_totalSize.addAndGet(size);
+			long max = _maxNanos.get();
+			while (durationNanos > max && !_maxNanos.compareAndSet(max, durationNanos))
+				max = _maxNanos.get();
+		}
+
+		/**
+		 * Returns the average elapsed time of the phase.
+		 *
+		 * @return the average in nanoseconds, or 0 if the phase has not completed
+		 */
+		public long getAverageNanos() {
+			long count = getCount();
+			return (count == 0 ? 0 : getTotalNanos() / count);
+		}
+
+		/**
+		 * Accessor for the number of times the phase completed
+		 */
+		public long getCount() {
+			return (_count.get());
+		}
+
+		/**
+		 * Accessor for the total number of errors
+		 */
+		public long getErrorCount() {
+			return (_errorCount.get());
+		}
+
+		/**
+		 * Accessor for the total elapsed time, in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return (_totalNanos.get());
+		}
+
+		/**
+		 * Accessor for the longest elapsed time, in nanoseconds
+		 */
+		public long getMaxNanos() {
+			return (_maxNanos.get());
+		}
+
+		/**
+		 * Accessor for the total size, in the unit defined for the phase by its PHASE constant in DDMSMetrics
+		 */
+		public long getTotalSize() {
+			return (_totalSize.get());
+		}
+	}
+}
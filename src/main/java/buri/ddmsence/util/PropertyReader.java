@@ -23,10 +23,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class for dealing with the property file.
@@ -34,10 +38,14 @@ import java.util.Set;
  * <p> Properties in DDMSence are found in the <code>ddmsence.properties</code> file. All properties are prefixed with
  * "buri.ddmsence.", so <code>getProperty</code> calls should be performed with just the property suffix. </p>
  * 
- * <p> The Property Reader supports several custom properties, which can be specified at runtime. Property Readers are
- * thread-local, so the properties set in one Thread will not conflict with properties in another Thread. The complete
- * list of configurable properties can be found on the DDMSence website at:
- * https://ddmsence.urizone.net/documentation.jsp#tips-configuration. </p>
+ * <p> The Property Reader supports several custom properties, which can be specified at runtime. The properties file is
+ * read once, and all Threads share a single immutable snapshot of the configuration. Setting a property replaces the
+ * snapshot with an updated copy, so the change is seen by every Thread, and a Thread reading properties never sees a
+ * partially updated configuration. The complete list of configurable properties can be found on the DDMSence website
+ * at: https://ddmsence.urizone.net/documentation.jsp#tips-configuration. </p>
+ * 
+ * <p> A Thread which needs different settings from the rest of the application can use <code>withOverrides</code> to
+ * apply them for the duration of a single task, without affecting any other Thread. </p>
  * 
  * <p> Changing a namespace prefix will affect both components created from scratch and components loaded from XML
  * files. </p>
@@ -46,7 +54,6 @@ import java.util.Set;
  * @since 0.9.b
  */
 public class PropertyReader {
-	private Properties _properties = new Properties();
 
 	private static final String PROPERTIES_FILE = "ddmsence.properties";
 	private static final String PROPERTIES_PREFIX = "buri.ddmsence.";
@@ -61,6 +68,7 @@ public class PropertyReader {
 		CUSTOM_PROPERTIES.add("output.json.inlineAttributes");
 		CUSTOM_PROPERTIES.add("output.json.prettyPrint");
 		CUSTOM_PROPERTIES.add("output.indexLevel");
+		CUSTOM_PROPERTIES.add("resource.schemaValidation");
 		CUSTOM_PROPERTIES.add("sample.data");
 		CUSTOM_PROPERTIES.add("tspi.prefix");
 		CUSTOM_PROPERTIES.add("virt.prefix");
@@ -69,31 +77,48 @@ public class PropertyReader {
 	};
 
 	/**
-	 * A thread-local instance of PropertyReader, to ensure that multiple Threads can each set their own properties.
+	 * The process-wide configuration. The map is never modified after it is published, so it can be read without
+	 * locking.
 	 */
-	private static final ThreadLocal<PropertyReader> PROPERTY_READER_HOLDER = new ThreadLocal<PropertyReader>() {
-		@Override
-		protected PropertyReader initialValue() {
-			return new PropertyReader();
-		}
-	};
+	private static volatile Map<String, String> _snapshot = loadProperties();
+
+	/**
+	 * The overrides applied to the current Thread by <code>withOverrides</code>, or null if there are none.
+	 */
+	private static final ThreadLocal<Map<String, String>> OVERRIDES = new ThreadLocal<Map<String, String>>();
+
+	/**
+	 * The number of <code>withOverrides</code> calls in progress across all Threads, so that lookups can skip the
+	 * thread-local overrides entirely in the common case where none are in use.
+	 */
+	private static final AtomicInteger ACTIVE_OVERRIDES = new AtomicInteger(0);
 
 	/**
 	 * Private to prevent instantiation
 	 */
-	private PropertyReader() {
+	private PropertyReader() {}
+
+	/**
+	 * Reads the properties file into an immutable map.
+	 * 
+	 * @return the default configuration
+	 */
+	private static Map<String, String> loadProperties() {
+		Map<String, String> properties = new HashMap<String, String>();
 		InputStream is = getLoader().getResourceAsStream(PROPERTIES_FILE);
 		try {
 			if (is != null) {
 				Properties aProperties = new Properties();
 				aProperties.load(is);
 				is.close();
-				_properties.putAll(aProperties);
+				for (String name : aProperties.stringPropertyNames())
+					properties.put(name, aProperties.getProperty(name));
 			}
 		}
 		catch (IOException e) {
 			throw new RuntimeException("Could not load the properties file: " + e.getMessage());
 		}
+		return (Collections.unmodifiableMap(properties));
 	}
 
 	/**
@@ -113,23 +138,81 @@ public class PropertyReader {
 	 * @throws IllegalArgumentException if the property does not exist.
 	 */
 	public static String getProperty(String name) {
-		String value = PROPERTY_READER_HOLDER.get().getProperties().getProperty(PROPERTIES_PREFIX + name);
+		String key = PROPERTIES_PREFIX + name;
+		String value = null;
+		if (ACTIVE_OVERRIDES.get() > 0) {
+			Map<String, String> overrides = OVERRIDES.get();
+			if (overrides != null)
+				value = overrides.get(key);
+		}
 		if (value == null)
-			throw new IllegalArgumentException(UNDEFINED_PROPERTY + PROPERTIES_PREFIX + name);
+			value = _snapshot.get(key);
+		if (value == null)
+			throw new IllegalArgumentException(UNDEFINED_PROPERTY + key);
 		return (value);
 	}
 
 	/**
-	 * Attempts to set one of the properties defined as a configurable property.
+	 * Attempts to set one of the properties defined as a configurable property. The new value is visible to all
+	 * Threads, except for a Thread which is currently overriding the same property with <code>withOverrides</code>.
 	 * 
 	 * @param name the key of the property, without the "buri.ddmsence." prefix
 	 * @param value the new value of the property
 	 * @throws IllegalArgumentException if the property is not a valid configurable property.
 	 */
 	public static void setProperty(String name, String value) {
+		requireConfigurable(name);
+		synchronized (PropertyReader.class) {
+			Map<String, String> properties = new HashMap<String, String>(_snapshot);
+			properties.put(PROPERTIES_PREFIX + name, Util.getNonNullString(value).trim());
+			_snapshot = Collections.unmodifiableMap(properties);
+		}
+	}
+
+	/**
+	 * Runs a task in the current Thread with some configurable properties temporarily set to different values. The
+	 * overrides are only visible to the current Thread, and are removed when the task finishes, even if it throws an
+	 * exception. Calls can be nested, in which case the inner overrides take precedence.
+	 * 
+	 * @param overrides a map of property names, without the "buri.ddmsence." prefix, to their values for the task
+	 * @param task the task to run
+	 * @return the result of the task
+	 * @throws IllegalArgumentException if any of the properties is not a valid configurable property.
+	 * @throws Exception if the task throws an exception
+	 */
+	public static <T> T withOverrides(Map<String, String> overrides, Callable<T> task) throws Exception {
+		Util.requireValue("overrides", overrides);
+		Util.requireValue("task", task);
+		Map<String, String> previous = OVERRIDES.get();
+		Map<String, String> scoped = (previous == null ? new HashMap<String, String>()
+			: new HashMap<String, String>(previous));
+		for (Map.Entry<String, String> entry : overrides.entrySet()) {
+			requireConfigurable(entry.getKey());
+			scoped.put(PROPERTIES_PREFIX + entry.getKey(), Util.getNonNullString(entry.getValue()).trim());
+		}
+		OVERRIDES.set(scoped);
+		ACTIVE_OVERRIDES.incrementAndGet();
+		try {
+			return (task.call());
+		}
+		finally {
+			ACTIVE_OVERRIDES.decrementAndGet();
+			if (previous == null)
+				OVERRIDES.remove();
+			else
+				OVERRIDES.set(previous);
+		}
+	}
+
+	/**
+	 * Confirms that a property can be set at runtime.
+	 * 
+	 * @param name the key of the property, without the "buri.ddmsence." prefix
+	 * @throws IllegalArgumentException if the property is not a valid configurable property.
+	 */
+	private static void requireConfigurable(String name) {
 		if (!CUSTOM_PROPERTIES.contains(name))
 			throw new IllegalArgumentException(name + " is not a configurable property.");
-		PROPERTY_READER_HOLDER.get().getProperties().setProperty(PROPERTIES_PREFIX + name, Util.getNonNullString(value).trim());
 	}
 
 	/**
@@ -161,11 +244,4 @@ public class PropertyReader {
 	private static class FindClassLoader {
 		public FindClassLoader() {}
 	}
-
-	/**
-	 * Accessor for properties object.
-	 */
-	private Properties getProperties() {
-		return (_properties);
-	}
 }
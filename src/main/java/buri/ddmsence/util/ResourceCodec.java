@@ -0,0 +1,512 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nu.xom.Attribute;
+import nu.xom.Comment;
+import nu.xom.Element;
+import nu.xom.Node;
+import nu.xom.ProcessingInstruction;
+import nu.xom.Text;
+import nu.xom.XMLException;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.UnsupportedVersionException;
+
+/**
+ * Compact binary encoding of a DDMS Resource, for caching parsed Resources outside of the JVM heap.
+ * 
+ * <p>
+ * A Resource can always be saved with <code>toXML()</code>, but loading it again means parsing the XML and validating
+ * it against the DDMS schemas. This codec writes the underlying XOM tree instead: element and attribute names,
+ * namespaces, attribute values and text. Every distinct string is written once and then referred to by number, so
+ * the repeated names, namespace URIs and controlled vocabulary tokens which make up most of a DDMS record take a byte
+ * or two each. Decoding rebuilds the XOM tree directly and creates the Resource from it. No XML is parsed, and the
+ * schemas are not consulted. The rules enforced by each component are still checked as the components are built.
+ * Whether the Resource had passed schema validation when it was encoded is recorded in the header, and a decoded
+ * Resource reports the same value from <code>isSchemaValidated()</code>.
+ * </p>
+ * 
+ * <p>
+ * Each encoded Resource is self-contained and begins with a format version, so records can be stored individually
+ * in a cache and read back by later releases. Comments, processing instructions and whitespace are preserved, so a
+ * decoded Resource produces exactly the same XML as the original. The DDMS version of the Resource is also recorded,
+ * and set as the current version of the decoding Thread while the Resource is built, then restored.
+ * </p>
+ * 
+ * <p>
+ * The codec reads and writes exactly one Resource, and never closes the stream, so many Resources can be written to
+ * the same stream one after another. Reads are unbuffered, so that no bytes beyond the end of a Resource are
+ * consumed. Wrap a file or socket in a <code>BufferedInputStream</code> before reading from it.
+ * </p>
+ * 
+ * <p>
+ * Encoded Resources may come from an untrusted cache, so every length and count is checked before it is used. When
+ * decoding an array of bytes, a length which runs past the end of the array is rejected before anything is
+ * allocated. When decoding a stream, strings are read in bounded chunks, so a corrupt length fails at the end of the
+ * stream instead of exhausting the heap. The XOM tree is rebuilt without recursion, so deeply nested elements
+ * cannot overflow the stack. Names which are not legal in XML are also reported as an IOException.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public final class ResourceCodec {
+
+	/** The version of the encoding written by this class */
+	public static final int FORMAT_VERSION = 2;
+
+	private static final byte[] MAGIC = { 'D', 'D', 'M', 'S' };
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final int NEW_STRING = 0;
+	private static final int STRING_CHUNK_SIZE = 8192;
+
+	private static final int SCHEMA_VALIDATED_FLAG = 1;
+
+	private static final int ELEMENT_NODE = 1;
+	private static final int TEXT_NODE = 2;
+	private static final int COMMENT_NODE = 3;
+	private static final int PROCESSING_INSTRUCTION_NODE = 4;
+
+	/**
+	 * Private to prevent instantiation
+	 */
+	private ResourceCodec() {}
+
+	/**
+	 * Encodes a Resource onto a stream.
+	 * 
+	 * @param resource the Resource to encode
+	 * @param output the stream to write to, which is flushed but not closed
+	 * @throws IOException if the stream cannot be written to
+	 */
+	public static void write(Resource resource, OutputStream output) throws IOException {
+		Util.requireValue("resource", resource);
+		Util.requireValue("output stream", output);
+		Encoder encoder = new Encoder(new DataOutputStream(new BufferedOutputStream(output)));
+		encoder.writeHeader(getVersion(resource), resource.isSchemaValidated());
+		encoder.writeElement(resource.getXOMElementCopy());
+		encoder.flush();
+	}
+
+	/**
+	 * Returns the DDMS version to record for a Resource. DDMS 4.0.1 and 4.1 share an XML namespace, so the current
+	 * version is preferred when it matches the namespace of the Resource.
+	 * 
+	 * @param resource the Resource
+	 * @return the version
+	 */
+	private static DDMSVersion getVersion(Resource resource) {
+		DDMSVersion current = DDMSVersion.getCurrentVersion();
+		if (current.getNamespace().equals(resource.getNamespace()))
+			return (current);
+		return (DDMSVersion.getVersionForNamespace(resource.getNamespace()));
+	}
+
+	/**
+	 * Encodes a Resource as an array of bytes.
+	 * 
+	 * @param resource the Resource to encode
+	 * @return the encoded Resource
+	 */
+	public static byte[] toByteArray(Resource resource) {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		try {
+			write(resource, output);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Writing to a byte array should never fail.", e);
+		}
+		return (output.toByteArray());
+	}
+
+	/**
+	 * Decodes a Resource from a stream.
+	 * 
+	 * @param input the stream to read from, which is left open after the Resource
+	 * @return the decoded Resource
+	 * @throws IOException if the stream cannot be read, or does not contain an encoded Resource
+	 * @throws InvalidDDMSException if the decoded Resource breaks any of the rules of its components
+	 */
+	public static Resource read(InputStream input) throws IOException, InvalidDDMSException {
+		Util.requireValue("input stream", input);
+		return (read(input, Long.MAX_VALUE));
+	}
+
+	/**
+	 * Decodes a Resource from a stream which holds at most some number of bytes.
+	 * 
+	 * @param input the stream to read from
+	 * @param limit the number of bytes left in the stream, or Long.MAX_VALUE if it is not known
+	 * @return the decoded Resource
+	 */
+	private static Resource read(InputStream input, long limit) throws IOException, InvalidDDMSException {
+		Decoder decoder = new Decoder(new DataInputStream(input), limit);
+		DDMSVersion version = decoder.readHeader();
+		Element element;
+		try {
+			element = decoder.readElement();
+		}
+		catch (XMLException e) {
+			throw new IOException("Invalid XML in encoded Resource: " + e.getMessage(), e);
+		}
+		DDMSVersion previousVersion = DDMSVersion.getCurrentVersion();
+		try {
+			DDMSVersion.setCurrentVersion(version.getVersion());
+			return (new Resource(element, decoder.isSchemaValidated()));
+		}
+		finally {
+			DDMSVersion.setCurrentVersion(previousVersion.getVersion());
+		}
+	}
+
+	/**
+	 * Decodes a Resource from an array of bytes.
+	 * 
+	 * @param bytes the encoded Resource
+	 * @return the decoded Resource
+	 * @throws IOException if the bytes do not contain an encoded Resource
+	 * @throws InvalidDDMSException if the decoded Resource breaks any of the rules of its components
+	 */
+	public static Resource fromByteArray(byte[] bytes) throws IOException, InvalidDDMSException {
+		Util.requireValue("bytes", bytes);
+		return (read(new ByteArrayInputStream(bytes), bytes.length));
+	}
+
+	/**
+	 * Writes the nodes of a XOM tree, adding each new string to the string table as it is first used.
+	 */
+	private static class Encoder {
+		private DataOutputStream _output;
+		private Map<String, Integer> _strings = new HashMap<String, Integer>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param output the stream to write to
+		 */
+		public Encoder(DataOutputStream output) {
+			_output = output;
+		}
+
+		/**
+		 * Writes the magic number, the format version, the flags and the DDMS version.
+		 * 
+		 * @param version the DDMS version of the Resource
+		 * @param schemaValidated whether the Resource has passed schema validation
+		 */
+		public void writeHeader(DDMSVersion version, boolean schemaValidated) throws IOException {
+			_output.write(MAGIC);
+			writeNumber(FORMAT_VERSION);
+			writeNumber(schemaValidated ? SCHEMA_VALIDATED_FLAG : 0);
+			writeString(version.getVersion());
+		}
+
+		/**
+		 * Writes an element and all of its descendants.
+		 * 
+		 * @param element the element
+		 */
+		public void writeElement(Element element) throws IOException {
+			writeString(element.getQualifiedName());
+			writeString(element.getNamespaceURI());
+			writeNumber(element.getNamespaceDeclarationCount());
+			for (int i = 0; i < element.getNamespaceDeclarationCount(); i++) {
+				String prefix = element.getNamespacePrefix(i);
+				writeString(prefix);
+				writeString(element.getNamespaceURI(prefix));
+			}
+			writeNumber(element.getAttributeCount());
+			for (int i = 0; i < element.getAttributeCount(); i++) {
+				Attribute attribute = element.getAttribute(i);
+				writeString(attribute.getQualifiedName());
+				writeString(attribute.getNamespaceURI());
+				writeString(attribute.getValue());
+			}
+			writeNumber(element.getChildCount());
+			for (int i = 0; i < element.getChildCount(); i++) {
+				Node child = element.getChild(i);
+				if (child instanceof Element) {
+					writeNumber(ELEMENT_NODE);
+					writeElement((Element) child);
+				}
+				else if (child instanceof Text) {
+					writeNumber(TEXT_NODE);
+					writeString(child.getValue());
+				}
+				else if (child instanceof Comment) {
+					writeNumber(COMMENT_NODE);
+					writeString(child.getValue());
+				}
+				else if (child instanceof ProcessingInstruction) {
+					writeNumber(PROCESSING_INSTRUCTION_NODE);
+					writeString(((ProcessingInstruction) child).getTarget());
+					writeString(child.getValue());
+				}
+			}
+		}
+
+		/**
+		 * Writes a reference to a string in the table. A string which is not in the table yet is written out in full
+		 * after a reference of 0, and will be referred to by its position in the table from then on.
+		 * 
+		 * @param value the string
+		 */
+		private void writeString(String value) throws IOException {
+			Integer index = _strings.get(value);
+			if (index != null) {
+				writeNumber(index.intValue() + 1);
+				return;
+			}
+			_strings.put(value, Integer.valueOf(_strings.size()));
+			byte[] bytes = value.getBytes(UTF_8);
+			writeNumber(NEW_STRING);
+			writeNumber(bytes.length);
+			_output.write(bytes);
+		}
+
+		/**
+		 * Writes a non-negative number in as few bytes as possible, 7 bits at a time.
+		 * 
+		 * @param number the number
+		 */
+		private void writeNumber(int number) throws IOException {
+			while ((number & ~0x7F) != 0) {
+				_output.writeByte((number & 0x7F) | 0x80);
+				number >>>= 7;
+			}
+			_output.writeByte(number);
+		}
+
+		/**
+		 * Flushes any buffered bytes to the underlying stream.
+		 */
+		public void flush() throws IOException {
+			_output.flush();
+		}
+	}
+
+	/**
+	 * Reads the nodes of a XOM tree, rebuilding the string table as new strings are encountered.
+	 */
+	private static class Decoder {
+		private DataInputStream _input;
+		private long _remaining;
+		private boolean _schemaValidated = false;
+		private List<String> _strings = new ArrayList<String>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param input the stream to read from
+		 * @param limit the number of bytes left in the stream, or Long.MAX_VALUE if it is not known
+		 */
+		public Decoder(DataInputStream input, long limit) {
+			_input = input;
+			_remaining = limit;
+		}
+
+		/**
+		 * Reads the magic number, the format version, the flags and the DDMS version.
+		 * 
+		 * @return the DDMS version of the Resource
+		 * @throws IOException if the header is not one written by this class
+		 */
+		public DDMSVersion readHeader() throws IOException {
+			byte[] magic = new byte[MAGIC.length];
+			readFully(magic, 0, magic.length);
+			if (!Arrays.equals(MAGIC, magic))
+				throw new IOException("The stream does not contain an encoded DDMS Resource.");
+			int formatVersion = readNumber();
+			if (formatVersion != FORMAT_VERSION)
+				throw new IOException("Unsupported encoding format version: " + formatVersion);
+			int flags = readNumber();
+			if ((flags & ~SCHEMA_VALIDATED_FLAG) != 0)
+				throw new IOException("Unknown flags in encoded Resource: " + flags);
+			_schemaValidated = (flags & SCHEMA_VALIDATED_FLAG) != 0;
+			String version = readString();
+			try {
+				return (DDMSVersion.getVersionFor(version));
+			}
+			catch (UnsupportedVersionException e) {
+				throw new IOException("Unsupported DDMS version in encoded Resource: " + version);
+			}
+		}
+
+		/**
+		 * Accessor for whether the Resource had passed schema validation when it was encoded. Only meaningful after
+		 * the header has been read.
+		 * 
+		 * @return true if the Resource was schema-validated
+		 */
+		public boolean isSchemaValidated() {
+			return (_schemaValidated);
+		}
+
+		/**
+		 * Reads an element and all of its descendants. The tree is rebuilt with an explicit stack of open elements
+		 * rather than by recursion, so a deeply nested encoding cannot overflow the Thread's stack.
+		 * 
+		 * @return the element
+		 */
+		public Element readElement() throws IOException {
+			Element root = readStartTag();
+			Deque<Element> openElements = new ArrayDeque<Element>();
+			Deque<Integer> childrenLeft = new ArrayDeque<Integer>();
+			openElements.push(root);
+			childrenLeft.push(Integer.valueOf(readLength()));
+			while (!openElements.isEmpty()) {
+				int count = childrenLeft.pop().intValue();
+				if (count == 0) {
+					openElements.pop();
+					continue;
+				}
+				childrenLeft.push(Integer.valueOf(count - 1));
+				Element parent = openElements.peek();
+				int type = readNumber();
+				if (type == ELEMENT_NODE) {
+					Element child = readStartTag();
+					parent.appendChild(child);
+					openElements.push(child);
+					childrenLeft.push(Integer.valueOf(readLength()));
+				}
+				else if (type == TEXT_NODE)
+					parent.appendChild(new Text(readString()));
+				else if (type == COMMENT_NODE)
+					parent.appendChild(new Comment(readString()));
+				else if (type == PROCESSING_INSTRUCTION_NODE)
+					parent.appendChild(new ProcessingInstruction(readString(), readString()));
+				else
+					throw new IOException("Unknown node type in encoded Resource: " + type);
+			}
+			return (root);
+		}
+
+		/**
+		 * Reads the name, namespace declarations and attributes of an element, but not its children.
+		 * 
+		 * @return the element, without any children
+		 */
+		private Element readStartTag() throws IOException {
+			Element element = new Element(readString(), readString());
+			int count = readLength();
+			for (int i = 0; i < count; i++) {
+				String prefix = readString();
+				String namespace = readString();
+				if (!"xml".equals(prefix))
+					element.addNamespaceDeclaration(prefix, namespace);
+			}
+			count = readLength();
+			for (int i = 0; i < count; i++)
+				element.addAttribute(new Attribute(readString(), readString(), readString()));
+			return (element);
+		}
+
+		/**
+		 * Reads a reference to a string in the table, or a new string to add to the table.
+		 * 
+		 * @return the string
+		 */
+		private String readString() throws IOException {
+			int reference = readNumber();
+			if (reference != NEW_STRING) {
+				if (reference > _strings.size())
+					throw new IOException("Unknown string reference in encoded Resource: " + reference);
+				return (_strings.get(reference - 1));
+			}
+			int length = readLength();
+			byte[] bytes = new byte[Math.min(length, STRING_CHUNK_SIZE)];
+			int offset = 0;
+			while (offset < length) {
+				if (offset == bytes.length)
+					bytes = Arrays.copyOf(bytes, (int) Math.min(length, 2L * bytes.length));
+				int chunk = bytes.length - offset;
+				readFully(bytes, offset, chunk);
+				offset += chunk;
+			}
+			String value = new String(bytes, UTF_8);
+			_strings.add(value);
+			return (value);
+		}
+
+		/**
+		 * Reads a length or count, which can never be larger than the number of bytes left, since each byte or item
+		 * takes up at least one byte.
+		 * 
+		 * @return the length
+		 * @throws IOException if the length is negative or runs past the end of the encoded Resource
+		 */
+		private int readLength() throws IOException {
+			int length = readNumber();
+			if (length < 0 || length > _remaining)
+				throw new IOException("Invalid length in encoded Resource: " + length);
+			return (length);
+		}
+
+		/**
+		 * Reads bytes, counting them against the bytes left.
+		 * 
+		 * @param bytes the array to fill
+		 * @param offset the first index to fill
+		 * @param length the number of bytes to read
+		 */
+		private void readFully(byte[] bytes, int offset, int length) throws IOException {
+			_input.readFully(bytes, offset, length);
+			_remaining -= length;
+		}
+
+		/**
+		 * Reads a number written 7 bits at a time.
+		 * 
+		 * @return the number
+		 */
+		private int readNumber() throws IOException {
+			int number = 0;
+			for (int shift = 0; shift < 32; shift += 7) {
+				int b = _input.readByte();
+				_remaining--;
+				number |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					if (number < 0)
+						throw new IOException("Invalid number in encoded Resource.");
+					return (number);
+				}
+			}
+			throw new IOException("Invalid number in encoded Resource.");
+		}
+	}
+}
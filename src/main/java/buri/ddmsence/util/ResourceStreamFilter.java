@@ -0,0 +1,240 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.xom.Element;
+import nu.xom.NodeFactory;
+import nu.xom.Nodes;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * SAX filter which splits a multi-record document into individual Resources as it is parsed.
+ *
+ * <p>The filter sits between the validating XML reader and a XOM Builder. It tracks where each Resource record begins
+ * and ends, and claims any schema validation errors reported inside a record, so they are delivered with that record
+ * instead of failing the entire document. Its NodeFactory hands each completed record to the IResourceHandler and then
+ * drops it from the XOM tree, so memory use stays flat no matter how many records the document contains.</p>
+ *
+ * <p>Validation errors outside of any record (such as the missing declaration for a non-DDMS wrapper element) are
+ * ignored.</p>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+class ResourceStreamFilter extends XMLFilterImpl {
+
+	private DDMSVersion _version;
+	private IResourceHandler _handler;
+	private String _resourceName;
+	private NodeFactory _factory;
+	private Locator _locator = null;
+	private int _depth = 0;
+	private int _recordDepth = -1;
+	private int _recordCount = 0;
+	private int _recordLine = -1;
+	private String _recordLocator = null;
+	private List<ValidationMessage> _recordErrors = null;
+	private List<SAXParseException> _pendingErrors = new ArrayList<SAXParseException>();
+	private Element _finishedRecord = null;
+
+	/**
+	 * Constructor
+	 *
+	 * @param parent the validating XML reader
+	 * @param version the DDMS version of the records
+	 * @param handler the handler which receives each record
+	 */
+	public ResourceStreamFilter(XMLReader parent, DDMSVersion version, IResourceHandler handler) {
+		super(parent);
+		_version = version;
+		_handler = handler;
+		_resourceName = Resource.getName(version);
+		_factory = new RecordFactory();
+	}
+
+	/**
+	 * @see XMLFilterImpl#setDocumentLocator(Locator)
+	 */
+	public void setDocumentLocator(Locator locator) {
+		_locator = locator;
+		super.setDocumentLocator(locator);
+	}
+
+	/**
+	 * Opens a new record when a Resource element is encountered. Xerces reports errors in the attributes of an element
+	 * before the element itself, so any pending errors at the same position belong to the new record.
+	 *
+	 * @see XMLFilterImpl#startElement(String, String, String, Attributes)
+	 */
+	public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+		_depth++;
+		if (!isInRecord() && _version.getNamespace().equals(uri) && _resourceName.equals(localName)) {
+			_recordDepth = _depth;
+			_recordCount++;
+			_recordLine = (_locator == null ? -1 : _locator.getLineNumber());
+			_recordLocator = qName + "[" + _recordCount + "]";
+			_recordErrors = new ArrayList<ValidationMessage>();
+			for (SAXParseException pending : _pendingErrors) {
+				if (_locator != null && pending.getLineNumber() == _locator.getLineNumber()
+					&& pending.getColumnNumber() == _locator.getColumnNumber())
+					addRecordError(pending);
+			}
+		}
+		_pendingErrors.clear();
+		super.startElement(uri, localName, qName, atts);
+	}
+
+	/**
+	 * Closes the current record when its Resource element ends. XOM builds the record while the end tag is forwarded,
+	 * so the completed element is available afterwards.
+	 *
+	 * @see XMLFilterImpl#endElement(String, String, String)
+	 */
+	public void endElement(String uri, String localName, String qName) throws SAXException {
+		super.endElement(uri, localName, qName);
+		if (_depth == _recordDepth)
+			finishRecord();
+		_depth--;
+	}
+
+	/**
+	 * Records a schema validation error against the current record, rather than passing it on to XOM.
+	 *
+	 * @see XMLFilterImpl#error(SAXParseException)
+	 */
+	public void error(SAXParseException e) throws SAXException {
+		if (isInRecord())
+			addRecordError(e);
+		else
+			_pendingErrors.add(e);
+	}
+
+	/**
+	 * Delivers the finished record to the handler.
+	 */
+	private void finishRecord() {
+		Element element = _finishedRecord;
+		List<ValidationMessage> errors = _recordErrors;
+		_finishedRecord = null;
+		_recordErrors = null;
+		_recordDepth = -1;
+		if (errors.isEmpty()) {
+			try {
+				DDMSVersion.setCurrentVersion(_version.getVersion());
+				getHandler().handleResource(_recordCount, _recordLine, new Resource(element, true));
+				return;
+			}
+			catch (InvalidDDMSException e) {
+				errors.add(ValidationMessage.newError(e.getMessage(), _recordLocator + e.getLocator()));
+			}
+		}
+		getHandler().handleInvalidResource(_recordCount, _recordLine, errors);
+	}
+
+	/**
+	 * Converts a parser error into a validation message for the current record.
+	 *
+	 * @param e the error
+	 */
+	private void addRecordError(SAXParseException e) {
+		_recordErrors.add(ValidationMessage.newError(e.getMessage(), _recordLocator));
+	}
+
+	/**
+	 * Returns true if a record is currently open.
+	 */
+	private boolean isInRecord() {
+		return (_recordDepth != -1);
+	}
+
+	/**
+	 * Accessor for the number of records encountered
+	 */
+	public int getRecordCount() {
+		return _recordCount;
+	}
+
+	/**
+	 * Accessor for the handler
+	 */
+	private IResourceHandler getHandler() {
+		return _handler;
+	}
+
+	/**
+	 * Accessor for the NodeFactory which should be used by the XOM Builder
+	 */
+	public NodeFactory getFactory() {
+		return _factory;
+	}
+
+	/**
+	 * NodeFactory which detaches each completed record, along with the wrapper elements and text between records, so
+	 * the XOM tree never holds more than the root element and the record currently being parsed.
+	 */
+	private class RecordFactory extends NodeFactory {
+
+		/**
+		 * @see NodeFactory#finishMakingElement(Element)
+		 */
+		public Nodes finishMakingElement(Element element) {
+			if (_depth == _recordDepth)
+				_finishedRecord = element;
+			else if (isInRecord())
+				return (super.finishMakingElement(element));
+			// XOM requires the root element to remain in place, but it holds no finished children.
+			return (_depth == 1 ? new Nodes(element) : new Nodes());
+		}
+
+		/**
+		 * @see NodeFactory#makeText(String)
+		 */
+		public Nodes makeText(String data) {
+			return (isInRecord() ? super.makeText(data) : new Nodes());
+		}
+
+		/**
+		 * @see NodeFactory#makeComment(String)
+		 */
+		public Nodes makeComment(String data) {
+			return (isInRecord() ? super.makeComment(data) : new Nodes());
+		}
+
+		/**
+		 * @see NodeFactory#makeProcessingInstruction(String, String)
+		 */
+		public Nodes makeProcessingInstruction(String target, String data) {
+			return (isInRecord() ? super.makeProcessingInstruction(target, data) : new Nodes());
+		}
+	}
+}
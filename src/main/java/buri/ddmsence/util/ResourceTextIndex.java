@@ -0,0 +1,1094 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+import buri.ddmsence.ddms.resource.Subtitle;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.ddms.summary.Category;
+import buri.ddmsence.ddms.summary.Keyword;
+import buri.ddmsence.ddms.summary.SubjectCoverage;
+
+/**
+ * An in-memory inverted index of the text of many Resources, for finding Resources by keyword.
+ * 
+ * <p>
+ * The titles, subtitles, description, keywords and categories of each Resource are split into terms by an
+ * {@link IAnalyzer}, and each term maps to a postings list of the Resources which contain it, along with the
+ * positions of the term in each field.
+ * </p>
+ * 
+ * <ul>
+ * <li>Queries: <code>search</code> finds Resources which contain every term of a query, in any field.
+ * <code>searchPhrase</code> finds Resources which contain the terms next to each other and in order, within a single
+ * value of a single field. <code>searchPrefix</code> treats the last term of a query as the start of a word, for
+ * search-as-you-type. Results are ranked best first.</li>
+ * <li>Scoring: Each matching term adds its inverse document frequency, multiplied by the boost of each field it
+ * appears in and by a weight which grows with the number of times it appears there but levels off quickly. By default,
+ * titles are boosted the most, and descriptions the least. Field lengths are not taken into account.</li>
+ * <li>Postings: Each postings list is a compact byte array of variable-length integers, holding the gap since the
+ * previous Resource and the gaps between positions, rather than a list of objects. Resources are added to the end of
+ * the lists as they arrive, so the index can be built incrementally. The index is an {@link IResourceHandler}, so it
+ * can be passed straight to <code>DDMSReader.readDDMSResources</code> or a <code>DDMSBulkLoader</code> to index
+ * Resources as they are parsed. Removed Resources are skipped by queries until enough of them have collected, and
+ * then the postings are rewritten without them.</li>
+ * <li>Snapshots: <code>save</code> writes the index and its Resources to a file, encoding the Resources with
+ * {@link ResourceCodec}. <code>load</code> maps the file into memory without analyzing any text again. The postings
+ * are read straight from the mapped file, and each Resource is only decoded the first time a query returns it, so a
+ * loaded index is ready as soon as the terms have been listed. The analyzer is not saved, so the same analyzer must
+ * be provided when loading. A snapshot is trusted, so a Resource which can no longer be decoded causes an
+ * IllegalStateException when it is first returned. The file must not be changed by other programs while a loaded
+ * index is in use, but can be replaced by <code>save</code>.</li>
+ * <li>Thread Safety: Any number of Threads may query the index at the same time. Changes wait for running queries to
+ * finish, and block new queries until they are done.</li>
+ * </ul>
+ * 
+ * <p>
+ * Resources are tracked by identity, so two equal Resources are indexed separately, and <code>remove</code> must be
+ * called with the same instance which was added.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class ResourceTextIndex implements IResourceHandler {
+
+	/**
+	 * The text fields of a Resource which are indexed, with their default boosts.
+	 */
+	public static enum Field {
+		/** Each ddms:title */
+		TITLE(3.0f),
+		/** Each ddms:subtitle */
+		SUBTITLE(2.0f),
+		/** The ddms:description */
+		DESCRIPTION(1.0f),
+		/** Each ddms:keyword in every ddms:subjectCoverage */
+		KEYWORD(2.0f),
+		/** The label and code of each ddms:category in every ddms:subjectCoverage */
+		CATEGORY(1.5f);
+
+		private final float _defaultBoost;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param defaultBoost the default boost
+		 */
+		private Field(float defaultBoost) {
+			_defaultBoost = defaultBoost;
+		}
+
+		/**
+		 * Accessor for the default boost
+		 */
+		public float getDefaultBoost() {
+			return (_defaultBoost);
+		}
+	}
+
+	/** The version of the snapshot format written by this class */
+	public static final int FORMAT_VERSION = 1;
+
+	/** The gap left between the positions of two values of the same field, so phrases do not span them */
+	private static final int POSITION_GAP = 100;
+
+	/** The number of removed Resources which are always allowed to collect before the postings are rewritten */
+	private static final int MIN_COMPACT_REMOVALS = 64;
+
+	private static final byte[] MAGIC = { 'D', 'D', 'T', 'X' };
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final Field[] FIELDS = Field.values();
+
+	private final IAnalyzer _analyzer;
+	private final float[] _boosts = new float[FIELDS.length];
+	private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+	private final List<Resource> _documents = new ArrayList<Resource>();
+	private final List<ByteBuffer> _encoded = new ArrayList<ByteBuffer>();
+	private final Map<Resource, Integer> _ids = new IdentityHashMap<Resource, Integer>();
+	private final BitSet _removed = new BitSet();
+	private int _liveCount = 0;
+	private TreeMap<String, Postings> _terms = new TreeMap<String, Postings>();
+
+	/**
+	 * Constructor which uses the default analyzer.
+	 */
+	public ResourceTextIndex() {
+		this(new DefaultAnalyzer());
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param analyzer the analyzer for the text of Resources and queries
+	 */
+	public ResourceTextIndex(IAnalyzer analyzer) {
+		Util.requireValue("analyzer", analyzer);
+		_analyzer = analyzer;
+		for (Field field : FIELDS)
+			_boosts[field.ordinal()] = field.getDefaultBoost();
+	}
+
+	/**
+	 * Adds a Resource to the index.
+	 * 
+	 * @param resource the Resource to add
+	 * @return true if the Resource was added, or false if it has no indexable text or was already in the index
+	 */
+	public boolean add(Resource resource) {
+		Util.requireValue("resource", resource);
+		Map<String, int[][]> terms = analyze(resource);
+		_lock.writeLock().lock();
+		try {
+			if (terms.isEmpty() || _ids.containsKey(resource))
+				return (false);
+			int document = _documents.size();
+			_documents.add(resource);
+			_encoded.add(null);
+			_ids.put(resource, Integer.valueOf(document));
+			_liveCount++;
+			for (Map.Entry<String, int[][]> term : terms.entrySet()) {
+				Postings postings = _terms.get(term.getKey());
+				if (postings == null) {
+					postings = new Postings();
+					_terms.put(term.getKey(), postings);
+				}
+				postings.add(document, term.getValue());
+			}
+			return (true);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a Resource from the index.
+	 * 
+	 * @param resource the Resource to remove, which must be the same instance that was added
+	 * @return true if the Resource was in the index
+	 */
+	public boolean remove(Resource resource) {
+		Util.requireValue("resource", resource);
+		_lock.writeLock().lock();
+		try {
+			Integer document = _ids.remove(resource);
+			if (document == null)
+				return (false);
+			_documents.set(document.intValue(), null);
+			_removed.set(document.intValue());
+			_liveCount--;
+			if (_removed.cardinality() > MIN_COMPACT_REMOVALS + _liveCount)
+				compact();
+			return (true);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds each Resource read by a DDMSReader or DDMSBulkLoader to the index.
+	 * 
+	 * @see IResourceHandler#handleResource(int, int, Resource)
+	 */
+	public void handleResource(int ordinal, int lineNumber, Resource resource) {
+		add(resource);
+	}
+
+	/**
+	 * Ignores records which could not be loaded.
+	 * 
+	 * @see IResourceHandler#handleInvalidResource(int, int, List)
+	 */
+	public void handleInvalidResource(int ordinal, int lineNumber, List<ValidationMessage> errors) {}
+
+	/**
+	 * Returns the number of Resources in the index.
+	 */
+	public int size() {
+		_lock.readLock().lock();
+		try {
+			return (_liveCount);
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of distinct terms in the index, including terms which only appear in removed Resources that
+	 * have not been rewritten out of the postings yet.
+	 */
+	public int getTermCount() {
+		_lock.readLock().lock();
+		try {
+			return (_terms.size());
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the Resources which contain every term of a query.
+	 * 
+	 * @param query the query text
+	 * @param count the maximum number of Resources to return
+	 * @return the matching Resources, best first
+	 */
+	public List<Resource> search(String query, int count) {
+		List<String> terms = analyzeQuery(query, count);
+		_lock.readLock().lock();
+		try {
+			List<List<Posting>> clauses = new ArrayList<List<Posting>>();
+			for (String term : terms)
+				clauses.add(decode(term, false));
+			return (getTopResources(intersect(clauses), count));
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the Resources which contain the terms of a query next to each other and in order, in the same value of
+	 * the same field.
+	 * 
+	 * @param phrase the query text
+	 * @param count the maximum number of Resources to return
+	 * @return the matching Resources, best first
+	 */
+	public List<Resource> searchPhrase(String phrase, int count) {
+		List<String> terms = analyzeQuery(phrase, count);
+		_lock.readLock().lock();
+		try {
+			List<List<Posting>> clauses = new ArrayList<List<Posting>>();
+			for (String term : terms)
+				clauses.add(decode(term, true));
+			List<Posting> matches = new ArrayList<Posting>();
+			int[] next = new int[clauses.size()];
+			for (Posting first : clauses.get(0)) {
+				Posting[] aligned = align(clauses, next, first._document);
+				if (aligned != null && containsPhrase(aligned)) {
+					Posting match = new Posting(first._document, null);
+					for (Posting posting : aligned)
+						match._score += posting._score;
+					matches.add(match);
+				}
+			}
+			return (getTopResources(matches, count));
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the Resources which contain every term of a query, treating the last term as the start of a word. For
+	 * example, "hurricane ka" finds Resources which contain "hurricane" and "katrina".
+	 * 
+	 * @param query the query text
+	 * @param count the maximum number of Resources to return
+	 * @return the matching Resources, best first
+	 */
+	public List<Resource> searchPrefix(String query, int count) {
+		List<String> terms = analyzeQuery(query, count);
+		String prefix = terms.get(terms.size() - 1);
+		_lock.readLock().lock();
+		try {
+			List<List<Posting>> clauses = new ArrayList<List<Posting>>();
+			for (String term : terms.subList(0, terms.size() - 1))
+				clauses.add(decode(term, false));
+			TreeMap<Integer, Posting> expanded = new TreeMap<Integer, Posting>();
+			for (String term : _terms.subMap(prefix, true, prefix + Character.MAX_VALUE, true).keySet()) {
+				for (Posting posting : decode(term, false)) {
+					Posting existing = expanded.get(Integer.valueOf(posting._document));
+					if (existing == null)
+						expanded.put(Integer.valueOf(posting._document), posting);
+					else
+						existing._score += posting._score;
+				}
+			}
+			clauses.add(new ArrayList<Posting>(expanded.values()));
+			return (getTopResources(intersect(clauses), count));
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Accessor for the boost of a field.
+	 * 
+	 * @param field the field
+	 * @return the boost
+	 */
+	public float getBoost(Field field) {
+		Util.requireValue("field", field);
+		_lock.readLock().lock();
+		try {
+			return (_boosts[field.ordinal()]);
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Changes the boost of a field. Boosts are applied when queries are scored, so the index does not need to be
+	 * rebuilt.
+	 * 
+	 * @param field the field
+	 * @param boost the new boost, which must not be negative. A boost of 0 still lets the field match, but adds
+	 *        nothing to the score.
+	 */
+	public void setBoost(Field field, float boost) {
+		Util.requireValue("field", field);
+		if (boost < 0 || Float.isNaN(boost))
+			throw new IllegalArgumentException("The boost must not be negative.");
+		_lock.writeLock().lock();
+		try {
+			_boosts[field.ordinal()] = boost;
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Writes a snapshot of the index and its Resources to a file, replacing the file if it exists. The snapshot is
+	 * written to a temporary file in the same directory first, and then moved into place, so that an index loaded
+	 * from the same file can still read its mapped postings.
+	 * 
+	 * @param file the file to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public void save(File file) throws IOException {
+		Util.requireValue("file", file);
+		_lock.writeLock().lock();
+		try {
+			compact();
+			File directory = file.getAbsoluteFile().getParentFile();
+			File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temporary)));
+			boolean written = false;
+			try {
+				output.write(MAGIC);
+				output.writeInt(FORMAT_VERSION);
+				output.writeInt(FIELDS.length);
+				for (float boost : _boosts)
+					output.writeFloat(boost);
+				output.writeInt(_documents.size());
+				for (int i = 0; i < _documents.size(); i++) {
+					ByteBuffer encoded = _encoded.get(i);
+					byte[] bytes = (encoded != null ? read(encoded.duplicate(), new byte[encoded.remaining()])
+						: ResourceCodec.toByteArray(_documents.get(i)));
+					output.writeInt(bytes.length);
+					output.write(bytes);
+				}
+				output.writeInt(_terms.size());
+				for (Map.Entry<String, Postings> term : _terms.entrySet()) {
+					byte[] bytes = term.getKey().getBytes(UTF_8);
+					output.writeInt(bytes.length);
+					output.write(bytes);
+					Postings postings = term.getValue();
+					ByteBuffer encoded = postings.getBuffer();
+					output.writeInt(postings._documentCount);
+					output.writeInt(postings._lastDocument);
+					output.writeInt(encoded.remaining());
+					output.write(read(encoded, new byte[encoded.remaining()]));
+				}
+				output.close();
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+				written = true;
+			}
+			finally {
+				if (!written) {
+					output.close();
+					temporary.delete();
+				}
+			}
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Loads a snapshot written by <code>save</code>. The file is mapped into memory rather than read through a stream,
+	 * and the postings and Resources are left in the mapped file until they are needed.
+	 * 
+	 * @param file the file to read
+	 * @param analyzer the analyzer which was used to build the index
+	 * @return a new index
+	 * @throws IOException if the file cannot be read, or is not a snapshot
+	 */
+	public static ResourceTextIndex load(File file, IAnalyzer analyzer) throws IOException {
+		Util.requireValue("file", file);
+		ResourceTextIndex index = new ResourceTextIndex(analyzer);
+		RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			byte[] magic = new byte[MAGIC.length];
+			if (buffer.remaining() < MAGIC.length + 4 || !Arrays.equals(MAGIC, read(buffer, magic)))
+				throw new IOException("The file does not contain a text index snapshot.");
+			int version = buffer.getInt();
+			if (version != FORMAT_VERSION)
+				throw new IOException("Unsupported snapshot format version: " + version);
+			int fieldCount = buffer.getInt();
+			for (int i = 0; i < fieldCount; i++) {
+				float boost = buffer.getFloat();
+				if (i < FIELDS.length)
+					index._boosts[i] = boost;
+			}
+			int documentCount = buffer.getInt();
+			for (int i = 0; i < documentCount; i++) {
+				index._documents.add(null);
+				index._encoded.add(slice(buffer, buffer.getInt()));
+			}
+			index._liveCount = documentCount;
+			int termCount = buffer.getInt();
+			for (int i = 0; i < termCount; i++) {
+				String term = new String(read(buffer, new byte[checkLength(buffer, buffer.getInt())]), UTF_8);
+				Postings postings = new Postings();
+				postings._documentCount = buffer.getInt();
+				postings._lastDocument = buffer.getInt();
+				postings._mapped = slice(buffer, buffer.getInt());
+				index._terms.put(term, postings);
+			}
+			return (index);
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("The text index snapshot is truncated.");
+		}
+		finally {
+			randomAccessFile.close();
+		}
+	}
+
+	/**
+	 * Checks a length read from a snapshot against the bytes left in the buffer.
+	 * 
+	 * @param buffer the buffer
+	 * @param length the length
+	 * @return the length
+	 * @throws IOException if the length is negative or runs past the end of the buffer
+	 */
+	private static int checkLength(ByteBuffer buffer, int length) throws IOException {
+		if (length < 0)
+			throw new IOException("The text index snapshot is corrupt.");
+		if (length > buffer.remaining())
+			throw new IOException("The text index snapshot is truncated.");
+		return (length);
+	}
+
+	/**
+	 * Returns a view of the next bytes of a buffer, without copying them, and moves past them.
+	 * 
+	 * @param buffer the buffer
+	 * @param length the number of bytes
+	 * @return a read-only buffer of the bytes, starting at position 0
+	 * @throws IOException if the length is negative or runs past the end of the buffer
+	 */
+	private static ByteBuffer slice(ByteBuffer buffer, int length) throws IOException {
+		ByteBuffer slice = buffer.slice();
+		slice.limit(checkLength(buffer, length));
+		buffer.position(buffer.position() + length);
+		return (slice.asReadOnlyBuffer());
+	}
+
+	/**
+	 * Fills an array from a buffer.
+	 * 
+	 * @param buffer the buffer
+	 * @param bytes the array to fill
+	 * @return the array
+	 */
+	private static byte[] read(ByteBuffer buffer, byte[] bytes) {
+		buffer.get(bytes);
+		return (bytes);
+	}
+
+	/**
+	 * Analyzes the text fields of a Resource.
+	 * 
+	 * @param resource the Resource
+	 * @return a map of each term to its positions, indexed by field ordinal, in the order the terms were first seen
+	 */
+	private Map<String, int[][]> analyze(Resource resource) {
+		Map<String, List<List<Integer>>> positions = new LinkedHashMap<String, List<List<Integer>>>();
+		int[] next = new int[FIELDS.length];
+		for (Title title : resource.getTitles())
+			analyze(Field.TITLE, title.getValue(), next, positions);
+		for (Subtitle subtitle : resource.getSubtitles())
+			analyze(Field.SUBTITLE, subtitle.getValue(), next, positions);
+		if (resource.getDescription() != null)
+			analyze(Field.DESCRIPTION, resource.getDescription().getValue(), next, positions);
+		for (SubjectCoverage coverage : resource.getSubjectCoverages()) {
+			for (Keyword keyword : coverage.getKeywords())
+				analyze(Field.KEYWORD, keyword.getValue(), next, positions);
+			for (Category category : coverage.getCategories()) {
+				analyze(Field.CATEGORY, category.getLabel(), next, positions);
+				analyze(Field.CATEGORY, category.getCode(), next, positions);
+			}
+		}
+		Map<String, int[][]> terms = new LinkedHashMap<String, int[][]>();
+		for (Map.Entry<String, List<List<Integer>>> entry : positions.entrySet()) {
+			int[][] byField = new int[FIELDS.length][];
+			for (int i = 0; i < FIELDS.length; i++) {
+				List<Integer> list = entry.getValue().get(i);
+				if (list != null) {
+					byField[i] = new int[list.size()];
+					for (int j = 0; j < list.size(); j++)
+						byField[i][j] = list.get(j).intValue();
+				}
+			}
+			terms.put(entry.getKey(), byField);
+		}
+		return (terms);
+	}
+
+	/**
+	 * Analyzes one value of a field, recording the position of each term.
+	 * 
+	 * @param field the field
+	 * @param value the value, which may be empty
+	 * @param next the next free position in each field
+	 * @param positions the positions being collected for each term and field
+	 */
+	private void analyze(Field field, String value, int[] next, Map<String, List<List<Integer>>> positions) {
+		if (Util.isEmpty(value))
+			return;
+		List<String> terms = _analyzer.analyze(value);
+		if (terms.isEmpty())
+			return;
+		int ordinal = field.ordinal();
+		for (String term : terms) {
+			List<List<Integer>> byField = positions.get(term);
+			if (byField == null) {
+				byField = new ArrayList<List<Integer>>(Collections.<List<Integer>> nCopies(FIELDS.length, null));
+				positions.put(term, byField);
+			}
+			if (byField.get(ordinal) == null)
+				byField.set(ordinal, new ArrayList<Integer>());
+			byField.get(ordinal).add(Integer.valueOf(next[ordinal]++));
+		}
+		next[ordinal] += POSITION_GAP;
+	}
+
+	/**
+	 * Checks the arguments of a query and analyzes its text.
+	 * 
+	 * @param query the query text
+	 * @param count the maximum number of results
+	 * @return the terms, of which there is at least one
+	 */
+	private List<String> analyzeQuery(String query, int count) {
+		Util.requireValue("query", query);
+		if (count < 1)
+			throw new IllegalArgumentException("count must be at least 1.");
+		List<String> terms = _analyzer.analyze(query);
+		if (terms.isEmpty())
+			throw new IllegalArgumentException("The query must contain at least one term.");
+		return (terms);
+	}
+
+	/**
+	 * Decodes the postings of a term, skipping removed Resources, and scores each one.
+	 * 
+	 * @param term the term
+	 * @param withPositions true to decode the positions of the term, which are only needed to match phrases
+	 * @return the postings, in order of document, or an empty list if the term is not indexed
+	 */
+	private List<Posting> decode(String term, boolean withPositions) {
+		Postings postings = _terms.get(term);
+		if (postings == null)
+			return (Collections.emptyList());
+		double idf = Math.log(1 + (_liveCount - postings._documentCount + 0.5) / (postings._documentCount + 0.5));
+		List<Posting> list = new ArrayList<Posting>(postings._documentCount);
+		Decoder decoder = new Decoder(postings.getBuffer());
+		while (decoder.nextDocument()) {
+			int document = decoder.getDocument();
+			if (_removed.get(document))
+				continue;
+			double score = 0;
+			int[][] positions = null;
+			if (withPositions) {
+				positions = decoder.nextPositions();
+				for (int ordinal = 0; ordinal < FIELDS.length; ordinal++) {
+					if (positions[ordinal] != null)
+						score += _boosts[ordinal] * positions[ordinal].length / (positions[ordinal].length + 1.0);
+				}
+			}
+			else
+				score = decoder.getScore(_boosts);
+			Posting posting = new Posting(document, positions);
+			posting._score = (float) (idf * score);
+			list.add(posting);
+		}
+		return (list);
+	}
+
+	/**
+	 * Finds the documents which appear in every clause, adding up their scores.
+	 * 
+	 * @param clauses the postings of each clause, in order of document
+	 * @return the documents which appear in every clause, in order of document
+	 */
+	private static List<Posting> intersect(List<List<Posting>> clauses) {
+		List<List<Posting>> sorted = new ArrayList<List<Posting>>(clauses);
+		Collections.sort(sorted, new Comparator<List<Posting>>() {
+			public int compare(List<Posting> list1, List<Posting> list2) {
+				return (list1.size() - list2.size());
+			}
+		});
+		List<Posting> matches = new ArrayList<Posting>();
+		int[] next = new int[sorted.size()];
+		for (Posting first : sorted.get(0)) {
+			Posting[] aligned = align(sorted, next, first._document);
+			if (aligned != null) {
+				Posting match = new Posting(first._document, null);
+				for (Posting posting : aligned)
+					match._score += posting._score;
+				matches.add(match);
+			}
+		}
+		return (matches);
+	}
+
+	/**
+	 * Advances through each clause to a document.
+	 * 
+	 * @param clauses the postings of each clause, in order of document
+	 * @param next the next index to examine in each clause, which is updated
+	 * @param document the document
+	 * @return the posting for the document from each clause, or null if any clause does not contain it
+	 */
+	private static Posting[] align(List<List<Posting>> clauses, int[] next, int document) {
+		Posting[] aligned = new Posting[clauses.size()];
+		for (int i = 0; i < aligned.length; i++) {
+			List<Posting> clause = clauses.get(i);
+			while (next[i] < clause.size() && clause.get(next[i])._document < document)
+				next[i]++;
+			if (next[i] == clause.size() || clause.get(next[i])._document != document)
+				return (null);
+			aligned[i] = clause.get(next[i]);
+		}
+		return (aligned);
+	}
+
+	/**
+	 * Checks whether the terms of a phrase appear one after another in any field of a document.
+	 * 
+	 * @param aligned the posting of each term of the phrase, in order, for the same document
+	 * @return true if the phrase appears
+	 */
+	private static boolean containsPhrase(Posting[] aligned) {
+		for (int ordinal = 0; ordinal < FIELDS.length; ordinal++) {
+			int[] starts = aligned[0]._positions[ordinal];
+			if (starts == null)
+				continue;
+			for (int start : starts) {
+				boolean found = true;
+				for (int i = 1; i < aligned.length && found; i++) {
+					int[] positions = aligned[i]._positions[ordinal];
+					found = (positions != null && Arrays.binarySearch(positions, start + i) >= 0);
+				}
+				if (found)
+					return (true);
+			}
+		}
+		return (false);
+	}
+
+	/**
+	 * Ranks matching documents and returns their Resources.
+	 * 
+	 * @param matches the matching documents
+	 * @param count the maximum number of Resources to return
+	 * @return the Resources, best first, with ties in the order they were added
+	 */
+	private List<Resource> getTopResources(List<Posting> matches, int count) {
+		Collections.sort(matches, new Comparator<Posting>() {
+			public int compare(Posting posting1, Posting posting2) {
+				int result = Float.compare(posting2._score, posting1._score);
+				return (result != 0 ? result : posting1._document - posting2._document);
+			}
+		});
+		List<Resource> resources = new ArrayList<Resource>(Math.min(count, matches.size()));
+		for (int i = 0; i < matches.size() && i < count; i++)
+			resources.add(getDocument(matches.get(i)._document));
+		return (resources);
+	}
+
+	/**
+	 * Returns the Resource of a document, decoding it from a loaded snapshot the first time it is needed. Queries
+	 * call this while holding the read lock, so decoding is synchronized separately.
+	 * 
+	 * @param document the document, which must not have been removed
+	 * @return the Resource
+	 */
+	private Resource getDocument(int document) {
+		synchronized (_encoded) {
+			Resource resource = _documents.get(document);
+			if (resource == null) {
+				ByteBuffer encoded = _encoded.get(document);
+				try {
+					resource = ResourceCodec.fromByteArray(read(encoded.duplicate(), new byte[encoded.remaining()]));
+				}
+				catch (IOException e) {
+					throw new IllegalStateException("Could not decode a Resource from the text index snapshot.", e);
+				}
+				catch (InvalidDDMSException e) {
+					throw new IllegalStateException("Could not decode a Resource from the text index snapshot.", e);
+				}
+				_documents.set(document, resource);
+				_encoded.set(document, null);
+				_ids.put(resource, Integer.valueOf(document));
+			}
+			return (resource);
+		}
+	}
+
+	/**
+	 * Rewrites the postings without any removed Resources, renumbering the remaining Resources.
+	 */
+	private void compact() {
+		if (_removed.isEmpty())
+			return;
+		int[] renumbered = new int[_documents.size()];
+		List<Resource> documents = new ArrayList<Resource>(_liveCount);
+		List<ByteBuffer> encoded = new ArrayList<ByteBuffer>(_liveCount);
+		for (int i = 0; i < _documents.size(); i++) {
+			renumbered[i] = documents.size();
+			if (!_removed.get(i)) {
+				documents.add(_documents.get(i));
+				encoded.add(_encoded.get(i));
+				if (_documents.get(i) != null)
+					_ids.put(_documents.get(i), Integer.valueOf(renumbered[i]));
+			}
+		}
+		TreeMap<String, Postings> terms = new TreeMap<String, Postings>();
+		for (Map.Entry<String, Postings> term : _terms.entrySet()) {
+			Postings postings = new Postings();
+			Decoder decoder = new Decoder(term.getValue().getBuffer());
+			while (decoder.nextDocument()) {
+				int document = decoder.getDocument();
+				if (!_removed.get(document))
+					postings.add(renumbered[document], decoder);
+			}
+			if (postings._documentCount > 0)
+				terms.put(term.getKey(), postings);
+		}
+		_documents.clear();
+		_documents.addAll(documents);
+		_encoded.clear();
+		_encoded.addAll(encoded);
+		_removed.clear();
+		_terms = terms;
+	}
+
+	/**
+	 * The default analyzer, which splits text into runs of letters and digits, and converts them to lower case.
+	 * Punctuation and whitespace separate terms and are otherwise ignored, and nothing is stemmed or removed as a stop
+	 * word.
+	 */
+	public static class DefaultAnalyzer implements IAnalyzer {
+
+		/**
+		 * @see IAnalyzer#analyze(String)
+		 */
+		public List<String> analyze(String text) {
+			List<String> terms = new ArrayList<String>();
+			int start = -1;
+			for (int i = 0; i <= text.length(); i++) {
+				boolean inTerm = (i < text.length() && Character.isLetterOrDigit(text.charAt(i)));
+				if (inTerm && start < 0)
+					start = i;
+				else if (!inTerm && start >= 0) {
+					terms.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+					start = -1;
+				}
+			}
+			return (terms);
+		}
+	}
+
+	/**
+	 * The postings list of one term: for each document, the gap from the previous document, the number of fields, and
+	 * for each field its ordinal, the number of positions, and the gaps between positions, all as variable-length
+	 * integers. A list loaded from a snapshot stays in the mapped file until a document is appended to it.
+	 */
+	private static final class Postings {
+		private ByteBuffer _mapped = null;
+		private byte[] _bytes = new byte[16];
+		private int _length = 0;
+		private int _lastDocument = -1;
+		private int _documentCount = 0;
+
+		/**
+		 * Returns the encoded list as a buffer starting at position 0. The buffer must not be changed.
+		 */
+		public ByteBuffer getBuffer() {
+			return (_mapped != null ? _mapped.duplicate() : ByteBuffer.wrap(_bytes, 0, _length));
+		}
+
+		/**
+		 * Appends a document, which must come after every document already in the list.
+		 * 
+		 * @param document the document
+		 * @param positions the positions of the term, indexed by field ordinal, with null for absent fields
+		 */
+		public void add(int document, int[][] positions) {
+			int fields = 0;
+			for (int[] fieldPositions : positions) {
+				if (fieldPositions != null)
+					fields++;
+			}
+			writeVarint(document - _lastDocument);
+			writeVarint(fields);
+			for (int ordinal = 0; ordinal < positions.length; ordinal++) {
+				if (positions[ordinal] == null)
+					continue;
+				writeVarint(ordinal);
+				writeVarint(positions[ordinal].length);
+				int previous = 0;
+				for (int position : positions[ordinal]) {
+					writeVarint(position - previous);
+					previous = position;
+				}
+			}
+			_lastDocument = document;
+			_documentCount++;
+		}
+
+		/**
+		 * Appends the current document of a decoder under a new number, copying its fields without decoding them. The
+		 * document must come after every document already in the list.
+		 * 
+		 * @param document the new number of the document
+		 * @param decoder a decoder positioned at the document, which is moved past its fields
+		 */
+		public void add(int document, Decoder decoder) {
+			int start = decoder.skipFields();
+			int length = decoder._offset - start;
+			writeVarint(document - _lastDocument);
+			ensureCapacity(length);
+			for (int i = 0; i < length; i++)
+				_bytes[_length++] = decoder._buffer.get(start + i);
+			_lastDocument = document;
+			_documentCount++;
+		}
+
+		/**
+		 * Appends an unsigned variable-length integer, 7 bits at a time.
+		 * 
+		 * @param value the value, which must not be negative
+		 */
+		private void writeVarint(int value) {
+			ensureCapacity(5);
+			while ((value & ~0x7F) != 0) {
+				_bytes[_length++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			_bytes[_length++] = (byte) value;
+		}
+
+		/**
+		 * Makes room for more bytes at the end of the list, copying a mapped list into memory first.
+		 * 
+		 * @param count the number of bytes to make room for
+		 */
+		private void ensureCapacity(int count) {
+			if (_mapped != null) {
+				_length = _mapped.remaining();
+				_bytes = new byte[Math.max(16, _length * 2)];
+				_mapped.duplicate().get(_bytes, 0, _length);
+				_mapped = null;
+			}
+			if (_length + count > _bytes.length)
+				_bytes = Arrays.copyOf(_bytes, Math.max(_bytes.length * 2, _length + count));
+		}
+	}
+
+	/**
+	 * A cursor over the documents of a postings list. The fields of each document can be decoded into positions,
+	 * scored, or skipped without allocating anything, and any which are not read are skipped when the cursor moves on.
+	 */
+	private static final class Decoder {
+		private final ByteBuffer _buffer;
+		private final int _limit;
+		private int _offset = 0;
+		private int _document = -1;
+		private boolean _pending = false;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param buffer the encoded postings, starting at position 0
+		 */
+		public Decoder(ByteBuffer buffer) {
+			_buffer = buffer;
+			_limit = buffer.limit();
+		}
+
+		/**
+		 * Moves to the next document, skipping the fields of the current one if they were not read.
+		 * 
+		 * @return false if there are no more documents
+		 */
+		public boolean nextDocument() {
+			if (_pending)
+				skipFields();
+			if (_offset >= _limit)
+				return (false);
+			_document += next();
+			_pending = true;
+			return (true);
+		}
+
+		/**
+		 * Returns the current document.
+		 */
+		public int getDocument() {
+			return (_document);
+		}
+
+		/**
+		 * Moves past the fields of the current document without decoding them.
+		 * 
+		 * @return the offset where the fields began
+		 */
+		public int skipFields() {
+			int start = _offset;
+			for (int fields = next(); fields > 0; fields--) {
+				next();
+				for (int count = next(); count > 0; count--)
+					next();
+			}
+			_pending = false;
+			return (start);
+		}
+
+		/**
+		 * Scores the fields of the current document, counting the positions in each field without decoding them.
+		 * Each field adds its boost multiplied by a weight which grows with the number of positions but levels off.
+		 * 
+		 * @param boosts the boost of each field, indexed by field ordinal
+		 * @return the score, before it is multiplied by the inverse document frequency
+		 */
+		public double getScore(float[] boosts) {
+			double score = 0;
+			for (int fields = next(); fields > 0; fields--) {
+				int ordinal = next();
+				int count = next();
+				score += boosts[ordinal] * count / (count + 1.0);
+				for (int i = 0; i < count; i++)
+					next();
+			}
+			_pending = false;
+			return (score);
+		}
+
+		/**
+		 * Reads the positions of the term in each field of the current document.
+		 * 
+		 * @return the positions, indexed by field ordinal, with null for absent fields
+		 */
+		public int[][] nextPositions() {
+			int[][] positions = new int[FIELDS.length][];
+			for (int fields = next(); fields > 0; fields--) {
+				int ordinal = next();
+				int[] fieldPositions = new int[next()];
+				int position = 0;
+				for (int i = 0; i < fieldPositions.length; i++) {
+					position += next();
+					fieldPositions[i] = position;
+				}
+				positions[ordinal] = fieldPositions;
+			}
+			_pending = false;
+			return (positions);
+		}
+
+		/**
+		 * Reads the next variable-length integer.
+		 */
+		private int next() {
+			int value = 0;
+			for (int shift = 0;; shift += 7) {
+				byte b = _buffer.get(_offset++);
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0)
+					return (value);
+			}
+		}
+	}
+
+	/**
+	 * A decoded entry in a postings list, or a matching document being scored.
+	 */
+	private static final class Posting {
+		private final int _document;
+		private final int[][] _positions;
+		private float _score = 0;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param document the document
+		 * @param positions the positions of the term, indexed by field ordinal, or null for a match
+		 */
+		public Posting(int document, int[][] positions) {
+			_document = document;
+			_positions = positions;
+		}
+	}
+}
@@ -0,0 +1,401 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.xml.transform.Templates;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.stream.StreamSource;
+
+import nu.xom.Element;
+import nu.xom.Nodes;
+import nu.xom.converters.SAXConverter;
+import nu.xom.xslt.XSLException;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.DefaultHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * A compiled, reusable Schematron rule set.
+ *
+ * <p>
+ * Compiling a Schematron file runs it through the three ISO skeleton stylesheets and then compiles the generated
+ * stylesheet, which is far more expensive than running the rules. A SchematronValidator performs this compilation
+ * once, and holds the result as a JAXP Templates object, which can be applied to any number of Resources by any number
+ * of Threads at the same time.
+ * </p>
+ *
+ * <p>
+ * Instances are normally obtained from <code>getInstance()</code>, which caches one validator per Schematron file and
+ * XSLT processor. If the file is changed on disk, the next call to <code>getInstance()</code> compiles it again.
+ * </p>
+ *
+ * <p>
+ * Resources are streamed into the rules as SAX events, and the SVRL output is read as SAX events, so neither a copy of
+ * the Resource nor a XOM Document of the results is built during validation. The messages returned are the same as
+ * those from {@link Resource#validateWithSchematron(File)}, which uses a cached validator.
+ * </p>
+ *
+ * <p>
+ * When many Resources are validated together, such as with
+ * {@link Resource#validateWithSchematron(java.util.Collection, SchematronValidator)}, a single Transformer is reused
+ * for the whole batch, so the per-record cost is only that of running the rules. Each Resource is still transformed
+ * as its own document, so rules with absolute context paths and the location attributes in the SVRL output behave
+ * exactly as they do for a single Resource.
+ * </p>
+ *
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class SchematronValidator {
+
+	private String _factoryClass;
+	private String _path;
+	private long _lastModified;
+	private long _length;
+	private Templates _templates;
+
+	private static final String SVRL_NAMESPACE = "http://purl.oclc.org/dsdl/svrl";
+
+	/**
+	 * A process-wide cache of compiled validators, keyed on the XSLT processor and the canonical path of the Schematron
+	 * file.
+	 */
+	private static final ConcurrentMap<String, SchematronValidator> VALIDATORS = new ConcurrentHashMap<String, SchematronValidator>();
+
+	/**
+	 * Constructor which compiles a Schematron file with the XSLT processor named in the
+	 * <code>xml.transform.TransformerFactory</code> property.
+	 *
+	 * @param schematronFile the file containing the ISO Schematron constraints
+	 * @throws IOException if there are problems reading or parsing the Schematron file
+	 * @throws XSLException if there are XSL problems transforming or compiling the stylesheets
+	 * @throws IllegalArgumentException if the Schematron file uses an unsupported queryBinding
+	 */
+	public SchematronValidator(File schematronFile) throws IOException, XSLException {
+		Util.requireValue("file", schematronFile);
+		_factoryClass = PropertyReader.getProperty("xml.transform.TransformerFactory");
+		_path = schematronFile.getCanonicalPath();
+		_lastModified = schematronFile.lastModified();
+		_length = schematronFile.length();
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_SCHEMATRON_COMPILE);
+		int errorCount = 1;
+		try {
+			String stylesheet = Util.buildSchematronStylesheet(schematronFile).toXML();
+			TransformerFactory factory = TransformerFactory.newInstance(_factoryClass, getClass().getClassLoader());
+			_templates = factory.newTemplates(new StreamSource(new StringReader(stylesheet)));
+			errorCount = 0;
+		}
+		catch (TransformerConfigurationException e) {
+			throw new XSLException("Could not compile the Schematron file: " + e.getMessage(), e);
+		}
+		finally {
+			DDMSMetrics.record(DDMSMetrics.PHASE_SCHEMATRON_COMPILE, _path, start, _length, errorCount);
+		}
+	}
+
+	/**
+	 * Returns a cached validator for a Schematron file, compiling it if it has not been used before with the current
+	 * XSLT processor, or if it has changed since it was compiled.
+	 *
+	 * @param schematronFile the file containing the ISO Schematron constraints
+	 * @return a validator
+	 * @throws IOException if there are problems reading or parsing the Schematron file
+	 * @throws XSLException if there are XSL problems transforming or compiling the stylesheets
+	 * @throws IllegalArgumentException if the Schematron file uses an unsupported queryBinding
+	 */
+	public static SchematronValidator getInstance(File schematronFile) throws IOException, XSLException {
+		Util.requireValue("file", schematronFile);
+		String key = PropertyReader.getProperty("xml.transform.TransformerFactory") + " "
+			+ schematronFile.getCanonicalPath();
+		SchematronValidator validator = VALIDATORS.get(key);
+		if (validator == null || validator.isStale(schematronFile)) {
+			validator = new SchematronValidator(schematronFile);
+			VALIDATORS.put(key, validator);
+		}
+		return (validator);
+	}
+
+	/**
+	 * Discards all cached validators.
+	 */
+	public static void clearCache() {
+		VALIDATORS.clear();
+	}
+
+	/**
+	 * Validates a XOM element against the compiled rules. The element is treated as the root of a document, and is not
+	 * modified. DDMS Resources should be validated with {@link Resource#validateWithSchematron(SchematronValidator)}.
+	 *
+	 * <p>The results are returned in a list of ValidationMessages of type "Warning" for reports and "Error" for failed
+	 * asserts. The locator on each ValidationMessage is the location attribute from the successful-report or
+	 * failed-assert element.</p>
+	 *
+	 * @param element the element to validate
+	 * @return a list of ValidationMessages
+	 * @throws XSLException if there are XSL problems running the rules
+	 */
+	public List<ValidationMessage> validate(Element element) throws XSLException {
+		Util.requireValue("element", element);
+		return (validate(Collections.singletonList(element)).get(0));
+	}
+
+	/**
+	 * Validates a list of XOM elements against the compiled rules, reusing a single Transformer for every element. Each
+	 * element is treated as the root of its own document, and is not modified.
+	 *
+	 * @param elements the elements to validate
+	 * @return a list containing the list of ValidationMessages for each element, in the same order as the elements
+	 * @throws XSLException if there are XSL problems running the rules
+	 */
+	public List<List<ValidationMessage>> validate(List<Element> elements) throws XSLException {
+		Util.requireValue("elements", elements);
+		List<List<ValidationMessage>> results = new ArrayList<List<ValidationMessage>>(elements.size());
+		try {
+			Transformer transformer = getTemplates().newTransformer();
+			for (Element element : elements) {
+				Util.requireValue("element", element);
+				long start = DDMSMetrics.start(DDMSMetrics.PHASE_SCHEMATRON_APPLY);
+				SvrlHandler svrl = new SvrlHandler();
+				boolean applied = false;
+				try {
+					transformer.transform(new SAXSource(new ElementReader(element), new InputSource()), new SAXResult(
+						svrl));
+					applied = true;
+				}
+				finally {
+					if (start != 0)
+						DDMSMetrics.record(DDMSMetrics.PHASE_SCHEMATRON_APPLY, getPath(), start, -1,
+							applied ? countErrors(svrl.getMessages()) : 1);
+				}
+				results.add(svrl.getMessages());
+				transformer.reset();
+			}
+			return (results);
+		}
+		catch (TransformerConfigurationException e) {
+			throw new XSLException("Could not run the Schematron rules: " + e.getMessage(), e);
+		}
+		catch (TransformerException e) {
+			throw new XSLException("Could not run the Schematron rules: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Counts the errors in a list of validation messages.
+	 *
+	 * @param messages the messages
+	 * @return the number of messages of type "Error"
+	 */
+	private static int countErrors(List<ValidationMessage> messages) {
+		int count = 0;
+		for (ValidationMessage message : messages) {
+			if (ValidationMessage.ERROR_TYPE.equals(message.getType()))
+				count++;
+		}
+		return (count);
+	}
+
+	/**
+	 * Checks whether a Schematron file has changed since this validator was compiled from it.
+	 *
+	 * @param schematronFile the file
+	 * @return true if the file's modification time or size is different
+	 */
+	private boolean isStale(File schematronFile) {
+		return (schematronFile.lastModified() != _lastModified || schematronFile.length() != _length);
+	}
+
+	/**
+	 * Accessor for the class name of the XSLT processor
+	 */
+	public String getFactoryClass() {
+		return _factoryClass;
+	}
+
+	/**
+	 * Accessor for the canonical path of the Schematron file
+	 */
+	public String getPath() {
+		return _path;
+	}
+
+	/**
+	 * Accessor for the compiled stylesheet
+	 */
+	private Templates getTemplates() {
+		return _templates;
+	}
+
+	/**
+	 * SAX parser stand-in which replays an existing XOM element as SAX events, so the element can be used as the source
+	 * of a transformation without serializing or copying it.
+	 */
+	private static class ElementReader extends XMLFilterImpl {
+		private static final String LEXICAL_HANDLER_PROPERTY = "http://xml.org/sax/properties/lexical-handler";
+		private Element _element;
+		private LexicalHandler _lexicalHandler = null;
+
+		/**
+		 * Constructor
+		 *
+		 * @param element the element to replay
+		 */
+		public ElementReader(Element element) {
+			_element = element;
+		}
+
+		/**
+		 * @see XMLFilterImpl#parse(InputSource)
+		 */
+		public void parse(InputSource input) throws SAXException {
+			SAXConverter converter = new SAXConverter(getContentHandler());
+			if (_lexicalHandler != null)
+				converter.setLexicalHandler(_lexicalHandler);
+			converter.convert(new Nodes(_element));
+		}
+
+		/**
+		 * @see XMLFilterImpl#parse(String)
+		 */
+		public void parse(String systemId) throws SAXException {
+			parse(new InputSource(systemId));
+		}
+
+		/**
+		 * The replayed events are always namespace-aware, so feature requests are accepted and ignored.
+		 *
+		 * @see XMLFilterImpl#setFeature(String, boolean)
+		 */
+		public void setFeature(String name, boolean value) {}
+
+		/**
+		 * @see XMLFilterImpl#getFeature(String)
+		 */
+		public boolean getFeature(String name) {
+			return ("http://xml.org/sax/features/namespaces".equals(name));
+		}
+
+		/**
+		 * @see XMLFilterImpl#setProperty(String, Object)
+		 */
+		public void setProperty(String name, Object value) throws SAXNotRecognizedException {
+			if (!LEXICAL_HANDLER_PROPERTY.equals(name))
+				throw new SAXNotRecognizedException(name);
+			_lexicalHandler = (LexicalHandler) value;
+		}
+
+		/**
+		 * @see XMLFilterImpl#getProperty(String)
+		 */
+		public Object getProperty(String name) throws SAXNotRecognizedException {
+			if (!LEXICAL_HANDLER_PROPERTY.equals(name))
+				throw new SAXNotRecognizedException(name);
+			return (_lexicalHandler);
+		}
+	}
+
+	/**
+	 * SAX handler which converts SVRL failed-assert and successful-report elements into ValidationMessages.
+	 */
+	private static class SvrlHandler extends DefaultHandler {
+		private List<ValidationMessage> _messages = new ArrayList<ValidationMessage>();
+		private boolean _inResult = false;
+		private boolean _isAssert = false;
+		private String _location = null;
+		private StringBuffer _text = null;
+		private int _textDepth = 0;
+
+		/**
+		 * @see DefaultHandler#startElement(String, String, String, Attributes)
+		 */
+		public void startElement(String uri, String localName, String qName, Attributes attributes) {
+			if (_textDepth > 0)
+				_textDepth++;
+			else if (SVRL_NAMESPACE.equals(uri)) {
+				if ("failed-assert".equals(localName) || "successful-report".equals(localName)) {
+					_inResult = true;
+					_isAssert = "failed-assert".equals(localName);
+					_location = attributes.getValue("location");
+					_text = null;
+				}
+				else if ("text".equals(localName) && _inResult && _text == null) {
+					_text = new StringBuffer();
+					_textDepth = 1;
+				}
+			}
+		}
+
+		/**
+		 * @see DefaultHandler#characters(char[], int, int)
+		 */
+		public void characters(char[] ch, int start, int length) {
+			if (_textDepth > 0)
+				_text.append(ch, start, length);
+		}
+
+		/**
+		 * @see DefaultHandler#endElement(String, String, String)
+		 */
+		public void endElement(String uri, String localName, String qName) {
+			if (_textDepth > 0) {
+				_textDepth--;
+				return;
+			}
+			if (SVRL_NAMESPACE.equals(uri) && _inResult
+				&& ("failed-assert".equals(localName) || "successful-report".equals(localName))) {
+				String text = (_text == null ? "" : _text.toString());
+				_messages.add(_isAssert ? ValidationMessage.newError(text, _location) : ValidationMessage.newWarning(
+					text, _location));
+				_inResult = false;
+				_location = null;
+				_text = null;
+			}
+		}
+
+		/**
+		 * Accessor for the messages
+		 */
+		public List<ValidationMessage> getMessages() {
+			return _messages;
+		}
+	}
+}
@@ -0,0 +1,1141 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import nu.xom.Element;
+import nu.xom.Elements;
+import buri.ddmsence.ddms.ITspiShape;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.BoundingBox;
+import buri.ddmsence.ddms.summary.BoundingGeometry;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+import buri.ddmsence.ddms.summary.VerticalExtent;
+import buri.ddmsence.ddms.summary.gml.Point;
+import buri.ddmsence.ddms.summary.gml.Polygon;
+import buri.ddmsence.ddms.summary.gml.Position;
+
+/**
+ * An in-memory R-tree of the geospatial coverage of many Resources, for finding the Resources which cover an area.
+ * 
+ * <p>
+ * Each Resource is indexed under one envelope (a minimum bounding rectangle) for every shape in its geospatial
+ * coverage: each ddms:boundingBox, each gml:Point and gml:Polygon in a ddms:boundingGeometry, and each TSPI shape in a
+ * DDMS 5.0 ddms:boundingGeometry. Geographic identifiers and postal addresses have no coordinates, and are not
+ * indexed. A Resource with no indexable shapes is not added to the index at all.
+ * </p>
+ * 
+ * <ul>
+ * <li>Coordinates: Envelopes are expressed in decimal degrees of longitude (west to east) and latitude (south to
+ * north). Positions in GML and TSPI shapes are read latitude first, which is the axis order of the WGS 84 coordinate
+ * reference systems used by DDMS, and the srsName is not otherwise consulted. A bounding box which crosses the
+ * antimeridian is indexed as if it spanned every longitude. TSPI circles and ellipses are expanded by their radius or
+ * semi-major length, converted approximately from kilometres or metres into degrees.</li>
+ * <li>Altitude: When a geospatial coverage has a ddms:verticalExtent, its shapes are also bounded by the minimum and
+ * maximum vertical extent, converted into metres. The vertical datum is ignored. Shapes without a vertical extent
+ * cover every altitude. Queries which do not specify an altitude range ignore altitude entirely.</li>
+ * <li>Queries: A Resource is returned once, no matter how many of its envelopes match. Intersecting queries find
+ * envelopes which overlap the query area, containing queries find envelopes which enclose the whole query area, and
+ * within queries find envelopes which lie entirely inside the query area. Nearest-neighbour queries rank envelopes by
+ * their planar distance in degrees from a point, which is only an approximation of the distance on the ground.</li>
+ * <li>Loading: <code>add</code> and <code>remove</code> update the tree incrementally. <code>addAll</code> rebuilds
+ * the entire tree with Sort-Tile-Recursive packing, which produces a faster tree in less time than adding the same
+ * Resources one at a time, and should be used for the initial load.</li>
+ * <li>Thread Safety: Any number of Threads may query the index at the same time. Changes wait for running queries to
+ * finish, and block new queries until they are done.</li>
+ * </ul>
+ * 
+ * <p>
+ * Resources are tracked by identity, so two equal Resources are indexed separately, and <code>remove</code> must be
+ * called with the same instance which was added.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class SpatialResourceIndex {
+
+	/** The maximum number of entries in a node */
+	private static final int MAX_ENTRIES = 16;
+
+	/** The minimum number of entries in a node other than the root */
+	private static final int MIN_ENTRIES = 6;
+
+	/** The number of values in an envelope: minimum X, Y and Z, then maximum X, Y and Z */
+	private static final int BOUNDS = 6;
+	private static final int MIN_X = 0;
+	private static final int MIN_Y = 1;
+	private static final int MIN_Z = 2;
+	private static final int MAX_X = 3;
+	private static final int MAX_Y = 4;
+	private static final int MAX_Z = 5;
+
+	/** The approximate length of one degree of latitude, in kilometres */
+	private static final double KILOMETRES_PER_DEGREE = 111.32;
+
+	private static final Map<String, Double> METRES_PER_UNIT = new HashMap<String, Double>();
+	static {
+		METRES_PER_UNIT.put("Meter", Double.valueOf(1));
+		METRES_PER_UNIT.put("Kilometer", Double.valueOf(1000));
+		METRES_PER_UNIT.put("Foot", Double.valueOf(0.3048));
+		METRES_PER_UNIT.put("StatuteMile", Double.valueOf(1609.344));
+		METRES_PER_UNIT.put("NauticalMile", Double.valueOf(1852));
+		METRES_PER_UNIT.put("Fathom", Double.valueOf(1.8288));
+		METRES_PER_UNIT.put("Inch", Double.valueOf(0.0254));
+	}
+
+	private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+	private final Map<Resource, List<double[]>> _envelopes = new IdentityHashMap<Resource, List<double[]>>();
+	private Node _root = new Node(true);
+	private int _envelopeCount = 0;
+
+	/**
+	 * Empty constructor
+	 */
+	public SpatialResourceIndex() {}
+
+	/**
+	 * Adds a Resource to the index.
+	 * 
+	 * @param resource the Resource to add
+	 * @return true if the Resource was added, or false if it has no indexable shapes or was already in the index
+	 */
+	public boolean add(Resource resource) {
+		Util.requireValue("resource", resource);
+		List<double[]> envelopes = getEnvelopes(resource);
+		_lock.writeLock().lock();
+		try {
+			if (envelopes.isEmpty() || _envelopes.containsKey(resource))
+				return (false);
+			_envelopes.put(resource, envelopes);
+			for (double[] envelope : envelopes)
+				insert(envelope, resource);
+			return (true);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds many Resources to the index, and rebuilds the tree from all of the Resources in the index with
+	 * Sort-Tile-Recursive packing.
+	 * 
+	 * @param resources the Resources to add
+	 * @return the number of Resources which were added
+	 */
+	public int addAll(Collection<Resource> resources) {
+		Util.requireValue("resources", resources);
+		Map<Resource, List<double[]>> additions = new IdentityHashMap<Resource, List<double[]>>();
+		for (Resource resource : resources) {
+			if (resource == null)
+				continue;
+			List<double[]> envelopes = getEnvelopes(resource);
+			if (!envelopes.isEmpty())
+				additions.put(resource, envelopes);
+		}
+		_lock.writeLock().lock();
+		try {
+			int added = 0;
+			for (Map.Entry<Resource, List<double[]>> entry : additions.entrySet()) {
+				if (!_envelopes.containsKey(entry.getKey())) {
+					_envelopes.put(entry.getKey(), entry.getValue());
+					added++;
+				}
+			}
+			List<Entry> entries = new ArrayList<Entry>();
+			for (Map.Entry<Resource, List<double[]>> entry : _envelopes.entrySet()) {
+				for (double[] envelope : entry.getValue())
+					entries.add(new Entry(envelope, entry.getKey()));
+			}
+			_envelopeCount = entries.size();
+			_root = pack(entries, true);
+			return (added);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a Resource from the index.
+	 * 
+	 * @param resource the Resource to remove, which must be the same instance that was added
+	 * @return true if the Resource was in the index
+	 */
+	public boolean remove(Resource resource) {
+		Util.requireValue("resource", resource);
+		_lock.writeLock().lock();
+		try {
+			List<double[]> envelopes = _envelopes.remove(resource);
+			if (envelopes == null)
+				return (false);
+			for (double[] envelope : envelopes)
+				delete(envelope, resource);
+			return (true);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of Resources in the index.
+	 */
+	public int size() {
+		_lock.readLock().lock();
+		try {
+			return (_envelopes.size());
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of envelopes in the index, which is at least the number of Resources.
+	 */
+	public int getEnvelopeCount() {
+		_lock.readLock().lock();
+		try {
+			return (_envelopeCount);
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the Resources with any shape which intersects an area, at any altitude.
+	 * 
+	 * @param west the western longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param east the eastern longitude of the area, which must not be less than the western longitude
+	 * @param north the northern latitude of the area, which must not be less than the southern latitude
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findIntersecting(double west, double south, double east, double north) {
+		return (search(buildQuery(west, south, east, north, null, null), Relation.INTERSECTS));
+	}
+
+	/**
+	 * Finds the Resources with any shape which intersects a volume.
+	 * 
+	 * @param west the western longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param east the eastern longitude of the area, which must not be less than the western longitude
+	 * @param north the northern latitude of the area, which must not be less than the southern latitude
+	 * @param minAltitude the lowest altitude, in metres
+	 * @param maxAltitude the highest altitude, in metres, which must not be less than the lowest altitude
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findIntersecting(double west, double south, double east, double north, double minAltitude,
+		double maxAltitude) {
+		return (search(buildQuery(west, south, east, north, minAltitude, maxAltitude), Relation.INTERSECTS));
+	}
+
+	/**
+	 * Finds the Resources with any shape whose envelope contains an entire area, at any altitude.
+	 * 
+	 * @param west the western longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param east the eastern longitude of the area, which must not be less than the western longitude
+	 * @param north the northern latitude of the area, which must not be less than the southern latitude
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findContaining(double west, double south, double east, double north) {
+		return (search(buildQuery(west, south, east, north, null, null), Relation.CONTAINS));
+	}
+
+	/**
+	 * Finds the Resources with any shape whose envelope contains an entire volume.
+	 * 
+	 * @param west the western longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param east the eastern longitude of the area, which must not be less than the western longitude
+	 * @param north the northern latitude of the area, which must not be less than the southern latitude
+	 * @param minAltitude the lowest altitude, in metres
+	 * @param maxAltitude the highest altitude, in metres, which must not be less than the lowest altitude
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findContaining(double west, double south, double east, double north, double minAltitude,
+		double maxAltitude) {
+		return (search(buildQuery(west, south, east, north, minAltitude, maxAltitude), Relation.CONTAINS));
+	}
+
+	/**
+	 * Finds the Resources with any shape whose envelope lies entirely within an area, at any altitude.
+	 * 
+	 * @param west the western longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param east the eastern longitude of the area, which must not be less than the western longitude
+	 * @param north the northern latitude of the area, which must not be less than the southern latitude
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findWithin(double west, double south, double east, double north) {
+		return (search(buildQuery(west, south, east, north, null, null), Relation.WITHIN));
+	}
+
+	/**
+	 * Finds the Resources with any shape whose envelope lies entirely within a volume. Shapes without a vertical
+	 * extent cover every altitude, so they can never lie within a volume.
+	 * 
+	 * @param west the western longitude of the area
+	 * @param south the southern latitude of the area
+	 * @param east the eastern longitude of the area, which must not be less than the western longitude
+	 * @param north the northern latitude of the area, which must not be less than the southern latitude
+	 * @param minAltitude the lowest altitude, in metres
+	 * @param maxAltitude the highest altitude, in metres, which must not be less than the lowest altitude
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findWithin(double west, double south, double east, double north, double minAltitude,
+		double maxAltitude) {
+		return (search(buildQuery(west, south, east, north, minAltitude, maxAltitude), Relation.WITHIN));
+	}
+
+	/**
+	 * Finds the Resources with the shapes nearest to a point. A Resource whose shape contains the point has a
+	 * distance of 0.
+	 * 
+	 * @param longitude the longitude of the point
+	 * @param latitude the latitude of the point
+	 * @param count the maximum number of Resources to return
+	 * @return the nearest Resources, nearest first
+	 */
+	public List<Resource> findNearest(double longitude, double latitude, int count) {
+		if (count < 1)
+			throw new IllegalArgumentException("count must be at least 1.");
+		double[] point = buildQuery(longitude, latitude, longitude, latitude, null, null);
+		_lock.readLock().lock();
+		try {
+			List<Resource> results = new ArrayList<Resource>();
+			Set<Resource> found = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+			PriorityQueue<Candidate> queue = new PriorityQueue<Candidate>();
+			queue.add(new Candidate(0, _root));
+			while (!queue.isEmpty() && results.size() < count) {
+				Candidate candidate = queue.poll();
+				if (candidate._item instanceof Resource) {
+					Resource resource = (Resource) candidate._item;
+					if (found.add(resource))
+						results.add(resource);
+					continue;
+				}
+				Node node = (Node) candidate._item;
+				for (int i = 0; i < node._count; i++)
+					queue.add(new Candidate(getDistance(node._bounds, i * BOUNDS, point), node._children[i]));
+			}
+			return (results);
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Searches the tree for envelopes with some relationship to a query envelope.
+	 * 
+	 * @param query the query envelope
+	 * @param relation the relationship
+	 * @return the distinct Resources with matching envelopes
+	 */
+	private List<Resource> search(double[] query, Relation relation) {
+		_lock.readLock().lock();
+		try {
+			Set<Resource> found = Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+			List<Resource> results = new ArrayList<Resource>();
+			search(_root, query, relation, found, results);
+			return (results);
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Searches a subtree for envelopes with some relationship to a query envelope.
+	 * 
+	 * @param node the root of the subtree
+	 * @param query the query envelope
+	 * @param relation the relationship
+	 * @param found the Resources found so far
+	 * @param results the list of results being built
+	 */
+	private static void search(Node node, double[] query, Relation relation, Set<Resource> found,
+		List<Resource> results) {
+		boolean useZ = !Double.isInfinite(query[MIN_Z]) || !Double.isInfinite(query[MAX_Z]);
+		for (int i = 0; i < node._count; i++) {
+			int offset = i * BOUNDS;
+			if (node._leaf) {
+				if (relation.matches(node._bounds, offset, query, useZ)) {
+					Resource resource = (Resource) node._children[i];
+					if (found.add(resource))
+						results.add(resource);
+				}
+			}
+			else if (relation.mayContainMatches(node._bounds, offset, query, useZ))
+				search((Node) node._children[i], query, relation, found, results);
+		}
+	}
+
+	/**
+	 * Builds a query envelope, checking that the coordinates are in order.
+	 * 
+	 * @param west the western longitude
+	 * @param south the southern latitude
+	 * @param east the eastern longitude
+	 * @param north the northern latitude
+	 * @param minAltitude the lowest altitude, or null for any altitude
+	 * @param maxAltitude the highest altitude, or null for any altitude
+	 * @return the envelope
+	 */
+	private static double[] buildQuery(double west, double south, double east, double north, Double minAltitude,
+		Double maxAltitude) {
+		if (west > east)
+			throw new IllegalArgumentException("The western longitude must not be greater than the eastern longitude.");
+		if (south > north)
+			throw new IllegalArgumentException("The southern latitude must not be greater than the northern latitude.");
+		double minZ = (minAltitude == null ? Double.NEGATIVE_INFINITY : minAltitude.doubleValue());
+		double maxZ = (maxAltitude == null ? Double.POSITIVE_INFINITY : maxAltitude.doubleValue());
+		if (minZ > maxZ)
+			throw new IllegalArgumentException("The lowest altitude must not be greater than the highest altitude.");
+		return (new double[] { west, south, minZ, east, north, maxZ });
+	}
+
+	/**
+	 * Inserts an envelope into the tree, splitting nodes as needed.
+	 * 
+	 * @param envelope the envelope
+	 * @param resource the Resource it belongs to
+	 */
+	private void insert(double[] envelope, Resource resource) {
+		Node node = _root;
+		while (!node._leaf) {
+			int best = 0;
+			double bestEnlargement = Double.POSITIVE_INFINITY;
+			double bestArea = Double.POSITIVE_INFINITY;
+			for (int i = 0; i < node._count; i++) {
+				double area = getArea(node._bounds, i * BOUNDS);
+				double enlargement = getUnionArea(node._bounds, i * BOUNDS, envelope, 0) - area;
+				if (enlargement < bestEnlargement || (enlargement == bestEnlargement && area < bestArea)) {
+					best = i;
+					bestEnlargement = enlargement;
+					bestArea = area;
+				}
+			}
+			include(node._bounds, best * BOUNDS, envelope, 0);
+			node = (Node) node._children[best];
+		}
+		node.add(envelope, 0, resource);
+		_envelopeCount++;
+		while (node._count > MAX_ENTRIES) {
+			Node sibling = split(node);
+			Node parent = node._parent;
+			if (parent == null) {
+				parent = new Node(false);
+				parent.add(node.getBounds(), 0, node);
+				_root = parent;
+			}
+			else
+				parent.setBounds(parent.indexOf(node), node.getBounds());
+			parent.add(sibling.getBounds(), 0, sibling);
+			node = parent;
+		}
+	}
+
+	/**
+	 * Splits an overfull node with Guttman's quadratic split, moving some of its entries into a new sibling.
+	 * 
+	 * @param node the overfull node
+	 * @return the new sibling
+	 */
+	private static Node split(Node node) {
+		int count = node._count;
+		double[] bounds = node._bounds.clone();
+		Object[] children = node._children.clone();
+
+		// Pick the pair of entries which would waste the most area if they were placed together.
+		int seed1 = 0;
+		int seed2 = 1;
+		double worst = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < count; i++) {
+			for (int j = i + 1; j < count; j++) {
+				double waste = getUnionArea(bounds, i * BOUNDS, bounds, j * BOUNDS) - getArea(bounds, i * BOUNDS)
+					- getArea(bounds, j * BOUNDS);
+				if (waste > worst) {
+					worst = waste;
+					seed1 = i;
+					seed2 = j;
+				}
+			}
+		}
+		node.clear();
+		Node sibling = new Node(node._leaf);
+		node.add(bounds, seed1 * BOUNDS, children[seed1]);
+		sibling.add(bounds, seed2 * BOUNDS, children[seed2]);
+		double[] group1 = copyBounds(bounds, seed1 * BOUNDS);
+		double[] group2 = copyBounds(bounds, seed2 * BOUNDS);
+		boolean[] assigned = new boolean[count];
+		assigned[seed1] = true;
+		assigned[seed2] = true;
+
+		// Assign the entry with the strongest preference first, until one group must take the rest.
+		for (int remaining = count - 2; remaining > 0; remaining--) {
+			if (node._count + remaining == MIN_ENTRIES || sibling._count + remaining == MIN_ENTRIES) {
+				Node target = (node._count + remaining == MIN_ENTRIES ? node : sibling);
+				for (int i = 0; i < count; i++) {
+					if (!assigned[i])
+						target.add(bounds, i * BOUNDS, children[i]);
+				}
+				break;
+			}
+			int next = -1;
+			double preference = Double.NEGATIVE_INFINITY;
+			for (int i = 0; i < count; i++) {
+				if (assigned[i])
+					continue;
+				double difference = Math.abs((getUnionArea(group1, 0, bounds, i * BOUNDS) - getArea(group1, 0))
+					- (getUnionArea(group2, 0, bounds, i * BOUNDS) - getArea(group2, 0)));
+				if (difference > preference) {
+					preference = difference;
+					next = i;
+				}
+			}
+			double enlargement1 = getUnionArea(group1, 0, bounds, next * BOUNDS) - getArea(group1, 0);
+			double enlargement2 = getUnionArea(group2, 0, bounds, next * BOUNDS) - getArea(group2, 0);
+			boolean toFirst = (enlargement1 < enlargement2 || (enlargement1 == enlargement2 && (getArea(group1, 0)
+				< getArea(group2, 0) || (getArea(group1, 0) == getArea(group2, 0) && node._count <= sibling._count))));
+			(toFirst ? node : sibling).add(bounds, next * BOUNDS, children[next]);
+			include(toFirst ? group1 : group2, 0, bounds, next * BOUNDS);
+			assigned[next] = true;
+		}
+		return (sibling);
+	}
+
+	/**
+	 * Deletes an envelope from the tree, and reinserts the entries of any nodes which become underfull.
+	 * 
+	 * @param envelope the envelope
+	 * @param resource the Resource it belongs to
+	 */
+	private void delete(double[] envelope, Resource resource) {
+		Node leaf = findLeaf(_root, envelope, resource);
+		if (leaf == null)
+			return;
+		leaf.remove(leaf.indexOf(resource, envelope));
+		_envelopeCount--;
+
+		List<Entry> orphans = new ArrayList<Entry>();
+		Node node = leaf;
+		while (node._parent != null) {
+			Node parent = node._parent;
+			int index = parent.indexOf(node);
+			if (node._count < MIN_ENTRIES) {
+				parent.remove(index);
+				collectEntries(node, orphans);
+			}
+			else
+				parent.setBounds(index, node.getBounds());
+			node = parent;
+		}
+		while (!_root._leaf && _root._count == 1) {
+			_root = (Node) _root._children[0];
+			_root._parent = null;
+		}
+		if (!_root._leaf && _root._count == 0)
+			_root = new Node(true);
+		for (Entry orphan : orphans) {
+			_envelopeCount--;
+			insert(orphan._bounds, (Resource) orphan._item);
+		}
+	}
+
+	/**
+	 * Finds the leaf which holds a particular envelope of a Resource.
+	 * 
+	 * @param node the root of the subtree to search
+	 * @param envelope the envelope
+	 * @param resource the Resource
+	 * @return the leaf, or null if it could not be found
+	 */
+	private static Node findLeaf(Node node, double[] envelope, Resource resource) {
+		if (node._leaf)
+			return (node.indexOf(resource, envelope) == -1 ? null : node);
+		for (int i = 0; i < node._count; i++) {
+			if (Relation.CONTAINS.matches(node._bounds, i * BOUNDS, envelope, true)) {
+				Node leaf = findLeaf((Node) node._children[i], envelope, resource);
+				if (leaf != null)
+					return (leaf);
+			}
+		}
+		return (null);
+	}
+
+	/**
+	 * Adds every leaf entry in a subtree to a list.
+	 * 
+	 * @param node the root of the subtree
+	 * @param entries the list being built
+	 */
+	private static void collectEntries(Node node, List<Entry> entries) {
+		for (int i = 0; i < node._count; i++) {
+			if (node._leaf)
+				entries.add(new Entry(copyBounds(node._bounds, i * BOUNDS), node._children[i]));
+			else
+				collectEntries((Node) node._children[i], entries);
+		}
+	}
+
+	/**
+	 * Packs entries into a tree with Sort-Tile-Recursive packing: the entries are sorted by longitude, cut into
+	 * vertical slices, and each slice is sorted by latitude and cut into full nodes. The nodes are then packed the same
+	 * way, until a single root node remains.
+	 * 
+	 * @param entries the entries to pack
+	 * @param leaf whether the entries are leaf entries
+	 * @return the root node
+	 */
+	private static Node pack(List<Entry> entries, boolean leaf) {
+		if (entries.size() <= MAX_ENTRIES) {
+			Node root = new Node(leaf);
+			for (Entry entry : entries)
+				root.add(entry._bounds, 0, entry._item);
+			return (root);
+		}
+		int nodeCount = (entries.size() + MAX_ENTRIES - 1) / MAX_ENTRIES;
+		int sliceCount = (int) Math.ceil(Math.sqrt(nodeCount));
+		int sliceSize = sliceCount * MAX_ENTRIES;
+		Collections.sort(entries, new CenterComparator(MIN_X, MAX_X));
+		List<Entry> parents = new ArrayList<Entry>(nodeCount);
+		for (int start = 0; start < entries.size(); start += sliceSize) {
+			List<Entry> slice = entries.subList(start, Math.min(start + sliceSize, entries.size()));
+			Collections.sort(slice, new CenterComparator(MIN_Y, MAX_Y));
+			for (int nodeStart = 0; nodeStart < slice.size(); nodeStart += MAX_ENTRIES) {
+				Node node = new Node(leaf);
+				for (Entry entry : slice.subList(nodeStart, Math.min(nodeStart + MAX_ENTRIES, slice.size())))
+					node.add(entry._bounds, 0, entry._item);
+				parents.add(new Entry(node.getBounds(), node));
+			}
+		}
+		return (pack(parents, false));
+	}
+
+	/**
+	 * Returns the envelopes of the shapes in the geospatial coverage of a Resource.
+	 * 
+	 * @param resource the Resource
+	 * @return a list of envelopes, which may be empty
+	 */
+	static List<double[]> getEnvelopes(Resource resource) {
+		List<double[]> envelopes = new ArrayList<double[]>();
+		for (GeospatialCoverage coverage : resource.getGeospatialCoverages()) {
+			double[] altitudes = getAltitudes(coverage.getVerticalExtent());
+			BoundingBox box = coverage.getBoundingBox();
+			if (box != null) {
+				double west = box.getWestBL().doubleValue();
+				double east = box.getEastBL().doubleValue();
+				if (west > east) {
+					west = -180;
+					east = 180;
+				}
+				envelopes.add(new double[] { west, box.getSouthBL().doubleValue(), altitudes[0], east,
+					box.getNorthBL().doubleValue(), altitudes[1] });
+			}
+			BoundingGeometry geometry = coverage.getBoundingGeometry();
+			if (geometry != null) {
+				for (Polygon polygon : geometry.getGmlPolygons()) {
+					double[] envelope = newEmptyEnvelope(altitudes);
+					for (Position position : polygon.getPositions())
+						includePosition(envelope, position.getCoordinates());
+					envelopes.add(envelope);
+				}
+				for (Point point : geometry.getGmlPoints()) {
+					double[] envelope = newEmptyEnvelope(altitudes);
+					includePosition(envelope, point.getPosition().getCoordinates());
+					envelopes.add(envelope);
+				}
+				for (ITspiShape shape : geometry.getTspiShapes()) {
+					double[] envelope = getTspiEnvelope(shape.getXOMElementCopy(), altitudes);
+					if (envelope != null)
+						envelopes.add(envelope);
+				}
+			}
+		}
+		return (envelopes);
+	}
+
+	/**
+	 * Returns the envelope of a TSPI shape, from the GML positions inside it. Circles and ellipses are expanded by
+	 * their radius or semi-major length.
+	 * 
+	 * @param element the element of the shape
+	 * @param altitudes the altitude range of the shape
+	 * @return the envelope, or null if the shape has no usable positions
+	 */
+	private static double[] getTspiEnvelope(Element element, double[] altitudes) {
+		double[] envelope = newEmptyEnvelope(altitudes);
+		try {
+			includeGmlPositions(envelope, element);
+			if (envelope[MIN_X] > envelope[MAX_X])
+				return (null);
+			double radius = Math.max(getLengthInKilometres(element, "radius"), getLengthInKilometres(element,
+				"semiMajorLength"));
+			if (radius > 0) {
+				double latitudeDelta = radius / KILOMETRES_PER_DEGREE;
+				double latitude = Math.max(Math.abs(envelope[MIN_Y]), Math.abs(envelope[MAX_Y]));
+				double cosine = Math.cos(Math.toRadians(latitude));
+				double longitudeDelta = (cosine < 1.0e-6 ? 180 : Math.min(180, latitudeDelta / cosine));
+				envelope[MIN_X] = Math.max(-180, envelope[MIN_X] - longitudeDelta);
+				envelope[MAX_X] = Math.min(180, envelope[MAX_X] + longitudeDelta);
+				envelope[MIN_Y] = Math.max(-90, envelope[MIN_Y] - latitudeDelta);
+				envelope[MAX_Y] = Math.min(90, envelope[MAX_Y] + latitudeDelta);
+			}
+			return (envelope);
+		}
+		catch (NumberFormatException e) {
+			return (null);
+		}
+	}
+
+	/**
+	 * Expands an envelope to include every gml:pos and gml:posList below an element.
+	 * 
+	 * @param envelope the envelope
+	 * @param element the element to search
+	 */
+	private static void includeGmlPositions(double[] envelope, Element element) {
+		Elements children = element.getChildElements();
+		for (int i = 0; i < children.size(); i++) {
+			Element child = children.get(i);
+			if ("pos".equals(child.getLocalName()))
+				includePosition(envelope, parseNumbers(child.getValue()));
+			else if ("posList".equals(child.getLocalName())) {
+				List<Double> numbers = parseNumbers(child.getValue());
+				String dimension = child.getAttributeValue("srsDimension");
+				int step = (Util.isEmpty(dimension) ? 2 : Math.max(2, Integer.parseInt(dimension)));
+				for (int j = 0; j + 1 < numbers.size(); j += step)
+					includePosition(envelope, numbers.subList(j, j + 2));
+			}
+			else
+				includeGmlPositions(envelope, child);
+		}
+	}
+
+	/**
+	 * Returns the value of a length element below an element, in kilometres, or 0 if there is none. Values in
+	 * unrecognized units are treated as kilometres, which can only make the envelope larger than necessary.
+	 * 
+	 * @param element the element to search
+	 * @param localName the local name of the length element
+	 */
+	private static double getLengthInKilometres(Element element, String localName) {
+		Elements children = element.getChildElements();
+		for (int i = 0; i < children.size(); i++) {
+			Element child = children.get(i);
+			if (localName.equals(child.getLocalName())) {
+				double value = Double.parseDouble(child.getValue().trim());
+				String uom = child.getAttributeValue("uom");
+				boolean isMetres = (uom != null && uom.endsWith("metre") && !uom.endsWith("kilometre"));
+				return (isMetres ? value / 1000 : value);
+			}
+		}
+		return (0);
+	}
+
+	/**
+	 * Parses a whitespace-separated list of numbers.
+	 * 
+	 * @param value the list
+	 * @return the numbers
+	 */
+	private static List<Double> parseNumbers(String value) {
+		List<Double> numbers = new ArrayList<Double>();
+		for (String token : Util.getXsListAsList(value))
+			numbers.add(Double.valueOf(token));
+		return (numbers);
+	}
+
+	/**
+	 * Expands an envelope to include a position, which is ordered latitude first.
+	 * 
+	 * @param envelope the envelope
+	 * @param coordinates the coordinates of the position
+	 */
+	private static void includePosition(double[] envelope, List<Double> coordinates) {
+		if (coordinates.size() < 2)
+			return;
+		double latitude = coordinates.get(0).doubleValue();
+		double longitude = coordinates.get(1).doubleValue();
+		envelope[MIN_X] = Math.min(envelope[MIN_X], longitude);
+		envelope[MAX_X] = Math.max(envelope[MAX_X], longitude);
+		envelope[MIN_Y] = Math.min(envelope[MIN_Y], latitude);
+		envelope[MAX_Y] = Math.max(envelope[MAX_Y], latitude);
+	}
+
+	/**
+	 * Returns the altitude range of a vertical extent, in metres, or every altitude if there is no vertical extent.
+	 * 
+	 * @param extent the vertical extent, which may be null
+	 * @return an array holding the lowest and highest altitude
+	 */
+	private static double[] getAltitudes(VerticalExtent extent) {
+		if (extent == null)
+			return (new double[] { Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY });
+		Double factor = METRES_PER_UNIT.get(extent.getUnitOfMeasure());
+		double metres = (factor == null ? 1 : factor.doubleValue());
+		return (new double[] { extent.getMinVerticalExtent().doubleValue() * metres,
+			extent.getMaxVerticalExtent().doubleValue() * metres });
+	}
+
+	/**
+	 * Returns an envelope which contains nothing yet, and will grow to fit the first position added to it.
+	 * 
+	 * @param altitudes the altitude range of the envelope
+	 */
+	private static double[] newEmptyEnvelope(double[] altitudes) {
+		return (new double[] { Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, altitudes[0],
+			Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, altitudes[1] });
+	}
+
+	/**
+	 * Returns the area of an envelope in degrees, ignoring altitude.
+	 * 
+	 * @param bounds the array holding the envelope
+	 * @param offset the position of the envelope in the array
+	 */
+	private static double getArea(double[] bounds, int offset) {
+		return ((bounds[offset + MAX_X] - bounds[offset + MIN_X]) * (bounds[offset + MAX_Y] - bounds[offset + MIN_Y]));
+	}
+
+	/**
+	 * Returns the area of the smallest envelope which contains two envelopes, ignoring altitude.
+	 * 
+	 * @param bounds1 the array holding the first envelope
+	 * @param offset1 the position of the first envelope in its array
+	 * @param bounds2 the array holding the second envelope
+	 * @param offset2 the position of the second envelope in its array
+	 */
+	private static double getUnionArea(double[] bounds1, int offset1, double[] bounds2, int offset2) {
+		double width = Math.max(bounds1[offset1 + MAX_X], bounds2[offset2 + MAX_X])
+			- Math.min(bounds1[offset1 + MIN_X], bounds2[offset2 + MIN_X]);
+		double height = Math.max(bounds1[offset1 + MAX_Y], bounds2[offset2 + MAX_Y])
+			- Math.min(bounds1[offset1 + MIN_Y], bounds2[offset2 + MIN_Y]);
+		return (width * height);
+	}
+
+	/**
+	 * Expands an envelope to contain another envelope.
+	 * 
+	 * @param target the array holding the envelope to expand
+	 * @param targetOffset the position of the envelope to expand in its array
+	 * @param source the array holding the envelope to include
+	 * @param sourceOffset the position of the envelope to include in its array
+	 */
+	private static void include(double[] target, int targetOffset, double[] source, int sourceOffset) {
+		for (int i = 0; i < MAX_X; i++)
+			target[targetOffset + i] = Math.min(target[targetOffset + i], source[sourceOffset + i]);
+		for (int i = MAX_X; i < BOUNDS; i++)
+			target[targetOffset + i] = Math.max(target[targetOffset + i], source[sourceOffset + i]);
+	}
+
+	/**
+	 * Returns the planar distance in degrees from a point to an envelope, which is 0 if the point is inside it.
+	 * 
+	 * @param bounds the array holding the envelope
+	 * @param offset the position of the envelope in the array
+	 * @param point the point, as an envelope
+	 */
+	private static double getDistance(double[] bounds, int offset, double[] point) {
+		double dx = Math.max(0, Math.max(bounds[offset + MIN_X] - point[MIN_X], point[MIN_X] - bounds[offset + MAX_X]));
+		double dy = Math.max(0, Math.max(bounds[offset + MIN_Y] - point[MIN_Y], point[MIN_Y] - bounds[offset + MAX_Y]));
+		return (Math.sqrt(dx * dx + dy * dy));
+	}
+
+	/**
+	 * Copies an envelope out of an array.
+	 * 
+	 * @param bounds the array holding the envelope
+	 * @param offset the position of the envelope in the array
+	 */
+	private static double[] copyBounds(double[] bounds, int offset) {
+		double[] copy = new double[BOUNDS];
+		System.arraycopy(bounds, offset, copy, 0, BOUNDS);
+		return (copy);
+	}
+
+	/**
+	 * The spatial relationships supported by queries.
+	 */
+	private static enum Relation {
+		INTERSECTS {
+			public boolean matches(double[] bounds, int offset, double[] query, boolean useZ) {
+				return (intersects(bounds, offset, query, useZ));
+			}
+		},
+		CONTAINS {
+			public boolean matches(double[] bounds, int offset, double[] query, boolean useZ) {
+				return (encloses(bounds, offset, query, 0, useZ));
+			}
+		},
+		WITHIN {
+			public boolean matches(double[] bounds, int offset, double[] query, boolean useZ) {
+				return (encloses(query, 0, bounds, offset, useZ));
+			}
+		};
+
+		/**
+		 * Returns true if an entry envelope has this relationship to the query envelope.
+		 * 
+		 * @param bounds the array holding the entry envelope
+		 * @param offset the position of the entry envelope in the array
+		 * @param query the query envelope
+		 * @param useZ whether to compare altitudes
+		 */
+		public abstract boolean matches(double[] bounds, int offset, double[] query, boolean useZ);
+
+		/**
+		 * Returns true if a node envelope might hold entries with this relationship to the query envelope. An entry
+		 * which contains the query is inside a node which contains the query, and an entry which intersects or lies
+		 * within the query is inside a node which intersects the query.
+		 * 
+		 * @param bounds the array holding the node envelope
+		 * @param offset the position of the node envelope in the array
+		 * @param query the query envelope
+		 * @param useZ whether to compare altitudes
+		 */
+		public boolean mayContainMatches(double[] bounds, int offset, double[] query, boolean useZ) {
+			return (this == CONTAINS ? encloses(bounds, offset, query, 0, useZ) : intersects(bounds, offset, query,
+				useZ));
+		}
+
+		/**
+		 * Returns true if two envelopes overlap.
+		 */
+		private static boolean intersects(double[] bounds, int offset, double[] query, boolean useZ) {
+			int dimensions = (useZ ? 3 : 2);
+			for (int i = 0; i < dimensions; i++) {
+				if (bounds[offset + i] > query[i + MAX_X] || bounds[offset + i + MAX_X] < query[i])
+					return (false);
+			}
+			return (true);
+		}
+
+		/**
+		 * Returns true if the outer envelope contains the entire inner envelope.
+		 */
+		private static boolean encloses(double[] outer, int outerOffset, double[] inner, int innerOffset,
+			boolean useZ) {
+			int dimensions = (useZ ? 3 : 2);
+			for (int i = 0; i < dimensions; i++) {
+				if (outer[outerOffset + i] > inner[innerOffset + i]
+					|| outer[outerOffset + i + MAX_X] < inner[innerOffset + i + MAX_X])
+					return (false);
+			}
+			return (true);
+		}
+	}
+
+	/**
+	 * A node of the tree. The envelopes of its entries are stored side by side in a single array, and its children are
+	 * Resources in a leaf node, or other nodes otherwise. There is room for one extra entry, so a node can overflow
+	 * before it is split.
+	 */
+	private static final class Node {
+		private final boolean _leaf;
+		private final double[] _bounds = new double[(MAX_ENTRIES + 1) * BOUNDS];
+		private final Object[] _children = new Object[MAX_ENTRIES + 1];
+		private int _count = 0;
+		private Node _parent = null;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param leaf whether this is a leaf node
+		 */
+		public Node(boolean leaf) {
+			_leaf = leaf;
+		}
+
+		/**
+		 * Adds an entry to this node.
+		 * 
+		 * @param bounds the array holding the envelope of the entry
+		 * @param offset the position of the envelope in the array
+		 * @param child the Resource or node
+		 */
+		public void add(double[] bounds, int offset, Object child) {
+			System.arraycopy(bounds, offset, _bounds, _count * BOUNDS, BOUNDS);
+			_children[_count] = child;
+			if (child instanceof Node)
+				((Node) child)._parent = this;
+			_count++;
+		}
+
+		/**
+		 * Removes an entry from this node, by moving the last entry into its place.
+		 * 
+		 * @param index the index of the entry
+		 */
+		public void remove(int index) {
+			_count--;
+			System.arraycopy(_bounds, _count * BOUNDS, _bounds, index * BOUNDS, BOUNDS);
+			_children[index] = _children[_count];
+			_children[_count] = null;
+		}
+
+		/**
+		 * Removes every entry from this node.
+		 */
+		public void clear() {
+			Arrays.fill(_children, null);
+			_count = 0;
+		}
+
+		/**
+		 * Replaces the envelope of an entry.
+		 * 
+		 * @param index the index of the entry
+		 * @param bounds the new envelope
+		 */
+		public void setBounds(int index, double[] bounds) {
+			System.arraycopy(bounds, 0, _bounds, index * BOUNDS, BOUNDS);
+		}
+
+		/**
+		 * Returns the smallest envelope which contains every entry in this node.
+		 */
+		public double[] getBounds() {
+			double[] bounds = newEmptyEnvelope(new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY });
+			for (int i = 0; i < _count; i++)
+				include(bounds, 0, _bounds, i * BOUNDS);
+			return (bounds);
+		}
+
+		/**
+		 * Returns the index of a child node.
+		 * 
+		 * @param child the child
+		 */
+		public int indexOf(Node child) {
+			for (int i = 0; i < _count; i++) {
+				if (_children[i] == child)
+					return (i);
+			}
+			throw new IllegalStateException("The node is not a child of its parent.");
+		}
+
+		/**
+		 * Returns the index of the entry for a Resource with a particular envelope, or -1 if there is none.
+		 * 
+		 * @param resource the Resource
+		 * @param envelope the envelope
+		 */
+		public int indexOf(Resource resource, double[] envelope) {
+			for (int i = 0; i < _count; i++) {
+				if (_children[i] == resource && Arrays.equals(envelope, copyBounds(_bounds, i * BOUNDS)))
+					return (i);
+			}
+			return (-1);
+		}
+	}
+
+	/**
+	 * An envelope with the Resource or node it belongs to, used while packing the tree.
+	 */
+	private static final class Entry {
+		private final double[] _bounds;
+		private final Object _item;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param bounds the envelope
+		 * @param item the Resource or node
+		 */
+		public Entry(double[] bounds, Object item) {
+			_bounds = bounds;
+			_item = item;
+		}
+	}
+
+	/**
+	 * Orders entries by the center of their envelopes along one axis.
+	 */
+	private static final class CenterComparator implements Comparator<Entry> {
+		private final int _min;
+		private final int _max;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param min the index of the minimum value of the axis
+		 * @param max the index of the maximum value of the axis
+		 */
+		public CenterComparator(int min, int max) {
+			_min = min;
+			_max = max;
+		}
+
+		/**
+		 * @see Comparator#compare(Object, Object)
+		 */
+		public int compare(Entry e1, Entry e2) {
+			return (Double.compare(e1._bounds[_min] + e1._bounds[_max], e2._bounds[_min] + e2._bounds[_max]));
+		}
+	}
+
+	/**
+	 * A node or Resource waiting to be visited by a nearest-neighbour query, ordered by distance.
+	 */
+	private static final class Candidate implements Comparable<Candidate> {
+		private final double _distance;
+		private final Object _item;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param distance the distance from the query point
+		 * @param item the Resource or node
+		 */
+		public Candidate(double distance, Object item) {
+			_distance = distance;
+			_item = item;
+		}
+
+		/**
+		 * @see Comparable#compareTo(Object)
+		 */
+		public int compareTo(Candidate other) {
+			return (Double.compare(_distance, other._distance));
+		}
+	}
+}
@@ -0,0 +1,975 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.GregorianCalendar;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+import javax.xml.datatype.DatatypeConstants;
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+
+import buri.ddmsence.ddms.ApproximableDate;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Dates;
+import buri.ddmsence.ddms.summary.TemporalCoverage;
+
+/**
+ * An in-memory interval index of the dates of many Resources, for finding the Resources which cover a span of time.
+ * 
+ * <p>
+ * Every date is indexed as an interval of milliseconds since the epoch (1970-01-01T00:00:00Z), spanning the whole
+ * period named by the date at its own precision. A date of "2012" covers all of 2012, "2012-05" covers all of May, and
+ * "2012-05-14" covers the whole day. A ddms:DateHourMinType value covers one minute, and a full xs:dateTime is a single
+ * instant. Dates without a timezone are read as UTC. The calendar is proleptic Gregorian, so dates before 1582 are not
+ * shifted to the Julian calendar.
+ * </p>
+ * 
+ * <ul>
+ * <li>Fields: Each {@link Field} is indexed separately. A ddms:temporalCoverage is indexed from the beginning of its
+ * start to the end of its end, and an approximable date is indexed from its searchable start to its searchable end,
+ * falling back to the approximable date itself when either is missing. The ddms:dates attributes and each
+ * ddms:acquiredOn are indexed under their own fields. A Resource with no indexable dates is not added to the index at
+ * all.</li>
+ * <li>Open-ended periods: A start or end of "Unknown" or "Not Applicable" leaves that side of the period unbounded,
+ * using {@link #UNBOUNDED_START} or {@link #UNBOUNDED_END}. Both values are treated the same way, because DDMS does not
+ * say more about when the period began or ended. An unbounded period overlaps every span of time on its open side,
+ * contains only spans which reach no further than its bounded side, and is never before or after any instant on its
+ * open side. A period which is unbounded on both sides carries no information, and is not indexed. A period whose end
+ * comes before its start is indexed as the span of both dates.</li>
+ * <li>Queries: A Resource is returned once, no matter how many of its intervals match. Overlapping queries find
+ * intervals which share at least one instant with the query span, containing queries find intervals which enclose the
+ * whole query span, before queries find intervals which end before an instant, and after queries find intervals which
+ * start after an instant. Bounds are inclusive. Use {@link #getInterval(String)} to build a query span from a DDMS
+ * date.</li>
+ * <li>Loading: Each field is an augmented interval tree, stored as a sorted array with the maximum end of each
+ * subtree. <code>addAll</code> rebuilds every tree, optionally extracting the intervals and building the trees on an
+ * ExecutorService, and should be used for the initial load. <code>add</code> and <code>remove</code> collect changes
+ * on the side, and rebuild the trees once enough changes have been collected.</li>
+ * <li>Thread Safety: Any number of Threads may query the index at the same time. Changes wait for running queries to
+ * finish, and block new queries until they are done.</li>
+ * </ul>
+ * 
+ * <p>
+ * Resources are tracked by identity, so two equal Resources are indexed separately, and <code>remove</code> must be
+ * called with the same instance which was added.
+ * </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class TemporalResourceIndex {
+
+	/**
+	 * The dates of a Resource which can be searched.
+	 */
+	public static enum Field {
+		/** Each ddms:temporalCoverage */
+		TEMPORAL_COVERAGE,
+		/** The ddms:dates created attribute */
+		CREATED,
+		/** The ddms:dates posted attribute */
+		POSTED,
+		/** The ddms:dates validTil attribute */
+		VALID_TIL,
+		/** The ddms:dates infoCutOff attribute */
+		INFO_CUT_OFF,
+		/** The ddms:dates approvedOn attribute */
+		APPROVED_ON,
+		/** The ddms:dates receivedOn attribute */
+		RECEIVED_ON,
+		/** Each ddms:acquiredOn in ddms:dates */
+		ACQUIRED_ON
+	}
+
+	/** The start of a period which began at an unknown or inapplicable time */
+	public static final long UNBOUNDED_START = Long.MIN_VALUE;
+
+	/** The end of a period which ends at an unknown or inapplicable time */
+	public static final long UNBOUNDED_END = Long.MAX_VALUE;
+
+	/** The number of changes which are always allowed to collect before the trees are rebuilt */
+	private static final int MIN_REBUILD_CHANGES = 256;
+
+	/** The number of Resources whose intervals are extracted by each task during a concurrent load */
+	private static final int RESOURCES_PER_TASK = 256;
+
+	private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+	private static final Pattern DATE_HOUR_MIN = Pattern
+		.compile("-?\\d{4,}-\\d{2}-\\d{2}T\\d{2}:\\d{2}(Z|[+\\-]\\d{2}:\\d{2})?");
+
+	/** Reads a ddms:DateHourMinType value without a timezone as UTC, rather than the default timezone of the JVM */
+	private static final DateTimeFormatter DATE_HOUR_MIN_PARSER = ISODateTimeFormat.dateTimeParser().withZoneUTC();
+
+	private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+	private final Map<Resource, List<Entry>> _intervals = new IdentityHashMap<Resource, List<Entry>>();
+	private final Map<Field, Tree> _trees = new EnumMap<Field, Tree>(Field.class);
+	private final Map<Field, List<Entry>> _pending = new EnumMap<Field, List<Entry>>(Field.class);
+	private final Set<Resource> _pendingResources = newIdentitySet();
+	private final Set<Resource> _removed = newIdentitySet();
+	private int _pendingCount = 0;
+	private int _treeCount = 0;
+	private int _modCount = 0;
+
+	/**
+	 * Empty constructor
+	 */
+	public TemporalResourceIndex() {
+		for (Field field : Field.values()) {
+			_trees.put(field, new Tree(new ArrayList<Entry>()));
+			_pending.put(field, new ArrayList<Entry>());
+		}
+	}
+
+	/**
+	 * Adds a Resource to the index.
+	 * 
+	 * @param resource the Resource to add
+	 * @return true if the Resource was added, or false if it has no indexable dates or was already in the index
+	 */
+	public boolean add(Resource resource) {
+		Util.requireValue("resource", resource);
+		List<Entry> entries = getEntries(resource);
+		_lock.writeLock().lock();
+		try {
+			if (entries.isEmpty() || _intervals.containsKey(resource))
+				return (false);
+			// The trees may still hold the old intervals of a Resource which was removed and is now coming back.
+			if (_removed.contains(resource))
+				rebuild();
+			_intervals.put(resource, entries);
+			_modCount++;
+			_pendingResources.add(resource);
+			for (Entry entry : entries)
+				_pending.get(entry._field).add(entry);
+			_pendingCount += entries.size();
+			rebuildIfNeeded();
+			return (true);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds many Resources to the index, and rebuilds the trees from all of the Resources in the index.
+	 * 
+	 * @param resources the Resources to add
+	 * @return the number of Resources which were added
+	 */
+	public int addAll(Collection<Resource> resources) {
+		Util.requireValue("resources", resources);
+		Map<Resource, List<Entry>> additions = new IdentityHashMap<Resource, List<Entry>>();
+		for (Resource resource : resources) {
+			if (resource != null)
+				additions.put(resource, getEntries(resource));
+		}
+		_lock.writeLock().lock();
+		try {
+			int added = merge(additions);
+			rebuild();
+			return (added);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds many Resources to the index, and rebuilds the trees from all of the Resources in the index. The intervals
+	 * are extracted from the Resources by tasks on the ExecutorService, and then each tree is built by its own task.
+	 * The trees are built without holding the lock, so queries keep running during the load. If another change is
+	 * made to the index in the meantime, the trees are rebuilt under the lock instead. The index does not shut down
+	 * the ExecutorService, which remains owned by the caller.
+	 * 
+	 * @param resources the Resources to add
+	 * @param executor the ExecutorService which runs the tasks
+	 * @return the number of Resources which were added
+	 * @throws InterruptedException if the Thread is interrupted while waiting for a task. The index is unchanged.
+	 */
+	public int addAll(Collection<Resource> resources, ExecutorService executor) throws InterruptedException {
+		Util.requireValue("resources", resources);
+		Util.requireValue("executor", executor);
+		List<Future<Map<Resource, List<Entry>>>> extractions = new ArrayList<Future<Map<Resource, List<Entry>>>>();
+		List<Resource> chunk = new ArrayList<Resource>(RESOURCES_PER_TASK);
+		for (Resource resource : resources) {
+			if (resource == null)
+				continue;
+			chunk.add(resource);
+			if (chunk.size() == RESOURCES_PER_TASK) {
+				extractions.add(executor.submit(new ExtractTask(chunk)));
+				chunk = new ArrayList<Resource>(RESOURCES_PER_TASK);
+			}
+		}
+		if (!chunk.isEmpty())
+			extractions.add(executor.submit(new ExtractTask(chunk)));
+		Map<Resource, List<Entry>> additions = new IdentityHashMap<Resource, List<Entry>>();
+		for (Future<Map<Resource, List<Entry>>> extraction : extractions)
+			additions.putAll(getResult(extraction, extractions));
+
+		Map<Resource, List<Entry>> merged = new IdentityHashMap<Resource, List<Entry>>(additions);
+		int modCount;
+		_lock.readLock().lock();
+		try {
+			merged.putAll(_intervals);
+			modCount = _modCount;
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+		// The index is only changed once every tree has been built, in case the Thread is interrupted.
+		Map<Field, Future<Tree>> builds = new EnumMap<Field, Future<Tree>>(Field.class);
+		for (Map.Entry<Field, List<Entry>> group : groupByField(merged).entrySet())
+			builds.put(group.getKey(), executor.submit(new BuildTask(group.getValue())));
+		Map<Field, Tree> trees = new EnumMap<Field, Tree>(Field.class);
+		for (Map.Entry<Field, Future<Tree>> build : builds.entrySet())
+			trees.put(build.getKey(), getResult(build.getValue(), builds.values()));
+
+		_lock.writeLock().lock();
+		try {
+			boolean current = (modCount == _modCount);
+			int added = merge(additions);
+			if (current)
+				install(trees);
+			else
+				rebuild();
+			return (added);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Removes a Resource from the index.
+	 * 
+	 * @param resource the Resource to remove, which must be the same instance that was added
+	 * @return true if the Resource was in the index
+	 */
+	public boolean remove(Resource resource) {
+		Util.requireValue("resource", resource);
+		_lock.writeLock().lock();
+		try {
+			List<Entry> entries = _intervals.remove(resource);
+			if (entries == null)
+				return (false);
+			_modCount++;
+			if (_pendingResources.remove(resource)) {
+				for (Entry entry : entries) {
+					List<Entry> pending = _pending.get(entry._field);
+					for (int i = pending.size() - 1; i >= 0; i--) {
+						if (pending.get(i)._resource == resource)
+							pending.remove(i);
+					}
+				}
+				_pendingCount -= entries.size();
+			}
+			else {
+				_removed.add(resource);
+				rebuildIfNeeded();
+			}
+			return (true);
+		}
+		finally {
+			_lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of Resources in the index.
+	 */
+	public int size() {
+		_lock.readLock().lock();
+		try {
+			return (_intervals.size());
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of intervals indexed under a field.
+	 * 
+	 * @param field the field
+	 * @return the number of intervals
+	 */
+	public int getIntervalCount(Field field) {
+		Util.requireValue("field", field);
+		_lock.readLock().lock();
+		try {
+			int count = 0;
+			for (List<Entry> entries : _intervals.values()) {
+				for (Entry entry : entries) {
+					if (entry._field == field)
+						count++;
+				}
+			}
+			return (count);
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Finds the Resources with any interval under a field which shares at least one instant with a span of time.
+	 * 
+	 * @param field the field to search
+	 * @param start the start of the span, in milliseconds since the epoch
+	 * @param end the end of the span, in milliseconds since the epoch, which must not be before the start
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findOverlapping(Field field, long start, long end) {
+		checkSpan(field, start, end);
+		return (search(field, Relation.OVERLAPS, start, end));
+	}
+
+	/**
+	 * Finds the Resources with any interval under a field which encloses an entire span of time.
+	 * 
+	 * @param field the field to search
+	 * @param start the start of the span, in milliseconds since the epoch
+	 * @param end the end of the span, in milliseconds since the epoch, which must not be before the start
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findContaining(Field field, long start, long end) {
+		checkSpan(field, start, end);
+		return (search(field, Relation.CONTAINS, start, end));
+	}
+
+	/**
+	 * Finds the Resources with any interval under a field which ends before an instant.
+	 * 
+	 * @param field the field to search
+	 * @param instant the instant, in milliseconds since the epoch
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findBefore(Field field, long instant) {
+		Util.requireValue("field", field);
+		return (search(field, Relation.BEFORE, instant, instant));
+	}
+
+	/**
+	 * Finds the Resources with any interval under a field which starts after an instant.
+	 * 
+	 * @param field the field to search
+	 * @param instant the instant, in milliseconds since the epoch
+	 * @return the matching Resources, in no particular order
+	 */
+	public List<Resource> findAfter(Field field, long instant) {
+		Util.requireValue("field", field);
+		return (search(field, Relation.AFTER, instant, instant));
+	}
+
+	/**
+	 * Converts a DDMS date into the interval of time it names, from its first to its last millisecond.
+	 * 
+	 * @param date the date, in any of the DDMS date formats
+	 * @return an array with the start and end of the interval, in milliseconds since the epoch, or null if the date is
+	 *         empty, "Unknown" or "Not Applicable"
+	 * @throws IllegalArgumentException if the date is not in a DDMS date format
+	 */
+	public static long[] getInterval(String date) {
+		if (Util.isEmpty(date) || TemporalCoverage.EXTENDED_DATE_TYPES.contains(date))
+			return (null);
+		boolean dateHourMin = DATE_HOUR_MIN.matcher(date).matches();
+		XMLGregorianCalendar calendar;
+		if (dateHourMin) {
+			GregorianCalendar parsed = DATE_HOUR_MIN_PARSER.parseDateTime(date).toGregorianCalendar();
+			calendar = Util.getDataTypeFactory().newXMLGregorianCalendar(parsed);
+		}
+		else
+			calendar = Util.toXMLGregorianCalendar(date);
+		if (calendar == null || calendar.getYear() == DatatypeConstants.FIELD_UNDEFINED)
+			throw new IllegalArgumentException("The date is not in a DDMS date format: " + date);
+		GregorianCalendar gregory = new GregorianCalendar(UTC);
+		gregory.setGregorianChange(new Date(Long.MIN_VALUE));
+		gregory.clear();
+		gregory.set(GregorianCalendar.ERA, calendar.getYear() > 0 ? GregorianCalendar.AD : GregorianCalendar.BC);
+		gregory.set(GregorianCalendar.YEAR, Math.abs(calendar.getYear()));
+		gregory.set(GregorianCalendar.MONTH, getField(calendar.getMonth(), 1) - 1);
+		gregory.set(GregorianCalendar.DAY_OF_MONTH, getField(calendar.getDay(), 1));
+		gregory.set(GregorianCalendar.HOUR_OF_DAY, getField(calendar.getHour(), 0));
+		gregory.set(GregorianCalendar.MINUTE, getField(calendar.getMinute(), 0));
+		gregory.set(GregorianCalendar.SECOND, getField(calendar.getSecond(), 0));
+		gregory.set(GregorianCalendar.MILLISECOND, getField(calendar.getMillisecond(), 0));
+		if (calendar.getTimezone() != DatatypeConstants.FIELD_UNDEFINED)
+			gregory.add(GregorianCalendar.MINUTE, -calendar.getTimezone());
+		long start = gregory.getTimeInMillis();
+
+		int precision;
+		if (calendar.getMonth() == DatatypeConstants.FIELD_UNDEFINED)
+			precision = GregorianCalendar.YEAR;
+		else if (calendar.getDay() == DatatypeConstants.FIELD_UNDEFINED)
+			precision = GregorianCalendar.MONTH;
+		else if (calendar.getHour() == DatatypeConstants.FIELD_UNDEFINED)
+			precision = GregorianCalendar.DAY_OF_MONTH;
+		else if (dateHourMin)
+			precision = GregorianCalendar.MINUTE;
+		else
+			return (new long[] { start, start });
+		gregory.add(precision, 1);
+		return (new long[] { start, gregory.getTimeInMillis() - 1 });
+	}
+
+	/**
+	 * Returns the value of an XML calendar field, or a default if it is undefined.
+	 * 
+	 * @param value the value of the field
+	 * @param defaultValue the default
+	 * @return the value to use
+	 */
+	private static int getField(int value, int defaultValue) {
+		return (value == DatatypeConstants.FIELD_UNDEFINED ? defaultValue : value);
+	}
+
+	/**
+	 * Extracts the intervals of a Resource.
+	 * 
+	 * @param resource the Resource
+	 * @return the intervals, which may be empty
+	 */
+	private static List<Entry> getEntries(Resource resource) {
+		List<Entry> entries = new ArrayList<Entry>();
+		for (TemporalCoverage coverage : resource.getTemporalCoverages()) {
+			long[] start = (coverage.getApproximableStart() != null ? getInterval(coverage.getApproximableStart())
+				: getInterval(coverage.getStartString()));
+			long[] end = (coverage.getApproximableEnd() != null ? getInterval(coverage.getApproximableEnd())
+				: getInterval(coverage.getEndString()));
+			addEntry(entries, Field.TEMPORAL_COVERAGE, start, end, resource);
+		}
+		Dates dates = resource.getDates();
+		if (dates != null) {
+			addEntry(entries, Field.CREATED, dates.getCreatedString(), resource);
+			addEntry(entries, Field.POSTED, dates.getPostedString(), resource);
+			addEntry(entries, Field.VALID_TIL, dates.getValidTilString(), resource);
+			addEntry(entries, Field.INFO_CUT_OFF, dates.getInfoCutOffString(), resource);
+			addEntry(entries, Field.APPROVED_ON, dates.getApprovedOnString(), resource);
+			addEntry(entries, Field.RECEIVED_ON, dates.getReceivedOnString(), resource);
+			for (ApproximableDate acquiredOn : dates.getAcquiredOns()) {
+				long[] interval = getInterval(acquiredOn);
+				addEntry(entries, Field.ACQUIRED_ON, interval, interval, resource);
+			}
+		}
+		return (entries);
+	}
+
+	/**
+	 * Converts an approximable date into an interval, preferring its searchable start and end.
+	 * 
+	 * @param date the approximable date
+	 * @return the interval, or null if the date has no usable values
+	 */
+	private static long[] getInterval(ApproximableDate date) {
+		long[] approximate = getInterval(date.getApproximableDateString());
+		long[] start = getInterval(date.getSearchableStartString());
+		long[] end = getInterval(date.getSearchableEndString());
+		if (start == null)
+			start = approximate;
+		if (end == null)
+			end = approximate;
+		if (start == null && end == null)
+			return (null);
+		return (new long[] { start == null ? UNBOUNDED_START : start[0], end == null ? UNBOUNDED_END : end[1] });
+	}
+
+	/**
+	 * Adds the interval of a single date to a list, if the date has a value.
+	 * 
+	 * @param entries the list
+	 * @param field the field being indexed
+	 * @param date the date
+	 * @param resource the Resource
+	 */
+	private static void addEntry(List<Entry> entries, Field field, String date, Resource resource) {
+		long[] interval = getInterval(date);
+		addEntry(entries, field, interval, interval, resource);
+	}
+
+	/**
+	 * Adds the interval from the start of one date to the end of another to a list, unless both are missing.
+	 * 
+	 * @param entries the list
+	 * @param field the field being indexed
+	 * @param start the interval of the start date, or null if it is unbounded
+	 * @param end the interval of the end date, or null if it is unbounded
+	 * @param resource the Resource
+	 */
+	private static void addEntry(List<Entry> entries, Field field, long[] start, long[] end, Resource resource) {
+		if (start == null && end == null)
+			return;
+		long low = (start == null ? UNBOUNDED_START : start[0]);
+		long high = (end == null ? UNBOUNDED_END : end[1]);
+		if (low > high) {
+			low = Math.min(start[0], end[0]);
+			high = Math.max(start[1], end[1]);
+		}
+		entries.add(new Entry(field, low, high, resource));
+	}
+
+	/**
+	 * Checks the arguments of a query for a span of time.
+	 * 
+	 * @param field the field to search
+	 * @param start the start of the span
+	 * @param end the end of the span
+	 */
+	private static void checkSpan(Field field, long start, long end) {
+		Util.requireValue("field", field);
+		if (start > end)
+			throw new IllegalArgumentException("The start must not be after the end.");
+	}
+
+	/**
+	 * Searches the tree and the pending changes of a field.
+	 * 
+	 * @param field the field
+	 * @param relation the relationship to the query
+	 * @param start the start of the query span
+	 * @param end the end of the query span
+	 * @return the distinct matching Resources
+	 */
+	private List<Resource> search(Field field, Relation relation, long start, long end) {
+		_lock.readLock().lock();
+		try {
+			Results results = new Results(_removed);
+			_trees.get(field).search(relation, start, end, results);
+			for (Entry entry : _pending.get(field)) {
+				if (relation.matches(entry._start, entry._end, start, end))
+					results.add(entry._resource);
+			}
+			return (results._list);
+		}
+		finally {
+			_lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Adds newly extracted Resources to the map of intervals, skipping any which are empty or already indexed.
+	 * 
+	 * @param additions the Resources and their intervals
+	 * @return the number of Resources which were added
+	 */
+	private int merge(Map<Resource, List<Entry>> additions) {
+		int added = 0;
+		for (Map.Entry<Resource, List<Entry>> addition : additions.entrySet()) {
+			if (!addition.getValue().isEmpty() && !_intervals.containsKey(addition.getKey())) {
+				_intervals.put(addition.getKey(), addition.getValue());
+				_modCount++;
+				added++;
+			}
+		}
+		return (added);
+	}
+
+	/**
+	 * Rebuilds the trees when the pending additions and removals are a large enough share of the index.
+	 */
+	private void rebuildIfNeeded() {
+		if (_pendingCount + _removed.size() > MIN_REBUILD_CHANGES + _treeCount / 8)
+			rebuild();
+	}
+
+	/**
+	 * Rebuilds every tree from the map of intervals.
+	 */
+	private void rebuild() {
+		Map<Field, Tree> trees = new EnumMap<Field, Tree>(Field.class);
+		for (Map.Entry<Field, List<Entry>> group : groupByField(_intervals).entrySet())
+			trees.put(group.getKey(), new Tree(group.getValue()));
+		install(trees);
+	}
+
+	/**
+	 * Replaces the trees and clears the pending changes. The map of intervals must already be up to date.
+	 * 
+	 * @param trees the new trees, one for every field
+	 */
+	private void install(Map<Field, Tree> trees) {
+		_treeCount = 0;
+		for (Field field : Field.values()) {
+			_trees.put(field, trees.get(field));
+			_pending.get(field).clear();
+			_treeCount += trees.get(field)._starts.length;
+		}
+		_pendingResources.clear();
+		_removed.clear();
+		_pendingCount = 0;
+	}
+
+	/**
+	 * Groups the intervals of many Resources by their fields.
+	 * 
+	 * @param intervals the Resources and their intervals
+	 * @return a list of intervals for every field
+	 */
+	private static Map<Field, List<Entry>> groupByField(Map<Resource, List<Entry>> intervals) {
+		Map<Field, List<Entry>> grouped = new EnumMap<Field, List<Entry>>(Field.class);
+		for (Field field : Field.values())
+			grouped.put(field, new ArrayList<Entry>());
+		for (List<Entry> entries : intervals.values()) {
+			for (Entry entry : entries)
+				grouped.get(entry._field).add(entry);
+		}
+		return (grouped);
+	}
+
+	/**
+	 * Waits for the result of a task, cancelling every other task if it fails.
+	 * 
+	 * @param future the task
+	 * @param all all of the tasks in the same batch
+	 * @return the result
+	 * @throws InterruptedException if the Thread is interrupted while waiting
+	 */
+	private static <T> T getResult(Future<T> future, Collection<? extends Future<?>> all) throws InterruptedException {
+		boolean success = false;
+		try {
+			T result = future.get();
+			success = true;
+			return (result);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException)
+				throw (RuntimeException) e.getCause();
+			if (e.getCause() instanceof Error)
+				throw (Error) e.getCause();
+			throw new IllegalStateException(e.getCause());
+		}
+		finally {
+			if (!success) {
+				for (Future<?> other : all)
+					other.cancel(true);
+			}
+		}
+	}
+
+	/**
+	 * Creates an empty Set which compares Resources by identity.
+	 */
+	private static Set<Resource> newIdentitySet() {
+		return (Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>()));
+	}
+
+	/**
+	 * The relationships between an interval and a query.
+	 */
+	private static enum Relation {
+		OVERLAPS {
+			public boolean matches(long start, long end, long queryStart, long queryEnd) {
+				return (start <= queryEnd && end >= queryStart);
+			}
+		},
+		CONTAINS {
+			public boolean matches(long start, long end, long queryStart, long queryEnd) {
+				return (start <= queryStart && end >= queryEnd);
+			}
+		},
+		BEFORE {
+			public boolean matches(long start, long end, long queryStart, long queryEnd) {
+				return (end < queryStart);
+			}
+		},
+		AFTER {
+			public boolean matches(long start, long end, long queryStart, long queryEnd) {
+				return (start > queryEnd);
+			}
+		};
+
+		/**
+		 * Checks whether an interval has this relationship to a query span.
+		 * 
+		 * @param start the start of the interval
+		 * @param end the end of the interval
+		 * @param queryStart the start of the query span
+		 * @param queryEnd the end of the query span
+		 * @return true if the interval matches
+		 */
+		public abstract boolean matches(long start, long end, long queryStart, long queryEnd);
+	}
+
+	/**
+	 * The interval of one date under one field of a Resource.
+	 */
+	private static final class Entry {
+		private final Field _field;
+		private final long _start;
+		private final long _end;
+		private final Resource _resource;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param field the field
+		 * @param start the start of the interval
+		 * @param end the end of the interval
+		 * @param resource the Resource
+		 */
+		public Entry(Field field, long start, long end, Resource resource) {
+			_field = field;
+			_start = start;
+			_end = end;
+			_resource = resource;
+		}
+	}
+
+	/**
+	 * Collects distinct Resources, skipping any which have been removed from the index.
+	 */
+	private static final class Results {
+		private final Set<Resource> _removed;
+		private final Set<Resource> _found = newIdentitySet();
+		private final List<Resource> _list = new ArrayList<Resource>();
+
+		/**
+		 * Constructor
+		 * 
+		 * @param removed the Resources which are still in the trees, but no longer in the index
+		 */
+		public Results(Set<Resource> removed) {
+			_removed = removed;
+		}
+
+		/**
+		 * Adds a Resource, unless it has already been found or was removed.
+		 * 
+		 * @param resource the Resource
+		 */
+		public void add(Resource resource) {
+			if (!_removed.contains(resource) && _found.add(resource))
+				_list.add(resource);
+		}
+	}
+
+	/**
+	 * An immutable augmented interval tree. The intervals are sorted by start, and the tree is implicit: the root of
+	 * any range of the array is its middle element, so the tree is always balanced. Each element also records the
+	 * greatest end in its subtree, so searches can skip subtrees which end too early. A second copy of the intervals
+	 * is sorted by end, to answer before queries with a binary search.
+	 */
+	private static final class Tree {
+		private final long[] _starts;
+		private final long[] _ends;
+		private final long[] _maxEnds;
+		private final Resource[] _resources;
+		private final long[] _endsByEnd;
+		private final Resource[] _resourcesByEnd;
+
+		/**
+		 * Builds a tree.
+		 * 
+		 * @param entries the intervals, which will be reordered
+		 */
+		public Tree(List<Entry> entries) {
+			int count = entries.size();
+			_starts = new long[count];
+			_ends = new long[count];
+			_maxEnds = new long[count];
+			_resources = new Resource[count];
+			_endsByEnd = new long[count];
+			_resourcesByEnd = new Resource[count];
+			Collections.sort(entries, new Comparator<Entry>() {
+				public int compare(Entry entry1, Entry entry2) {
+					return (Long.compare(entry1._start, entry2._start));
+				}
+			});
+			for (int i = 0; i < count; i++) {
+				Entry entry = entries.get(i);
+				_starts[i] = entry._start;
+				_ends[i] = entry._end;
+				_resources[i] = entry._resource;
+			}
+			computeMaxEnds(0, count);
+			Collections.sort(entries, new Comparator<Entry>() {
+				public int compare(Entry entry1, Entry entry2) {
+					return (Long.compare(entry1._end, entry2._end));
+				}
+			});
+			for (int i = 0; i < count; i++) {
+				_endsByEnd[i] = entries.get(i)._end;
+				_resourcesByEnd[i] = entries.get(i)._resource;
+			}
+		}
+
+		/**
+		 * Records the greatest end in each subtree of a range.
+		 * 
+		 * @param low the first index of the range
+		 * @param high the index after the end of the range
+		 * @return the greatest end in the range
+		 */
+		private long computeMaxEnds(int low, int high) {
+			if (low >= high)
+				return (UNBOUNDED_START);
+			int middle = (low + high) >>> 1;
+			long max = Math.max(_ends[middle], Math.max(computeMaxEnds(low, middle), computeMaxEnds(middle + 1, high)));
+			_maxEnds[middle] = max;
+			return (max);
+		}
+
+		/**
+		 * Finds the intervals which have some relationship to a query span.
+		 * 
+		 * @param relation the relationship
+		 * @param start the start of the query span
+		 * @param end the end of the query span
+		 * @param results the results being collected
+		 */
+		public void search(Relation relation, long start, long end, Results results) {
+			switch (relation) {
+				case OVERLAPS:
+					// An overlapping interval starts no later than the end of the span, and ends no earlier than
+					// its start.
+					searchTree(0, _starts.length, end, start, relation, start, end, results);
+					break;
+				case CONTAINS:
+					searchTree(0, _starts.length, start, end, relation, start, end, results);
+					break;
+				case BEFORE:
+					for (int i = 0, count = findFirst(_endsByEnd, start); i < count; i++)
+						results.add(_resourcesByEnd[i]);
+					break;
+				default:
+					for (int i = findFirst(_starts, end == UNBOUNDED_END ? end : end + 1); i < _starts.length; i++)
+						results.add(_resources[i]);
+			}
+		}
+
+		/**
+		 * Searches a subtree for matching intervals, skipping intervals which start after a limit or subtrees which
+		 * end before a minimum.
+		 * 
+		 * @param low the first index of the subtree
+		 * @param high the index after the end of the subtree
+		 * @param maxStart the latest start a match may have
+		 * @param minEnd the earliest end a match may have
+		 * @param relation the relationship to check on each candidate
+		 * @param start the start of the query span
+		 * @param end the end of the query span
+		 * @param results the results being collected
+		 */
+		private void searchTree(int low, int high, long maxStart, long minEnd, Relation relation, long start,
+			long end, Results results) {
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (_maxEnds[middle] < minEnd)
+					return;
+				searchTree(low, middle, maxStart, minEnd, relation, start, end, results);
+				if (_starts[middle] > maxStart)
+					return;
+				if (relation.matches(_starts[middle], _ends[middle], start, end))
+					results.add(_resources[middle]);
+				low = middle + 1;
+			}
+		}
+
+		/**
+		 * Finds the first index in a sorted array whose value is at least a key.
+		 * 
+		 * @param values the sorted values
+		 * @param key the key
+		 * @return the index, or the length of the array if every value is less than the key
+		 */
+		private static int findFirst(long[] values, long key) {
+			int low = 0;
+			int high = values.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (values[middle] < key)
+					low = middle + 1;
+				else
+					high = middle;
+			}
+			return (low);
+		}
+
+	}
+
+	/**
+	 * Task which extracts the intervals of some Resources on a worker Thread.
+	 */
+	private static final class ExtractTask implements Callable<Map<Resource, List<Entry>>> {
+		private final List<Resource> _resources;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param resources the Resources
+		 */
+		public ExtractTask(List<Resource> resources) {
+			_resources = resources;
+		}
+
+		/**
+		 * @see Callable#call()
+		 */
+		public Map<Resource, List<Entry>> call() {
+			Map<Resource, List<Entry>> intervals = new IdentityHashMap<Resource, List<Entry>>();
+			for (Resource resource : _resources)
+				intervals.put(resource, getEntries(resource));
+			return (intervals);
+		}
+	}
+
+	/**
+	 * Task which builds the tree of one field on a worker Thread.
+	 */
+	private static final class BuildTask implements Callable<Tree> {
+		private final List<Entry> _entries;
+
+		/**
+		 * Constructor
+		 * 
+		 * @param entries the intervals of the field
+		 */
+		public BuildTask(List<Entry> entries) {
+			_entries = entries;
+		}
+
+		/**
+		 * @see Callable#call()
+		 */
+		public Tree call() {
+			return (new Tree(_entries));
+		}
+	}
+}
@@ -32,7 +32,6 @@ import java.util.GregorianCalendar;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -86,15 +85,6 @@ import com.google.gson.JsonPrimitive;
  */
 public class Util {
 
-	private static final LinkedHashMap<String, String> XML_SPECIAL_CHARS = new LinkedHashMap<String, String>();
-	static {
-		XML_SPECIAL_CHARS.put("&", "&amp;");
-		XML_SPECIAL_CHARS.put("\"", "&quot;");
-		XML_SPECIAL_CHARS.put("'", "&apos;");
-		XML_SPECIAL_CHARS.put("<", "&lt;");
-		XML_SPECIAL_CHARS.put(">", "&gt;");
-	}
-
 	private static final String DDMS_DATE_HOUR_MIN_PATTERN = "[0-9]{4}-[0-9]{2}-[0-9]{2}T[0-9]{2}:[0-9]{2}(Z|[\\-\\+][0-9]{2}:[0-9]{2})?";
 	private static final Set<QName> DATE_DATATYPES = new HashSet<QName>();
 	static {
@@ -678,19 +668,67 @@ public class Util {
 	/**
 	 * Replaces XML special characters - '&', '<', '>', '\'', '"'
 	 * 
+	 * <p>The input is scanned once, and is returned as-is if it contains no special characters.</p>
+	 * 
 	 * @param input the string to escape.
 	 * @return escaped String
 	 */
 	public static String xmlEscape(String input) {
 		if (input != null) {
-			for (Iterator<String> iterator = XML_SPECIAL_CHARS.keySet().iterator(); iterator.hasNext();) {
-				String pattern = iterator.next();
-				input = Pattern.compile(pattern).matcher(input).replaceAll((String) XML_SPECIAL_CHARS.get(pattern));
+			for (int i = 0; i < input.length(); i++) {
+				if (getXmlEntity(input.charAt(i)) != null) {
+					StringBuilder output = new StringBuilder(input.length() + 16);
+					xmlEscape(input, output);
+					return (output.toString());
+				}
 			}
 		}
 		return input;
 	}
 
+	/**
+	 * Replaces XML special characters - '&', '<', '>', '\'', '"' - while appending a string to an existing buffer.
+	 * 
+	 * @param input the string to escape. A null string appends nothing.
+	 * @param output the buffer to append to
+	 */
+	public static void xmlEscape(String input, StringBuilder output) {
+		if (input == null)
+			return;
+		int start = 0;
+		for (int i = 0; i < input.length(); i++) {
+			String entity = getXmlEntity(input.charAt(i));
+			if (entity != null) {
+				output.append(input, start, i).append(entity);
+				start = i + 1;
+			}
+		}
+		output.append(input, start, input.length());
+	}
+
+	/**
+	 * Returns the entity reference for an XML special character.
+	 * 
+	 * @param character the character to check
+	 * @return the entity, or null if the character does not need to be escaped
+	 */
+	private static String getXmlEntity(char character) {
+		switch (character) {
+			case '&':
+				return ("&amp;");
+			case '"':
+				return ("&quot;");
+			case '\'':
+				return ("&apos;");
+			case '<':
+				return ("&lt;");
+			case '>':
+				return ("&gt;");
+			default:
+				return (null);
+		}
+	}
+
 	/**
 	 * Capitalizes the first letter of a String. Silently does nothing if the string is null, empty, or not a letter.
 	 * 
@@ -885,6 +923,20 @@ public class Util {
 	 * @throws XSLException if stylesheet transformation fails
 	 */
 	public static XSLTransform buildSchematronTransform(File schematronFile) throws IOException, XSLException {
+		return (new XSLTransform(buildSchematronStylesheet(schematronFile)));
+	}
+
+	/**
+	 * Takes a Schematron file and transforms it with the ISO Schematron skeleton files, as described in
+	 * {@link #buildSchematronTransform(File)}, returning the generated validation stylesheet as a XOM Document rather
+	 * than a compiled transform.
+	 * 
+	 * @param schematronFile the Schematron file
+	 * @return the generated XSLT stylesheet which reports on the Schematron rules in SVRL
+	 * @throws IOException if there are file-related problems with preparing the stylesheets
+	 * @throws XSLException if stylesheet transformation fails
+	 */
+	public static Document buildSchematronStylesheet(File schematronFile) throws IOException, XSLException {
 		String oldFactory = System.getProperty(PROP_TRANSFORM_FACTORY);
 		String newFactory = PropertyReader.getProperty("xml.transform.TransformerFactory");
 		if (Util.isEmpty(oldFactory) || !newFactory.equals(oldFactory)) {
@@ -894,27 +946,11 @@ public class Util {
 		Document schDocument = Util.buildXmlDocument(new FileInputStream(schematronFile));
 		String queryBinding = getSchematronQueryBinding(schDocument);
 
-		// long time = new Date().getTime();
 		XSLTransform phase1 = getSchematronIncludeTransform();
-		// System.out.println((new Date().getTime() - time) + "ms (Include)");
-
-		// time = new Date().getTime();
 		XSLTransform phase2 = getSchematronAbstractTransform();
-		// System.out.println((new Date().getTime() - time) + "ms (Abstract)");
-
-		// time = new Date().getTime();
 		XSLTransform phase3 = getSchematronSvrlTransform(queryBinding);
-		// System.out.println((new Date().getTime() - time) + "ms (SVRL)");
-
-		// time = new Date().getTime();
 		Nodes nodes = phase3.transform(phase2.transform(phase1.transform(schDocument)));
-		// System.out.println((new Date().getTime() - time) + "ms (Base transformation 1, 2, 3)");
-
-		// time = new Date().getTime();
-		XSLTransform finalTransform = new XSLTransform(XSLTransform.toDocument(nodes));
-		// System.out.println((new Date().getTime() - time) + "ms (Schematron Validation)");
-
-		return (finalTransform);
+		return (XSLTransform.toDocument(nodes));
 	}
 
 	/**
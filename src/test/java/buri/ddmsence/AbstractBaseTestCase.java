@@ -88,6 +88,7 @@ public abstract class AbstractBaseTestCase {
 		PropertyReader.setProperty("output.indexLevel", "0");
 		PropertyReader.setProperty("output.json.inlineAttributes", "false");
 		PropertyReader.setProperty("output.json.prettyPrint", "false");
+		PropertyReader.setProperty("resource.schemaValidation", "immediate");
 	}
 
 	/**
@@ -275,6 +276,61 @@ public abstract class AbstractBaseTestCase {
 		return (_elementMap.get(getType() + ":" + version));
 	}
 
+	/**
+	 * Sets the current DDMS version and returns a copy of the valid element, which can be changed to build variations
+	 * of the "correct base case".
+	 * 
+	 * @param version the DDMS version
+	 * @return the copy
+	 */
+	protected Element getValidElementCopy(String version) {
+		DDMSVersion.setCurrentVersion(version);
+		return (new Element(getValidElement(version)));
+	}
+
+	/**
+	 * Returns the first child element with some name in the parent's namespace.
+	 * 
+	 * @param parent the parent element
+	 * @param name the local name of the child
+	 * @return the child, or null if there is none
+	 */
+	protected static Element getChild(Element parent, String name) {
+		return (parent.getFirstChildElement(name, parent.getNamespaceURI()));
+	}
+
+	/**
+	 * Replaces the first child element with some name in the parent's namespace with new elements, in the same
+	 * position. Passing no new elements removes the child.
+	 * 
+	 * @param parent the parent element
+	 * @param name the local name of the child
+	 * @param replacements the new elements
+	 */
+	protected static void replaceChild(Element parent, String name, Element... replacements) {
+		Element existing = getChild(parent, name);
+		int index = parent.indexOf(existing);
+		parent.removeChild(existing);
+		for (Element replacement : replacements)
+			parent.insertChild(replacement, index++);
+	}
+
+	/**
+	 * Asserts that a query returned exactly the expected Resources, in any order. Resources are compared by identity.
+	 * 
+	 * @param actual the Resources returned by the query
+	 * @param expected the Resources which should have been returned
+	 */
+	protected static void assertResources(List<Resource> actual, Resource... expected) {
+		assertEquals(expected.length, actual.size());
+		for (Resource resource : expected) {
+			boolean found = false;
+			for (Resource result : actual)
+				found = found || (result == resource);
+			assertTrue(found);
+		}
+	}
+
 	/**
 	 * Removes specific versions, so that components will only be tested in supported versions.
 	 * 
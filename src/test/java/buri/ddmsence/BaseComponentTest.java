@@ -24,7 +24,9 @@ import static org.junit.Assert.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import nu.xom.Comment;
 import nu.xom.Element;
+import nu.xom.ParentNode;
 
 import org.junit.Test;
 
@@ -33,6 +35,7 @@ import buri.ddmsence.ddms.InvalidDDMSException;
 import buri.ddmsence.ddms.OutputFormat;
 import buri.ddmsence.ddms.ValidationMessage;
 import buri.ddmsence.ddms.format.Extent;
+import buri.ddmsence.ddms.format.Format;
 import buri.ddmsence.ddms.resource.Creator;
 import buri.ddmsence.ddms.resource.Language;
 import buri.ddmsence.ddms.resource.Organization;
@@ -172,12 +175,84 @@ public class BaseComponentTest extends AbstractBaseTestCase {
 		assertEquals("{\"excludeFromRollup\":true,\"classification\":\"U\",\"ownerProducer\":[\"USA\"]}", security.toJSON());
 	}
 	
+	@Test
+	public void testChildElementSharing() throws InvalidDDMSException {
+		Extent extent = new Extent("sizeBytes", "75000");
+		String extentXML = extent.toXML();
+		Format first = new Format("text/html", extent, "digital");
+		Format second = new Format("text/html", extent, "digital");
+		try {
+			new Format("", extent, "digital");
+			fail("Constructor allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			// Good
+		}
+		assertEquals(extentXML, extent.toXML());
+		assertNull(extent.getXOMElement().getParent());
+		assertEquals(extent, first.getExtent());
+		assertEquals(first, second);
+		assertEquals(first.toXML(), second.toXML());
+	}
+
+	@Test
+	public void testChildElementAdoptedFromBuilder() throws InvalidDDMSException {
+		Format.Builder builder = new Format.Builder();
+		builder.setMimeType("text/html");
+		builder.getExtent().setQualifier("sizeBytes");
+		builder.getExtent().setValue("75000");
+		Format format = builder.commit();
+		ParentNode root = format.getExtent().getXOMElement().getParent();
+		while (root.getParent() != null)
+			root = root.getParent();
+		assertSame(format.getXOMElement(), root);
+		assertEquals(new Format("text/html", new Extent("sizeBytes", "75000"), null).toXML(), format.toXML());
+	}
+
 	@Test
 	public void testSelfEquality() throws InvalidDDMSException {
 		Rights rights = new Rights(true, true, true);
 		assertEquals(rights, rights);
 	}
 
+	@Test
+	public void testHashCodeCached() throws InvalidDDMSException {
+		Format format = new Format("text/html", new Extent("sizeBytes", "75000"), "digital");
+		int hashCode = format.hashCode();
+		assertEquals(hashCode, format.hashCode());
+		assertEquals(hashCode, new Format("text/html", new Extent("sizeBytes", "75000"), "digital").hashCode());
+		assertFalse(format.equals(new Format("text/html", new Extent("sizeBytes", "76000"), "digital")));
+	}
+
+	@Test
+	public void testFingerprint() throws InvalidDDMSException {
+		Format format = new Format("text/html", new Extent("sizeBytes", "75000"), "digital");
+		String fingerprint = format.getFingerprint();
+		assertEquals(32, fingerprint.length());
+		assertSame(fingerprint, format.getFingerprint());
+		assertEquals(fingerprint, new Format(format.getXOMElementCopy()).getFingerprint());
+		assertFalse(fingerprint.equals(new Format("text/html", new Extent("sizeBytes", "76000"), "digital")
+			.getFingerprint()));
+		assertFalse(fingerprint.equals(format.getExtent().getFingerprint()));
+	}
+
+	@Test
+	public void testFingerprintCanonicalForm() throws InvalidDDMSException {
+		String namespace = DDMSVersion.getCurrentVersion().getNamespace();
+		String name = Language.getName(DDMSVersion.getCurrentVersion());
+		Element element = Util.buildElement("customPrefix", name, namespace, null);
+		Util.addAttribute(element, "customPrefix", "qualifier", namespace, "testQualifier");
+		Util.addAttribute(element, "customPrefix", "value", namespace, "en");
+		element.appendChild(new Comment("ignored"));
+		Element reordered = Util.buildDDMSElement(name, null);
+		Util.addDDMSAttribute(reordered, "value", "en");
+		Util.addDDMSAttribute(reordered, "qualifier", "testQualifier");
+		reordered.appendChild("\n   ");
+		assertEquals(new Language(element).getFingerprint(), new Language(reordered).getFingerprint());
+		assertFalse(new Language(element).getFingerprint().equals(new Language("testQualifier", "fr")
+			.getFingerprint()));
+	}
+
 	@Test
 	public void testToString() throws InvalidDDMSException {
 		Rights rights = new Rights(true, true, true);
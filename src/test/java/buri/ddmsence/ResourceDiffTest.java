@@ -0,0 +1,157 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nu.xom.Attribute;
+import nu.xom.Element;
+
+import org.junit.Test;
+
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.ddms.security.ism.SecurityAttributesTest;
+import buri.ddmsence.util.DDMSVersion;
+
+/**
+ * <p> Tests related to comparing two versions of a Resource </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class ResourceDiffTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public ResourceDiffTest() {
+		super("resource.xml");
+	}
+
+	@Test
+	public void testUnchanged() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			Resource original = new Resource(getValidElementCopy(sVersion));
+			assertTrue(ResourceDiff.compare(original, original).isEmpty());
+			assertTrue(ResourceDiff.compare(original, new Resource(getValidElementCopy(sVersion))).isEmpty());
+		}
+	}
+
+	@Test
+	public void testNullChecks() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		try {
+			ResourceDiff.compare(null, resource);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("original component must exist.", e.getMessage());
+		}
+		try {
+			ResourceDiff.compare(resource, null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("updated component must exist.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testChangedComponents() throws InvalidDDMSException {
+		Resource original = new Resource(getValidElementCopy("5.0"));
+
+		// Text of a top-level component
+		Element element = getValidElementCopy("5.0");
+		Element title = getChild(element, Title.getName(DDMSVersion.getCurrentVersion()));
+		title.removeChildren();
+		title.appendChild("DDMSence Updated");
+		assertEquals(Arrays.asList("/ddms:resource/ddms:title"), ResourceDiff.compare(original, new Resource(element)));
+
+		// Attribute of a top-level component
+		element = getValidElementCopy("5.0");
+		getChild(element, "relatedResource").addAttribute(
+			new Attribute("ddms:direction", element.getNamespaceURI(), "inbound"));
+		assertEquals(Arrays.asList("/ddms:resource/ddms:relatedResource"), ResourceDiff.compare(original,
+			new Resource(element)));
+
+		// Nested component
+		element = getValidElementCopy("5.0");
+		getChild(getChild(element, "subjectCoverage"), "keyword").addAttribute(
+			new Attribute("ddms:value", element.getNamespaceURI(), "XML"));
+		assertEquals(Arrays.asList("/ddms:resource/ddms:subjectCoverage/ddms:keyword"), ResourceDiff.compare(
+			original, new Resource(element)));
+
+		// Child element which is not a component
+		element = getValidElementCopy("5.0");
+		Element name = getChild(getChild(getChild(element, "creator"), "organization"), "name");
+		name.removeChildren();
+		name.appendChild("DISA Updated");
+		assertEquals(Arrays.asList("/ddms:resource/ddms:creator/ddms:organization"), ResourceDiff.compare(original,
+			new Resource(element)));
+
+		// More than one change
+		Element mimeType = getChild(getChild(element, "format"), "mimeType");
+		mimeType.removeChildren();
+		mimeType.appendChild("text/html");
+		assertEquals(Arrays.asList("/ddms:resource/ddms:creator/ddms:organization", "/ddms:resource/ddms:format"),
+			ResourceDiff.compare(original, new Resource(element)));
+	}
+
+	@Test
+	public void testAddedAndRemovedComponents() throws InvalidDDMSException {
+		Resource original = new Resource(getValidElementCopy("5.0"));
+		Element element = getValidElementCopy("5.0");
+		Element identifier = getChild(element, "identifier");
+		Element added = new Element(identifier);
+		added.addAttribute(new Attribute("ddms:value", element.getNamespaceURI(), "urn:buri:ddmsence:added"));
+		element.insertChild(added, element.indexOf(identifier) + 1);
+		Resource updated = new Resource(element);
+
+		assertEquals(Arrays.asList("/ddms:resource/ddms:identifier[2]"), ResourceDiff.compare(original, updated));
+		assertEquals(Arrays.asList("/ddms:resource/ddms:identifier[2]"), ResourceDiff.compare(updated, original));
+	}
+
+	@Test
+	public void testWrapperElements() throws InvalidDDMSException {
+		Resource original = new Resource(getValidElementCopy("3.0"));
+		Element element = getValidElementCopy("3.0");
+		getChild(getChild(getChild(element, "subjectCoverage"), "Subject"), "keyword").addAttribute(
+			new Attribute("ddms:value", element.getNamespaceURI(), "XML"));
+		List<String> changes = ResourceDiff.compare(original, new Resource(element));
+		assertEquals(Arrays.asList("/ddms:Resource/ddms:subjectCoverage/ddms:Subject/ddms:keyword"), changes);
+	}
+
+	@Test
+	public void testDifferentComponents() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		Title title = new Title("DDMSence", SecurityAttributesTest.getFixture());
+		assertEquals(Arrays.asList("/ddms:resource"), ResourceDiff.compare(resource, title));
+		assertTrue(ResourceDiff.compare(title, new Title("DDMSence", SecurityAttributesTest.getFixture())).isEmpty());
+		assertEquals(Arrays.asList("/ddms:title"), ResourceDiff.compare(title, new Title("Updated",
+			SecurityAttributesTest.getFixture())));
+	}
+}
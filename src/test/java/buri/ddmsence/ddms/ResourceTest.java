@@ -23,8 +23,10 @@ import static org.junit.Assert.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -89,6 +91,8 @@ import buri.ddmsence.util.DDMSVersion;
 import buri.ddmsence.util.PropertyReader;
 import buri.ddmsence.util.Util;
 
+import com.google.gson.stream.JsonWriter;
+
 /**
  * <p> Tests related to ddms:resource elements </p>
  * 
@@ -1034,11 +1038,16 @@ public class ResourceTest extends AbstractBaseTestCase {
 			Resource builderComponent = new Resource.Builder(elementComponent).commit();
 			assertEquals(elementComponent, builderComponent);
 			assertEquals(elementComponent.hashCode(), builderComponent.hashCode());
+			assertEquals(elementComponent.getFingerprint(), new Resource(getValidElement(sVersion)).getFingerprint());
+			assertEquals(builderComponent.getFingerprint(), new Resource.Builder(elementComponent).commit()
+				.getFingerprint());
 
 			// Different values in each field
 			Resource.Builder builder = getBaseBuilder();
 			builder.setDates(null);
-			assertFalse(elementComponent.equals(builder.commit()));
+			Resource differentComponent = builder.commit();
+			assertFalse(elementComponent.equals(differentComponent));
+			assertFalse(elementComponent.getFingerprint().equals(differentComponent.getFingerprint()));
 
 			if (!isAtLeast31) {
 				// Can only change resourceElement before 3.1.
@@ -1112,6 +1121,57 @@ public class ResourceTest extends AbstractBaseTestCase {
 		}
 	}
 
+	@Test
+	public void testWriteOutput() throws InvalidDDMSException, IOException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource component = getInstance(getValidElement(sVersion), SUCCESS);
+
+			StringWriter html = new StringWriter();
+			component.writeHTML(html);
+			assertEquals(component.toHTML(), html.toString());
+
+			StringBuilder text = new StringBuilder("existing\n");
+			component.writeText(text);
+			assertEquals("existing\n" + component.toText(), text.toString());
+
+			StringWriter json = new StringWriter();
+			component.writeJSON(json);
+			assertEquals(component.toJSON(), json.toString());
+		}
+	}
+
+	@Test
+	public void testWriteJSONStreamingModes() throws InvalidDDMSException, IOException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource component = getInstance(getValidElement(sVersion), SUCCESS);
+			for (String pretty : new String[] { "false", "true" }) {
+				for (String inline : new String[] { "false", "true" }) {
+					PropertyReader.setProperty("output.json.prettyPrint", pretty);
+					PropertyReader.setProperty("output.json.inlineAttributes", inline);
+					StringBuilder json = new StringBuilder();
+					component.writeJSON(json);
+					assertEquals(component.toJSON(), json.toString());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testWriteJSONArray() throws InvalidDDMSException, IOException {
+		Resource component = getInstance(getValidElement("5.0"), SUCCESS);
+		StringWriter output = new StringWriter();
+		JsonWriter writer = new JsonWriter(output);
+		writer.beginArray();
+		component.writeJSON(writer);
+		component.writeJSON(writer);
+		writer.endArray();
+		writer.close();
+		assertEquals("[" + component.toJSON() + "," + component.toJSON() + "]", output.toString());
+		assertValidJSON(output.toString());
+	}
+
 	@Test
 	public void testBuilderIsEmpty() throws InvalidDDMSException {
 		for (String sVersion : getSupportedVersions()) {
@@ -1281,6 +1341,73 @@ public class ResourceTest extends AbstractBaseTestCase {
 		getInstance(builder, SUCCESS);
 	}
 
+	@Test
+	public void testSchemaValidatedImmediate() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource elementComponent = new Resource(getValidElement(sVersion), true);
+			assertTrue(elementComponent.isSchemaValidated());
+			Resource builderComponent = getInstance(new Resource.Builder(elementComponent), SUCCESS);
+			assertTrue(builderComponent.isSchemaValidated());
+		}
+	}
+
+	@Test
+	public void testSchemaValidatedOtherElement() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource component = getInstance(getValidElement(sVersion), SUCCESS);
+			assertFalse(component.isSchemaValidated());
+			component.validateWithSchema();
+			assertTrue(component.isSchemaValidated());
+		}
+	}
+
+	@Test
+	public void testSchemaValidatedDeferred() throws InvalidDDMSException {
+		PropertyReader.setProperty("resource.schemaValidation", Resource.DEFERRED_SCHEMA_VALIDATION);
+		DDMSVersion.setCurrentVersion("3.0");
+		Resource.Builder builder = getBaseBuilder();
+		Resource valid = getInstance(builder, SUCCESS);
+		assertFalse(valid.isSchemaValidated());
+		valid.validateWithSchema();
+		assertTrue(valid.isSchemaValidated());
+
+		// 3.0-specific fields are only caught by the schema in 3.1
+		DDMSVersion.setCurrentVersion("3.1");
+		Resource invalid = getInstance(builder, SUCCESS);
+		assertFalse(invalid.isSchemaValidated());
+		try {
+			invalid.validateWithSchema();
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "nu.xom.ValidityException: cvc-attribute.4");
+			assertEquals("/ddms:Resource", e.getLocator());
+		}
+		assertFalse(invalid.isSchemaValidated());
+	}
+
+	@Test
+	public void testSchemaValidatedBulk() throws InvalidDDMSException {
+		PropertyReader.setProperty("resource.schemaValidation", Resource.DEFERRED_SCHEMA_VALIDATION);
+		List<Resource> resources = new ArrayList<Resource>();
+		DDMSVersion.setCurrentVersion("3.0");
+		Resource.Builder builder = getBaseBuilder();
+		resources.add(getInstance(builder, SUCCESS));
+		DDMSVersion.setCurrentVersion("3.1");
+		resources.add(getInstance(builder, SUCCESS));
+		DDMSVersion.setCurrentVersion("5.0");
+		resources.add(getInstance(getBaseBuilder(), SUCCESS));
+
+		List<ValidationMessage> messages = Resource.validateWithSchema(resources);
+		assertEquals(1, messages.size());
+		assertErrorEquality("nu.xom.ValidityException: cvc-attribute.4", "ddms:Resource[2]", messages.get(0));
+		assertTrue(resources.get(0).isSchemaValidated());
+		assertFalse(resources.get(1).isSchemaValidated());
+		assertTrue(resources.get(2).isSchemaValidated());
+	}
+
 	@Test
 	public void testLoad30Commit31() throws InvalidDDMSException {
 		// Direct mapping works
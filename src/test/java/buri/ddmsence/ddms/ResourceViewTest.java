@@ -0,0 +1,174 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms;
+
+import static org.junit.Assert.*;
+import nu.xom.Element;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.resource.Identifier;
+import buri.ddmsence.ddms.summary.RelatedResource;
+import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.Util;
+
+/**
+ * <p> Tests related to read-only views of ddms:resource elements </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class ResourceViewTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public ResourceViewTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Attempts to build a view from the element
+	 * 
+	 * @param element the element to view
+	 * @param message the expected error XPath locator, or empty string if we expect success
+	 * @return a valid object
+	 */
+	private ResourceView getInstance(Element element, String message) {
+		boolean expectFailure = !Util.isEmpty(message);
+		ResourceView component = null;
+		try {
+			component = new ResourceView(element);
+			checkConstructorSuccess(expectFailure);
+		}
+		catch (InvalidDDMSException e) {
+			checkConstructorFailure(expectFailure, e);
+			expectMessage(e, message);
+		}
+		return (component);
+	}
+
+	@Test
+	public void testConstructors() {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			getInstance(getValidElement(sVersion), SUCCESS);
+		}
+	}
+
+	@Test
+	public void testConstructorsInvalid() {
+		DDMSVersion.setCurrentVersion("5.0");
+
+		// Missing element
+		getInstance(null, "XOM Element must exist.");
+
+		// Wrong name
+		getInstance(getWrongNameElementFixture(), WRONG_NAME_MESSAGE);
+	}
+
+	@Test
+	public void testAccessorsMatchResource() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			ResourceView view = getInstance(getValidElement(sVersion), SUCCESS);
+			assertEquals(DDMSVersion.getVersionFor(sVersion), view.getDDMSVersion());
+			assertEquals(resource.getMetacardInfo(), view.getMetacardInfo());
+			assertEquals(resource.getIdentifiers(), view.getIdentifiers());
+			assertEquals(resource.getTitles(), view.getTitles());
+			assertEquals(resource.getSubtitles(), view.getSubtitles());
+			assertEquals(resource.getDescription(), view.getDescription());
+			assertEquals(resource.getLanguages(), view.getLanguages());
+			assertEquals(resource.getDates(), view.getDates());
+			assertEquals(resource.getRights(), view.getRights());
+			assertEquals(resource.getSources(), view.getSources());
+			assertEquals(resource.getTypes(), view.getTypes());
+			assertEquals(resource.getCreators(), view.getCreators());
+			assertEquals(resource.getPublishers(), view.getPublishers());
+			assertEquals(resource.getContributors(), view.getContributors());
+			assertEquals(resource.getPointOfContacts(), view.getPointOfContacts());
+			assertEquals(resource.getFormat(), view.getFormat());
+			assertEquals(resource.getSubjectCoverages(), view.getSubjectCoverages());
+			assertEquals(resource.getVirtualCoverages(), view.getVirtualCoverages());
+			assertEquals(resource.getTemporalCoverages(), view.getTemporalCoverages());
+			assertEquals(resource.getGeospatialCoverages(), view.getGeospatialCoverages());
+			assertEquals(resource.getRelatedResources(), view.getRelatedResources());
+			assertEquals(resource.getResourceManagement(), view.getResourceManagement());
+			assertEquals(resource.getSecurity(), view.getSecurity());
+			assertEquals(resource.getExtensibleElements(), view.getExtensibleElements());
+			assertEquals(resource.getSecurityAttributes(), view.getSecurityAttributes());
+			assertEquals(resource.getNoticeAttributes(), view.getNoticeAttributes());
+			assertEquals(resource, view.getResource());
+		}
+	}
+
+	@Test
+	public void testMultipleRelatedResourcesSplit() throws InvalidDDMSException {
+		Element element = getValidElementCopy("3.0");
+		String namespace = element.getNamespaceURI();
+		Element related = element.getFirstChildElement(RelatedResource.getName(DDMSVersion.getCurrentVersion()),
+			namespace);
+		Element second = new Element(related.getFirstChildElement(RelatedResource.OLD_INNER_NAME, namespace));
+		second.getAttribute("value", namespace).setValue("http://en.wikipedia.org/wiki/Tread");
+		related.appendChild(second);
+		Resource resource = new Resource(element);
+		ResourceView view = getInstance(element, SUCCESS);
+		assertEquals(2, resource.getRelatedResources().size());
+		assertEquals(resource.getRelatedResources(), view.getRelatedResources());
+	}
+
+	@Test
+	public void testAccessorsCached() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			ResourceView view = getInstance(getValidElement(sVersion), SUCCESS);
+			assertSame(view.getTitles(), view.getTitles());
+			assertSame(view.getSecurity(), view.getSecurity());
+			assertSame(view.getResource(), view.getResource());
+		}
+	}
+
+	@Test
+	public void testInvalidComponentOnlyFailsWhenAccessed() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		Element element = new Element(getValidElement("5.0"));
+		Element identifier = element.getFirstChildElement(Identifier.getName(DDMSVersion.getCurrentVersion()),
+			DDMSVersion.getCurrentVersion().getNamespace());
+		identifier.removeAttribute(identifier.getAttribute("qualifier", identifier.getNamespaceURI()));
+		ResourceView view = getInstance(element, SUCCESS);
+		assertFalse(view.getTitles().isEmpty());
+		try {
+			view.getIdentifiers();
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			assertEquals("/ddms:resource/ddms:identifier", e.getLocator());
+		}
+		try {
+			view.getResource();
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			// Good
+		}
+	}
+}
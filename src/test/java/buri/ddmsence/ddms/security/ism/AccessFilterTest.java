@@ -0,0 +1,194 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.security.ism;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.util.DDMSVersion;
+
+/**
+ * <p> Tests related to bulk access filtering on security attributes </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class AccessFilterTest extends AbstractBaseTestCase {
+
+	private static final List<String> NONE = Collections.emptyList();
+
+	/**
+	 * Constructor
+	 */
+	public AccessFilterTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Builds DDMS 5.0 security attributes.
+	 * 
+	 * @param classification the classification
+	 * @param names and values of other attributes, alternating
+	 * @return the attributes
+	 */
+	private static SecurityAttributes getAttributes(String classification, String... others) throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Map<String, String> otherAttributes = new HashMap<String, String>();
+		for (int i = 0; i < others.length; i += 2)
+			otherAttributes.put(others[i], others[i + 1]);
+		return (new SecurityAttributes(classification, Arrays.asList("USA"), otherAttributes));
+	}
+
+	/**
+	 * Returns a DDMS 5.0 filter for a user.
+	 */
+	private static AccessFilter getFilter(String clearance, List<String> authorizations, List<String> affiliations) {
+		return (new AccessFilter(DDMSVersion.getVersionFor("5.0"), clearance, authorizations, affiliations));
+	}
+
+	@Test
+	public void testClassification() throws Exception {
+		AccessFilter filter = getFilter("C", NONE, NONE);
+		assertTrue(filter.canAccess(getAttributes("U")));
+		assertTrue(filter.canAccess(getAttributes("C")));
+		assertFalse(filter.canAccess(getAttributes("S")));
+		assertFalse(filter.canAccess(getAttributes("TS")));
+		assertTrue(filter.canAccess((SecurityAttributes) null));
+		assertTrue(getFilter("TS", NONE, NONE).canAccess(getAttributes("TS")));
+
+		// NATO classifications in DDMS 2.0
+		DDMSVersion.setCurrentVersion("2.0");
+		filter = new AccessFilter(DDMSVersion.getCurrentVersion(), "NS", NONE, NONE);
+		assertTrue(filter.canAccess(new SecurityAttributes("S", Arrays.asList("USA"), null)));
+		assertFalse(filter.canAccess(new SecurityAttributes("CTS", Arrays.asList("USA"), null)));
+	}
+
+	@Test
+	public void testControls() throws Exception {
+		SecurityAttributes sci = getAttributes("TS", SecurityAttributes.SCI_CONTROLS_NAME, "HCS EL",
+			SecurityAttributes.DISSEMINATION_CONTROLS_NAME, "FOUO");
+		assertTrue(getFilter("TS", Arrays.asList("HCS", "EL", "FOUO", "RSV"), NONE).canAccess(sci));
+		assertFalse(getFilter("TS", Arrays.asList("HCS", "FOUO"), NONE).canAccess(sci));
+		assertFalse(getFilter("TS", Arrays.asList("HCS", "EL"), NONE).canAccess(sci));
+
+		// Tokens matching a CVE pattern, rather than a token, are never held
+		SecurityAttributes sar = getAttributes("S", SecurityAttributes.SAR_IDENTIFIER_NAME, "ABC-DEF");
+		assertFalse(getFilter("S", Arrays.asList("ABC-DEF"), NONE).canAccess(sar));
+		assertFalse(getFilter("S", Arrays.asList("ABC-XYZ"), NONE).canAccess(sar));
+		assertTrue(getFilter("S", Arrays.asList("ABC-DEF"), NONE).canAccess(getAttributes("S")));
+	}
+
+	@Test
+	public void testAudience() throws Exception {
+		SecurityAttributes releasable = getAttributes("S", SecurityAttributes.DISSEMINATION_CONTROLS_NAME, "REL",
+			SecurityAttributes.RELEASABLE_TO_NAME, "USA GBR");
+		SecurityAttributes displayOnly = getAttributes("S", SecurityAttributes.DISSEMINATION_CONTROLS_NAME,
+			"DISPLAYONLY", SecurityAttributes.DISPLAY_ONLY_TO_NAME, "AUS");
+		List<String> rel = Arrays.asList("REL", "DISPLAYONLY");
+		assertTrue(getFilter("S", rel, Arrays.asList("GBR")).canAccess(releasable));
+		assertFalse(getFilter("S", rel, Arrays.asList("AUS")).canAccess(releasable));
+		assertTrue(getFilter("S", rel, Arrays.asList("AUS")).canAccess(displayOnly));
+		assertFalse(getFilter("S", rel, NONE).canAccess(displayOnly));
+		assertTrue(getFilter("S", rel, NONE).canAccess(getAttributes("S")));
+
+		// Affiliations outside the vocabulary never match
+		assertTrue(getFilter("S", rel, Arrays.asList("GBR", "XYZ")).canAccess(releasable));
+		assertFalse(getFilter("S", rel, Arrays.asList("XYZ")).canAccess(releasable));
+	}
+
+	@Test
+	public void testBulkFiltering() throws Exception {
+		AccessFilter filter = getFilter("S", Arrays.asList("FOUO"), NONE);
+		List<SecurityAttributes> records = new ArrayList<SecurityAttributes>();
+		for (int i = 0; i < 300; i++) {
+			if (i % 3 == 0)
+				records.add(getAttributes("TS"));
+			else if (i % 3 == 1)
+				records.add(getAttributes("C", SecurityAttributes.DISSEMINATION_CONTROLS_NAME, "FOUO"));
+			else
+				records.add(getAttributes("U", SecurityAttributes.DISSEMINATION_CONTROLS_NAME, "NF"));
+		}
+		BitSet accessible = filter.getAccessible(records);
+		assertEquals(100, accessible.cardinality());
+		assertTrue(accessible.get(1));
+		assertFalse(accessible.get(0));
+		assertFalse(accessible.get(2));
+
+		// Encoded records can be checked by many filters
+		AccessFilter.EncodedRecords encoded = AccessFilter.encode(DDMSVersion.getVersionFor("5.0"), records);
+		assertEquals(300, encoded.size());
+		assertEquals(accessible, filter.getAccessible(encoded));
+		assertEquals(200, getFilter("TS", Arrays.asList("FOUO"), NONE).getAccessible(encoded).cardinality());
+		assertEquals(0, getFilter("U", NONE, NONE).getAccessible(encoded).cardinality());
+		try {
+			new AccessFilter(DDMSVersion.getVersionFor("3.0"), "S", NONE, NONE).getAccessible(encoded);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The records were encoded for a different DDMS version.");
+		}
+
+		// Only the distinct markings are evaluated and cached
+		for (int i = 0; i < records.size(); i++)
+			assertEquals(accessible.get(i), filter.canAccess(records.get(i)));
+		assertEquals(3, filter.getCachedDecisionCount());
+
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		assertEquals(Arrays.asList(resource), filter.filter(Arrays.asList(resource, null)));
+		assertTrue(getFilter("U", NONE, NONE).canAccess(resource));
+	}
+
+	@Test
+	public void testInvalidClearance() {
+		try {
+			getFilter("Secret", NONE, NONE);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "Secret is not a valid enumeration token");
+		}
+		try {
+			new AccessFilter(DDMSVersion.getVersionFor("5.0"), "NS", NONE, NONE);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "NS is not a valid enumeration token");
+		}
+		try {
+			getFilter("U", null, NONE);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "authorizations must exist.");
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.ddms.security.ism;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import nu.xom.Element;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.security.Security;
+import buri.ddmsence.util.DDMSVersion;
+import buri.ddmsence.util.PropertyReader;
+import buri.ddmsence.util.Util;
+
+/**
+ * <p> Tests related to the cache of canonical attribute groups </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class AttributeGroupCacheTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public AttributeGroupCacheTest() {
+		super(null);
+	}
+
+	@Test
+	public void testConstructorRequiresNames() {
+		try {
+			new AttributeGroupCache<SecurityAttributes>(null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "names must exist.");
+		}
+	}
+
+	@Test
+	public void testGetTokens() {
+		assertTrue(AttributeGroupCache.getTokens(null).isEmpty());
+		assertTrue(AttributeGroupCache.getTokens("").isEmpty());
+		assertTrue(AttributeGroupCache.getTokens("   ").isEmpty());
+		assertEquals(Arrays.asList("USA"), AttributeGroupCache.getTokens("USA"));
+		assertEquals(Arrays.asList("USA", "AUS"), AttributeGroupCache.getTokens(" USA  AUS "));
+	}
+
+	@Test
+	public void testGetTokensShared() {
+		List<String> tokens = AttributeGroupCache.getTokens(new String("USA AUS"));
+		assertSame(tokens, AttributeGroupCache.getTokens(new String("USA AUS")));
+		assertSame(tokens.get(0), AttributeGroupCache.getTokens(new String("GBR USA")).get(1));
+		assertSame("USA", tokens.get(0));
+	}
+
+	@Test
+	public void testGetTokensUnmodifiable() {
+		List<String> tokens = AttributeGroupCache.getTokens("USA AUS");
+		try {
+			tokens.add("GBR");
+			fail("Allowed a shared list to be modified.");
+		}
+		catch (UnsupportedOperationException e) {
+			// Good
+		}
+	}
+
+	@Test
+	public void testGetKey() throws InvalidDDMSException {
+		AttributeGroupCache<SecurityAttributes> cache = new AttributeGroupCache<SecurityAttributes>(
+			SecurityAttributes.NON_EXTENSIBLE_NAMES);
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
+			Element element = Util.buildDDMSElement(Security.getName(version), null);
+			assertEquals(cache.getKey(version, null), cache.getKey(version, element));
+
+			SecurityAttributesTest.getFixture().addTo(element);
+			String key = cache.getKey(version, element);
+			assertFalse(key.equals(cache.getKey(version, null)));
+			assertEquals(key, cache.getKey(version, new Element(element)));
+
+			Util.addAttribute(element, PropertyReader.getPrefix("ism"), SecurityAttributes.CLASSIFIED_BY_NAME,
+				version.getIsmNamespace(), "Someone");
+			assertFalse(key.equals(cache.getKey(version, element)));
+		}
+		assertFalse(cache.getKey(DDMSVersion.getVersionFor("4.1"), null).equals(
+			cache.getKey(DDMSVersion.getVersionFor("5.0"), null)));
+	}
+
+	@Test
+	public void testPut() throws InvalidDDMSException {
+		AttributeGroupCache<SecurityAttributes> cache = new AttributeGroupCache<SecurityAttributes>(
+			SecurityAttributes.NON_EXTENSIBLE_NAMES);
+		SecurityAttributes first = new SecurityAttributes(null, null, null);
+		SecurityAttributes second = new SecurityAttributes(null, null, null);
+		assertNull(cache.get("key"));
+		assertSame(first, cache.put("key", first));
+		assertSame(first, cache.put("key", second));
+		assertSame(first, cache.get("key"));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testPutBounded() throws InvalidDDMSException {
+		AttributeGroupCache<SecurityAttributes> cache = new AttributeGroupCache<SecurityAttributes>(
+			SecurityAttributes.NON_EXTENSIBLE_NAMES);
+		SecurityAttributes attributes = new SecurityAttributes(null, null, null);
+		for (int i = 0; i < AttributeGroupCache.MAX_CACHED_ENTRIES + 1; i++)
+			cache.put(String.valueOf(i), attributes);
+		assertEquals(1, cache.size());
+	}
+}
@@ -21,11 +21,14 @@ package buri.ddmsence.ddms.security.ism;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import org.junit.Test;
 
@@ -154,6 +157,33 @@ public class ISMVocabularyTest extends AbstractBaseTestCase {
 		assertFalse(ISMVocabulary.enumContains(version, ISMVocabulary.CVE_US_CLASSIFICATIONS, "CTS"));
 	}
 
+	@Test
+	public void testVocabulariesSharedAcrossVersions() throws InterruptedException {
+		final DDMSVersion version20 = DDMSVersion.getVersionFor("2.0");
+		DDMSVersion version50 = DDMSVersion.getVersionFor("5.0");
+		final Set<String> tokens20 = ISMVocabulary.getEnumerationTokens(version20, ISMVocabulary.CVE_OWNER_PRODUCERS);
+		Set<String> tokens50 = ISMVocabulary.getEnumerationTokens(version50, ISMVocabulary.CVE_OWNER_PRODUCERS);
+		assertNotSame(tokens20, tokens50);
+		assertSame(tokens20, ISMVocabulary.getEnumerationTokens(version20, ISMVocabulary.CVE_OWNER_PRODUCERS));
+
+		final List<Set<String>> otherThreadTokens = new ArrayList<Set<String>>();
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				otherThreadTokens.add(ISMVocabulary.getEnumerationTokens(version20, ISMVocabulary.CVE_OWNER_PRODUCERS));
+			}
+		});
+		thread.start();
+		thread.join();
+		assertSame(tokens20, otherThreadTokens.get(0));
+	}
+
+	@Test
+	public void testPatterns() {
+		DDMSVersion version = DDMSVersion.getVersionFor("5.0");
+		assertFalse(ISMVocabulary.getEnumerationPatterns(version, ISMVocabulary.CVE_SCI_CONTROLS).isEmpty());
+		assertTrue(ISMVocabulary.getEnumerationPatterns(version, ISMVocabulary.CVE_ALL_CLASSIFICATIONS).isEmpty());
+	}
+
 	@Test
 	public void testInvalidMessage() {
 		assertEquals("Dog is not a valid enumeration token for this attribute, as specified in Cat.",
@@ -348,6 +348,25 @@ public class NoticeAttributesTest extends AbstractBaseTestCase {
 
 		output = NoticeAttributes.getNonNullInstance(getFixture());
 		assertEquals(getFixture(), output);
+
+		assertSame(NoticeAttributes.getNonNullInstance(null), NoticeAttributes.getNonNullInstance(null));
+	}
+
+	@Test
+	public void testGetInstance() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
+			Element element = Util.buildDDMSElement(Resource.getName(version), null);
+			getFixture().addTo(element);
+			NoticeAttributes attributes = NoticeAttributes.getInstance(element);
+			assertEquals(new NoticeAttributes(element), attributes);
+			assertSame(attributes, NoticeAttributes.getInstance(new Element(element)));
+
+			Element other = Util.buildDDMSElement(Resource.getName(version), null);
+			Util.addAttribute(other, PropertyReader.getPrefix("ism"), NoticeAttributes.NOTICE_REASON_NAME,
+				version.getIsmNamespace(), "Another reason");
+			assertNotSame(attributes, NoticeAttributes.getInstance(other));
+		}
 	}
 	
 	@Test
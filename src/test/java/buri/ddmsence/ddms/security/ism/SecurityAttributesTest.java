@@ -633,6 +633,53 @@ public class SecurityAttributesTest extends AbstractBaseTestCase {
 
 		output = SecurityAttributes.getNonNullInstance(getFixture());
 		assertEquals(getFixture(), output);
+
+		assertSame(SecurityAttributes.getNonNullInstance(null), SecurityAttributes.getNonNullInstance(null));
+	}
+
+	@Test
+	public void testGetInstance() throws InvalidDDMSException {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
+			Element element = Util.buildDDMSElement(Security.getName(version), null);
+			getFullFixture().addTo(element);
+			SecurityAttributes attributes = SecurityAttributes.getInstance(element);
+			assertEquals(new SecurityAttributes(element), attributes);
+
+			// Equal markings share an instance
+			Element copy = new Element(element);
+			assertSame(attributes, SecurityAttributes.getInstance(copy));
+			assertSame(attributes.getOwnerProducers().get(0),
+				SecurityAttributes.getInstance(copy).getOwnerProducers().get(0));
+
+			// Different markings do not
+			Util.addAttribute(copy, PropertyReader.getPrefix("ism"), SecurityAttributes.CLASSIFIED_BY_NAME,
+				version.getIsmNamespace(), "Someone Else");
+			assertNotSame(attributes, SecurityAttributes.getInstance(copy));
+
+			// Unmarked elements share the empty instance
+			Element unmarked = Util.buildDDMSElement(Security.getName(version), null);
+			assertSame(SecurityAttributes.getNonNullInstance(null), SecurityAttributes.getInstance(unmarked));
+		}
+	}
+
+	@Test
+	public void testGetInstanceInvalid() {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion version = DDMSVersion.setCurrentVersion(sVersion);
+			Element element = Util.buildDDMSElement(Security.getName(version), null);
+			Util.addAttribute(element, PropertyReader.getPrefix("ism"), SecurityAttributes.CLASSIFICATION_NAME,
+				version.getIsmNamespace(), "Z");
+			for (int i = 0; i < 2; i++) {
+				try {
+					SecurityAttributes.getInstance(element);
+					fail("Allowed invalid data.");
+				}
+				catch (InvalidDDMSException e) {
+					expectMessage(e, "Z is not a valid enumeration token");
+				}
+			}
+		}
 	}
 
 	@Test
@@ -0,0 +1,229 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * A collection of DDMSBulkLoader tests.
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class DDMSBulkLoaderTest extends AbstractBaseTestCase {
+
+	private static final File TEST_DIRECTORY = new File(PropertyReader.getProperty("test.unit.data"), "5.0");
+	private static final File VALID_FILE = new File(TEST_DIRECTORY, "resource.xml");
+	private static final File WRONG_ELEMENT_FILE = new File(TEST_DIRECTORY, "rights.xml");
+	private static final File MISSING_FILE = new File(TEST_DIRECTORY, "doesnotexist.xml");
+	private static final File SCHEMATRON_FILE = new File(TEST_DIRECTORY, "testSchematronXslt1.sch");
+
+	public DDMSBulkLoaderTest() {
+		super(null);
+	}
+
+	/**
+	 * Handler which records the ordinals and outcomes it receives.
+	 */
+	private static class RecordingHandler implements IResourceHandler {
+		private List<Integer> _ordinals = new ArrayList<Integer>();
+		private List<Resource> _resources = new ArrayList<Resource>();
+		private List<List<ValidationMessage>> _errors = new ArrayList<List<ValidationMessage>>();
+
+		public void handleResource(int ordinal, int lineNumber, Resource resource) {
+			assertEquals(-1, lineNumber);
+			_ordinals.add(ordinal);
+			_resources.add(resource);
+		}
+
+		public void handleInvalidResource(int ordinal, int lineNumber, List<ValidationMessage> errors) {
+			assertEquals(-1, lineNumber);
+			_ordinals.add(ordinal);
+			_errors.add(errors);
+		}
+	}
+
+	/**
+	 * Returns a mix of valid and invalid files
+	 */
+	private List<File> getMixedFiles() {
+		List<File> files = new ArrayList<File>();
+		files.add(VALID_FILE);
+		files.add(WRONG_ELEMENT_FILE);
+		files.add(MISSING_FILE);
+		files.add(VALID_FILE);
+		files.add(VALID_FILE);
+		return (files);
+	}
+
+	@Test
+	public void testConstructorValidation() {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			new DDMSBulkLoader(DDMSVersion.getVersionFor("5.0"), executor, new DDMSReaderPool(), null, 0, true);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The maximum number of pending files must be at least 1.");
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testOrdered() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			DDMSBulkLoader loader = new DDMSBulkLoader(DDMSVersion.getVersionFor("5.0"), executor,
+				new DDMSReaderPool(2, DDMSReaderPool.DEFAULT_IDLE_TIMEOUT_MILLIS), null, 2, true);
+			RecordingHandler handler = new RecordingHandler();
+			loader.load(getMixedFiles(), handler);
+			assertEquals(getOrdinals(5), handler._ordinals);
+			assertEquals(3, handler._resources.size());
+			assertEquals(handler._resources.get(0), handler._resources.get(1));
+			assertEquals(2, handler._errors.size());
+			assertTrue(handler._errors.get(0).get(0).getText().startsWith("Unexpected namespace URI and local name"));
+			assertTrue(handler._errors.get(1).get(0).getText().startsWith("Could not load doesnotexist.xml"));
+			assertEquals(3, loader.getValidCount());
+			assertEquals(2, loader.getInvalidCount());
+			assertTrue(loader.getElapsedMillis() >= 0);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testUnordered() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(3);
+		try {
+			DDMSBulkLoader loader = new DDMSBulkLoader(DDMSVersion.getVersionFor("5.0"), executor,
+				new DDMSReaderPool(), null, 3, false);
+			RecordingHandler handler = new RecordingHandler();
+			loader.load(getMixedFiles(), handler);
+			List<Integer> ordinals = new ArrayList<Integer>(handler._ordinals);
+			Collections.sort(ordinals);
+			assertEquals(getOrdinals(5), ordinals);
+			assertEquals(3, handler._resources.size());
+			assertEquals(2, handler._errors.size());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSchematron() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			SchematronValidator validator = SchematronValidator.getInstance(SCHEMATRON_FILE);
+			DDMSBulkLoader loader = new DDMSBulkLoader(DDMSVersion.getVersionFor("5.0"), executor,
+				new DDMSReaderPool(), validator, 2, true);
+			RecordingHandler handler = new RecordingHandler();
+			loader.load(Collections.singletonList(VALID_FILE), handler);
+			assertEquals(0, handler._resources.size());
+			Resource resource = new DDMSReader(DDMSVersion.getVersionFor("5.0")).getDDMSResource(VALID_FILE);
+			assertEquals(resource.validateWithSchematron(validator), handler._errors.get(0));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testDirectory() throws Exception {
+		List<File> files = DDMSBulkLoader.listFiles(TEST_DIRECTORY, "res*.xml");
+		assertEquals(2, files.size());
+		assertEquals("resource.xml", files.get(0).getName());
+		assertEquals("resourceManagement.xml", files.get(1).getName());
+		assertTrue(DDMSBulkLoader.listFiles(TEST_DIRECTORY, null).contains(SCHEMATRON_FILE));
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			DDMSBulkLoader loader = new DDMSBulkLoader(DDMSVersion.getVersionFor("5.0"), executor);
+			RecordingHandler handler = new RecordingHandler();
+			loader.load(TEST_DIRECTORY, "resource.xml", handler);
+			assertEquals(1, handler._resources.size());
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testDirectoryMissing() throws Exception {
+		try {
+			DDMSBulkLoader.listFiles(MISSING_FILE, "*.xml");
+			fail("Allowed invalid data.");
+		}
+		catch (IOException e) {
+			expectMessage(e, "Could not list the files in");
+		}
+	}
+
+	@Test
+	public void testCurrentVersionRestored() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			DDMSBulkLoader loader = new DDMSBulkLoader(DDMSVersion.getVersionFor("5.0"), executor);
+			final List<DDMSVersion> versions = new ArrayList<DDMSVersion>();
+			executor.submit(new Runnable() {
+				public void run() {
+					DDMSVersion.setCurrentVersion("2.0");
+				}
+			}).get();
+			loader.load(Collections.singletonList(VALID_FILE), new RecordingHandler());
+			executor.submit(new Runnable() {
+				public void run() {
+					versions.add(DDMSVersion.getCurrentVersion());
+				}
+			}).get();
+			assertEquals(DDMSVersion.getVersionFor("2.0"), versions.get(0));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Returns the ordinals from 1 to count.
+	 */
+	private static List<Integer> getOrdinals(int count) {
+		List<Integer> ordinals = new ArrayList<Integer>();
+		for (int i = 1; i <= count; i++)
+			ordinals.add(i);
+		return (ordinals);
+	}
+}
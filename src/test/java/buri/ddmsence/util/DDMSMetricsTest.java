@@ -0,0 +1,216 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * A collection of DDMSMetrics tests.
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class DDMSMetricsTest extends AbstractBaseTestCase {
+
+	private static final File TEST_DIRECTORY = new File(PropertyReader.getProperty("test.unit.data"), "5.0");
+
+	public DDMSMetricsTest() {
+		super(null);
+	}
+
+	/**
+	 * Removes any listener registered by a test.
+	 */
+	@After
+	public void tearDown() throws Exception {
+		DDMSMetrics.setListener(null);
+	}
+
+	/**
+	 * Listener which keeps every measurement it receives.
+	 */
+	private static class ListListener implements IMetricsListener {
+		private List<String> _started = new ArrayList<String>();
+		private List<String> _phases = new ArrayList<String>();
+		private List<String> _details = new ArrayList<String>();
+		private List<Long> _sizes = new ArrayList<Long>();
+		private List<Integer> _errorCounts = new ArrayList<Integer>();
+
+		public synchronized void phaseStarted(String phase) {
+			_started.add(phase);
+		}
+
+		public synchronized void phaseCompleted(String phase, String detail, long durationNanos, long size,
+			int errorCount) {
+			assertTrue(durationNanos >= 0);
+			_phases.add(phase);
+			_details.add(detail);
+			_sizes.add(size);
+			_errorCounts.add(errorCount);
+		}
+	}
+
+	@Test
+	public void testDisabledByDefault() {
+		assertFalse(DDMSMetrics.isEnabled());
+		assertNull(DDMSMetrics.getListener());
+		assertEquals(0, DDMSMetrics.start(DDMSMetrics.PHASE_PARSE));
+	}
+
+	@Test
+	public void testParseAndBuild() throws Exception {
+		ListListener listener = new ListListener();
+		DDMSMetrics.setListener(listener);
+		assertTrue(DDMSMetrics.isEnabled());
+		assertSame(listener, DDMSMetrics.getListener());
+
+		File file = new File(TEST_DIRECTORY, "resource.xml");
+		new DDMSReader(DDMSVersion.getVersionFor("5.0")).getDDMSResource(file);
+		int parse = listener._phases.indexOf(DDMSMetrics.PHASE_PARSE);
+		assertEquals("5.0", listener._details.get(parse));
+		assertEquals(Long.valueOf(file.length()), listener._sizes.get(parse));
+		assertEquals(Integer.valueOf(0), listener._errorCounts.get(parse));
+		assertTrue(listener._phases.contains(DDMSMetrics.PHASE_VALIDATE));
+		assertTrue(listener._details.contains("title"));
+		assertEquals(DDMSMetrics.PHASE_BUILD, listener._phases.get(listener._phases.size() - 1));
+	}
+
+	@Test
+	public void testColdGrammarPool() throws Exception {
+		DDMSReader.clearGrammarPools();
+		ListListener listener = new ListListener();
+		DDMSMetrics.setListener(listener);
+		DDMSReader reader = new DDMSReader(DDMSVersion.getVersionFor("5.0"));
+		reader.getElement(new File(TEST_DIRECTORY, "resource.xml"));
+		assertEquals(DDMSMetrics.PHASE_GRAMMAR_LOAD, listener._phases.get(0));
+		assertEquals("5.0", listener._details.get(0));
+		assertTrue(listener._sizes.get(0) > 0);
+		assertEquals(Integer.valueOf(0), listener._errorCounts.get(0));
+		assertEquals(DDMSMetrics.PHASE_PARSE, listener._phases.get(1));
+
+		// The pool is warm now, even for another reader.
+		new DDMSReader(DDMSVersion.getVersionFor("5.0")).getElement(new File(TEST_DIRECTORY, "resource.xml"));
+		assertEquals(3, listener._phases.size());
+		assertEquals(DDMSMetrics.PHASE_PARSE, listener._phases.get(2));
+		assertEquals(listener._phases, listener._started);
+	}
+
+	@Test
+	public void testBuildFromComponents() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new DDMSReader(DDMSVersion.getCurrentVersion()).getDDMSResource(new File(TEST_DIRECTORY,
+			"resource.xml"));
+		ListListener listener = new ListListener();
+		DDMSMetrics.setListener(listener);
+		new Resource.Builder(resource).commit();
+		assertTrue(listener._phases.contains(DDMSMetrics.PHASE_SCHEMA_VALIDATE));
+		int last = listener._phases.size() - 1;
+		assertEquals(DDMSMetrics.PHASE_BUILD, listener._phases.get(last));
+		assertEquals("5.0", listener._details.get(last));
+		assertEquals(Long.valueOf(resource.getTopLevelComponents().size()), listener._sizes.get(last));
+	}
+
+	@Test
+	public void testParseFailure() throws Exception {
+		ListListener listener = new ListListener();
+		DDMSMetrics.setListener(listener);
+		try {
+			new DDMSReader(DDMSVersion.getVersionFor("5.0")).getElement("<wrong></wrong>");
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			int parse = listener._phases.indexOf(DDMSMetrics.PHASE_PARSE);
+			assertEquals(Integer.valueOf(1), listener._errorCounts.get(parse));
+		}
+	}
+
+	@Test
+	public void testRender() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new DDMSReader(DDMSVersion.getCurrentVersion()).getDDMSResource(new File(TEST_DIRECTORY,
+			"resource.xml"));
+		ListListener listener = new ListListener();
+		DDMSMetrics.setListener(listener);
+		String xml = resource.toXML();
+		String html = resource.toHTML();
+		resource.toText();
+		resource.toJSON();
+		resource.writeJSON(new StringBuilder());
+		assertEquals(5, listener._phases.size());
+		for (String phase : listener._phases)
+			assertEquals(DDMSMetrics.PHASE_RENDER, phase);
+		assertEquals("XML", listener._details.get(0));
+		assertEquals(Long.valueOf(xml.length()), listener._sizes.get(0));
+		assertEquals("HTML", listener._details.get(1));
+		assertEquals(Long.valueOf(html.length()), listener._sizes.get(1));
+		assertEquals("TEXT", listener._details.get(2));
+		assertEquals("JSON", listener._details.get(3));
+		assertEquals(Long.valueOf(-1), listener._sizes.get(4));
+	}
+
+	@Test
+	public void testSchematron() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new DDMSReader(DDMSVersion.getCurrentVersion()).getDDMSResource(new File(TEST_DIRECTORY,
+			"resource.xml"));
+		ListListener listener = new ListListener();
+		DDMSMetrics.setListener(listener);
+		SchematronValidator validator = new SchematronValidator(new File(TEST_DIRECTORY, "testSchematronXslt1.sch"));
+		assertEquals(DDMSMetrics.PHASE_SCHEMATRON_COMPILE, listener._phases.get(0));
+		assertEquals(validator.getPath(), listener._details.get(0));
+
+		int errors = 0;
+		for (ValidationMessage message : resource.validateWithSchematron(validator)) {
+			if (ValidationMessage.ERROR_TYPE.equals(message.getType()))
+				errors++;
+		}
+		int last = listener._phases.size() - 1;
+		assertEquals(DDMSMetrics.PHASE_SCHEMATRON_APPLY, listener._phases.get(last));
+		assertEquals(Integer.valueOf(errors), listener._errorCounts.get(last));
+	}
+
+	@Test
+	public void testListenerRemovedMidPhase() {
+		ListListener removed = new ListListener();
+		DDMSMetrics.setListener(removed);
+		long start = DDMSMetrics.start(DDMSMetrics.PHASE_PARSE);
+		assertTrue(start != 0);
+		assertEquals(DDMSMetrics.PHASE_PARSE, removed._started.get(0));
+		DDMSMetrics.setListener(null);
+		DDMSMetrics.record(DDMSMetrics.PHASE_PARSE, null, start, -1, 0);
+
+		ListListener listener = new ListListener();
+		DDMSMetrics.setListener(listener);
+		DDMSMetrics.record(DDMSMetrics.PHASE_PARSE, null, 0, -1, 0);
+		assertTrue(listener._phases.isEmpty());
+	}
+}
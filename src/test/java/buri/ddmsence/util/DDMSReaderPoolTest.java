@@ -0,0 +1,185 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.xml.sax.SAXException;
+
+import buri.ddmsence.AbstractBaseTestCase;
+
+/**
+ * A collection of DDMSReaderPool tests.
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class DDMSReaderPoolTest extends AbstractBaseTestCase {
+
+	public DDMSReaderPoolTest() {
+		super(null);
+	}
+
+	@Test
+	public void testConstructorValidation() {
+		try {
+			new DDMSReaderPool(0, 1000);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The capacity must be at least 1.");
+		}
+		try {
+			new DDMSReaderPool(1, -1);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The idle timeout must not be negative.");
+		}
+	}
+
+	@Test
+	public void testReuse() throws Exception {
+		DDMSReaderPool pool = new DDMSReaderPool(2, 60000);
+		DDMSVersion version = DDMSVersion.getVersionFor("5.0");
+		DDMSReader reader = pool.borrowReader(version);
+		assertEquals(version, reader.getVersion());
+		assertEquals(1, pool.getActiveCount(version));
+		pool.returnReader(reader);
+		assertEquals(0, pool.getActiveCount(version));
+		assertEquals(1, pool.getIdleCount(version));
+		assertSame(reader, pool.borrowReader(version));
+		assertNotSame(reader, pool.borrowReader(DDMSVersion.getVersionFor("4.1")));
+	}
+
+	@Test
+	public void testCapacity() throws Exception {
+		DDMSReaderPool pool = new DDMSReaderPool(1, 60000);
+		DDMSVersion version = DDMSVersion.getVersionFor("5.0");
+		DDMSReader reader = pool.borrowReader(version);
+		assertNull(pool.borrowReader(version, 10, TimeUnit.MILLISECONDS));
+		assertNotNull(pool.borrowReader(DDMSVersion.getVersionFor("4.1"), 10, TimeUnit.MILLISECONDS));
+		pool.returnReader(reader);
+		assertSame(reader, pool.borrowReader(version, 10, TimeUnit.MILLISECONDS));
+	}
+
+	@Test
+	public void testReturnValidation() throws Exception {
+		DDMSReaderPool pool = new DDMSReaderPool(1, 60000);
+		DDMSVersion version = DDMSVersion.getVersionFor("5.0");
+		try {
+			pool.returnReader(new DDMSReader(version));
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "This DDMSReader was not borrowed from this pool.");
+		}
+		DDMSReader reader = pool.borrowReader(version);
+		pool.returnReader(reader);
+		try {
+			pool.returnReader(reader);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "This DDMSReader was not borrowed from this pool.");
+		}
+		assertEquals(0, pool.getActiveCount(version));
+	}
+
+	@Test
+	public void testResetOnReturn() throws Exception {
+		DDMSReaderPool pool = new DDMSReaderPool(1, 60000);
+		DDMSVersion version = DDMSVersion.getVersionFor("2.0");
+		DDMSReader reader = pool.borrowReader(version);
+		String defaultLocations = reader.getExternalSchemaLocations();
+		reader.addExternalSchemaLocation("https://ddmsence.atlassian.net/browse/DDMSENCE-223",
+			PropertyReader.getProperty("test.unit.data") + "2.0/DDMSENCE-223.xsd");
+		assertFalse(defaultLocations.equals(reader.getExternalSchemaLocations()));
+		pool.returnReader(reader);
+		reader = pool.borrowReader(version);
+		assertEquals(defaultLocations, reader.getExternalSchemaLocations());
+	}
+
+	@Test
+	public void testIdleEviction() throws Exception {
+		DDMSReaderPool pool = new DDMSReaderPool(2, 0);
+		DDMSVersion version = DDMSVersion.getVersionFor("5.0");
+		DDMSReader reader = pool.borrowReader(version);
+		pool.returnReader(reader);
+		Thread.sleep(5);
+		pool.evictIdleReaders();
+		assertEquals(0, pool.getIdleCount(version));
+		assertNotSame(reader, pool.borrowReader(version));
+	}
+
+	@Test
+	public void testMultithreaded() throws Exception {
+		final DDMSReaderPool pool = new DDMSReaderPool(2, 60000);
+		final DDMSVersion version = DDMSVersion.getVersionFor("5.0");
+		final File file = new File(PropertyReader.getProperty("test.unit.data"), "5.0/resource.xml");
+		final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 6; i++) {
+			threads.add(new Thread(new Runnable() {
+				public void run() {
+					try {
+						DDMSVersion.setCurrentVersion(version.getVersion());
+						DDMSReader reader = pool.borrowReader(version);
+						try {
+							reader.getDDMSResource(file);
+						}
+						finally {
+							pool.returnReader(reader);
+						}
+					}
+					catch (Throwable e) {
+						errors.add(e);
+					}
+				}
+			}));
+		}
+		for (Thread thread : threads)
+			thread.start();
+		for (Thread thread : threads)
+			thread.join();
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(0, pool.getActiveCount(version));
+		assertTrue(pool.getIdleCount(version) <= 2);
+	}
+
+	@Test
+	public void testBorrowValidation() throws SAXException, InterruptedException {
+		DDMSReaderPool pool = new DDMSReaderPool(1, 60000);
+		try {
+			pool.borrowReader(null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "version must exist.");
+		}
+	}
+}
@@ -28,12 +28,26 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.LineNumberReader;
 import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
 
+import javax.xml.parsers.SAXParserFactory;
+
+import nu.xom.Builder;
+import nu.xom.Document;
+
+import org.apache.xerces.xni.grammars.XMLGrammarDescription;
+import org.apache.xerces.xni.grammars.XMLGrammarPool;
 import org.junit.Test;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import buri.ddmsence.AbstractBaseTestCase;
 import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ResourceView;
+import buri.ddmsence.ddms.ValidationMessage;
 
 /**
  * A collection of DDMSReader tests.
@@ -199,7 +213,9 @@ public class DDMSReaderTest extends AbstractBaseTestCase {
 	@Test
 	public void testGetResourceSuccessFile() throws InvalidDDMSException, IOException {
 		DDMSVersion.setCurrentVersion("3.0");
-		getReader("3.0").getDDMSResource(new File(PropertyReader.getProperty("test.unit.data"), "3.0/resource.xml"));
+		Resource resource = getReader("3.0").getDDMSResource(new File(PropertyReader.getProperty("test.unit.data"),
+			"3.0/resource.xml"));
+		assertTrue(resource.isSchemaValidated());
 	}
 
 	@Test
@@ -234,6 +250,25 @@ public class DDMSReaderTest extends AbstractBaseTestCase {
 			new FileReader(new File(PropertyReader.getProperty("test.unit.data"), "3.0/resource.xml")));
 	}
 
+	@Test
+	public void testGetResourceViewSuccess() throws InvalidDDMSException, IOException {
+		File file = new File(PropertyReader.getProperty("test.unit.data"), "3.0/resource.xml");
+		ResourceView view = getReader("3.0").getDDMSResourceView(file);
+		assertEquals(getReader("3.0").getDDMSResource(file), view.getResource());
+		assertTrue(view.getResource().isSchemaValidated());
+	}
+
+	@Test
+	public void testGetResourceViewWrongElement() throws IOException {
+		try {
+			getReader("3.0").getDDMSResourceView(new File(PropertyReader.getProperty("test.unit.data"), "3.0/rights.xml"));
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "Unexpected namespace URI and local name encountered");
+		}
+	}
+
 	@Test
 	public void testGetExternalSchemaLocation() {
 		String externalLocations = getReader("3.0").getExternalSchemaLocations();
@@ -281,6 +316,212 @@ public class DDMSReaderTest extends AbstractBaseTestCase {
 		}
 	}
 	
+	@Test
+	public void testGrammarPoolSharedByVersion() {
+		DDMSReader reader1 = getReader("5.0");
+		DDMSReader reader2 = getReader("5.0");
+		DDMSReader reader3 = getReader("4.1");
+		assertSame(DDMSReader.getGrammarPool(reader1.getExternalSchemaLocations()),
+			DDMSReader.getGrammarPool(reader2.getExternalSchemaLocations()));
+		assertNotSame(DDMSReader.getGrammarPool(reader1.getExternalSchemaLocations()),
+			DDMSReader.getGrammarPool(reader3.getExternalSchemaLocations()));
+	}
+
+	@Test
+	public void testGrammarPoolExternalSchemaLocation() {
+		DDMSReader reader1 = getReader("2.0");
+		DDMSReader reader2 = getReader("2.0");
+		reader2.addExternalSchemaLocation("https://ddmsence.atlassian.net/browse/DDMSENCE-223",
+			PropertyReader.getProperty("test.unit.data") + "2.0/DDMSENCE-223.xsd");
+		assertNotSame(DDMSReader.getGrammarPool(reader1.getExternalSchemaLocations()),
+			DDMSReader.getGrammarPool(reader2.getExternalSchemaLocations()));
+	}
+
+	@Test
+	public void testGrammarPoolReuse() throws InvalidDDMSException, IOException {
+		File resource = new File(PropertyReader.getProperty("test.unit.data"), "5.0/resource.xml");
+		DDMSReader reader = getReader("5.0");
+		XMLGrammarPool pool = DDMSReader.getGrammarPool(reader.getExternalSchemaLocations());
+		reader.getDDMSResource(resource);
+		int grammarCount = pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length;
+		assertTrue(grammarCount > 0);
+
+		// Later reads reuse the pool without loading more grammars.
+		DDMSReader reader2 = getReader("5.0");
+		assertSame(pool, DDMSReader.getGrammarPool(reader2.getExternalSchemaLocations()));
+		reader2.getDDMSResource(resource);
+		reader.getDDMSResource(resource);
+		assertEquals(grammarCount, pool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+
+		// Clearing the pools makes the next reader load into a new pool.
+		DDMSReader.clearGrammarPools();
+		DDMSReader reader3 = getReader("5.0");
+		XMLGrammarPool newPool = DDMSReader.getGrammarPool(reader3.getExternalSchemaLocations());
+		assertNotSame(pool, newPool);
+		reader3.getDDMSResource(resource);
+		assertEquals(grammarCount, newPool.retrieveInitialGrammarSet(XMLGrammarDescription.XML_SCHEMA).length);
+	}
+
+	@Test
+	public void testReadDDMSResourcesDiscardsWrappers() throws Exception {
+		String record = readFile(new File(PropertyReader.getProperty("test.unit.data"), "5.0/resource.xml"))
+			.replaceFirst("<\\?xml[^>]*>", "");
+		StringBuffer xml = new StringBuffer("<catalog>\n");
+		for (int i = 0; i < 3; i++) {
+			xml.append("<section>\n");
+			for (int j = 0; j < 3; j++) {
+				xml.append("<group><!-- group --><?marker?>\n");
+				for (int k = 0; k < 5; k++)
+					xml.append(record).append("\n");
+				xml.append("</group>\n");
+			}
+			xml.append("</section>\n");
+		}
+		xml.append("</catalog>");
+
+		RecordingHandler handler = new RecordingHandler();
+		SAXParserFactory factory = SAXParserFactory.newInstance();
+		factory.setNamespaceAware(true);
+		XMLReader parser = factory.newSAXParser().getXMLReader();
+		ResourceStreamFilter filter = new ResourceStreamFilter(parser, DDMSVersion.getVersionFor("5.0"), handler);
+		Document document = new Builder(filter, false, filter.getFactory()).build(new StringReader(xml.toString()));
+		assertEquals(45, filter.getRecordCount());
+		assertEquals(45, handler.getResources().size());
+		assertEquals("catalog", document.getRootElement().getLocalName());
+		assertEquals(0, document.getRootElement().getChildCount());
+	}
+
+	@Test
+	public void testReadDDMSResourcesWrapper() throws InvalidDDMSException, IOException {
+		String record = readFile(new File(PropertyReader.getProperty("test.unit.data"), "5.0/resource.xml"))
+			.replaceFirst("<\\?xml[^>]*>", "");
+		String badAttribute = record.replaceFirst("ddms:compliesWith=\"DDMSRules\"",
+			"ddms:compliesWith=\"DDMSRules\" bogus=\"true\"");
+		String badContent = record.replaceFirst("<ddms:metacardInfo", "<ddms:bogus /><ddms:metacardInfo");
+		StringBuffer xml = new StringBuffer("<records>\n");
+		xml.append(record).append("\n").append(badAttribute).append("\n").append(badContent).append("\n");
+		xml.append(record).append("\n</records>");
+
+		RecordingHandler handler = new RecordingHandler();
+		int count = getReader("5.0").readDDMSResources(new StringReader(xml.toString()), handler);
+		assertEquals(4, count);
+		assertEquals(2, handler.getResources().size());
+		assertEquals("[1, 4]", handler.getValidOrdinals().toString());
+		assertTrue(handler.getResources().get(0).isSchemaValidated());
+		assertEquals("[2, 3]", handler.getInvalidOrdinals().toString());
+		assertEquals(3, handler.getLineNumbers().get(0).intValue());
+		assertTrue(handler.getLineNumbers().get(1) > 3);
+
+		ValidationMessage attributeError = handler.getErrors().get(0).get(0);
+		assertTrue(attributeError.getText().startsWith("cvc-complex-type.3.2.2"));
+		assertEquals("/ddms:resource[2]", attributeError.getLocator());
+		ValidationMessage contentError = handler.getErrors().get(1).get(0);
+		assertTrue(contentError.getText().startsWith("cvc-complex-type.2.4.a"));
+		assertEquals("/ddms:resource[3]", contentError.getLocator());
+	}
+
+	@Test
+	public void testReadDDMSResourcesSingleRecord() throws InvalidDDMSException, IOException {
+		RecordingHandler handler = new RecordingHandler();
+		File file = new File(PropertyReader.getProperty("test.unit.data"), "3.0/resource.xml");
+		assertEquals(1, getReader("3.0").readDDMSResources(file, handler));
+		assertEquals(1, handler.getResources().size());
+		assertEquals(getReader("3.0").getDDMSResource(file), handler.getResources().get(0));
+	}
+
+	@Test
+	public void testReadDDMSResourcesOtherVersion() throws InvalidDDMSException, IOException {
+		RecordingHandler handler = new RecordingHandler();
+		File file = new File(PropertyReader.getProperty("test.unit.data"), "3.0/resource.xml");
+		assertEquals(0, getReader("5.0").readDDMSResources(file, handler));
+		assertTrue(handler.getResources().isEmpty());
+	}
+
+	@Test
+	public void testReadDDMSResourcesNotWellFormed() throws IOException {
+		try {
+			getReader("5.0").readDDMSResources(new StringReader("<records><unclosed></records>"),
+				new RecordingHandler());
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			expectMessage(e, "nu.xom.ParsingException");
+		}
+	}
+
+	@Test
+	public void testReadDDMSResourcesNullHandler() throws InvalidDDMSException, IOException {
+		try {
+			getReader("5.0").readDDMSResources(new StringReader("<records />"), null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "handler must exist.");
+		}
+	}
+
+	/**
+	 * Reads a file into a string, preserving line breaks
+	 */
+	private String readFile(File file) throws IOException {
+		LineNumberReader reader = new LineNumberReader(new FileReader(file));
+		try {
+			StringBuffer xmlString = new StringBuffer();
+			String nextLine = reader.readLine();
+			while (nextLine != null) {
+				xmlString.append(nextLine).append("\n");
+				nextLine = reader.readLine();
+			}
+			return (xmlString.toString());
+		}
+		finally {
+			reader.close();
+		}
+	}
+
+	/**
+	 * Handler which remembers everything it receives
+	 */
+	private static class RecordingHandler implements IResourceHandler {
+		private List<Resource> _resources = new ArrayList<Resource>();
+		private List<Integer> _validOrdinals = new ArrayList<Integer>();
+		private List<Integer> _invalidOrdinals = new ArrayList<Integer>();
+		private List<Integer> _lineNumbers = new ArrayList<Integer>();
+		private List<List<ValidationMessage>> _errors = new ArrayList<List<ValidationMessage>>();
+
+		public void handleResource(int ordinal, int lineNumber, Resource resource) {
+			_validOrdinals.add(ordinal);
+			_lineNumbers.add(lineNumber);
+			_resources.add(resource);
+		}
+
+		public void handleInvalidResource(int ordinal, int lineNumber, List<ValidationMessage> errors) {
+			_invalidOrdinals.add(ordinal);
+			_lineNumbers.add(lineNumber);
+			_errors.add(errors);
+		}
+
+		public List<Resource> getResources() {
+			return _resources;
+		}
+
+		public List<Integer> getValidOrdinals() {
+			return _validOrdinals;
+		}
+
+		public List<Integer> getInvalidOrdinals() {
+			return _invalidOrdinals;
+		}
+
+		public List<Integer> getLineNumbers() {
+			return _lineNumbers;
+		}
+
+		public List<List<ValidationMessage>> getErrors() {
+			return _errors;
+		}
+	}
+
 	/**
 	 * Accessor for the reader
 	 */
@@ -21,6 +21,7 @@ package buri.ddmsence.util;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -255,6 +256,31 @@ public class DDMSVersionTest extends AbstractBaseTestCase {
 			expectMessage(e, "DDMS Version dog is not yet supported.");
 		}
 	}
+
+	@Test
+	public void testIsAtLeastVersion() {
+		assertTrue(DDMSVersion.V5_0.isAtLeast(DDMSVersion.V4_1));
+		assertTrue(DDMSVersion.V4_1.isAtLeast(DDMSVersion.V4_1));
+		assertFalse(DDMSVersion.V3_0.isAtLeast(DDMSVersion.V3_1));
+		assertFalse(DDMSVersion.V2_0.isAtLeast(DDMSVersion.V5_0));
+		try {
+			DDMSVersion.V5_0.isAtLeast((DDMSVersion) null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "version must exist.");
+		}
+	}
+
+	@Test
+	public void testConstants() {
+		assertSame(DDMSVersion.getVersionFor("3.0.1"), DDMSVersion.V3_0);
+		assertSame(DDMSVersion.getVersionFor("4.0.1"), DDMSVersion.V4_1);
+		assertSame(DDMSVersion.getVersionFor("5.0"), DDMSVersion.V5_0);
+		List<String> versions = DDMSVersion.getSupportedVersions();
+		for (int i = 0; i < versions.size(); i++)
+			assertEquals(i, DDMSVersion.getVersionFor(versions.get(i)).getOrdinal());
+	}
 	
 	@Test
 	public void testMultithreaded() throws InterruptedException {
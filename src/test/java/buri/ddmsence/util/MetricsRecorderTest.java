@@ -0,0 +1,98 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+
+/**
+ * A collection of MetricsRecorder tests.
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class MetricsRecorderTest extends AbstractBaseTestCase {
+
+	public MetricsRecorderTest() {
+		super(null);
+	}
+
+	@Test
+	public void testTotals() {
+		MetricsRecorder recorder = new MetricsRecorder();
+		assertNull(recorder.getStatistics(DDMSMetrics.PHASE_PARSE));
+		recorder.phaseCompleted(DDMSMetrics.PHASE_PARSE, "5.0", 100, 1000, 0);
+		recorder.phaseCompleted(DDMSMetrics.PHASE_PARSE, "4.1", 300, 500, 1);
+		recorder.phaseCompleted(DDMSMetrics.PHASE_VALIDATE, "title", 50, -1, 0);
+
+		MetricsRecorder.Statistics parse = recorder.getStatistics(DDMSMetrics.PHASE_PARSE);
+		assertEquals(2, parse.getCount());
+		assertEquals(1, parse.getErrorCount());
+		assertEquals(400, parse.getTotalNanos());
+		assertEquals(300, parse.getMaxNanos());
+		assertEquals(200, parse.getAverageNanos());
+		assertEquals(1500, parse.getTotalSize());
+		assertEquals(0, recorder.getStatistics(DDMSMetrics.PHASE_VALIDATE).getTotalSize());
+
+		Map<String, MetricsRecorder.Statistics> all = recorder.getAllStatistics();
+		assertEquals(2, all.size());
+		assertEquals(DDMSMetrics.PHASE_PARSE, all.keySet().iterator().next());
+	}
+
+	@Test
+	public void testReset() {
+		MetricsRecorder recorder = new MetricsRecorder();
+		recorder.phaseCompleted(DDMSMetrics.PHASE_RENDER, "XML", 100, 10, 0);
+		recorder.reset();
+		assertTrue(recorder.getAllStatistics().isEmpty());
+	}
+
+	@Test
+	public void testConcurrentUpdates() throws InterruptedException {
+		final MetricsRecorder recorder = new MetricsRecorder();
+		Thread[] threads = new Thread[4];
+		for (int i = 0; i < threads.length; i++) {
+			final long duration = i + 1;
+			threads[i] = new Thread() {
+				public void run() {
+					for (int j = 0; j < 1000; j++)
+						recorder.phaseCompleted(DDMSMetrics.PHASE_BUILD, null, duration, -1, 0);
+				}
+			};
+			threads[i].start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		MetricsRecorder.Statistics build = recorder.getStatistics(DDMSMetrics.PHASE_BUILD);
+		assertEquals(4000, build.getCount());
+		assertEquals(10000, build.getTotalNanos());
+		assertEquals(4, build.getMaxNanos());
+	}
+
+	@Test
+	public void testAverageWithoutMeasurements() {
+		assertEquals(0, new MetricsRecorder.Statistics().getAverageNanos());
+	}
+}
@@ -22,7 +22,10 @@ package buri.ddmsence.util;
 import static org.junit.Assert.*;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.junit.After;
 import org.junit.Before;
@@ -94,6 +97,89 @@ public class PropertyReaderTest extends AbstractBaseTestCase {
 		assertEquals("DDMS", PropertyReader.getPrefix("ddms"));
 	}
 		
+	@Test
+	public void testSetPropertySharedByThreads() throws InterruptedException {
+		PropertyReader.setProperty("ddms.prefix", "DDMS");
+		final List<String> otherThreadValue = new ArrayList<String>();
+		Thread thread = new Thread(new Runnable() {
+			public void run() {
+				otherThreadValue.add(PropertyReader.getPrefix("ddms"));
+			}
+		});
+		thread.start();
+		thread.join();
+		assertEquals("DDMS", otherThreadValue.get(0));
+	}
+
+	@Test
+	public void testWithOverrides() throws Exception {
+		Map<String, String> overrides = new HashMap<String, String>();
+		overrides.put("ddms.prefix", " DDMS ");
+		String value = PropertyReader.withOverrides(overrides, new Callable<String>() {
+			public String call() {
+				return (PropertyReader.getPrefix("ddms"));
+			}
+		});
+		assertEquals("DDMS", value);
+		assertEquals("ddms", PropertyReader.getPrefix("ddms"));
+	}
+
+	@Test
+	public void testWithOverridesNested() throws Exception {
+		final Map<String, String> outer = new HashMap<String, String>();
+		outer.put("ddms.prefix", "outer");
+		outer.put("ism.prefix", "ic");
+		final Map<String, String> inner = new HashMap<String, String>();
+		inner.put("ddms.prefix", "inner");
+		String value = PropertyReader.withOverrides(outer, new Callable<String>() {
+			public String call() throws Exception {
+				String innerValue = PropertyReader.withOverrides(inner, new Callable<String>() {
+					public String call() {
+						return (PropertyReader.getPrefix("ddms") + " " + PropertyReader.getPrefix("ism"));
+					}
+				});
+				return (innerValue + " " + PropertyReader.getPrefix("ddms"));
+			}
+		});
+		assertEquals("inner ic outer", value);
+		assertEquals("ism", PropertyReader.getPrefix("ism"));
+	}
+
+	@Test
+	public void testWithOverridesRemovedOnException() throws Exception {
+		Map<String, String> overrides = new HashMap<String, String>();
+		overrides.put("ddms.prefix", "DDMS");
+		try {
+			PropertyReader.withOverrides(overrides, new Callable<String>() {
+				public String call() {
+					throw new IllegalStateException("Task failed.");
+				}
+			});
+			fail("Did not pass on exception.");
+		}
+		catch (IllegalStateException e) {
+			expectMessage(e, "Task failed.");
+		}
+		assertEquals("ddms", PropertyReader.getPrefix("ddms"));
+	}
+
+	@Test
+	public void testWithOverridesInvalidName() throws Exception {
+		Map<String, String> overrides = new HashMap<String, String>();
+		overrides.put("unknown.property", "value");
+		try {
+			PropertyReader.withOverrides(overrides, new Callable<String>() {
+				public String call() {
+					return (null);
+				}
+			});
+			fail("Did not prevent invalid property name.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "unknown.property is not a configurable property.");
+		}
+	}
+
 	@Test
 	public void testMultithreaded() throws InterruptedException {
 		List<Thread> threads = new ArrayList<Thread>();
@@ -131,9 +217,26 @@ public class PropertyReaderTest extends AbstractBaseTestCase {
 			return (getThreadName());
 		}
 		
+		@Override
+		public void run() {
+			Map<String, String> overrides = new HashMap<String, String>();
+			overrides.put("ddms.prefix", getThreadName());
+			try {
+				PropertyReader.withOverrides(overrides, new Callable<Object>() {
+					public Object call() {
+						PropertyReaderRunnable.super.run();
+						return (null);
+					}
+				});
+			}
+			catch (Exception e) {
+				setMatch(false);
+			}
+		}
+
 		@Override
 		public void callSet() {
-			PropertyReader.setProperty("ddms.prefix", getThreadName());
+			PropertyReader.setProperty("output.indexLevel", "0");
 		}
 		
 		@Override
@@ -0,0 +1,286 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import nu.xom.Comment;
+import nu.xom.Element;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+
+/**
+ * <p> Tests related to the binary encoding of Resources </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class ResourceCodecTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public ResourceCodecTest() {
+		super("resource.xml");
+	}
+
+	@Test
+	public void testRoundTrip() throws Exception {
+		for (String sVersion : getSupportedVersions()) {
+			DDMSVersion.setCurrentVersion(sVersion);
+			Resource resource = new Resource(getValidElement(sVersion));
+			byte[] bytes = ResourceCodec.toByteArray(resource);
+			Resource decoded = ResourceCodec.fromByteArray(bytes);
+			assertEquals(resource, decoded);
+			assertEquals(resource.toXML(), decoded.toXML());
+			assertEquals(resource.getFingerprint(), decoded.getFingerprint());
+			assertFalse(decoded.isSchemaValidated());
+			assertTrue(bytes.length < resource.toXML().getBytes("UTF-8").length);
+		}
+	}
+
+	@Test
+	public void testSchemaValidatedRoundTrip() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource(getValidElement("5.0"));
+		assertFalse(ResourceCodec.fromByteArray(ResourceCodec.toByteArray(resource)).isSchemaValidated());
+		resource.validateWithSchema();
+		Resource decoded = ResourceCodec.fromByteArray(ResourceCodec.toByteArray(resource));
+		assertTrue(decoded.isSchemaValidated());
+		assertEquals(resource, decoded);
+
+		File file = new File(PropertyReader.getProperty("test.unit.data"), "5.0/resource.xml");
+		resource = new DDMSReader(DDMSVersion.getVersionFor("5.0")).getDDMSResource(file);
+		assertTrue(ResourceCodec.fromByteArray(ResourceCodec.toByteArray(resource)).isSchemaValidated());
+	}
+
+	@Test
+	public void testRoundTripBuiltResource() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource resource = new Resource.Builder(new Resource(getValidElement("5.0"))).commit();
+		Resource decoded = ResourceCodec.fromByteArray(ResourceCodec.toByteArray(resource));
+		assertEquals(resource, decoded);
+		assertEquals(resource.toXML(), decoded.toXML());
+	}
+
+	@Test
+	public void testCommentsPreserved() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		Element element = new Element(getValidElement("5.0"));
+		element.insertChild(new Comment("A comment"), 0);
+		Resource resource = new Resource(element);
+		assertEquals(resource.toXML(), ResourceCodec.fromByteArray(ResourceCodec.toByteArray(resource)).toXML());
+	}
+
+	@Test
+	public void testMultipleResources() throws Exception {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		DDMSVersion.setCurrentVersion("3.0");
+		Resource first = new Resource(getValidElement("3.0"));
+		ResourceCodec.write(first, output);
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource second = new Resource(getValidElement("5.0"));
+		ResourceCodec.write(second, output);
+
+		ByteArrayInputStream input = new ByteArrayInputStream(output.toByteArray());
+		assertEquals(first, ResourceCodec.read(input));
+		assertEquals(second, ResourceCodec.read(input));
+		assertEquals(-1, input.read());
+	}
+
+	@Test
+	public void testCurrentVersionRestored() throws Exception {
+		DDMSVersion.setCurrentVersion("3.0");
+		byte[] bytes = ResourceCodec.toByteArray(new Resource(getValidElement("3.0")));
+		DDMSVersion.setCurrentVersion("5.0");
+		Resource decoded = ResourceCodec.fromByteArray(bytes);
+		assertEquals(DDMSVersion.getVersionFor("3.0").getNamespace(), decoded.getNamespace());
+		assertEquals("5.0", DDMSVersion.getCurrentVersion().getVersion());
+	}
+
+	@Test
+	public void testInvalidEncodings() throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("5.0");
+		byte[] bytes = ResourceCodec.toByteArray(new Resource(getValidElement("5.0")));
+
+		// Not an encoded Resource
+		byte[] invalid = Arrays.copyOf(bytes, bytes.length);
+		invalid[0] = 'X';
+		expectIOException(invalid, "The stream does not contain an encoded DDMS Resource.");
+
+		// Future format version
+		invalid = Arrays.copyOf(bytes, bytes.length);
+		invalid[4] = (byte) (ResourceCodec.FORMAT_VERSION + 1);
+		expectIOException(invalid, "Unsupported encoding format version: " + (ResourceCodec.FORMAT_VERSION + 1));
+
+		// Unknown flags
+		invalid = Arrays.copyOf(bytes, bytes.length);
+		invalid[5] = 2;
+		expectIOException(invalid, "Unknown flags in encoded Resource: 2");
+
+		// Truncated
+		expectIOException(Arrays.copyOf(bytes, bytes.length / 2), null);
+		expectIOException(Arrays.copyOf(bytes, 8), null);
+		expectStreamIOException(Arrays.copyOf(bytes, bytes.length / 2));
+	}
+
+	@Test
+	public void testOversizedLengths() throws IOException, InvalidDDMSException {
+		// A string length of Integer.MAX_VALUE
+		ByteArrayOutputStream output = getHeader();
+		output.write(new byte[] { 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 });
+		expectIOException(output.toByteArray(), "Invalid length in encoded Resource: " + Integer.MAX_VALUE);
+		expectStreamIOException(output.toByteArray());
+
+		// An attribute count larger than the remaining bytes
+		output = getHeader();
+		writeString(output, "ddms:resource");
+		writeString(output, DDMSVersion.getVersionFor("5.0").getNamespace());
+		output.write(0);
+		output.write(new byte[] { (byte) 0x80, 0x01 });
+		expectIOException(output.toByteArray(), "Invalid length in encoded Resource: 128");
+
+		// A negative number
+		output = getHeader();
+		output.write(new byte[] { 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F });
+		expectIOException(output.toByteArray(), "Invalid number in encoded Resource.");
+	}
+
+	@Test
+	public void testInvalidNames() throws IOException, InvalidDDMSException {
+		ByteArrayOutputStream output = getHeader();
+		writeString(output, "1bad");
+		writeString(output, "");
+		output.write(new byte[] { 0, 0, 0 });
+		try {
+			ResourceCodec.fromByteArray(output.toByteArray());
+			fail("Allowed invalid data.");
+		}
+		catch (IOException e) {
+			expectMessage(e, "Invalid XML in encoded Resource: ");
+		}
+	}
+
+	@Test
+	public void testDeeplyNestedElements() throws IOException {
+		// 200,000 nested elements, each of which is a few bytes long
+		int depth = 200000;
+		ByteArrayOutputStream output = getHeader();
+		writeString(output, "ddms:resource");
+		writeString(output, DDMSVersion.getVersionFor("5.0").getNamespace());
+		output.write(new byte[] { 0, 0, 1, 1 });
+		writeString(output, "deep");
+		writeString(output, "");
+		output.write(new byte[] { 0, 0, 1, 1 });
+		for (int i = 1; i < depth; i++)
+			output.write(new byte[] { 4, 5, 0, 0, 1, 1 });
+		output.write(new byte[] { 4, 5, 0, 0, 0 });
+		try {
+			ResourceCodec.fromByteArray(output.toByteArray());
+			fail("Allowed invalid data.");
+		}
+		catch (InvalidDDMSException e) {
+			// Good: the tree was decoded, but is not a valid Resource
+		}
+	}
+
+	/**
+	 * Returns a stream holding a valid header for a DDMS 5.0 Resource.
+	 */
+	private static ByteArrayOutputStream getHeader() throws IOException {
+		ByteArrayOutputStream output = new ByteArrayOutputStream();
+		output.write(new byte[] { 'D', 'D', 'M', 'S', ResourceCodec.FORMAT_VERSION, 0 });
+		writeString(output, "5.0");
+		return (output);
+	}
+
+	/**
+	 * Writes a new, short string in the encoded form.
+	 * 
+	 * @param output the stream to write to
+	 * @param value the string
+	 */
+	private static void writeString(ByteArrayOutputStream output, String value) throws IOException {
+		byte[] bytes = value.getBytes("UTF-8");
+		output.write(0);
+		output.write(bytes.length);
+		output.write(bytes);
+	}
+
+	/**
+	 * Asserts that decoding some bytes from a stream of unknown length fails with an IOException.
+	 * 
+	 * @param bytes the bytes to decode
+	 */
+	private void expectStreamIOException(byte[] bytes) throws InvalidDDMSException {
+		try {
+			ResourceCodec.read(new ByteArrayInputStream(bytes));
+			fail("Allowed invalid data.");
+		}
+		catch (IOException e) {
+			// Good
+		}
+	}
+
+	/**
+	 * Asserts that decoding some bytes fails with an IOException.
+	 * 
+	 * @param bytes the bytes to decode
+	 * @param message the expected message, or null to accept any message
+	 */
+	private void expectIOException(byte[] bytes, String message) throws InvalidDDMSException {
+		try {
+			ResourceCodec.fromByteArray(bytes);
+			fail("Allowed invalid data.");
+		}
+		catch (IOException e) {
+			if (message != null)
+				assertEquals(message, e.getMessage());
+		}
+	}
+
+	@Test
+	public void testNullChecks() throws Exception {
+		try {
+			ResourceCodec.write(null, new ByteArrayOutputStream());
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("resource must exist.", e.getMessage());
+		}
+		try {
+			ResourceCodec.read(null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("input stream must exist.", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,290 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import nu.xom.Element;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Title;
+import buri.ddmsence.ddms.security.ism.SecurityAttributesTest;
+import buri.ddmsence.ddms.summary.Category;
+import buri.ddmsence.ddms.summary.Description;
+import buri.ddmsence.ddms.summary.Keyword;
+import buri.ddmsence.ddms.summary.SubjectCoverage;
+import buri.ddmsence.util.ResourceTextIndex.Field;
+
+/**
+ * <p> Tests related to the text index of Resources </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class ResourceTextIndexTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public ResourceTextIndexTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Builds a DDMS 4.1 Resource by replacing the title, description and subject coverage of the fixture. The
+	 * fixture's subtitle is kept.
+	 * 
+	 * @param title the title
+	 * @param description the description
+	 * @param category the label of a category, or null for none
+	 * @param keywords the keywords
+	 * @return the Resource
+	 */
+	private Resource getResource(String title, String description, String category, String... keywords)
+		throws Exception {
+		Element element = getValidElementCopy("4.1");
+		DDMSVersion version = DDMSVersion.getCurrentVersion();
+		replaceChild(element, Title.getName(version), new Title(title, SecurityAttributesTest.getFixture())
+			.getXOMElementCopy());
+		replaceChild(element, Description.getName(version), new Description(description,
+			SecurityAttributesTest.getFixture()).getXOMElementCopy());
+		List<Keyword> keywordList = new ArrayList<Keyword>();
+		for (String keyword : keywords)
+			keywordList.add(new Keyword(keyword, null));
+		if (keywords.length == 0 && category == null)
+			keywordList.add(new Keyword("misc", null));
+		List<Category> categories = new ArrayList<Category>();
+		if (category != null)
+			categories.add(new Category(null, null, category, null));
+		SubjectCoverage coverage = new SubjectCoverage(keywordList, categories, null, null, null);
+		replaceChild(element, SubjectCoverage.getName(version), coverage.getXOMElementCopy());
+		return (new Resource(element));
+	}
+
+	/**
+	 * Builds a small corpus of Resources.
+	 */
+	private List<Resource> getCorpus() throws Exception {
+		List<Resource> corpus = new ArrayList<Resource>();
+		corpus.add(getResource("Hurricane Katrina Damage", "Flooding in New Orleans.", "Weather", "hurricane"));
+		corpus.add(getResource("Katrina Relief Efforts", "Aid delivered after the hurricane.", null, "relief"));
+		corpus.add(getResource("Flood Maps", "Maps of damage from Hurricane Katrina.", "Mapping", "katrina"));
+		corpus.add(getResource("Harbor Survey", "A survey of New York harbor.", null, "harbor", "survey"));
+		return (corpus);
+	}
+
+	/**
+	 * Adds every Resource in a list to a new index.
+	 */
+	private static ResourceTextIndex getIndex(List<Resource> resources) {
+		ResourceTextIndex index = new ResourceTextIndex();
+		for (Resource resource : resources)
+			assertTrue(index.add(resource));
+		return (index);
+	}
+
+	@Test
+	public void testDefaultAnalyzer() {
+		IAnalyzer analyzer = new ResourceTextIndex.DefaultAnalyzer();
+		assertEquals(Arrays.asList("ddmsence", "2", "6", "a", "r\u00e9sum\u00e9", "x"),
+			analyzer.analyze("DDMSence 2.6: a R\u00e9sum\u00e9 (X)"));
+		assertTrue(analyzer.analyze(" -- ").isEmpty());
+	}
+
+	@Test
+	public void testSearch() throws Exception {
+		List<Resource> corpus = getCorpus();
+		ResourceTextIndex index = getIndex(corpus);
+		assertEquals(4, index.size());
+
+		// Every term is required, in any field
+		// Ties are broken by the order the Resources were added
+		assertEquals(Arrays.asList(corpus.get(0), corpus.get(1), corpus.get(2)), index.search("Katrina hurricane", 10));
+		assertEquals(Arrays.asList(corpus.get(0), corpus.get(3)), index.search("new", 10));
+		assertEquals(Arrays.asList(corpus.get(3)), index.search("NEW york", 10));
+		assertTrue(index.search("katrina survey", 10).isEmpty());
+		assertTrue(index.search("tornado", 10).isEmpty());
+		assertEquals(1, index.search("katrina", 1).size());
+
+		// Categories, and the fixture's subtitle
+		assertEquals(Arrays.asList(corpus.get(2)), index.search("mapping", 10));
+		assertResources(index.search("version 0.1", 10), corpus.toArray(new Resource[0]));
+	}
+
+	@Test
+	public void testBoosts() throws Exception {
+		Resource inTitle = getResource("Drought Report", "A report.", null);
+		Resource inDescription = getResource("Report", "A report on the drought.", null);
+		ResourceTextIndex index = getIndex(Arrays.asList(inDescription, inTitle));
+		assertEquals(Field.TITLE.getDefaultBoost(), index.getBoost(Field.TITLE), 0);
+		assertEquals(Arrays.asList(inTitle, inDescription), index.search("drought", 10));
+		index.setBoost(Field.TITLE, 0);
+		index.setBoost(Field.DESCRIPTION, 5);
+		assertEquals(Arrays.asList(inDescription, inTitle), index.search("drought", 10));
+	}
+
+	@Test
+	public void testSearchPhrase() throws Exception {
+		List<Resource> corpus = getCorpus();
+		ResourceTextIndex index = getIndex(corpus);
+		assertEquals(Arrays.asList(corpus.get(0), corpus.get(2)), index.searchPhrase("hurricane katrina", 10));
+		assertEquals(Arrays.asList(corpus.get(0), corpus.get(3)), index.searchPhrase("New", 10));
+		assertEquals(Arrays.asList(corpus.get(3)), index.searchPhrase("new york harbor", 10));
+		assertTrue(index.searchPhrase("katrina hurricane", 10).isEmpty());
+
+		// Phrases do not span fields, or separate values of the same field
+		assertTrue(index.searchPhrase("damage flooding", 10).isEmpty());
+		Resource twoKeywords = getResource("Untitled", "None.", null, "storm", "surge");
+		Resource oneKeyword = getResource("Untitled", "None.", null, "storm surge");
+		index = getIndex(Arrays.asList(twoKeywords, oneKeyword));
+		assertEquals(Arrays.asList(oneKeyword), index.searchPhrase("storm surge", 10));
+		assertResources(index.search("storm surge", 10), twoKeywords, oneKeyword);
+	}
+
+	@Test
+	public void testSearchPrefix() throws Exception {
+		List<Resource> corpus = getCorpus();
+		ResourceTextIndex index = getIndex(corpus);
+		assertEquals(Arrays.asList(corpus.get(3)), index.searchPrefix("har", 10));
+		assertEquals(Arrays.asList(corpus.get(2)), index.searchPrefix("katrina ma", 10));
+		assertEquals(Arrays.asList(corpus.get(0), corpus.get(1), corpus.get(2)), index.searchPrefix("hurric", 10));
+		assertTrue(index.searchPrefix("zz", 10).isEmpty());
+	}
+
+	@Test
+	public void testAddAndRemove() throws Exception {
+		List<Resource> corpus = getCorpus();
+		ResourceTextIndex index = getIndex(corpus);
+		assertFalse(index.add(corpus.get(0)));
+		assertTrue(index.remove(corpus.get(0)));
+		assertFalse(index.remove(corpus.get(0)));
+		assertEquals(Arrays.asList(corpus.get(1), corpus.get(2)), index.search("katrina", 10));
+		assertTrue(index.add(corpus.get(0)));
+		assertResources(index.search("katrina", 10), corpus.get(0), corpus.get(1), corpus.get(2));
+
+		// Enough removals rewrite the postings, dropping terms which are no longer used
+		List<Resource> extras = new ArrayList<Resource>();
+		for (int i = 0; i < 100; i++) {
+			Resource extra = getResource("Extra " + i, "Unique" + i + " text.", null);
+			extras.add(extra);
+			index.add(extra);
+		}
+		int terms = index.getTermCount();
+		for (Resource extra : extras)
+			index.remove(extra);
+		assertTrue(index.getTermCount() < terms);
+		assertEquals(4, index.size());
+		assertEquals(Arrays.asList(corpus.get(3)), index.searchPhrase("new york harbor", 10));
+		assertTrue(index.search("extra", 10).isEmpty());
+	}
+
+	@Test
+	public void testReaderHandler() throws Exception {
+		ResourceTextIndex index = new ResourceTextIndex();
+		File file = new File(PropertyReader.getProperty("test.unit.data"), "4.1/resource.xml");
+		DDMSReader reader = new DDMSReader(DDMSVersion.getVersionFor("4.1"));
+		assertEquals(1, reader.readDDMSResources(file, index));
+		assertEquals(1, index.size());
+		assertEquals(1, index.search("transformation service", 10).size());
+	}
+
+	@Test
+	public void testSnapshot() throws Exception {
+		List<Resource> corpus = getCorpus();
+		ResourceTextIndex index = getIndex(corpus);
+		index.setBoost(Field.KEYWORD, 7);
+		index.remove(corpus.get(1));
+		File file = File.createTempFile("ddmsence", ".idx");
+		file.deleteOnExit();
+		index.save(file);
+
+		ResourceTextIndex loaded = ResourceTextIndex.load(file, new ResourceTextIndex.DefaultAnalyzer());
+		assertEquals(3, loaded.size());
+		assertEquals(index.getTermCount(), loaded.getTermCount());
+		assertEquals(7, loaded.getBoost(Field.KEYWORD), 0);
+		List<Resource> results = loaded.searchPhrase("hurricane katrina", 10);
+		assertEquals(Arrays.asList(corpus.get(0), corpus.get(2)), results);
+		assertSame(results.get(0), loaded.searchPhrase("hurricane katrina", 10).get(0));
+		assertTrue(loaded.add(getResource("Katrina Aftermath", "Rebuilding.", null)));
+		assertEquals(3, loaded.search("katrina", 10).size());
+		assertTrue(loaded.remove(results.get(1)));
+		assertEquals(Arrays.asList(corpus.get(0)), loaded.searchPhrase("hurricane katrina", 10));
+
+		// A loaded index can replace the snapshot it was loaded from
+		loaded.save(file);
+		ResourceTextIndex reloaded = ResourceTextIndex.load(file, new ResourceTextIndex.DefaultAnalyzer());
+		assertEquals(3, reloaded.size());
+		assertEquals(loaded.search("katrina", 10), reloaded.search("katrina", 10));
+		assertEquals(Arrays.asList(corpus.get(3)), reloaded.searchPrefix("harb", 10));
+
+		FileOutputStream output = new FileOutputStream(file);
+		output.write("not an index".getBytes("UTF-8"));
+		output.close();
+		try {
+			ResourceTextIndex.load(file, new ResourceTextIndex.DefaultAnalyzer());
+			fail("Allowed invalid data.");
+		}
+		catch (java.io.IOException e) {
+			expectMessage(e, "The file does not contain a text index snapshot.");
+		}
+	}
+
+	@Test
+	public void testInvalidQueries() throws Exception {
+		ResourceTextIndex index = new ResourceTextIndex();
+		try {
+			index.search("katrina", 0);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "count must be at least 1.");
+		}
+		try {
+			index.searchPrefix(" ... ", 10);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The query must contain at least one term.");
+		}
+		try {
+			index.setBoost(Field.TITLE, -1);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The boost must not be negative.");
+		}
+		try {
+			new ResourceTextIndex(null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "analyzer must exist.");
+		}
+	}
+}
@@ -0,0 +1,188 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+   
+   This file is part of DDMSence.
+   
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public 
+   License as published by the Free Software Foundation.
+   
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the 
+   GNU Lesser General Public License for more details.
+   
+   You should have received a copy of the GNU Lesser General Public 
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import nu.xom.xslt.XSLException;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.ValidationMessage;
+
+/**
+ * A collection of SchematronValidator tests.
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class SchematronValidatorTest extends AbstractBaseTestCase {
+
+	private static final File XSLT1_FILE = new File("data/test/5.0/testSchematronXslt1.sch");
+
+	public SchematronValidatorTest() {
+		super("resource.xml");
+	}
+
+	@Test
+	public void testSameMessages() throws InvalidDDMSException, IOException, XSLException {
+		Resource resource = new Resource(getValidElement("5.0"));
+		SchematronValidator validator = new SchematronValidator(XSLT1_FILE);
+		List<ValidationMessage> messages = resource.validateWithSchematron(validator);
+		assertEquals(3, messages.size());
+		assertEquals(messages, resource.validateWithSchematron(XSLT1_FILE));
+		assertEquals(ValidationMessage.ERROR_TYPE, messages.get(0).getType());
+		assertTrue(messages.get(0).getText().startsWith("A DDMS Resource must have an unknownElement child."));
+	}
+
+	@Test
+	public void testBatch() throws InvalidDDMSException, IOException, XSLException {
+		List<Resource> resources = new ArrayList<Resource>();
+		resources.add(new Resource(getValidElement("5.0")));
+		resources.add(new Resource(getValidElement("4.1")));
+		resources.add(new Resource(getValidElement("5.0")));
+		SchematronValidator validator = SchematronValidator.getInstance(XSLT1_FILE);
+		List<List<ValidationMessage>> results = Resource.validateWithSchematron(resources, validator);
+		assertEquals(3, results.size());
+		for (int i = 0; i < resources.size(); i++)
+			assertEquals(resources.get(i).validateWithSchematron(validator), results.get(i));
+		assertEquals(3, results.get(0).size());
+	}
+
+	@Test
+	public void testBatchOtherProcessor() throws InvalidDDMSException, IOException, XSLException {
+		PropertyReader.setProperty("xml.transform.TransformerFactory",
+			"com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl");
+		try {
+			List<Resource> resources = new ArrayList<Resource>();
+			resources.add(new Resource(getValidElement("5.0")));
+			resources.add(new Resource(getValidElement("5.0")));
+			SchematronValidator validator = SchematronValidator.getInstance(XSLT1_FILE);
+			List<List<ValidationMessage>> results = Resource.validateWithSchematron(resources, validator);
+			assertEquals(2, results.size());
+			assertEquals(3, results.get(0).size());
+			assertEquals(results.get(0), results.get(1));
+		}
+		finally {
+			PropertyReader.setProperty("xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+		}
+	}
+
+	@Test
+	public void testBatchNullResource() throws InvalidDDMSException, IOException, XSLException {
+		List<Resource> resources = new ArrayList<Resource>();
+		resources.add(new Resource(getValidElement("5.0")));
+		resources.add(null);
+		try {
+			Resource.validateWithSchematron(resources, SchematronValidator.getInstance(XSLT1_FILE));
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "resource must exist.");
+		}
+	}
+
+	@Test
+	public void testCached() throws IOException, XSLException {
+		SchematronValidator validator = SchematronValidator.getInstance(XSLT1_FILE);
+		assertSame(validator, SchematronValidator.getInstance(XSLT1_FILE));
+		assertEquals(XSLT1_FILE.getCanonicalPath(), validator.getPath());
+		SchematronValidator.clearCache();
+		assertNotSame(validator, SchematronValidator.getInstance(XSLT1_FILE));
+	}
+
+	@Test
+	public void testCachedByProcessor() throws IOException, XSLException {
+		SchematronValidator saxon = SchematronValidator.getInstance(XSLT1_FILE);
+		assertEquals("net.sf.saxon.TransformerFactoryImpl", saxon.getFactoryClass());
+		PropertyReader.setProperty("xml.transform.TransformerFactory",
+			"com.sun.org.apache.xalan.internal.xsltc.trax.TransformerFactoryImpl");
+		try {
+			assertNotSame(saxon, SchematronValidator.getInstance(XSLT1_FILE));
+		}
+		finally {
+			PropertyReader.setProperty("xml.transform.TransformerFactory", "net.sf.saxon.TransformerFactoryImpl");
+		}
+	}
+
+	@Test
+	public void testRecompiledWhenChanged() throws IOException, XSLException {
+		File copy = File.createTempFile("ddmsence", ".sch");
+		copy.deleteOnExit();
+		copyFile(XSLT1_FILE, copy);
+		copy.setLastModified(System.currentTimeMillis() - 60000);
+		SchematronValidator validator = SchematronValidator.getInstance(copy);
+		assertSame(validator, SchematronValidator.getInstance(copy));
+		copy.setLastModified(System.currentTimeMillis());
+		assertNotSame(validator, SchematronValidator.getInstance(copy));
+	}
+
+	@Test
+	public void testInvalidQueryBinding() throws IOException, XSLException {
+		try {
+			new SchematronValidator(new File("data/test/5.0/testSchematronInvalid.sch"));
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "DDMSence currently only supports Schematron files with a queryBinding attribute");
+		}
+	}
+
+	@Test
+	public void testNullFile() throws IOException, XSLException {
+		try {
+			SchematronValidator.getInstance(null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "file must exist.");
+		}
+	}
+
+	/**
+	 * Copies a file
+	 */
+	private void copyFile(File source, File destination) throws IOException {
+		InputStream in = new FileInputStream(source);
+		OutputStream out = new FileOutputStream(destination);
+		try {
+			byte[] buffer = new byte[4096];
+			int read;
+			while ((read = in.read(buffer)) != -1)
+				out.write(buffer, 0, read);
+		}
+		finally {
+			in.close();
+			out.close();
+		}
+	}
+}
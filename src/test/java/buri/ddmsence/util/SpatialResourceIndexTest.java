@@ -0,0 +1,289 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import nu.xom.Element;
+
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.summary.BoundingBox;
+import buri.ddmsence.ddms.summary.GeospatialCoverage;
+import buri.ddmsence.ddms.summary.VerticalExtent;
+
+/**
+ * <p> Tests related to the spatial index of Resources </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class SpatialResourceIndexTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public SpatialResourceIndexTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Builds a Resource by replacing the geospatial coverage of the fixture.
+	 * 
+	 * @param version the DDMS version
+	 * @param coverages the new geospatial coverages, as components or elements
+	 * @return the Resource
+	 */
+	private Resource getResource(String version, Object... coverages) throws InvalidDDMSException {
+		Element element = getValidElementCopy(version);
+		Element[] replacements = new Element[coverages.length];
+		for (int i = 0; i < coverages.length; i++) {
+			replacements[i] = (coverages[i] instanceof Element ? (Element) coverages[i]
+				: ((GeospatialCoverage) coverages[i]).getXOMElementCopy());
+		}
+		replaceChild(element, GeospatialCoverage.getName(DDMSVersion.getCurrentVersion()), replacements);
+		return (new Resource(element));
+	}
+
+	/**
+	 * Builds a DDMS 4.1 Resource whose geospatial coverage is a list of bounding boxes.
+	 * 
+	 * @param extent the vertical extent of every box, or null
+	 * @param boxes the west, south, east and north edges of each box
+	 * @return the Resource
+	 */
+	private Resource getBoxResource(VerticalExtent extent, double[]... boxes) throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("4.1");
+		List<Object> coverages = new ArrayList<Object>();
+		for (double[] box : boxes) {
+			coverages.add(new GeospatialCoverage(null, new BoundingBox(box[0], box[2], box[1], box[3]), null, null,
+				extent, null, null, null));
+		}
+		return (getResource("4.1", coverages.toArray()));
+	}
+
+	@Test
+	public void testEnvelopes() throws Exception {
+		// gml:Point is read latitude first
+		DDMSVersion.setCurrentVersion("4.1");
+		List<double[]> envelopes = SpatialResourceIndex.getEnvelopes(new Resource(getValidElement("4.1")));
+		assertEquals(1, envelopes.size());
+		assertEquals(40.1, envelopes.get(0)[0], 0);
+		assertEquals(32.1, envelopes.get(0)[1], 0);
+		assertEquals(Double.NEGATIVE_INFINITY, envelopes.get(0)[2], 0);
+
+		// tspi:Point
+		DDMSVersion.setCurrentVersion("5.0");
+		envelopes = SpatialResourceIndex.getEnvelopes(new Resource(getValidElement("5.0")));
+		assertEquals(1, envelopes.size());
+		assertEquals(40.1, envelopes.get(0)[3], 0);
+		assertEquals(32.1, envelopes.get(0)[4], 0);
+
+		// Vertical extent in feet
+		DDMSVersion.setCurrentVersion("4.1");
+		VerticalExtent extent = new VerticalExtent(0, 1000, "Foot", "MSL");
+		envelopes = SpatialResourceIndex.getEnvelopes(getBoxResource(extent, new double[] { 1, 2, 3, 4 }));
+		assertTrue(Arrays.equals(new double[] { 1, 2, 0, 3, 4, 304.8 }, envelopes.get(0)));
+
+		// Crossing the antimeridian
+		envelopes = SpatialResourceIndex.getEnvelopes(getBoxResource(null, new double[] { 170, 2, -170, 4 }));
+		assertEquals(-180, envelopes.get(0)[0], 0);
+		assertEquals(180, envelopes.get(0)[3], 0);
+	}
+
+	@Test
+	public void testTspiCircle() throws Exception {
+		DDMSVersion.setCurrentVersion("5.0");
+		File file = new File(PropertyReader.getProperty("test.unit.data") + "5.0", "circle.xml");
+		Element circle = new Element(new DDMSReader(DDMSVersion.getCurrentVersion()).getElement(file));
+		Element element = new Element(getValidElement("5.0"));
+		Element geometry = (Element) element.query("//*[local-name()='boundingGeometry']").get(0);
+		geometry.removeChildren();
+		geometry.appendChild(circle);
+		Resource resource = new Resource(element);
+
+		// Centered at 53.81 -2.10, with a 20 kilometre radius
+		SpatialResourceIndex index = new SpatialResourceIndex();
+		index.add(resource);
+		assertResources(index.findIntersecting(-1.85, 53.8, -1.8, 53.82), resource);
+		assertResources(index.findIntersecting(-2.12, 53.95, -2.08, 54.0), resource);
+		assertResources(index.findIntersecting(-1.7, 53.8, -1.6, 53.82));
+	}
+
+	@Test
+	public void testQueries() throws Exception {
+		DDMSVersion.setCurrentVersion("4.1");
+		Resource a = getBoxResource(null, new double[] { 0, 0, 10, 10 });
+		Resource b = getBoxResource(null, new double[] { 5, 5, 15, 15 });
+		Resource c = getBoxResource(new VerticalExtent(0, 100, "Meter", "MSL"), new double[] { 20, 20, 30, 30 });
+		Resource d = getBoxResource(null, new double[] { 2, 2, 3, 3 });
+		SpatialResourceIndex index = new SpatialResourceIndex();
+		assertEquals(4, index.addAll(Arrays.asList(a, b, c, d)));
+
+		assertResources(index.findIntersecting(4, 4, 6, 6), a, b);
+		assertResources(index.findIntersecting(-5, -5, -1, -1));
+		assertResources(index.findContaining(1, 1, 2, 2), a);
+		assertResources(index.findWithin(0, 0, 12, 12), a, d);
+		assertResources(index.findWithin(0, 0, 40, 40), a, b, c, d);
+		assertEquals(Arrays.asList(c), index.findNearest(25, 25, 1));
+		assertEquals(Arrays.asList(b, c), index.findNearest(16, 16, 2));
+		assertEquals(4, index.findNearest(16, 16, 10).size());
+
+		// Altitude
+		assertResources(index.findIntersecting(19, 19, 31, 31, 200, 300));
+		assertResources(index.findIntersecting(19, 19, 31, 31, 50, 60), c);
+		assertResources(index.findIntersecting(0, 0, 31, 31, 50, 60), a, b, c, d);
+		assertResources(index.findContaining(21, 21, 22, 22, 10, 20), c);
+		assertResources(index.findWithin(0, 0, 40, 40, -10, 110), c);
+	}
+
+	@Test
+	public void testAddAndRemove() throws Exception {
+		Resource a = getBoxResource(null, new double[] { 0, 0, 10, 10 }, new double[] { 50, 50, 60, 60 });
+		Resource b = getBoxResource(null, new double[] { 5, 5, 15, 15 });
+		SpatialResourceIndex index = new SpatialResourceIndex();
+		assertTrue(index.add(a));
+		assertFalse(index.add(a));
+		assertTrue(index.add(b));
+		assertEquals(2, index.size());
+		assertEquals(3, index.getEnvelopeCount());
+		assertResources(index.findIntersecting(0, 0, 100, 100), a, b);
+
+		assertTrue(index.remove(a));
+		assertFalse(index.remove(a));
+		assertEquals(1, index.size());
+		assertEquals(1, index.getEnvelopeCount());
+		assertResources(index.findIntersecting(0, 0, 100, 100), b);
+
+		// Equal Resources are tracked separately
+		Resource copy = new Resource(b.getXOMElementCopy());
+		assertTrue(index.add(copy));
+		assertEquals(2, index.size());
+
+		// No indexable shapes
+		DDMSVersion.setCurrentVersion("5.0");
+		assertFalse(index.add(getResource("5.0")));
+	}
+
+	@Test
+	public void testMatchesFullScan() throws Exception {
+		Random random = new Random(42);
+		List<Resource> resources = new ArrayList<Resource>();
+		for (int i = 0; i < 120; i++) {
+			double[][] boxes = new double[1 + random.nextInt(4)][];
+			for (int j = 0; j < boxes.length; j++) {
+				double west = random.nextDouble() * 340 - 170;
+				double south = random.nextDouble() * 160 - 80;
+				double east = west + random.nextDouble() * 10;
+				double north = south + random.nextDouble() * 10;
+				boxes[j] = new double[] { west, south, east, north };
+			}
+			resources.add(getBoxResource(null, boxes));
+		}
+
+		// Bulk loaded, incrementally built, and after removals
+		SpatialResourceIndex packed = new SpatialResourceIndex();
+		packed.addAll(resources);
+		SpatialResourceIndex incremental = new SpatialResourceIndex();
+		for (Resource resource : resources)
+			incremental.add(resource);
+		assertMatchesFullScan(packed, resources, random);
+		assertMatchesFullScan(incremental, resources, random);
+
+		List<Resource> remaining = new ArrayList<Resource>(resources);
+		Collections.shuffle(remaining, random);
+		for (Resource resource : new ArrayList<Resource>(remaining.subList(0, 80))) {
+			assertTrue(packed.remove(resource));
+			assertTrue(incremental.remove(resource));
+			remaining.remove(resource);
+		}
+		assertEquals(40, packed.size());
+		assertMatchesFullScan(packed, remaining, random);
+		assertMatchesFullScan(incremental, remaining, random);
+	}
+
+	/**
+	 * Compares the results of many random intersecting queries with a scan of every envelope.
+	 */
+	private static void assertMatchesFullScan(SpatialResourceIndex index, List<Resource> resources, Random random) {
+		for (int i = 0; i < 200; i++) {
+			double west = random.nextDouble() * 360 - 180;
+			double south = random.nextDouble() * 180 - 90;
+			double east = Math.min(180, west + random.nextDouble() * 60);
+			double north = Math.min(90, south + random.nextDouble() * 60);
+			Set<Resource> expected = new HashSet<Resource>();
+			for (Resource resource : resources) {
+				for (double[] envelope : SpatialResourceIndex.getEnvelopes(resource)) {
+					if (envelope[0] <= east && envelope[3] >= west && envelope[1] <= north && envelope[4] >= south)
+						expected.add(resource);
+				}
+			}
+			List<Resource> actual = index.findIntersecting(west, south, east, north);
+			assertEquals(expected.size(), actual.size());
+			assertEquals(expected, new HashSet<Resource>(actual));
+		}
+	}
+
+	@Test
+	public void testInvalidQueries() {
+		SpatialResourceIndex index = new SpatialResourceIndex();
+		try {
+			index.findIntersecting(10, 0, 0, 10);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("The western longitude must not be greater than the eastern longitude.", e.getMessage());
+		}
+		try {
+			index.findWithin(0, 10, 10, 0);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("The southern latitude must not be greater than the northern latitude.", e.getMessage());
+		}
+		try {
+			index.findContaining(0, 0, 10, 10, 100, 0);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("The lowest altitude must not be greater than the highest altitude.", e.getMessage());
+		}
+		try {
+			index.findNearest(0, 0, 0);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			assertEquals("count must be at least 1.", e.getMessage());
+		}
+		assertTrue(index.findNearest(0, 0, 5).isEmpty());
+	}
+}
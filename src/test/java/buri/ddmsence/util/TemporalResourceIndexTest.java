@@ -0,0 +1,341 @@
+/* Copyright 2010 - 2019 by Brian Uri!
+
+   This file is part of DDMSence.
+
+   This library is free software; you can redistribute it and/or modify
+   it under the terms of version 3.0 of the GNU Lesser General Public
+   License as published by the Free Software Foundation.
+
+   This library is distributed in the hope that it will be useful,
+   but WITHOUT ANY WARRANTY; without even the implied warranty of
+   MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+   GNU Lesser General Public License for more details.
+
+   You should have received a copy of the GNU Lesser General Public
+   License along with DDMSence. If not, see <http://www.gnu.org/licenses/>.
+
+   You can contact the author at ddmsence@urizone.net. The DDMSence
+   home page is located at https://ddmsence.urizone.net/
+ */
+package buri.ddmsence.util;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import nu.xom.Element;
+
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import buri.ddmsence.AbstractBaseTestCase;
+import buri.ddmsence.ddms.ApproximableDate;
+import buri.ddmsence.ddms.InvalidDDMSException;
+import buri.ddmsence.ddms.Resource;
+import buri.ddmsence.ddms.resource.Dates;
+import buri.ddmsence.ddms.summary.TemporalCoverage;
+import buri.ddmsence.util.TemporalResourceIndex.Field;
+
+/**
+ * <p> Tests related to the temporal index of Resources </p>
+ * 
+ * @author Brian Uri!
+ * @since 2.6.0
+ */
+public class TemporalResourceIndexTest extends AbstractBaseTestCase {
+
+	/**
+	 * Constructor
+	 */
+	public TemporalResourceIndexTest() {
+		super("resource.xml");
+	}
+
+	/**
+	 * Builds a DDMS 4.1 Resource by replacing the dates and temporal coverage of the fixture.
+	 * 
+	 * @param dates the new dates, or null for none
+	 * @param coverages the new temporal coverages
+	 * @return the Resource
+	 */
+	private Resource getResource(Dates dates, TemporalCoverage... coverages) throws InvalidDDMSException {
+		Element element = getValidElementCopy("4.1");
+		DDMSVersion version = DDMSVersion.getCurrentVersion();
+		replaceChild(element, Dates.getName(version), dates == null ? new Element[0]
+			: new Element[] { dates.getXOMElementCopy() });
+		Element[] replacements = new Element[coverages.length];
+		for (int i = 0; i < coverages.length; i++)
+			replacements[i] = coverages[i].getXOMElementCopy();
+		replaceChild(element, TemporalCoverage.getName(version), replacements);
+		return (new Resource(element));
+	}
+
+	/**
+	 * Builds a DDMS 4.1 Resource with a single temporal coverage and no dates.
+	 * 
+	 * @param start the start date
+	 * @param end the end date
+	 * @return the Resource
+	 */
+	private Resource getCoverageResource(String start, String end) throws InvalidDDMSException {
+		DDMSVersion.setCurrentVersion("4.1");
+		return (getResource(null, new TemporalCoverage(null, start, end, null)));
+	}
+
+	/**
+	 * Returns the epoch milliseconds at the start of a DDMS date.
+	 */
+	private static long start(String date) {
+		return (TemporalResourceIndex.getInterval(date)[0]);
+	}
+
+	/**
+	 * Returns the epoch milliseconds at the end of a DDMS date.
+	 */
+	private static long end(String date) {
+		return (TemporalResourceIndex.getInterval(date)[1]);
+	}
+
+	@Test
+	public void testGetInterval() {
+		assertTrue(Arrays.equals(new long[] { 1325376000000L, 1356998399999L },
+			TemporalResourceIndex.getInterval("2012")));
+		assertTrue(Arrays.equals(new long[] { 1328054400000L, 1330559999999L },
+			TemporalResourceIndex.getInterval("2012-02")));
+		assertTrue(Arrays.equals(new long[] { 1336953600000L, 1337039999999L },
+			TemporalResourceIndex.getInterval("2012-05-14")));
+		assertTrue(Arrays.equals(new long[] { 1336998600000L, 1336998659999L },
+			TemporalResourceIndex.getInterval("2012-05-14T12:30Z")));
+		assertTrue(Arrays.equals(new long[] { 1336998615000L, 1336998615000L },
+			TemporalResourceIndex.getInterval("2012-05-14T12:30:15Z")));
+		assertTrue(Arrays.equals(new long[] { 1336991400000L, 1336991400000L },
+			TemporalResourceIndex.getInterval("2012-05-14T12:30:00+02:00")));
+		assertNull(TemporalResourceIndex.getInterval(null));
+		assertNull(TemporalResourceIndex.getInterval("Unknown"));
+		assertNull(TemporalResourceIndex.getInterval("Not Applicable"));
+		try {
+			TemporalResourceIndex.getInterval("sometime");
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "Invalid format");
+		}
+	}
+
+	@Test
+	public void testDateHourMinIgnoresDefaultTimeZone() {
+		TimeZone previousZone = TimeZone.getDefault();
+		DateTimeZone previousJodaZone = DateTimeZone.getDefault();
+		try {
+			TimeZone.setDefault(TimeZone.getTimeZone("America/New_York"));
+			DateTimeZone.setDefault(DateTimeZone.forID("America/New_York"));
+			assertTrue(Arrays.equals(new long[] { 1336998600000L, 1336998659999L },
+				TemporalResourceIndex.getInterval("2012-05-14T12:30")));
+			assertTrue(Arrays.equals(new long[] { 1336991400000L, 1336991459999L },
+				TemporalResourceIndex.getInterval("2012-05-14T12:30+02:00")));
+			assertTrue(Arrays.equals(new long[] { 1336953600000L, 1337039999999L },
+				TemporalResourceIndex.getInterval("2012-05-14")));
+		}
+		finally {
+			TimeZone.setDefault(previousZone);
+			DateTimeZone.setDefault(previousJodaZone);
+		}
+	}
+
+	@Test
+	public void testOpenEndedPeriods() throws Exception {
+		// The fixture runs from 1979-09-15 to Not Applicable, and was created in 2003.
+		DDMSVersion.setCurrentVersion("4.1");
+		Resource fixture = new Resource(getValidElement("4.1"));
+		Resource closed = getCoverageResource("1990", "1995");
+		Resource unknownStart = getCoverageResource("Unknown", "1985-06");
+		Resource unbounded = getCoverageResource("Unknown", "Not Applicable");
+		TemporalResourceIndex index = new TemporalResourceIndex();
+		assertTrue(index.add(fixture));
+		assertTrue(index.add(closed));
+		assertTrue(index.add(unknownStart));
+		assertFalse(index.add(unbounded));
+		assertFalse(index.add(closed));
+		assertEquals(3, index.size());
+		assertEquals(3, index.getIntervalCount(Field.TEMPORAL_COVERAGE));
+		assertEquals(1, index.getIntervalCount(Field.CREATED));
+
+		Field field = Field.TEMPORAL_COVERAGE;
+		assertResources(index.findOverlapping(field, start("2050"), end("2050")), fixture);
+		assertResources(index.findOverlapping(field, start("1900"), end("1900")), unknownStart);
+		assertResources(index.findOverlapping(field, start("1985"), end("1992")), fixture, closed, unknownStart);
+		assertResources(index.findContaining(field, start("1980"), end("2100")), fixture);
+		assertResources(index.findContaining(field, start("1900"), end("1985-06-30")), unknownStart);
+		assertResources(index.findContaining(field, start("1992"), end("1993")), fixture, closed);
+		assertResources(index.findBefore(field, start("1990")), unknownStart);
+		assertResources(index.findBefore(field, start("2050")), closed, unknownStart);
+		assertResources(index.findAfter(field, end("1985")), closed);
+		assertResources(index.findAfter(field, end("1970")), fixture, closed);
+		assertResources(index.findOverlapping(Field.CREATED, start("2003-06-01"), end("2003-06-01")), fixture);
+		assertResources(index.findOverlapping(Field.POSTED, TemporalResourceIndex.UNBOUNDED_START,
+			TemporalResourceIndex.UNBOUNDED_END));
+	}
+
+	@Test
+	public void testDatesAndApproximableDates() throws Exception {
+		DDMSVersion.setCurrentVersion("4.1");
+		List<ApproximableDate> acquiredOns = new ArrayList<ApproximableDate>();
+		acquiredOns.add(new ApproximableDate("acquiredOn", null, "2011", "circa", null, null));
+		acquiredOns.add(new ApproximableDate("acquiredOn", null, "2005", "circa", "2004-06", "2006-06"));
+		Dates dates = new Dates(acquiredOns, "2003", "2003-05", "2020", "2002-12-31", "2003-02", "2003-01-15");
+		ApproximableDate approximableStart = new ApproximableDate("approximableStart", null, "1999", "early", null,
+			"1999-03");
+		TemporalCoverage coverage = new TemporalCoverage(null, approximableStart, "2000", null);
+		Resource resource = getResource(dates, coverage);
+
+		TemporalResourceIndex index = new TemporalResourceIndex();
+		assertTrue(index.add(resource));
+		for (Field field : Field.values())
+			assertEquals(field == Field.ACQUIRED_ON ? 2 : 1, index.getIntervalCount(field));
+		assertResources(index.findContaining(Field.CREATED, start("2003-03"), end("2003-04")), resource);
+		assertResources(index.findContaining(Field.POSTED, start("2003-05-31"), end("2003-05-31")), resource);
+		assertResources(index.findAfter(Field.VALID_TIL, end("2019")), resource);
+		assertResources(index.findBefore(Field.INFO_CUT_OFF, start("2003")), resource);
+		assertResources(index.findBefore(Field.APPROVED_ON, start("2003-02")));
+		assertResources(index.findOverlapping(Field.RECEIVED_ON, start("2003-01"), end("2003-01")), resource);
+		assertResources(index.findOverlapping(Field.ACQUIRED_ON, start("2004-07"), end("2004-07")), resource);
+		assertResources(index.findOverlapping(Field.ACQUIRED_ON, start("2008"), end("2010")));
+
+		// The approximable start runs from the start of 1999, and the searchable end is ignored for the start
+		assertResources(index.findContaining(Field.TEMPORAL_COVERAGE, start("1999"), end("2000")), resource);
+		assertResources(index.findOverlapping(Field.TEMPORAL_COVERAGE, start("1998"), end("1998")));
+	}
+
+	@Test
+	public void testAddAndRemove() throws Exception {
+		Resource resource1 = getCoverageResource("2001", "2002");
+		Resource resource2 = getCoverageResource("2003", "2004");
+		TemporalResourceIndex index = new TemporalResourceIndex();
+		assertEquals(2, index.addAll(Arrays.asList(resource1, resource2, null)));
+		assertEquals(0, index.addAll(Arrays.asList(resource1)));
+
+		// Removed from the tree, then added back
+		assertTrue(index.remove(resource1));
+		assertFalse(index.remove(resource1));
+		assertResources(index.findOverlapping(Field.TEMPORAL_COVERAGE, start("2001"), end("2004")), resource2);
+		assertTrue(index.add(resource1));
+		assertResources(index.findOverlapping(Field.TEMPORAL_COVERAGE, start("2001"), end("2004")), resource1,
+			resource2);
+
+		// Added and removed before the tree is rebuilt
+		Resource resource3 = getCoverageResource("2005", "2006");
+		assertTrue(index.add(resource3));
+		assertResources(index.findAfter(Field.TEMPORAL_COVERAGE, end("2004")), resource3);
+		assertTrue(index.remove(resource3));
+		assertResources(index.findAfter(Field.TEMPORAL_COVERAGE, end("2004")));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	public void testMatchesFullScan() throws Exception {
+		Random random = new Random(42);
+		List<Resource> resources = new ArrayList<Resource>();
+		Map<Resource, long[]> intervals = new IdentityHashMap<Resource, long[]>();
+		for (int i = 0; i < 700; i++) {
+			int startYear = 1900 + random.nextInt(100);
+			String start = (random.nextInt(10) == 0 ? "Unknown" : String.valueOf(startYear));
+			String end = (random.nextInt(10) == 0 ? "Not Applicable"
+				: String.format("%04d-%02d", startYear + random.nextInt(5), 1 + random.nextInt(12)));
+			Resource resource = getCoverageResource(start, end);
+			resources.add(resource);
+			long low = ("Unknown".equals(start) ? TemporalResourceIndex.UNBOUNDED_START : start(start));
+			long high = ("Not Applicable".equals(end) ? TemporalResourceIndex.UNBOUNDED_END : end(end));
+			// A period which is unbounded on both sides is not indexed.
+			if (low != TemporalResourceIndex.UNBOUNDED_START || high != TemporalResourceIndex.UNBOUNDED_END)
+				intervals.put(resource, new long[] { low, high });
+		}
+
+		// Bulk loaded, loaded on an executor, built up one at a time, and after removals
+		TemporalResourceIndex packed = new TemporalResourceIndex();
+		packed.addAll(resources);
+		TemporalResourceIndex concurrent = new TemporalResourceIndex();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			assertEquals(intervals.size(), concurrent.addAll(resources, executor));
+		}
+		finally {
+			executor.shutdown();
+		}
+		TemporalResourceIndex incremental = new TemporalResourceIndex();
+		for (Resource resource : resources)
+			incremental.add(resource);
+		TemporalResourceIndex removed = new TemporalResourceIndex();
+		removed.addAll(resources);
+		for (int i = 0; i < resources.size(); i += 3)
+			removed.remove(resources.get(i));
+
+		Field field = Field.TEMPORAL_COVERAGE;
+		for (int i = 0; i < 50; i++) {
+			long low = start(String.valueOf(1890 + random.nextInt(120)));
+			long high = low + (long) (random.nextDouble() * 20 * 365 * 24 * 60 * 60 * 1000);
+			List<Resource> overlapping = new ArrayList<Resource>();
+			List<Resource> containing = new ArrayList<Resource>();
+			List<Resource> before = new ArrayList<Resource>();
+			List<Resource> after = new ArrayList<Resource>();
+			List<Resource> remainingOverlapping = new ArrayList<Resource>();
+			for (int j = 0; j < resources.size(); j++) {
+				Resource resource = resources.get(j);
+				long[] interval = intervals.get(resource);
+				if (interval == null)
+					continue;
+				if (interval[0] <= high && interval[1] >= low) {
+					overlapping.add(resource);
+					if (j % 3 != 0)
+						remainingOverlapping.add(resource);
+				}
+				if (interval[0] <= low && interval[1] >= high)
+					containing.add(resource);
+				if (interval[1] < low)
+					before.add(resource);
+				if (interval[0] > low)
+					after.add(resource);
+			}
+			for (TemporalResourceIndex index : Arrays.asList(packed, concurrent, incremental)) {
+				assertResources(index.findOverlapping(field, low, high), overlapping.toArray(new Resource[0]));
+				assertResources(index.findContaining(field, low, high), containing.toArray(new Resource[0]));
+				assertResources(index.findBefore(field, low), before.toArray(new Resource[0]));
+				assertResources(index.findAfter(field, low), after.toArray(new Resource[0]));
+			}
+			assertResources(removed.findOverlapping(field, low, high), remainingOverlapping.toArray(new Resource[0]));
+		}
+	}
+
+	@Test
+	public void testInvalidQueries() {
+		TemporalResourceIndex index = new TemporalResourceIndex();
+		try {
+			index.findOverlapping(Field.CREATED, 2, 1);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "The start must not be after the end.");
+		}
+		try {
+			index.findAfter(null, 1);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "field must exist.");
+		}
+		try {
+			index.add(null);
+			fail("Allowed invalid data.");
+		}
+		catch (IllegalArgumentException e) {
+			expectMessage(e, "resource must exist.");
+		}
+	}
+}
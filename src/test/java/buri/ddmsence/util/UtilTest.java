@@ -1048,6 +1048,16 @@ public class UtilTest extends AbstractBaseTestCase {
 		assertEquals("&lt;test&gt;&quot;Brian&apos;s DDMSense &amp; DDMS&quot;&lt;/test&gt;",
 			Util.xmlEscape(testString));
 		assertEquals(null, Util.xmlEscape(null));
+		String plainString = "Brian Uri";
+		assertSame(plainString, Util.xmlEscape(plainString));
+	}
+
+	@Test
+	public void testXmlEscapeAppend() {
+		StringBuilder output = new StringBuilder("a&");
+		Util.xmlEscape("<b>&c", output);
+		Util.xmlEscape(null, output);
+		assertEquals("a&&lt;b&gt;&amp;c", output.toString());
 	}
 
 	@Test